@@ -30,4 +30,26 @@ CREATE TABLE IF NOT EXISTS timeline_creation_cache (
 -- 为timeline表添加复合索引，优化重复检测查询性能
 ALTER TABLE timeline ADD INDEX IF NOT EXISTS idx_name_time_range (name, start_time, end_time);
 ALTER TABLE timeline ADD INDEX IF NOT EXISTS idx_name_status (name, status);
-ALTER TABLE timeline ADD INDEX IF NOT EXISTS idx_created_at_status (created_at, status);
\ No newline at end of file
+ALTER TABLE timeline ADD INDEX IF NOT EXISTS idx_created_at_status (created_at, status);
+
+-- 创建大模型响应缓存表
+-- 按服务商、模型、规范化提示词和参数缓存响应，应用重启后仍可复用
+CREATE TABLE IF NOT EXISTS `llm_response_cache` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `cache_key` char(64) NOT NULL COMMENT '缓存键（服务商+模型+规范化提示词哈希+参数的SHA-256）',
+  `provider` varchar(100) NOT NULL COMMENT '服务商主机名',
+  `model` varchar(100) COMMENT '模型名称',
+  `prompt_hash` char(64) NOT NULL COMMENT '规范化提示词哈希',
+  `content` mediumblob NOT NULL COMMENT '响应内容（可能经过GZIP压缩）',
+  `compressed` tinyint(1) DEFAULT '0' COMMENT '是否压缩',
+  `original_size` int DEFAULT '0' COMMENT '原始字节数',
+  `stored_size` int DEFAULT '0' COMMENT '存储字节数',
+  `hit_count` int DEFAULT '0' COMMENT '命中次数',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `last_access_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '最后访问时间',
+  `expires_at` datetime NOT NULL COMMENT '过期时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_cache_key` (`cache_key`),
+  KEY `idx_expires_at` (`expires_at`),
+  KEY `idx_last_access_at` (`last_access_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='大模型响应缓存表';
@@ -34,6 +34,9 @@ public class DatabaseInitializer {
             // 执行数据库修复脚本
             executeSqlScript("db/fix_database.sql");
             
+            // 添加 timeline_event 表唯一键
+            ensureTimelineEventUniqueKey();
+            
             // 执行地理坐标表初始化脚本
             executeSqlScript("db/geographic_coordinates_init.sql");
             
@@ -50,6 +53,30 @@ public class DatabaseInitializer {
         }
     }
 
+    /**
+     * 唯一键不存在时，先删除重复的关联记录（每组保留ID最小的一条）再添加唯一键
+     * 删除需要全表自连接，只在添加唯一键时执行一次
+     */
+    private void ensureTimelineEventUniqueKey() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() " +
+                    "AND TABLE_NAME = 'timeline_event' AND INDEX_NAME = 'uk_timeline_event'", Integer.class);
+            if (existing != null && existing > 0) {
+                return;
+            }
+
+            int removed = jdbcTemplate.update(
+                    "DELETE te1 FROM `timeline_event` te1 JOIN `timeline_event` te2 " +
+                    "ON te1.timeline_id = te2.timeline_id AND te1.event_id = te2.event_id AND te1.id > te2.id");
+            jdbcTemplate.execute(
+                    "ALTER TABLE `timeline_event` ADD UNIQUE KEY `uk_timeline_event` (`timeline_id`, `event_id`)");
+            log.info("已添加 timeline_event 唯一键，删除重复关联 {} 条", removed);
+        } catch (Exception e) {
+            log.warn("添加 timeline_event 唯一键失败: {}", e.getMessage());
+        }
+    }
+
     /**
      * 执行 SQL 脚本
      */
@@ -82,8 +109,9 @@ public class DatabaseInitializer {
                         jdbcTemplate.execute(statement);
                         log.debug("执行SQL成功: {}", statement.substring(0, Math.min(50, statement.length())));
                     } catch (Exception e) {
-                        // 忽略字段已存在等错误
+                        // 忽略字段、索引已存在等错误
                         if (!e.getMessage().contains("Duplicate column name") && 
+                            !e.getMessage().contains("Duplicate key name") &&
                             !e.getMessage().contains("already exists")) {
                             log.warn("执行SQL失败: {}, 错误: {}", statement.substring(0, Math.min(50, statement.length())), e.getMessage());
                         }
@@ -6,6 +6,7 @@ import com.hotech.events.dto.ApiResponse;
 import com.hotech.events.exception.ApiException;
 import com.hotech.events.exception.NetworkException;
 import com.hotech.events.exception.TimelineException;
+import com.hotech.events.exception.TimelineQueueFullException;
 import com.hotech.events.exception.ValidationException;
 import com.hotech.events.service.SystemMonitoringService;
 import lombok.extern.slf4j.Slf4j;
@@ -107,6 +108,14 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error("网络连接异常，请稍后重试"));
     }
 
+    @ExceptionHandler(TimelineQueueFullException.class)
+    public ResponseEntity<ApiResponse<String>> handleTimelineQueueFullException(TimelineQueueFullException ex) {
+        log.warn("时间线生成队列已满: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage()));
+    }
+
     @ExceptionHandler(TimelineException.class)
     public ResponseEntity<ApiResponse<String>> handleTimelineException(TimelineException ex) {
         log.error("时间线业务异常: operation={}, errorCode={}, message={}", 
@@ -0,0 +1,117 @@
+package com.hotech.events.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 大模型HTTP传输配置
+ * 所有DeepSeek/火山引擎调用共享同一个连接池，按服务商区分超时和HTTP/2设置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.llm.http")
+public class LlmHttpClientConfig {
+
+    /**
+     * 连接池最大连接数（每个目标地址）
+     */
+    private int maxConnections = 50;
+
+    /**
+     * 等待获取连接的最大排队数
+     */
+    private int pendingAcquireMaxCount = 200;
+
+    /**
+     * 等待获取连接的超时时间（毫秒）
+     */
+    private long pendingAcquireTimeout = 30000;
+
+    /**
+     * 空闲连接保活时间（毫秒），超过后关闭
+     */
+    private long maxIdleTime = 60000;
+
+    /**
+     * 连接最大存活时间（毫秒）
+     */
+    private long maxLifeTime = 600000;
+
+    /**
+     * 后台清理空闲连接的间隔（毫秒）
+     */
+    private long evictInterval = 30000;
+
+    /**
+     * 单个响应允许缓冲的最大字节数
+     */
+    private int maxInMemorySize = 16 * 1024 * 1024;
+
+    /**
+     * 默认连接超时（毫秒）
+     */
+    private int connectTimeout = 10000;
+
+    /**
+     * 默认读取超时（毫秒）
+     */
+    private long readTimeout = 120000;
+
+    /**
+     * 默认是否尝试HTTP/2（TLS下通过ALPN协商，不支持时回退HTTP/1.1）
+     */
+    private boolean http2Enabled = true;
+
+    /**
+     * 按服务商的传输设置，key为服务商名称
+     */
+    private Map<String, ProviderSettings> providers = new LinkedHashMap<>();
+
+    /**
+     * 服务商传输设置，未配置的字段沿用默认值
+     */
+    @Data
+    public static class ProviderSettings {
+        /**
+         * 服务商主机名，用于按请求URL匹配
+         */
+        private String host;
+
+        /**
+         * 连接超时（毫秒）
+         */
+        private Integer connectTimeout;
+
+        /**
+         * 读取超时（毫秒）
+         */
+        private Long readTimeout;
+
+        /**
+         * 是否尝试HTTP/2
+         */
+        private Boolean http2Enabled;
+    }
+
+    /**
+     * 大模型调用共享连接池
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider llmConnectionProvider() {
+        return ConnectionProvider.builder("llm-http")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeout))
+                .maxIdleTime(Duration.ofMillis(maxIdleTime))
+                .maxLifeTime(Duration.ofMillis(maxLifeTime))
+                .evictInBackground(Duration.ofMillis(evictInterval))
+                .build();
+    }
+}
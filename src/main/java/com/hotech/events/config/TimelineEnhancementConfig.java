@@ -219,6 +219,11 @@ public class TimelineEnhancementConfig {
          */
         private CommonConfig common = new CommonConfig();
         
+        /**
+         * 自适应并发限制配置
+         */
+        private AdaptiveConcurrencyConfig adaptive = new AdaptiveConcurrencyConfig();
+        
         @Data
         public static class VolcengineConfig {
             /**
@@ -250,6 +255,16 @@ public class TimelineEnhancementConfig {
              * 请求间隔（毫秒）
              */
             private int requestInterval = 1000;
+            
+            /**
+             * 每分钟最大请求数（RPM）
+             */
+            private int requestsPerMinute = 60;
+            
+            /**
+             * 每分钟最大Token数（TPM），小于等于0表示不限制
+             */
+            private int tokensPerMinute = 400000;
         }
         
         @Data
@@ -283,6 +298,49 @@ public class TimelineEnhancementConfig {
              * 请求间隔（毫秒）
              */
             private int requestInterval = 1500;
+            
+            /**
+             * 每分钟最大请求数（RPM）
+             */
+            private int requestsPerMinute = 60;
+            
+            /**
+             * 每分钟最大Token数（TPM），小于等于0表示不限制
+             */
+            private int tokensPerMinute = 300000;
+        }
+        
+        @Data
+        public static class AdaptiveConcurrencyConfig {
+            /**
+             * 是否启用自适应并发限制
+             */
+            private boolean enabled = true;
+            
+            /**
+             * 最小并发数
+             */
+            private int minLimit = 1;
+            
+            /**
+             * 最大并发数
+             */
+            private int maxLimit = 20;
+            
+            /**
+             * 过载时的回退比例
+             */
+            private double backoffRatio = 0.7;
+            
+            /**
+             * 延迟容忍倍数，超过平均延迟该倍数视为过载
+             */
+            private double latencyTolerance = 3.0;
+            
+            /**
+             * 获取调用许可的最长等待时间（毫秒）
+             */
+            private long acquireTimeout = 60000;
         }
         
         @Data
@@ -297,6 +355,11 @@ public class TimelineEnhancementConfig {
              */
             private RetryStrategyConfig retryStrategy = new RetryStrategyConfig();
             
+            /**
+             * 限流时最长等待时间（毫秒），预计等待超过该值时直接拒绝
+             */
+            private long rateLimitMaxWait = 30000;
+            
             @Data
             public static class CompletenessCheckConfig {
                 /**
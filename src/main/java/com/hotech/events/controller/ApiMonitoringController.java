@@ -4,6 +4,10 @@ import com.hotech.events.common.Result;
 import com.hotech.events.entity.ApiCallRecord;
 import com.hotech.events.service.ApiMonitoringService;
 import com.hotech.events.service.EnhancedApiCallManager;
+import com.hotech.events.service.GenerationLeaseService;
+import com.hotech.events.service.TimeSegmentationService;
+import com.hotech.events.service.TimelineJobService;
+import com.hotech.events.service.TimelineProgressService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -14,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +37,18 @@ public class ApiMonitoringController {
     
     @Autowired
     private EnhancedApiCallManager enhancedApiCallManager;
+    
+    @Autowired
+    private TimeSegmentationService timeSegmentationService;
+    
+    @Autowired
+    private TimelineJobService timelineJobService;
+    
+    @Autowired
+    private TimelineProgressService timelineProgressService;
+    
+    @Autowired
+    private GenerationLeaseService generationLeaseService;
 
     @GetMapping("/stats")
     @Operation(summary = "获取API调用统计")
@@ -223,6 +240,23 @@ public class ApiMonitoringController {
         }
     }
 
+    @GetMapping("/scheduler/stats")
+    @Operation(summary = "获取生成任务调度统计", description = "各优先级的任务排队数、时间段调用队列深度和等待时间，以及进度存储、订阅和节点租约统计")
+    public Result<Map<String, Object>> getSchedulerStats() {
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("jobs", timelineJobService.getQueueStats());
+            stats.put("segments", timeSegmentationService.getSchedulerStats());
+            stats.put("progress", timelineProgressService.getStats());
+            stats.put("leases", generationLeaseService.getStats());
+            return Result.success(stats);
+            
+        } catch (Exception e) {
+            log.error("获取生成任务调度统计失败", e);
+            return Result.error("获取生成任务调度统计失败: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/manager/reset-health-cache")
     @Operation(summary = "重置API健康状态缓存")
     public Result<String> resetHealthCache() {
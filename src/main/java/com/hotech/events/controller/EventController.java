@@ -5,6 +5,7 @@ import com.hotech.events.dto.ApiResponse;
 import com.hotech.events.dto.event.EventDTO;
 import com.hotech.events.dto.event.EventQueryDTO;
 import com.hotech.events.dto.event.BatchEventRequestDTO;
+import com.hotech.events.service.EventCompactionService;
 import com.hotech.events.service.EventService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -35,6 +36,9 @@ public class EventController {
     @Autowired
     private EventService eventService;
 
+    @Autowired
+    private EventCompactionService eventCompactionService;
+
     /**
      * 获取事件列表
      */
@@ -301,4 +305,40 @@ public class EventController {
             return ResponseEntity.ok(ApiResponse.error("查询失败：" + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 启动近似重复事件合并
+     */
+    @PostMapping("/near-duplicates/compact")
+    @Operation(summary = "合并近似重复事件", description = "在后台按MinHash签名扫描所有事件，将近似重复的事件合并到ID最小的事件；默认只预览，结果通过状态接口查看")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> compactNearDuplicates(
+            @Parameter(description = "是否只预览将被合并的事件组") @RequestParam(defaultValue = "true") boolean dryRun) {
+        try {
+            log.info("启动近似重复事件合并请求: dryRun={}", dryRun);
+            
+            if (!eventCompactionService.startCompaction(dryRun)) {
+                return ResponseEntity.ok(ApiResponse.error("合并任务正在执行"));
+            }
+            
+            return ResponseEntity.ok(ApiResponse.success(dryRun ? "合并预览已启动" : "合并任务已启动",
+                    eventCompactionService.getStatus()));
+        } catch (Exception e) {
+            log.error("启动近似重复事件合并失败", e);
+            return ResponseEntity.ok(ApiResponse.error("启动失败：" + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取近似重复事件合并状态
+     */
+    @GetMapping("/near-duplicates/status")
+    @Operation(summary = "获取近似重复事件合并状态", description = "获取合并任务状态、最近一次结果和近似重复索引统计")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getNearDuplicateStatus() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("查询成功", eventCompactionService.getStatus()));
+        } catch (Exception e) {
+            log.error("获取近似重复事件合并状态失败", e);
+            return ResponseEntity.ok(ApiResponse.error("查询失败：" + e.getMessage()));
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.hotech.events.entity.Person;
 import com.hotech.events.mapper.DictionaryMapper;
 import com.hotech.events.mapper.OrganizationMapper;
 import com.hotech.events.mapper.PersonMapper;
+import com.hotech.events.service.DictionaryCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +45,8 @@ public class TestController {
     private OrganizationMapper organizationMapper;
     @Autowired
     private PersonMapper personMapper;
+    @Autowired
+    private DictionaryCacheService dictionaryCacheService;
 
     private static final Logger log = LoggerFactory.getLogger(TestController.class);
 
@@ -143,6 +146,7 @@ public class TestController {
             
             // 清空现有数据
             dictionaryMapper.delete(null);
+            dictionaryCacheService.clear();
             
             List<Dictionary> dictionaries = new ArrayList<>();
             LocalDateTime now = LocalDateTime.now();
@@ -6,16 +6,23 @@ import com.hotech.events.dto.ApiResponse;
 import com.hotech.events.dto.TimelineGenerateRequest;
 import com.hotech.events.entity.Timeline;
 import com.hotech.events.entity.TimelineCreationCache;
+import com.hotech.events.exception.TimelineQueueFullException;
 import com.hotech.events.service.TimelineService;
 import com.hotech.events.service.TimelineDuplicationDetectionService;
+import com.hotech.events.service.TimelineProgressService;
+import com.hotech.events.util.PriorityClass;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -42,6 +49,12 @@ public class TimelineController {
     @Autowired(required = false)
     private TimelineDuplicationDetectionService duplicationDetectionService;
 
+    @Autowired
+    private TimelineProgressService timelineProgressService;
+
+    @Value("${timeline.job.fast-time-budget-seconds:20}")
+    private int fastTimeBudgetSeconds;
+
     /**
      * 分页查询时间线列表
      * 
@@ -389,7 +402,9 @@ public class TimelineController {
                     request.getDescription(),
                     request.getRegionIds(),
                     request.getStartTime(),
-                    request.getEndTime());
+                    request.getEndTime(),
+                    resolveTimeBudget(request),
+                    PriorityClass.parse(request.getPriority(), null));
 
             // 更新缓存记录状态
             if (checkResult != null && checkResult.getCacheRecord() != null && duplicationDetectionService != null) {
@@ -413,6 +428,10 @@ public class TimelineController {
 
             log.info("成功创建时间线生成任务: {}", result);
             return ResponseEntity.ok(ApiResponse.success(result));
+        } catch (TimelineQueueFullException e) {
+            log.warn("时间线生成队列已满: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage()));
         } catch (Exception e) {
             log.error("生成时间线失败", e);
             return ResponseEntity.ok(ApiResponse.error("生成时间线失败: " + e.getMessage()));
@@ -506,6 +525,10 @@ public class TimelineController {
 
             log.info("成功创建时间线生成任务: {}", result);
             return ResponseEntity.ok(ApiResponse.success(result));
+        } catch (TimelineQueueFullException e) {
+            log.warn("时间线生成队列已满: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage()));
         } catch (Exception e) {
             log.error("生成时间线失败", e);
             return ResponseEntity.ok(ApiResponse.error("生成时间线失败: " + e.getMessage()));
@@ -558,6 +581,34 @@ public class TimelineController {
         }
     }
 
+    /**
+     * 订阅时间线生成进度（SSE）
+     * 连接建立后立即推送当前进度，之后推送进度变化（progress事件）和新入库的事件（event事件），
+     * 生成完成或失败后服务端关闭连接
+     *
+     * @param id 时间线ID
+     * @return SSE连接
+     */
+    @GetMapping(value = "/{id}/generation-progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅时间线生成进度", description = "通过SSE推送时间线生成进度和新入库的事件")
+    public ResponseEntity<SseEmitter> streamGenerationProgress(
+            @Parameter(description = "时间线ID", required = true) @PathVariable Long id) {
+
+        log.info("订阅时间线生成进度: id={}", id);
+
+        Map<String, Object> progress = timelineService.getGenerationProgress(id);
+        if (progress == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        try {
+            return ResponseEntity.ok(timelineProgressService.subscribe(id, progress));
+        } catch (IllegalStateException e) {
+            log.warn("订阅时间线生成进度被拒绝: id={}, reason={}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+    }
+
     /**
      * 取消时间线生成
      * 
@@ -588,6 +639,72 @@ public class TimelineController {
         }
     }
 
+    /**
+     * 重试时间线生成
+     * 
+     * @param id 时间线ID
+     * @return 重试结果
+     */
+    @PostMapping("/{id}/retry-generation")
+    @Operation(summary = "重试时间线生成", description = "重新提交失败或已取消的时间线生成任务，已完成的时间段从检查点恢复")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> retryGeneration(
+            @Parameter(description = "时间线ID", required = true) @PathVariable Long id) {
+
+        log.info("重试时间线生成: id={}", id);
+
+        try {
+            boolean result = timelineService.retryGeneration(id);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("retried", result);
+            response.put("timelineId", id);
+            response.put("message", result ? "时间线生成任务已重新提交" : "时间线不存在或不处于失败状态");
+
+            log.info("时间线生成重试结果: id={}, result={}", id, result);
+            return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (TimelineQueueFullException e) {
+            log.warn("时间线生成队列已满: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("重试时间线生成失败", e);
+            return ResponseEntity.ok(ApiResponse.error("重试时间线生成失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 增量刷新时间线
+     * 
+     * @param id 时间线ID
+     * @return 刷新结果
+     */
+    @PostMapping("/{id}/refresh")
+    @Operation(summary = "增量刷新时间线", description = "只检索上次成功生成以来的事件，去重后追加到时间线")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> refreshTimeline(
+            @Parameter(description = "时间线ID", required = true) @PathVariable Long id) {
+
+        log.info("增量刷新时间线: id={}", id);
+
+        try {
+            boolean result = timelineService.refreshTimeline(id);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("refreshing", result);
+            response.put("timelineId", id);
+            response.put("message", result ? "时间线刷新任务已提交" : "时间线不存在、未完成生成或没有需要刷新的时间窗口");
+
+            log.info("时间线增量刷新提交结果: id={}, result={}", id, result);
+            return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (TimelineQueueFullException e) {
+            log.warn("时间线生成队列已满: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("增量刷新时间线失败", e);
+            return ResponseEntity.ok(ApiResponse.error("增量刷新时间线失败: " + e.getMessage()));
+        }
+    }
+
     /**
      * 添加事件到时间线（路径参数方式）
      * 
@@ -1058,4 +1175,14 @@ public class TimelineController {
             return ResponseEntity.ok(ApiResponse.error("获取数据库统计信息失败: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 确定生成请求的时间预算：优先使用请求指定的预算，快速生成使用默认快速预算，否则不限制
+     */
+    private Integer resolveTimeBudget(TimelineGenerateRequest request) {
+        if (request.getTimeBudgetSeconds() != null) {
+            return request.getTimeBudgetSeconds();
+        }
+        return Boolean.TRUE.equals(request.getFast()) ? fastTimeBudgetSeconds : null;
+    }
+}
@@ -23,6 +23,11 @@ public class CacheStats {
      */
     private Long missCount;
     
+    /**
+     * 合并到进行中相同请求的次数
+     */
+    private Long coalescedCount;
+    
     /**
      * 缓存命中率
      */
@@ -0,0 +1,25 @@
+package com.hotech.events.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 单个时间段的事件获取结果
+ */
+@Data
+@AllArgsConstructor
+public class SegmentFetchResult {
+
+    /**
+     * 获取到的有效事件
+     */
+    private List<EventData> events;
+
+    /**
+     * 时间段是否完整获取：响应未被截断、未中途断流、未出错且未超过截止时间。
+     * 不完整的结果不能作为检查点或覆盖记录复用
+     */
+    private boolean complete;
+}
@@ -1,8 +1,10 @@
 package com.hotech.events.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
@@ -63,4 +65,27 @@ public class TimelineGenerateRequest {
      * 是否启用关系分析
      */
     private Boolean enableRelationAnalysis = true;
+    
+    /**
+     * 时间预算（秒），为空时不限制
+     * 超过预算后停止检索和分析，返回已获得的事件并标记为不完整
+     */
+    @Min(value = 1, message = "时间预算必须大于0秒")
+    private Integer timeBudgetSeconds;
+    
+    /**
+     * 是否为快速生成（未指定时间预算时使用快速生成的默认预算）
+     */
+    private Boolean fast = false;
+    
+    /**
+     * 优先级：INTERACTIVE(用户交互)、SCHEDULED(定时刷新)、BULK(批量回填)，为空时按时间跨度判断
+     */
+    private String priority;
+    
+    /**
+     * 是否为增量刷新（只检索新增时间窗口，事件不足时不以备用数据补充）
+     */
+    @JsonIgnore
+    private boolean incremental = false;
 }
\ No newline at end of file
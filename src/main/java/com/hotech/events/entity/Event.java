@@ -196,6 +196,18 @@ public class Event {
     @TableField("geographic_updated_at")
     private LocalDateTime geographicUpdatedAt;
     
+    /**
+     * 内容指纹（规范化标题的MD5），用于按索引查找重复事件，标题为空时为空字符串
+     */
+    @TableField("content_fingerprint")
+    private String contentFingerprint;
+    
+    /**
+     * 分块键（事件日期+主体+客体+事件类型的MD5），用于按索引查找重复事件，字段不全时为空字符串
+     */
+    @TableField("blocking_key")
+    private String blockingKey;
+    
     /**
      * 检查是否有地理坐标信息
      */
@@ -0,0 +1,30 @@
+package com.hotech.events.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 事件LSH分段索引实体类
+ * 签名的每一段对应一条记录，分段键相同的事件互为近似重复候选
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("event_lsh_band")
+public class EventLshBand {
+
+    /**
+     * 分段键（签名版本、段序号和该段哈希值的组合哈希）
+     */
+    @TableField("band_key")
+    private Long bandKey;
+
+    /**
+     * 事件ID
+     */
+    @TableField("event_id")
+    private Long eventId;
+}
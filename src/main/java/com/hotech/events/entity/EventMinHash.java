@@ -0,0 +1,42 @@
+package com.hotech.events.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 事件MinHash签名实体类
+ * 每个事件一条，签名由规范化标题的字符n-gram计算，用于近似重复事件查找和合并
+ */
+@Data
+@TableName("event_minhash")
+public class EventMinHash {
+
+    /**
+     * 事件ID
+     */
+    @TableId(value = "event_id", type = IdType.INPUT)
+    private Long eventId;
+
+    /**
+     * 签名（每个哈希值4字节）
+     */
+    @TableField("signature")
+    private byte[] signature;
+
+    /**
+     * 签名版本（分片大小、哈希函数数、分段数）
+     */
+    @TableField("signature_version")
+    private String signatureVersion;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
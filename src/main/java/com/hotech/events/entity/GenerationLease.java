@@ -0,0 +1,61 @@
+package com.hotech.events.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 生成租约实体类
+ * 多节点部署时协调生成任务的归属：持有未过期租约的节点独占对应的任务，
+ * 节点宕机后租约过期，任务由其他节点接管；每次接管递增防护令牌，旧持有者的写入被拒绝。
+ */
+@Data
+@TableName("generation_lease")
+public class GenerationLease {
+
+    /**
+     * 租约键（如 job:任务ID）
+     */
+    @TableId(value = "lease_key", type = IdType.INPUT)
+    private String leaseKey;
+
+    /**
+     * 持有节点ID，为空表示未被持有
+     */
+    @TableField("owner_id")
+    private String ownerId;
+
+    /**
+     * 防护令牌，每次获取租约时递增
+     */
+    @TableField("fencing_token")
+    private Long fencingToken;
+
+    /**
+     * 过期时间
+     */
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+
+    /**
+     * 最近一次心跳时间
+     */
+    @TableField("heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,96 @@
+package com.hotech.events.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 大模型响应缓存实体类
+ * 按内容寻址持久化模型输出，应用重启后仍可复用
+ */
+@Data
+@TableName("llm_response_cache")
+public class LlmResponseCache {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 缓存键（服务商+模型+规范化提示词哈希+参数的SHA-256）
+     */
+    @TableField("cache_key")
+    private String cacheKey;
+
+    /**
+     * 服务商主机名
+     */
+    @TableField("provider")
+    private String provider;
+
+    /**
+     * 模型名称
+     */
+    @TableField("model")
+    private String model;
+
+    /**
+     * 规范化提示词哈希
+     */
+    @TableField("prompt_hash")
+    private String promptHash;
+
+    /**
+     * 响应内容（可能经过GZIP压缩）
+     */
+    @TableField("content")
+    private byte[] content;
+
+    /**
+     * 是否压缩
+     */
+    @TableField("compressed")
+    private Boolean compressed;
+
+    /**
+     * 原始字节数
+     */
+    @TableField("original_size")
+    private Integer originalSize;
+
+    /**
+     * 存储字节数
+     */
+    @TableField("stored_size")
+    private Integer storedSize;
+
+    /**
+     * 命中次数
+     */
+    @TableField("hit_count")
+    private Integer hitCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 最后访问时间
+     */
+    @TableField("last_access_at")
+    private LocalDateTime lastAccessAt;
+
+    /**
+     * 过期时间
+     */
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+}
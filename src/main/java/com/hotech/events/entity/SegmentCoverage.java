@@ -0,0 +1,60 @@
+package com.hotech.events.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 时间段覆盖记录实体类
+ * 记录某个地区集合、时间窗口和提示词模板版本的事件已在何时通过大模型获取，跨时间线复用
+ */
+@Data
+@TableName("segment_coverage")
+public class SegmentCoverage {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 地区集合键（排序后的地区ID，逗号分隔；全球为global）
+     */
+    @TableField("region_key")
+    private String regionKey;
+
+    /**
+     * 时间窗口开始时间
+     */
+    @TableField("window_start")
+    private LocalDateTime windowStart;
+
+    /**
+     * 时间窗口结束时间
+     */
+    @TableField("window_end")
+    private LocalDateTime windowEnd;
+
+    /**
+     * 提示词模板版本
+     */
+    @TableField("prompt_version")
+    private String promptVersion;
+
+    /**
+     * 获取到的事件数量
+     */
+    @TableField("event_count")
+    private Integer eventCount;
+
+    /**
+     * 获取时间
+     */
+    @TableField("fetched_at")
+    private LocalDateTime fetchedAt;
+}
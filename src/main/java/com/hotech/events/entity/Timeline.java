@@ -63,6 +63,12 @@ public class Timeline {
     @TableField("relation_count")
     private Integer relationCount;
     
+    /**
+     * 最后一次完整生成或刷新成功的时间，增量刷新从该时间开始检索
+     */
+    @TableField("last_generated_at")
+    private LocalDateTime lastGeneratedAt;
+    
     /**
      * 创建时间
      */
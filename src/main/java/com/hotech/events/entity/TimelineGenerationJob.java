@@ -0,0 +1,139 @@
+package com.hotech.events.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 时间线生成任务实体类
+ * 持久化排队和执行中的生成任务，应用重启后可恢复
+ */
+@Data
+@TableName("timeline_generation_job")
+public class TimelineGenerationJob {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 时间线ID
+     */
+    @TableField("timeline_id")
+    private Long timelineId;
+
+    /**
+     * 地区ID列表（逗号分隔）
+     */
+    @TableField("region_ids")
+    private String regionIds;
+
+    /**
+     * 开始时间
+     */
+    @TableField("start_time")
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    @TableField("end_time")
+    private LocalDateTime endTime;
+
+    /**
+     * 任务类型：GENERATE(完整生成), REFRESH(增量刷新)
+     */
+    @TableField("job_type")
+    private String jobType;
+
+    /**
+     * 优先级：INTERACTIVE(用户交互), SCHEDULED(定时刷新), BULK(批量回填)
+     */
+    @TableField("priority")
+    private String priority;
+
+    /**
+     * 截止时间，为空时不限制
+     */
+    @TableField("deadline_at")
+    private LocalDateTime deadlineAt;
+
+    /**
+     * 状态：QUEUED(排队中), RUNNING(执行中), COMPLETED(已完成), FAILED(失败), CANCELLED(已取消)
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 执行节点ID
+     */
+    @TableField("owner_node")
+    private String ownerNode;
+
+    /**
+     * 执行时持有的租约防护令牌，结束任务时作为条件，租约被其他节点接管后旧节点的结果不生效
+     */
+    @TableField("lease_token")
+    private Long leaseToken;
+
+    /**
+     * 执行次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 错误信息
+     */
+    @TableField("error_message")
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 开始执行时间
+     */
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    @TableField("finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * 状态常量
+     */
+    public static class Status {
+        public static final String QUEUED = "QUEUED";
+        public static final String RUNNING = "RUNNING";
+        public static final String COMPLETED = "COMPLETED";
+        public static final String FAILED = "FAILED";
+        public static final String CANCELLED = "CANCELLED";
+    }
+
+    /**
+     * 任务类型常量
+     */
+    public static class Type {
+        public static final String GENERATE = "GENERATE";
+        public static final String REFRESH = "REFRESH";
+    }
+}
@@ -0,0 +1,66 @@
+package com.hotech.events.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 时间线分段检查点实体类
+ * 保存每个时间段已解析并验证的事件，生成失败或重启后只需重新获取缺失的时间段
+ */
+@Data
+@TableName("timeline_segment_checkpoint")
+public class TimelineSegmentCheckpoint {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 时间线ID
+     */
+    @TableField("timeline_id")
+    private Long timelineId;
+
+    /**
+     * 时间段ID
+     */
+    @TableField("segment_id")
+    private String segmentId;
+
+    /**
+     * 时间段开始时间
+     */
+    @TableField("segment_start")
+    private LocalDateTime segmentStart;
+
+    /**
+     * 时间段结束时间
+     */
+    @TableField("segment_end")
+    private LocalDateTime segmentEnd;
+
+    /**
+     * 事件数量
+     */
+    @TableField("event_count")
+    private Integer eventCount;
+
+    /**
+     * 事件列表（JSON格式存储）
+     */
+    @TableField("events_json")
+    private String eventsJson;
+
+    /**
+     * 创建时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
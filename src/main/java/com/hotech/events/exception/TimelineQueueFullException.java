@@ -0,0 +1,11 @@
+package com.hotech.events.exception;
+
+/**
+ * 时间线生成队列已满异常
+ */
+public class TimelineQueueFullException extends TimelineException {
+
+    public TimelineQueueFullException(String message) {
+        super(message, "QUEUE_FULL", "SUBMIT_GENERATION_JOB");
+    }
+}
@@ -2,7 +2,9 @@ package com.hotech.events.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hotech.events.entity.Dictionary;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -68,4 +70,32 @@ public interface DictionaryMapper extends BaseMapper<Dictionary> {
      * @return 字典对象
      */
     Dictionary findByTypeAndValue(@Param("dictType") String dictType, @Param("dictValue") String dictValue);
-} 
\ No newline at end of file
+
+    /**
+     * 批量添加字典项，类型和编码已存在的忽略
+     * 
+     * @param dictionaries 字典列表
+     * @return 新增的字典项数
+     */
+    @Insert({
+        "<script>",
+        "INSERT IGNORE INTO dictionary (dict_type, dict_code, dict_name, parent_id, sort_order, status,",
+        "   is_auto_added, created_at, updated_at, created_by, updated_by) VALUES",
+        "<foreach collection='dictionaries' item='d' separator=','>",
+        "   (#{d.dictType}, #{d.dictCode}, #{d.dictName}, #{d.parentId}, #{d.sortOrder}, #{d.status},",
+        "   #{d.isAutoAdded}, NOW(), NOW(), 'system', 'system')",
+        "</foreach>",
+        "</script>"
+    })
+    int insertIgnoreBatch(@Param("dictionaries") List<Dictionary> dictionaries);
+
+    /**
+     * 查询指定类型最近添加的字典编码
+     * 
+     * @param dictType 字典类型
+     * @param limit 最大数量
+     * @return 字典编码列表
+     */
+    @Select("SELECT dict_code FROM dictionary WHERE dict_type = #{dictType} ORDER BY id DESC LIMIT #{limit}")
+    List<String> findRecentCodesByType(@Param("dictType") String dictType, @Param("limit") int limit);
+}
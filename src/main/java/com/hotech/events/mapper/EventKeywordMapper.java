@@ -3,6 +3,7 @@ package com.hotech.events.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hotech.events.entity.EventKeyword;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -56,4 +57,19 @@ public interface EventKeywordMapper extends BaseMapper<EventKeyword> {
      * @return 热门关键词统计
      */
     List<java.util.Map<String, Object>> countHotKeywords(@Param("limit") Integer limit);
-} 
\ No newline at end of file
+
+    /**
+     * 将事件的关键词转移到另一个事件
+     * 
+     * @param fromEventIds 原事件ID列表
+     * @param toEventId 目标事件ID
+     * @return 更新数量
+     */
+    @Update({
+        "<script>",
+        "UPDATE event_keyword SET event_id = #{toEventId} WHERE event_id IN",
+        "<foreach collection='fromEventIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int reassignEvents(@Param("fromEventIds") List<Long> fromEventIds, @Param("toEventId") Long toEventId);
+}
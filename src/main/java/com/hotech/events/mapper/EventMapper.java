@@ -1,12 +1,17 @@
 package com.hotech.events.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotech.events.dto.EventData;
 import com.hotech.events.entity.Event;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +56,36 @@ public interface EventMapper extends BaseMapper<Event> {
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime);
             
+    /**
+     * 按天统计指定地区和时间范围内的事件数量
+     * @param regionNames 地区名称列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 每天的事件数量（event_day, event_count）
+     */
+    @Select({
+        "<script>",
+        "SELECT DATE(e.event_time) AS event_day, COUNT(*) AS event_count FROM event e",
+        "<where>",
+        "   e.event_time &gt;= #{startTime}",
+        "   AND e.event_time &lt;= #{endTime}",
+        "   <if test='regionNames != null and regionNames.size() > 0'>",
+        "       AND (",
+        "           <foreach collection='regionNames' item='region' separator=' OR '>",
+        "               e.event_location LIKE CONCAT('%', #{region}, '%')",
+        "           </foreach>",
+        "       )",
+        "   </if>",
+        "   AND e.status = 1",
+        "</where>",
+        "GROUP BY DATE(e.event_time)",
+        "</script>"
+    })
+    List<Map<String, Object>> countEventsByDay(
+            @Param("regionNames") List<String> regionNames,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime);
+    
     /**
      * 查询所有事件
      * @return 事件列表
@@ -86,10 +121,206 @@ public interface EventMapper extends BaseMapper<Event> {
      * @return 匹配的事件列表
      */
     @Select("SELECT * FROM event WHERE event_time BETWEEN #{startTime} AND #{endTime} AND event_location LIKE CONCAT('%', #{location}, '%') AND status = 1 LIMIT 10")
-    List<Event> findByTimeAndLocation(@Param("startTime") LocalDateTime startTime, 
-                                     @Param("endTime") LocalDateTime endTime, 
+    List<Event> findByTimeAndLocation(@Param("startTime") LocalDateTime startTime,
+                                     @Param("endTime") LocalDateTime endTime,
                                      @Param("location") String location);
-    
+
+    /**
+     * 一次查询取回一批待存储事件的候选重复事件
+     * 按标题包含、主体客体类型相同、前后1小时内地点包含查找，任一条件匹配即返回；
+     * 标题条件无法使用索引，只在历史事件指纹回填完成前使用
+     * @param events 待存储事件（每个事件至少满足一种查找条件）
+     * @param limit 最大返回数量
+     * @return 候选事件列表
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM event WHERE status = 1 AND (",
+        "<foreach collection='events' item='e' separator=' OR '>",
+        "   <trim prefix='(' suffix=')' prefixOverrides='OR '>",
+        "       <if test='e.title != null and e.title.trim().length() > 0'>",
+        "           OR event_title LIKE CONCAT('%', #{e.title}, '%')",
+        "       </if>",
+        "       <if test='e.subject != null and e.subject.trim().length() > 0 and e.object != null",
+        "               and e.object.trim().length() > 0 and e.eventType != null and e.eventType.trim().length() > 0'>",
+        "           OR (subject = #{e.subject} AND object = #{e.object} AND event_type = #{e.eventType})",
+        "       </if>",
+        "       <if test='e.eventTime != null and e.location != null and e.location.trim().length() > 0'>",
+        "           OR (event_time BETWEEN DATE_SUB(#{e.eventTime}, INTERVAL 1 HOUR)",
+        "               AND DATE_ADD(#{e.eventTime}, INTERVAL 1 HOUR)",
+        "               AND event_location LIKE CONCAT('%', #{e.location}, '%'))",
+        "       </if>",
+        "   </trim>",
+        "</foreach>",
+        ") ORDER BY id LIMIT #{limit}",
+        "</script>"
+    })
+    List<Event> findDuplicateCandidates(@Param("events") List<EventData> events, @Param("limit") int limit);
+
+    /**
+     * 按内容指纹、分块键和时间地点查找候选重复事件
+     * 指纹和分块键为索引等值查询，时间地点条件先按事件时间索引取范围再过滤地点
+     * @param fingerprints 内容指纹列表
+     * @param blockingKeys 分块键列表
+     * @param timeLocationEvents 需要按时间地点查找的事件（事件时间和地点不为空）
+     * @param limit 最大返回数量
+     * @return 候选事件列表
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM event WHERE status = 1 AND (",
+        "<trim prefixOverrides='OR '>",
+        "   <if test='fingerprints != null and fingerprints.size() > 0'>",
+        "       OR content_fingerprint IN",
+        "       <foreach collection='fingerprints' item='fp' open='(' separator=',' close=')'>#{fp}</foreach>",
+        "   </if>",
+        "   <if test='blockingKeys != null and blockingKeys.size() > 0'>",
+        "       OR blocking_key IN",
+        "       <foreach collection='blockingKeys' item='key' open='(' separator=',' close=')'>#{key}</foreach>",
+        "   </if>",
+        "   <if test='timeLocationEvents != null'>",
+        "       <foreach collection='timeLocationEvents' item='e'>",
+        "           OR (event_time BETWEEN DATE_SUB(#{e.eventTime}, INTERVAL 1 HOUR)",
+        "               AND DATE_ADD(#{e.eventTime}, INTERVAL 1 HOUR)",
+        "               AND event_location LIKE CONCAT('%', #{e.location}, '%'))",
+        "       </foreach>",
+        "   </if>",
+        "</trim>",
+        ") LIMIT #{limit}",
+        "</script>"
+    })
+    List<Event> findFingerprintCandidates(@Param("fingerprints") Collection<String> fingerprints,
+                                          @Param("blockingKeys") Collection<String> blockingKeys,
+                                          @Param("timeLocationEvents") List<EventData> timeLocationEvents,
+                                          @Param("limit") int limit);
+
+    /**
+     * 查询尚未计算指纹的事件（用于回填历史数据）
+     * @param limit 最大返回数量
+     * @return 事件列表（只包含计算指纹所需的字段）
+     */
+    @Select("SELECT id, event_title, event_time, subject, object, event_type FROM event " +
+            "WHERE content_fingerprint IS NULL LIMIT #{limit}")
+    List<Event> findWithoutFingerprint(@Param("limit") int limit);
+
+    /**
+     * 批量写入事件的内容指纹和分块键
+     * @param events 已计算指纹的事件列表
+     * @return 更新行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE event SET",
+        "   content_fingerprint = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.contentFingerprint} </foreach>END,",
+        "   blocking_key = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.blockingKey} </foreach>END",
+        "WHERE id IN",
+        "<foreach collection='events' item='e' open='(' separator=',' close=')'>#{e.id}</foreach>",
+        "</script>"
+    })
+    int batchUpdateFingerprints(@Param("events") List<Event> events);
+
+    /**
+     * 锁定有效事件（合并重复事件时按ID顺序加锁，避免并发合并相互覆盖）
+     * @param ids 事件ID列表
+     * @return 有效的事件（只包含合并所需的字段）
+     */
+    @Select({
+        "<script>",
+        "SELECT id, event_title, event_description, source_urls FROM event WHERE status = 1 AND id IN",
+        "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "ORDER BY id FOR UPDATE",
+        "</script>"
+    })
+    List<Event> lockActiveEvents(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 将已合并的重复事件标记为禁用
+     * @param ids 事件ID列表
+     * @return 更新行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE event SET status = 0, validation_status = 'MERGED', updated_at = NOW() WHERE id IN",
+        "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int markMerged(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询最大事件ID
+     * @return 最大事件ID，没有事件时返回null
+     */
+    @Select("SELECT MAX(id) FROM event")
+    Long findMaxId();
+
+    /**
+     * 多行插入新事件，生成的ID回填到事件对象
+     * @param events 新事件列表
+     * @return 插入行数
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO event (event_code, event_title, event_description, event_time, event_location, subject, object,",
+        "   event_type, longitude, latitude, event_coordinate_id, subject_coordinate_id, object_coordinate_id,",
+        "   geographic_status, geographic_updated_at, credibility_score, validation_status, fetch_method,",
+        "   last_validated_at, source_urls, content_fingerprint, blocking_key, created_at, updated_at) VALUES",
+        "<foreach collection='events' item='e' separator=','>",
+        "   (#{e.eventCode}, #{e.eventTitle}, #{e.eventDescription}, #{e.eventTime}, #{e.eventLocation},",
+        "   #{e.subject}, #{e.object}, #{e.eventType}, #{e.longitude}, #{e.latitude}, #{e.eventCoordinateId},",
+        "   #{e.subjectCoordinateId}, #{e.objectCoordinateId}, COALESCE(#{e.geographicStatus}, 0),",
+        "   #{e.geographicUpdatedAt}, #{e.credibilityScore}, #{e.validationStatus}, #{e.fetchMethod},",
+        "   #{e.lastValidatedAt}, #{e.sourceUrls}, #{e.contentFingerprint}, #{e.blockingKey}, #{e.createdAt},",
+        "   #{e.updatedAt})",
+        "</foreach>",
+        "</script>"
+    })
+    @Options(useGeneratedKeys = true, keyProperty = "events.id", keyColumn = "id")
+    int batchInsert(@Param("events") List<Event> events);
+
+    /**
+     * 按事件编码查询事件ID（批量插入未回填ID时使用）
+     * @param eventCodes 事件编码列表
+     * @return 事件列表（只包含id和event_code）
+     */
+    @Select({
+        "<script>",
+        "SELECT id, event_code FROM event WHERE event_code IN",
+        "<foreach collection='eventCodes' item='code' open='(' separator=',' close=')'>#{code}</foreach>",
+        "</script>"
+    })
+    List<Event> findIdsByEventCodes(@Param("eventCodes") List<String> eventCodes);
+
+    /**
+     * 批量更新已有事件合并后的字段
+     * @param events 已合并新数据的事件列表
+     * @return 更新行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE event SET",
+        "   event_title = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.eventTitle} </foreach>END,",
+        "   event_description = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.eventDescription} </foreach>END,",
+        "   credibility_score = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.credibilityScore} </foreach>END,",
+        "   validation_status = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.validationStatus} </foreach>END,",
+        "   source_urls = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.sourceUrls} </foreach>END,",
+        "   last_validated_at = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.lastValidatedAt} </foreach>END,",
+        "   content_fingerprint = CASE id",
+        "       <foreach collection='events' item='e'>WHEN #{e.id} THEN #{e.contentFingerprint} </foreach>END,",
+        "   updated_at = NOW()",
+        "WHERE id IN",
+        "<foreach collection='events' item='e' open='(' separator=',' close=')'>#{e.id}</foreach>",
+        "</script>"
+    })
+    int batchUpdateMerged(@Param("events") List<Event> events);
+
     /**
      * 删除旧的验证记录
      * @param cutoffTime 截止时间
@@ -154,4 +385,40 @@ public interface EventMapper extends BaseMapper<Event> {
             "FROM event " +
             "WHERE event_time IS NULL OR event_time > DATE_ADD(NOW(), INTERVAL 1 YEAR)")
     List<Map<String, Object>> findEventsWithAbnormalEventTime();
-}
\ No newline at end of file
+
+    /**
+     * 查询指定地区和时间窗口内已存储的大模型获取事件
+     * @param regionNames 地区名称列表，为空时不限地区
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param limit 最大返回数量
+     * @return 事件列表（按事件时间升序）
+     */
+    @Select({
+        "<script>",
+        "SELECT e.* FROM event e",
+        "<where>",
+        "   e.event_time &gt;= #{startTime}",
+        "   AND e.event_time &lt;= #{endTime}",
+        "   <if test='regionNames != null and regionNames.size() > 0'>",
+        "       AND (",
+        "           <foreach collection='regionNames' item='region' separator=' OR '>",
+        "               e.event_location LIKE CONCAT('%', #{region}, '%')",
+        "               OR e.subject LIKE CONCAT('%', #{region}, '%')",
+        "               OR e.object LIKE CONCAT('%', #{region}, '%')",
+        "           </foreach>",
+        "       )",
+        "   </if>",
+        "   AND e.fetch_method = 'DEEPSEEK'",
+        "   AND (e.status IS NULL OR e.status = 1)",
+        "</where>",
+        "ORDER BY e.event_time ASC",
+        "LIMIT #{limit}",
+        "</script>"
+    })
+    List<Event> findFetchedEventsInWindow(
+            @Param("regionNames") List<String> regionNames,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            @Param("limit") int limit);
+}
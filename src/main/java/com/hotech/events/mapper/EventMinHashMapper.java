@@ -0,0 +1,143 @@
+package com.hotech.events.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotech.events.entity.Event;
+import com.hotech.events.entity.EventLshBand;
+import com.hotech.events.entity.EventMinHash;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 事件MinHash签名和LSH分段索引Mapper
+ */
+@Mapper
+public interface EventMinHashMapper extends BaseMapper<EventMinHash> {
+
+    /**
+     * 批量保存签名，已存在时覆盖
+     * @param signatures 签名列表
+     * @return 影响行数
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO event_minhash (event_id, signature, signature_version, created_at) VALUES",
+        "<foreach collection='signatures' item='s' separator=','>",
+        "   (#{s.eventId}, #{s.signature}, #{s.signatureVersion}, NOW())",
+        "</foreach>",
+        "ON DUPLICATE KEY UPDATE signature = VALUES(signature), signature_version = VALUES(signature_version),",
+        "   created_at = VALUES(created_at)",
+        "</script>"
+    })
+    int upsertSignatures(@Param("signatures") List<EventMinHash> signatures);
+
+    /**
+     * 批量写入分段索引
+     * @param bands 分段索引列表
+     * @return 插入行数
+     */
+    @Insert({
+        "<script>",
+        "INSERT IGNORE INTO event_lsh_band (band_key, event_id) VALUES",
+        "<foreach collection='bands' item='b' separator=','>(#{b.bandKey}, #{b.eventId})</foreach>",
+        "</script>"
+    })
+    int insertBands(@Param("bands") List<EventLshBand> bands);
+
+    /**
+     * 删除事件的分段索引
+     * @param eventIds 事件ID列表
+     * @return 删除行数
+     */
+    @Delete({
+        "<script>",
+        "DELETE FROM event_lsh_band WHERE event_id IN",
+        "<foreach collection='eventIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int deleteBandsByEventIds(@Param("eventIds") Collection<Long> eventIds);
+
+    /**
+     * 删除事件的签名
+     * @param eventIds 事件ID列表
+     * @return 删除行数
+     */
+    @Delete({
+        "<script>",
+        "DELETE FROM event_minhash WHERE event_id IN",
+        "<foreach collection='eventIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int deleteSignaturesByEventIds(@Param("eventIds") Collection<Long> eventIds);
+
+    /**
+     * 按分段键查找候选事件（主键前缀点查）
+     * @param bandKeys 分段键列表
+     * @param limit 最大返回数量
+     * @return 分段索引列表
+     */
+    @Select({
+        "<script>",
+        "SELECT band_key, event_id FROM event_lsh_band WHERE band_key IN",
+        "<foreach collection='bandKeys' item='key' open='(' separator=',' close=')'>#{key}</foreach>",
+        "LIMIT #{limit}",
+        "</script>"
+    })
+    List<EventLshBand> findByBandKeys(@Param("bandKeys") Collection<Long> bandKeys, @Param("limit") int limit);
+
+    /**
+     * 查询指定版本的签名
+     * @param eventIds 事件ID列表
+     * @param version 签名版本
+     * @return 签名列表
+     */
+    @Select({
+        "<script>",
+        "SELECT event_id, signature, signature_version FROM event_minhash",
+        "WHERE signature_version = #{version} AND event_id IN",
+        "<foreach collection='eventIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    List<EventMinHash> findSignatures(@Param("eventIds") Collection<Long> eventIds, @Param("version") String version);
+
+    /**
+     * 查询ID范围内有效事件的签名
+     * @param startId 起始ID（包含）
+     * @param endId 结束ID（不包含）
+     * @param version 签名版本
+     * @return 签名列表
+     */
+    @Select("SELECT m.event_id, m.signature, m.signature_version FROM event_minhash m " +
+            "JOIN event e ON e.id = m.event_id " +
+            "WHERE m.event_id >= #{startId} AND m.event_id < #{endId} AND m.signature_version = #{version} " +
+            "AND e.status = 1 ORDER BY m.event_id")
+    List<EventMinHash> findSignaturesInRange(@Param("startId") Long startId, @Param("endId") Long endId,
+                                             @Param("version") String version);
+
+    /**
+     * 查询尚未建立当前版本签名的有效事件
+     * @param afterId 从该ID之后开始查询
+     * @param version 签名版本
+     * @param limit 最大返回数量
+     * @return 事件列表（只包含id和event_title）
+     */
+    @Select("SELECT e.id, e.event_title FROM event e " +
+            "LEFT JOIN event_minhash m ON m.event_id = e.id AND m.signature_version = #{version} " +
+            "WHERE e.id > #{afterId} AND e.status = 1 AND m.event_id IS NULL " +
+            "ORDER BY e.id LIMIT #{limit}")
+    List<Event> findUnindexedEvents(@Param("afterId") Long afterId, @Param("version") String version,
+                                    @Param("limit") int limit);
+
+    /**
+     * 统计指定版本的签名数量
+     * @param version 签名版本
+     * @return 签名数量
+     */
+    @Select("SELECT COUNT(*) FROM event_minhash WHERE signature_version = #{version}")
+    long countByVersion(@Param("version") String version);
+}
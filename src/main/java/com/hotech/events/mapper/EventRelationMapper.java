@@ -2,9 +2,11 @@ package com.hotech.events.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.hotech.events.entity.EventRelation;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 import java.util.Map;
@@ -49,4 +51,40 @@ public interface EventRelationMapper extends BaseMapper<EventRelation> {
      */
     @Select("SELECT * FROM event_relation WHERE status = 1 ORDER BY created_at DESC LIMIT 50")
     List<Map<String, Object>> findAllRelations();
-}
\ No newline at end of file
+
+    /**
+     * 将事件作为源事件的关系转移到另一个事件
+     * @param fromEventIds 原事件ID列表
+     * @param toEventId 目标事件ID
+     * @return 影响行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE event_relation SET source_event_id = #{toEventId} WHERE source_event_id IN",
+        "<foreach collection='fromEventIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int reassignSourceEvents(@Param("fromEventIds") List<Long> fromEventIds, @Param("toEventId") Long toEventId);
+
+    /**
+     * 将事件作为目标事件的关系转移到另一个事件
+     * @param fromEventIds 原事件ID列表
+     * @param toEventId 目标事件ID
+     * @return 影响行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE event_relation SET target_event_id = #{toEventId} WHERE target_event_id IN",
+        "<foreach collection='fromEventIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+        "</script>"
+    })
+    int reassignTargetEvents(@Param("fromEventIds") List<Long> fromEventIds, @Param("toEventId") Long toEventId);
+
+    /**
+     * 删除事件指向自身的关系（合并重复事件后产生）
+     * @param eventId 事件ID
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM event_relation WHERE source_event_id = #{eventId} AND target_event_id = #{eventId}")
+    int deleteSelfRelations(@Param("eventId") Long eventId);
+}
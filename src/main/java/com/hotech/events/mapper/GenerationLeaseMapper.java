@@ -0,0 +1,94 @@
+package com.hotech.events.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotech.events.entity.GenerationLease;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成租约Mapper
+ * 过期时间统一按数据库时钟计算，避免节点之间的时钟偏差
+ */
+@Mapper
+public interface GenerationLeaseMapper extends BaseMapper<GenerationLease> {
+
+    /**
+     * 租约记录不存在时创建一条未被持有的记录
+     * @param leaseKey 租约键
+     * @return 插入行数
+     */
+    @Insert("INSERT IGNORE INTO generation_lease (lease_key, owner_id, fencing_token, expires_at) " +
+            "VALUES (#{leaseKey}, NULL, 0, NOW(3))")
+    int insertIfAbsent(@Param("leaseKey") String leaseKey);
+
+    /**
+     * 获取未被持有或已过期的租约，并递增防护令牌
+     * @param leaseKey 租约键
+     * @param ownerId 节点ID
+     * @param ttlMs 租约有效期（毫秒）
+     * @return 更新行数，为0表示租约由其他节点持有
+     */
+    @Update("UPDATE generation_lease SET owner_id = #{ownerId}, fencing_token = fencing_token + 1, " +
+            "expires_at = DATE_ADD(NOW(3), INTERVAL #{ttlMs} * 1000 MICROSECOND), heartbeat_at = NOW(3) " +
+            "WHERE lease_key = #{leaseKey} AND (owner_id IS NULL OR expires_at < NOW(3))")
+    int acquire(@Param("leaseKey") String leaseKey, @Param("ownerId") String ownerId, @Param("ttlMs") long ttlMs);
+
+    /**
+     * 查询节点持有的租约的防护令牌
+     * @param leaseKey 租约键
+     * @param ownerId 节点ID
+     * @return 防护令牌，未持有时返回null
+     */
+    @Select("SELECT fencing_token FROM generation_lease WHERE lease_key = #{leaseKey} AND owner_id = #{ownerId}")
+    Long findFencingToken(@Param("leaseKey") String leaseKey, @Param("ownerId") String ownerId);
+
+    /**
+     * 续约，租约已被其他节点接管（防护令牌变化）时不更新
+     * @param leaseKey 租约键
+     * @param ownerId 节点ID
+     * @param fencingToken 防护令牌
+     * @param ttlMs 租约有效期（毫秒）
+     * @return 更新行数，为0表示租约已丢失
+     */
+    @Update("UPDATE generation_lease SET expires_at = DATE_ADD(NOW(3), INTERVAL #{ttlMs} * 1000 MICROSECOND), " +
+            "heartbeat_at = NOW(3) WHERE lease_key = #{leaseKey} AND owner_id = #{ownerId} " +
+            "AND fencing_token = #{fencingToken}")
+    int renew(@Param("leaseKey") String leaseKey, @Param("ownerId") String ownerId,
+              @Param("fencingToken") long fencingToken, @Param("ttlMs") long ttlMs);
+
+    /**
+     * 释放租约
+     * @param leaseKey 租约键
+     * @param ownerId 节点ID
+     * @param fencingToken 防护令牌
+     * @return 更新行数
+     */
+    @Update("UPDATE generation_lease SET owner_id = NULL, expires_at = NOW(3) " +
+            "WHERE lease_key = #{leaseKey} AND owner_id = #{ownerId} AND fencing_token = #{fencingToken}")
+    int release(@Param("leaseKey") String leaseKey, @Param("ownerId") String ownerId,
+                @Param("fencingToken") long fencingToken);
+
+    /**
+     * 按节点统计持有的有效租约数
+     * @return 各节点的租约数（owner_id、count）和最近心跳时间（last_heartbeat）
+     */
+    @Select("SELECT owner_id, COUNT(*) AS count, MAX(heartbeat_at) AS last_heartbeat FROM generation_lease " +
+            "WHERE owner_id IS NOT NULL AND expires_at >= NOW(3) GROUP BY owner_id")
+    List<Map<String, Object>> countActiveByOwner();
+
+    /**
+     * 删除长时间未被持有的租约记录
+     * @param retentionHours 保留小时数
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM generation_lease WHERE (owner_id IS NULL OR expires_at < NOW(3)) " +
+            "AND updated_at < DATE_SUB(NOW(), INTERVAL #{retentionHours} HOUR)")
+    int deleteStale(@Param("retentionHours") int retentionHours);
+}
@@ -0,0 +1,69 @@
+package com.hotech.events.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotech.events.entity.LlmResponseCache;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 大模型响应缓存Mapper
+ */
+@Mapper
+public interface LlmResponseCacheMapper extends BaseMapper<LlmResponseCache> {
+
+    /**
+     * 根据缓存键查找未过期的记录
+     * @param cacheKey 缓存键
+     * @return 缓存记录
+     */
+    @Select("SELECT * FROM llm_response_cache WHERE cache_key = #{cacheKey} AND expires_at > NOW() LIMIT 1")
+    LlmResponseCache findValidByKey(@Param("cacheKey") String cacheKey);
+
+    /**
+     * 记录一次命中
+     * @param id 记录ID
+     * @return 更新行数
+     */
+    @Update("UPDATE llm_response_cache SET hit_count = hit_count + 1, last_access_at = NOW() WHERE id = #{id}")
+    int touch(@Param("id") Long id);
+
+    /**
+     * 写入或覆盖缓存记录
+     * @param cache 缓存记录
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO llm_response_cache (cache_key, provider, model, prompt_hash, content, compressed, " +
+            "original_size, stored_size, hit_count, created_at, last_access_at, expires_at) " +
+            "VALUES (#{cacheKey}, #{provider}, #{model}, #{promptHash}, #{content}, #{compressed}, " +
+            "#{originalSize}, #{storedSize}, 0, NOW(), NOW(), #{expiresAt}) " +
+            "ON DUPLICATE KEY UPDATE content = VALUES(content), compressed = VALUES(compressed), " +
+            "original_size = VALUES(original_size), stored_size = VALUES(stored_size), " +
+            "last_access_at = NOW(), expires_at = VALUES(expires_at)")
+    int upsert(LlmResponseCache cache);
+
+    /**
+     * 当前缓存占用的存储字节数
+     * @return 字节数
+     */
+    @Select("SELECT COALESCE(SUM(stored_size), 0) FROM llm_response_cache")
+    long sumStoredSize();
+
+    /**
+     * 清理过期的缓存记录
+     * @return 清理的记录数
+     */
+    @Delete("DELETE FROM llm_response_cache WHERE expires_at < NOW()")
+    int deleteExpired();
+
+    /**
+     * 按最后访问时间淘汰最久未使用的记录
+     * @param limit 淘汰数量
+     * @return 淘汰的记录数
+     */
+    @Delete("DELETE FROM llm_response_cache ORDER BY last_access_at ASC LIMIT #{limit}")
+    int deleteLeastRecentlyUsed(@Param("limit") int limit);
+}
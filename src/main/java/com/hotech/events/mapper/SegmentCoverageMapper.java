@@ -0,0 +1,52 @@
+package com.hotech.events.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotech.events.entity.SegmentCoverage;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+/**
+ * 时间段覆盖记录Mapper
+ */
+@Mapper
+public interface SegmentCoverageMapper extends BaseMapper<SegmentCoverage> {
+
+    /**
+     * 查询完整覆盖指定时间窗口的最近一次获取记录
+     * @param regionKey 地区集合键
+     * @param promptVersion 提示词模板版本
+     * @param windowStart 时间窗口开始时间
+     * @param windowEnd 时间窗口结束时间
+     * @return 覆盖记录，不存在时返回null
+     */
+    @Select("SELECT * FROM segment_coverage WHERE region_key = #{regionKey} AND prompt_version = #{promptVersion} " +
+            "AND window_start <= #{windowStart} AND window_end >= #{windowEnd} " +
+            "ORDER BY fetched_at DESC LIMIT 1")
+    SegmentCoverage findCovering(@Param("regionKey") String regionKey,
+                                 @Param("promptVersion") String promptVersion,
+                                 @Param("windowStart") LocalDateTime windowStart,
+                                 @Param("windowEnd") LocalDateTime windowEnd);
+
+    /**
+     * 写入或刷新覆盖记录
+     * @param coverage 覆盖记录
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO segment_coverage (region_key, window_start, window_end, prompt_version, event_count, fetched_at) " +
+            "VALUES (#{regionKey}, #{windowStart}, #{windowEnd}, #{promptVersion}, #{eventCount}, #{fetchedAt}) " +
+            "ON DUPLICATE KEY UPDATE event_count = VALUES(event_count), fetched_at = VALUES(fetched_at)")
+    int upsert(SegmentCoverage coverage);
+
+    /**
+     * 删除早于指定时间获取的覆盖记录
+     * @param fetchedBefore 获取时间上限
+     * @return 删除的记录数
+     */
+    @Delete("DELETE FROM segment_coverage WHERE fetched_at < #{fetchedBefore}")
+    int deleteFetchedBefore(@Param("fetchedBefore") LocalDateTime fetchedBefore);
+}
@@ -88,6 +88,16 @@ public interface TimelineEventMapper extends BaseMapper<TimelineEvent> {
     @Select("SELECT event_id FROM timeline_event WHERE timeline_id = #{timelineId} ORDER BY created_at ASC")
     List<Long> findEventIdsByTimelineId(@Param("timelineId") Long timelineId);
     
+    /**
+     * 查询时间线已关联事件的标题和日期（用于增量刷新去重）
+     * @param timelineId 时间线ID
+     * @return 事件标题和日期列表
+     */
+    @Select("SELECT e.event_title, DATE_FORMAT(e.event_time, '%Y-%m-%d') AS event_date " +
+            "FROM timeline_event te JOIN event e ON te.event_id = e.id " +
+            "WHERE te.timeline_id = #{timelineId}")
+    List<Map<String, Object>> findEventTitleDatesByTimelineId(@Param("timelineId") Long timelineId);
+    
     /**
      * 查询事件关联的时间线ID列表
      * @param eventId 事件ID
@@ -106,19 +116,39 @@ public interface TimelineEventMapper extends BaseMapper<TimelineEvent> {
     int countByTimelineIdAndEventId(@Param("timelineId") Long timelineId, @Param("eventId") Long eventId);
     
     /**
-     * 批量插入时间线事件关联
+     * 批量插入时间线事件关联（依赖 uk_timeline_event 唯一键，已存在的关联会被忽略）
      * @param timelineId 时间线ID
      * @param eventIds 事件ID列表
-     * @return 影响行数
+     * @return 新插入的关联数量
      */
     @Insert("<script>" +
-            "INSERT INTO timeline_event (timeline_id, event_id, created_at) VALUES " +
+            "INSERT IGNORE INTO timeline_event (timeline_id, event_id, created_at) VALUES " +
             "<foreach collection='eventIds' item='eventId' separator=','>" +
             "(#{timelineId}, #{eventId}, NOW())" +
             "</foreach>" +
             "</script>")
     int batchInsert(@Param("timelineId") Long timelineId, @Param("eventIds") List<Long> eventIds);
     
+    /**
+     * 查询事件时间落在时间线时间范围内、且未关联任何时间线的有效事件（仅用于报告，不判断地区是否匹配）
+     * @param timelineId 时间线ID
+     * @return 候选事件列表
+     */
+    @Select("SELECT e.id, e.event_code, e.event_time, e.event_location FROM timeline t " +
+            "JOIN event e ON e.event_time >= t.start_time AND e.event_time <= t.end_time " +
+            "WHERE t.id = #{timelineId} AND e.status = 1 " +
+            "AND NOT EXISTS (SELECT 1 FROM timeline_event te WHERE te.event_id = e.id)")
+    List<Map<String, Object>> findUnlinkedEventsInTimelineRange(@Param("timelineId") Long timelineId);
+    
+    /**
+     * 删除重复的时间线事件关联，每组保留ID最小的一条
+     * @return 删除的关联数量
+     */
+    @Delete("DELETE te1 FROM timeline_event te1 " +
+            "JOIN timeline_event te2 ON te1.timeline_id = te2.timeline_id " +
+            "AND te1.event_id = te2.event_id AND te1.id > te2.id")
+    int deleteDuplicateAssociations();
+    
     /**
      * 批量删除时间线事件关联
      * @param timelineId 时间线ID
@@ -134,6 +164,33 @@ public interface TimelineEventMapper extends BaseMapper<TimelineEvent> {
             "</script>")
     int batchDelete(@Param("timelineId") Long timelineId, @Param("eventIds") List<Long> eventIds);
     
+    /**
+     * 将事件的时间线关联转移到另一个事件（目标事件已在同一时间线中的关联会被忽略）
+     * @param fromEventIds 原事件ID列表
+     * @param toEventId 目标事件ID
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE IGNORE timeline_event SET event_id = #{toEventId} WHERE event_id IN " +
+            "<foreach collection='fromEventIds' item='eventId' open='(' separator=',' close=')'>" +
+            "#{eventId}" +
+            "</foreach>" +
+            "</script>")
+    int reassignEvents(@Param("fromEventIds") List<Long> fromEventIds, @Param("toEventId") Long toEventId);
+    
+    /**
+     * 删除事件的所有时间线关联
+     * @param eventIds 事件ID列表
+     * @return 影响行数
+     */
+    @Delete("<script>" +
+            "DELETE FROM timeline_event WHERE event_id IN " +
+            "<foreach collection='eventIds' item='eventId' open='(' separator=',' close=')'>" +
+            "#{eventId}" +
+            "</foreach>" +
+            "</script>")
+    int deleteByEventIds(@Param("eventIds") List<Long> eventIds);
+    
     /**
      * 删除时间线的所有事件关联
      * @param timelineId 时间线ID
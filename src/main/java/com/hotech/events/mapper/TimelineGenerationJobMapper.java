@@ -0,0 +1,117 @@
+package com.hotech.events.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotech.events.entity.TimelineGenerationJob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 时间线生成任务Mapper
+ */
+@Mapper
+public interface TimelineGenerationJobMapper extends BaseMapper<TimelineGenerationJob> {
+
+    /**
+     * 按优先级和创建顺序查询排队中的任务
+     * @param limit 查询数量
+     * @return 任务列表
+     */
+    @Select("SELECT * FROM timeline_generation_job WHERE status = 'QUEUED' " +
+            "ORDER BY FIELD(priority, 'INTERACTIVE', 'SCHEDULED', 'BULK'), id ASC LIMIT #{limit}")
+    List<TimelineGenerationJob> selectQueued(@Param("limit") int limit);
+
+    /**
+     * 统计指定状态的任务数
+     * @param status 状态
+     * @return 任务数
+     */
+    @Select("SELECT COUNT(*) FROM timeline_generation_job WHERE status = #{status}")
+    int countByStatus(@Param("status") String status);
+
+    /**
+     * 统计排在指定任务之前的排队任务数
+     * @param id 任务ID
+     * @return 任务数
+     */
+    @Select("SELECT COUNT(*) FROM timeline_generation_job q " +
+            "JOIN timeline_generation_job j ON j.id = #{id} " +
+            "WHERE q.status = 'QUEUED' AND (FIELD(q.priority, 'INTERACTIVE', 'SCHEDULED', 'BULK') " +
+            "< FIELD(j.priority, 'INTERACTIVE', 'SCHEDULED', 'BULK') " +
+            "OR (q.priority = j.priority AND q.id < j.id))")
+    int countQueuedBefore(@Param("id") Long id);
+
+    /**
+     * 按优先级统计排队中的任务数和最长等待时间
+     * @return 各优先级的排队任务数（count）和最长等待秒数（max_wait_seconds）
+     */
+    @Select("SELECT priority, COUNT(*) AS count, TIMESTAMPDIFF(SECOND, MIN(created_at), NOW()) AS max_wait_seconds " +
+            "FROM timeline_generation_job WHERE status = 'QUEUED' GROUP BY priority")
+    List<Map<String, Object>> countQueuedByPriority();
+
+    /**
+     * 查询时间线最近的生成任务
+     * @param timelineId 时间线ID
+     * @return 任务
+     */
+    @Select("SELECT * FROM timeline_generation_job WHERE timeline_id = #{timelineId} ORDER BY id DESC LIMIT 1")
+    TimelineGenerationJob findLatestByTimelineId(@Param("timelineId") Long timelineId);
+
+    /**
+     * 领取排队中的任务，只有一个工作线程能领取成功
+     * @param id 任务ID
+     * @param ownerNode 执行节点ID
+     * @param leaseToken 任务租约的防护令牌
+     * @return 更新行数
+     */
+    @Update("UPDATE timeline_generation_job SET status = 'RUNNING', owner_node = #{ownerNode}, " +
+            "lease_token = #{leaseToken}, attempts = attempts + 1, started_at = NOW(), updated_at = NOW() " +
+            "WHERE id = #{id} AND status = 'QUEUED'")
+    int claim(@Param("id") Long id, @Param("ownerNode") String ownerNode, @Param("leaseToken") Long leaseToken);
+
+    /**
+     * 结束执行中的任务，租约已被接管（防护令牌不一致）时不更新
+     * @param id 任务ID
+     * @param leaseToken 任务租约的防护令牌
+     * @param status 结束状态
+     * @param errorMessage 错误信息
+     * @return 更新行数
+     */
+    @Update("UPDATE timeline_generation_job SET status = #{status}, error_message = #{errorMessage}, " +
+            "finished_at = NOW(), updated_at = NOW() " +
+            "WHERE id = #{id} AND status = 'RUNNING' AND lease_token = #{leaseToken}")
+    int finish(@Param("id") Long id, @Param("leaseToken") Long leaseToken, @Param("status") String status,
+               @Param("errorMessage") String errorMessage);
+
+    /**
+     * 检查任务仍由当前租约执行
+     * @param id 任务ID
+     * @param leaseToken 任务租约的防护令牌
+     * @return 任务仍处于执行中且防护令牌一致时返回1，已取消或已被接管时返回0
+     */
+    @Select("SELECT COUNT(*) FROM timeline_generation_job " +
+            "WHERE id = #{id} AND status = 'RUNNING' AND lease_token = #{leaseToken}")
+    int countOwnedRunning(@Param("id") Long id, @Param("leaseToken") Long leaseToken);
+
+    /**
+     * 取消时间线未结束的任务
+     * @param timelineId 时间线ID
+     * @return 更新行数
+     */
+    @Update("UPDATE timeline_generation_job SET status = 'CANCELLED', finished_at = NOW(), updated_at = NOW() " +
+            "WHERE timeline_id = #{timelineId} AND status IN ('QUEUED', 'RUNNING')")
+    int cancelByTimelineId(@Param("timelineId") Long timelineId);
+
+    /**
+     * 将执行节点已失去租约（宕机或停机）的任务重新放回队列
+     * @return 更新行数
+     */
+    @Update("UPDATE timeline_generation_job j SET status = 'QUEUED', owner_node = NULL, updated_at = NOW() " +
+            "WHERE j.status = 'RUNNING' AND NOT EXISTS (SELECT 1 FROM generation_lease l " +
+            "WHERE l.lease_key = CONCAT('job:', j.id) AND l.owner_id IS NOT NULL AND l.expires_at >= NOW(3))")
+    int requeueOrphaned();
+}
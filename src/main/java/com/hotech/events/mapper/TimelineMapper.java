@@ -38,8 +38,65 @@ public interface TimelineMapper extends BaseMapper<Timeline> {
      */
     @Update("UPDATE timeline SET event_count = #{eventCount}, relation_count = #{relationCount}, " +
             "updated_at = NOW() WHERE id = #{id}")
-    int updateProgress(@Param("id") Long id, @Param("eventCount") Integer eventCount, 
+    int updateProgress(@Param("id") Long id, @Param("eventCount") Integer eventCount,
                       @Param("relationCount") Integer relationCount);
+
+    /**
+     * 按实际关联数量重新计算时间线的事件数量
+     * @param id 时间线ID
+     * @return 影响行数
+     */
+    @Update("UPDATE timeline SET event_count = " +
+            "(SELECT COUNT(*) FROM timeline_event WHERE timeline_id = #{id}), " +
+            "updated_at = NOW() WHERE id = #{id}")
+    int refreshEventCount(@Param("id") Long id);
+
+    /**
+     * 按实际关联数量重新计算所有事件数量不一致的时间线
+     * @return 影响行数
+     */
+    @Update("UPDATE timeline t " +
+            "LEFT JOIN (SELECT timeline_id, COUNT(*) AS actual_count FROM timeline_event " +
+            "GROUP BY timeline_id) c ON c.timeline_id = t.id " +
+            "SET t.event_count = COALESCE(c.actual_count, 0), t.updated_at = NOW() " +
+            "WHERE t.event_count IS NULL OR t.event_count <> COALESCE(c.actual_count, 0)")
+    int refreshAllEventCounts();
+
+    /**
+     * 保存时间线生成进度（JSON），供其他节点查询
+     * @param id 时间线ID
+     * @param generationProgress 进度JSON
+     * @return 影响行数
+     */
+    @Update("UPDATE timeline SET generation_progress = #{generationProgress} WHERE id = #{id}")
+    int updateGenerationProgress(@Param("id") Long id, @Param("generationProgress") String generationProgress);
+
+    /**
+     * 查询时间线生成进度（JSON）
+     * @param id 时间线ID
+     * @return 进度JSON，未保存时返回null
+     */
+    @Select("SELECT generation_progress FROM timeline WHERE id = #{id}")
+    String findGenerationProgress(@Param("id") Long id);
+
+    /**
+     * 记录时间线生成成功的时间
+     * @param id 时间线ID
+     * @param generatedAt 生成成功时间
+     * @return 影响行数
+     */
+    @Update("UPDATE timeline SET last_generated_at = #{generatedAt} WHERE id = #{id}")
+    int updateLastGeneratedAt(@Param("id") Long id, @Param("generatedAt") LocalDateTime generatedAt);
+    
+    /**
+     * 将时间线结束时间延长到指定时间（不会缩短）
+     * @param id 时间线ID
+     * @param endTime 结束时间
+     * @return 影响行数
+     */
+    @Update("UPDATE timeline SET end_time = #{endTime}, updated_at = NOW() " +
+            "WHERE id = #{id} AND (end_time IS NULL OR end_time < #{endTime})")
+    int extendEndTime(@Param("id") Long id, @Param("endTime") LocalDateTime endTime);
     
     /**
      * 根据地区ID查询时间线列表
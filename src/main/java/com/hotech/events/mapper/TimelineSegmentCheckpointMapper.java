@@ -0,0 +1,46 @@
+package com.hotech.events.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.hotech.events.entity.TimelineSegmentCheckpoint;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 时间线分段检查点Mapper
+ */
+@Mapper
+public interface TimelineSegmentCheckpointMapper extends BaseMapper<TimelineSegmentCheckpoint> {
+
+    /**
+     * 查询时间线的全部检查点
+     * @param timelineId 时间线ID
+     * @return 检查点列表
+     */
+    @Select("SELECT * FROM timeline_segment_checkpoint WHERE timeline_id = #{timelineId} ORDER BY segment_start ASC")
+    List<TimelineSegmentCheckpoint> findByTimelineId(@Param("timelineId") Long timelineId);
+
+    /**
+     * 写入或覆盖检查点
+     * @param checkpoint 检查点
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO timeline_segment_checkpoint (timeline_id, segment_id, segment_start, segment_end, " +
+            "event_count, events_json, created_at) " +
+            "VALUES (#{timelineId}, #{segmentId}, #{segmentStart}, #{segmentEnd}, #{eventCount}, #{eventsJson}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE segment_start = VALUES(segment_start), segment_end = VALUES(segment_end), " +
+            "event_count = VALUES(event_count), events_json = VALUES(events_json), created_at = NOW()")
+    int upsert(TimelineSegmentCheckpoint checkpoint);
+
+    /**
+     * 删除时间线的全部检查点
+     * @param timelineId 时间线ID
+     * @return 删除的记录数
+     */
+    @Delete("DELETE FROM timeline_segment_checkpoint WHERE timeline_id = #{timelineId}")
+    int deleteByTimelineId(@Param("timelineId") Long timelineId);
+}
@@ -1,5 +1,6 @@
 package com.hotech.events.service;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -97,6 +98,8 @@ public interface CacheService {
         private long size;
         private double hitRate;
         private double missRate;
+        private Map<String, Map<String, Object>> namespaceStats;
+        private Map<String, Object> llmResponseCacheStats;
         
         // Getters and Setters
         public long getHitCount() { return hitCount; }
@@ -116,5 +119,11 @@ public interface CacheService {
         
         public double getMissRate() { return missRate; }
         public void setMissRate(double missRate) { this.missRate = missRate; }
+        
+        public Map<String, Map<String, Object>> getNamespaceStats() { return namespaceStats; }
+        public void setNamespaceStats(Map<String, Map<String, Object>> namespaceStats) { this.namespaceStats = namespaceStats; }
+        
+        public Map<String, Object> getLlmResponseCacheStats() { return llmResponseCacheStats; }
+        public void setLlmResponseCacheStats(Map<String, Object> llmResponseCacheStats) { this.llmResponseCacheStats = llmResponseCacheStats; }
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.hotech.events.model.TimeSegment;
 import com.hotech.events.model.TimelineGenerateRequest;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -42,6 +43,27 @@ public interface ConcurrentApiCallManager {
      */
     CompletableFuture<List<EventData>> processBatchResults(List<CompletableFuture<List<EventData>>> futures);
     
+    /**
+     * 在服务商的自适应并发限制下执行调用
+     * 限流（429）、服务端错误（5xx）和超时会使该服务商的并发上限回退，调用健康时逐步放开
+     * 
+     * @param provider 服务商标识
+     * @param call 调用逻辑
+     * @return 调用结果
+     */
+    <T> T executeWithLimit(String provider, Callable<T> call) throws Exception;
+    
+    /**
+     * 在服务商的自适应并发限制下执行调用，延迟按调用开销归一化后判断是否显著升高
+     * 调用方自身截止时间导致的超时或截断不计为服务商过载
+     * 
+     * @param provider 服务商标识
+     * @param cost 调用开销（请求的最大Token数）
+     * @param call 调用逻辑
+     * @return 调用结果
+     */
+    <T> T executeWithLimit(String provider, long cost, Callable<T> call) throws Exception;
+    
     /**
      * 设置并发度
      * 
@@ -0,0 +1,54 @@
+package com.hotech.events.service;
+
+import com.hotech.events.entity.Dictionary;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 字典已知值缓存服务接口
+ * 按字典类型在内存中保存已存在的字典编码，事件入库时只写入缓存中没有的字典项
+ */
+public interface DictionaryCacheService {
+
+    /**
+     * 写入自动添加的字典项：过滤掉已知的字典项，其余一次批量写入（已存在的由唯一索引忽略），写入成功后记为已知
+     *
+     * @param dictionaries 字典项列表
+     * @return 新增的字典项数
+     */
+    int upsertAutoValues(Collection<Dictionary> dictionaries);
+
+    /**
+     * 将字典值记为已知
+     *
+     * @param dictType 字典类型
+     * @param dictCode 字典编码
+     */
+    void markKnown(String dictType, String dictCode);
+
+    /**
+     * 移除字典值，下次出现时重新写入
+     *
+     * @param dictType 字典类型
+     * @param dictCode 字典编码
+     */
+    void evict(String dictType, String dictCode);
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+    /**
+     * 从数据库重新加载各类型最近添加的字典编码
+     */
+    void reload();
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
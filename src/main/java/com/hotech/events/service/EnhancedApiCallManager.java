@@ -6,6 +6,7 @@ import com.hotech.events.dto.ApiHealthStatus;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 增强的API调用管理器接口
@@ -110,6 +111,19 @@ public interface EnhancedApiCallManager {
      */
     String callApiWithLargeTokens(DynamicApiConfigManager.ApiConfig config, String prompt, int maxTokens, com.hotech.events.dto.TimeSegment timeSegment);
     
+    /**
+     * 流式调用API获取事件（SSE），每个事件JSON对象闭合时立即回调
+     * 
+     * @param config API配置
+     * @param prompt 提示词
+     * @param maxTokens 最大token数
+     * @param timeSegment 时间段信息
+     * @param eventJsonConsumer 事件JSON对象回调
+     * @return 完整响应内容，失败时返回null
+     */
+    String callApiStreaming(DynamicApiConfigManager.ApiConfig config, String prompt, int maxTokens,
+                            com.hotech.events.dto.TimeSegment timeSegment, Consumer<String> eventJsonConsumer);
+    
     /**
      * 检查API响应完整性
      * 
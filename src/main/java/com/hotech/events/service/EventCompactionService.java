@@ -0,0 +1,34 @@
+package com.hotech.events.service;
+
+import java.util.Map;
+
+/**
+ * 近似重复事件合并服务接口
+ * 离线扫描所有事件，将近似重复的事件合并到ID最小的事件：转移时间线、关系和关键词关联，被合并的事件标记为禁用。
+ * 合并不可撤销，预览模式只报告将被合并的事件组，供确认后再执行
+ */
+public interface EventCompactionService {
+
+    /**
+     * 执行一次合并（同步），同一时间只有一个节点执行
+     *
+     * @param dryRun 是否只预览，不合并事件
+     * @return 执行结果，预览时包含将被合并的事件组
+     */
+    Map<String, Object> compact(boolean dryRun);
+
+    /**
+     * 在后台启动一次合并
+     *
+     * @param dryRun 是否只预览，不合并事件
+     * @return 是否已启动，已在执行时返回false
+     */
+    boolean startCompaction(boolean dryRun);
+
+    /**
+     * 获取合并任务状态和最近一次执行结果
+     *
+     * @return 状态信息
+     */
+    Map<String, Object> getStatus();
+}
@@ -29,6 +29,23 @@ public interface EventStorageService {
      */
     List<Long> storeEventsBatch(List<EventData> events);
     
+    /**
+     * 集成并增强事件的地理信息（超过请求截止时间时跳过）
+     * 与storeEnrichedEvent组合等同于storeValidatedEvent，供流水线分阶段处理
+     * 
+     * @param eventData 事件数据
+     * @return 补充地理信息后的事件数据
+     */
+    EventData enrichGeographicInfo(EventData eventData);
+    
+    /**
+     * 存储已完成地理信息增强的事件
+     * 
+     * @param eventData 事件数据
+     * @return 存储后的事件ID
+     */
+    Long storeEnrichedEvent(EventData eventData);
+    
     /**
      * 更新字典表
      * 
@@ -69,6 +86,17 @@ public interface EventStorageService {
      */
     Event createNewEvent(EventData eventData);
     
+    /**
+     * 将近似重复的事件合并到保留的事件
+     * 时间线、关系和关键词关联转移到保留的事件，被合并的事件标记为禁用；
+     * 保留的事件或重复事件已被合并（不再有效）时跳过
+     * 
+     * @param survivorId 保留的事件ID
+     * @param duplicateIds 重复事件ID列表
+     * @return 合并的事件数
+     */
+    int mergeDuplicateEvents(Long survivorId, List<Long> duplicateIds);
+    
     /**
      * 获取存储统计信息
      * 
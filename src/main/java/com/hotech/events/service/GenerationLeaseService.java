@@ -0,0 +1,95 @@
+package com.hotech.events.service;
+
+import java.util.Map;
+
+/**
+ * 生成租约服务接口
+ * 基于数据库的租约协调多个节点：同一租约键同时只有一个节点持有，持有期间定期心跳续约；
+ * 续约失败（租约已过期并被其他节点接管）时通知持有者停止工作。
+ */
+public interface GenerationLeaseService {
+
+    /**
+     * 获取当前节点ID
+     *
+     * @return 节点ID
+     */
+    String getNodeId();
+
+    /**
+     * 尝试获取租约，获取成功后由心跳自动续约，直到释放或丢失
+     *
+     * @param leaseKey 租约键
+     * @return 租约，由其他节点持有时返回null
+     */
+    Lease tryAcquire(String leaseKey);
+
+    /**
+     * 释放租约
+     *
+     * @param lease 租约，为null时忽略
+     */
+    void release(Lease lease);
+
+    /**
+     * 获取租约统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * 当前节点持有的租约
+     */
+    class Lease {
+
+        private final String key;
+        private final long fencingToken;
+        private volatile boolean lost = false;
+        private volatile Runnable onLost;
+
+        public Lease(String key, long fencingToken) {
+            this.key = key;
+            this.fencingToken = fencingToken;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * 防护令牌，写入受租约保护的数据时作为条件，租约被接管后旧令牌的写入不生效
+         */
+        public long getFencingToken() {
+            return fencingToken;
+        }
+
+        public boolean isLost() {
+            return lost;
+        }
+
+        /**
+         * 设置租约丢失时的回调（在心跳线程中执行）
+         */
+        public void onLost(Runnable callback) {
+            this.onLost = callback;
+            if (lost && callback != null) {
+                callback.run();
+            }
+        }
+
+        /**
+         * 标记租约已丢失并执行回调
+         */
+        public void markLost() {
+            if (lost) {
+                return;
+            }
+            lost = true;
+            Runnable callback = onLost;
+            if (callback != null) {
+                callback.run();
+            }
+        }
+    }
+}
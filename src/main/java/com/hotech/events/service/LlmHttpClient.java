@@ -0,0 +1,175 @@
+package com.hotech.events.service;
+
+import com.hotech.events.config.LlmHttpClientConfig;
+import com.hotech.events.util.Deadline;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 大模型HTTP客户端
+ * 基于共享连接池的非阻塞传输，供所有DeepSeek/火山引擎调用复用，避免每次调用重新握手
+ */
+@Slf4j
+@Service
+public class LlmHttpClient {
+
+    private static final String DEFAULT_PROVIDER = "default";
+
+    private static final String STREAM_DONE = "[DONE]";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<ServerSentEvent<String>>() {};
+
+    @Autowired
+    private LlmHttpClientConfig config;
+
+    @Autowired
+    private ConnectionProvider llmConnectionProvider;
+
+    // 按服务商缓存的WebClient，底层共享同一个连接池
+    private final Map<String, WebClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * 同步POST JSON请求，非2xx状态抛出WebClientResponseException
+     * 当前线程绑定了截止时间时，等待时间不超过剩余时间，超时抛出异常并取消请求
+     *
+     * @param url 请求地址
+     * @param apiKey API密钥
+     * @param body 请求体
+     * @param responseType 响应类型
+     * @return 响应实体
+     */
+    public <T> ResponseEntity<T> post(String url, String apiKey, Object body, Class<T> responseType) {
+        Mono<ResponseEntity<T>> response = postAsync(url, apiKey, body, responseType);
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            response = response.timeout(Duration.ofMillis(Math.max(1, deadline.remainingMs())));
+        }
+        return response.block();
+    }
+
+    /**
+     * 异步POST JSON请求
+     *
+     * @param url 请求地址
+     * @param apiKey API密钥
+     * @param body 请求体
+     * @param responseType 响应类型
+     * @return 响应实体
+     */
+    public <T> Mono<ResponseEntity<T>> postAsync(String url, String apiKey, Object body, Class<T> responseType) {
+        return getClient(url).post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", "Bearer " + apiKey)
+                .bodyValue(body)
+                .retrieve()
+                .toEntity(responseType);
+    }
+
+    /**
+     * 流式POST请求（SSE），逐条返回data字段内容，遇到[DONE]结束
+     * 创建时线程绑定了截止时间的，到达截止时间后结束数据流，已接收的内容保留
+     *
+     * @param url 请求地址
+     * @param apiKey API密钥
+     * @param body 请求体（需包含stream=true）
+     * @return SSE数据流
+     */
+    public Flux<String> stream(String url, String apiKey, Object body) {
+        Flux<String> chunks = getClient(url).post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Authorization", "Bearer " + apiKey)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToFlux(SSE_TYPE)
+                .map(event -> event.data() != null ? event.data() : "")
+                .filter(data -> !data.isEmpty())
+                .takeWhile(data -> !STREAM_DONE.equals(data.trim()));
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            return chunks.take(Duration.ofMillis(Math.max(1, deadline.remainingMs())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 根据请求地址获取对应服务商的WebClient
+     */
+    private WebClient getClient(String url) {
+        String provider = resolveProvider(url);
+        return clients.computeIfAbsent(provider, this::createClient);
+    }
+
+    /**
+     * 按主机名匹配服务商
+     */
+    private String resolveProvider(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            if (host != null) {
+                for (Map.Entry<String, LlmHttpClientConfig.ProviderSettings> entry : config.getProviders().entrySet()) {
+                    if (host.equalsIgnoreCase(entry.getValue().getHost())) {
+                        return entry.getKey();
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("无法解析请求地址，使用默认传输设置: url={}", url);
+        }
+        return DEFAULT_PROVIDER;
+    }
+
+    /**
+     * 创建服务商专用的WebClient
+     */
+    private WebClient createClient(String provider) {
+        LlmHttpClientConfig.ProviderSettings settings = config.getProviders().get(provider);
+
+        int connectTimeout = settings != null && settings.getConnectTimeout() != null
+                ? settings.getConnectTimeout() : config.getConnectTimeout();
+        long readTimeout = settings != null && settings.getReadTimeout() != null
+                ? settings.getReadTimeout() : config.getReadTimeout();
+        boolean http2 = settings != null && settings.getHttp2Enabled() != null
+                ? settings.getHttp2Enabled() : config.isHttp2Enabled();
+
+        HttpClient httpClient = HttpClient.create(llmConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(readTimeout))
+                .keepAlive(true)
+                .compress(true);
+
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        log.info("创建大模型HTTP客户端: provider={}, connectTimeout={}ms, readTimeout={}ms, http2={}",
+                provider, connectTimeout, readTimeout, http2);
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(config.getMaxInMemorySize()))
+                .build();
+    }
+}
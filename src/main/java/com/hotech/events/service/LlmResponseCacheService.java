@@ -0,0 +1,42 @@
+package com.hotech.events.service;
+
+import java.util.Map;
+
+/**
+ * 大模型响应持久化缓存服务接口
+ * 按服务商、模型、规范化提示词和请求参数寻址，应用重启后仍可复用已付费的响应
+ */
+public interface LlmResponseCacheService {
+
+    /**
+     * 读取缓存的响应内容
+     *
+     * @param apiUrl 请求地址（用于区分服务商）
+     * @param requestBody 请求体
+     * @return 响应内容，未命中或已过期时返回null
+     */
+    String get(String apiUrl, Object requestBody);
+
+    /**
+     * 写入响应内容
+     *
+     * @param apiUrl 请求地址（用于区分服务商）
+     * @param requestBody 请求体
+     * @param content 响应内容
+     */
+    void put(String apiUrl, Object requestBody, String content);
+
+    /**
+     * 清理过期记录并按容量上限淘汰最久未使用的记录
+     *
+     * @return 清理的记录数
+     */
+    int cleanup();
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
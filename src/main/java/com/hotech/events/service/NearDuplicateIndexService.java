@@ -0,0 +1,76 @@
+package com.hotech.events.service;
+
+import com.hotech.events.entity.Event;
+import com.hotech.events.entity.EventMinHash;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 近似重复事件索引服务接口
+ * 每个事件保存一份标题的MinHash签名，并按签名分段建立LSH索引；
+ * 查找时只对分段键相同的候选事件估计相似度，返回相似度不低于阈值的事件
+ */
+public interface NearDuplicateIndexService {
+
+    /**
+     * 是否启用近似重复查找
+     *
+     * @return 是否启用
+     */
+    boolean isEnabled();
+
+    /**
+     * 查找与各文本近似重复的已存储事件
+     *
+     * @param texts 文本列表（事件标题）
+     * @return 与输入顺序一致的列表，每项为事件ID到相似度的映射（按相似度从高到低）
+     */
+    List<Map<Long, Double>> findSimilar(List<String> texts);
+
+    /**
+     * 查找与已索引事件近似重复的其他事件
+     *
+     * @param signatures 已索引事件的签名
+     * @return 事件ID到（相似事件ID到相似度的映射）的映射
+     */
+    Map<Long, Map<Long, Double>> findSimilarToIndexed(List<EventMinHash> signatures);
+
+    /**
+     * 查询ID范围内有效事件的签名
+     *
+     * @param startId 起始ID（包含）
+     * @param endId 结束ID（不包含）
+     * @return 签名列表
+     */
+    List<EventMinHash> getSignaturesInRange(long startId, long endId);
+
+    /**
+     * 为事件建立或更新签名和分段索引
+     *
+     * @param events 事件列表（需要ID和标题）
+     */
+    void indexEvents(List<Event> events);
+
+    /**
+     * 删除事件的签名和分段索引
+     *
+     * @param eventIds 事件ID列表
+     */
+    void removeEvents(Collection<Long> eventIds);
+
+    /**
+     * 为所有尚未建立当前版本签名的事件建立索引
+     *
+     * @return 建立索引的事件数
+     */
+    int backfillAll();
+
+    /**
+     * 获取索引统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,40 @@
+package com.hotech.events.service;
+
+import com.hotech.events.dto.EventData;
+import com.hotech.events.dto.TimeSegment;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 时间段覆盖记录服务接口
+ * 记录（地区集合，时间窗口，提示词模板版本）已通过大模型获取的时间，
+ * 覆盖记录仍在有效期内的时间窗口直接从事件表读取，不同时间线之间复用已获取的事件
+ */
+public interface SegmentCoverageService {
+
+    /**
+     * 从已存储的事件中读取被有效覆盖记录覆盖的时间段事件
+     *
+     * @param regionIds 地区ID列表
+     * @param segment 时间段
+     * @return 事件列表；未覆盖、覆盖已过期或存储中的事件明显少于获取时数量时返回null
+     */
+    List<EventData> findCoveredEvents(List<Long> regionIds, TimeSegment segment);
+
+    /**
+     * 记录时间段已通过大模型获取
+     *
+     * @param regionIds 地区ID列表
+     * @param segment 时间段
+     * @param eventCount 获取到的事件数量
+     */
+    void recordFetched(List<Long> regionIds, TimeSegment segment, int eventCount);
+
+    /**
+     * 获取统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -1,11 +1,14 @@
 package com.hotech.events.service;
 
 import com.hotech.events.dto.EventData;
+import com.hotech.events.dto.SegmentFetchResult;
 import com.hotech.events.dto.TimeSegment;
 import com.hotech.events.dto.TimelineGenerateRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 时间段分割服务接口
@@ -42,6 +45,18 @@ public interface TimeSegmentationService {
                                                  int maxSpanDays, int expectedEventsPerDay, 
                                                  int maxEventsPerSegment);
     
+    /**
+     * 按事件密度自适应分割时间段
+     * 根据event表中该地区的历史事件数和近期响应截断信号估计每天的事件密度，
+     * 密集时期切分更细，稀疏或空白时期合并为较长的时间段
+     * 
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param regionIds 地区ID列表
+     * @return 时间段列表
+     */
+    List<TimeSegment> adaptiveSegmentTimeRange(LocalDateTime startTime, LocalDateTime endTime, List<Long> regionIds);
+    
     /**
      * 批量获取事件
      * 对多个时间段并发调用API获取事件，并合并结果
@@ -113,4 +128,24 @@ public interface TimeSegmentationService {
      * @return 事件列表
      */
     List<EventData> fetchEventsForSegment(TimeSegment segment, TimelineGenerateRequest request);
-}
\ No newline at end of file
+    
+    /**
+     * 为单个时间段获取事件（增量回调）
+     * 启用流式调用时，每个事件在模型输出闭合后即完成校验并回调，无需等待整个响应；
+     * 调用经调度器按当前线程的优先级排队执行，回调在调度器的工作线程上执行
+     * 
+     * @param segment 时间段
+     * @param request 时间线生成请求
+     * @param eventConsumer 单个有效事件回调，可为null
+     * @return 事件列表，以及时间段是否完整获取
+     */
+    SegmentFetchResult fetchEventsForSegment(TimeSegment segment, TimelineGenerateRequest request,
+                                             Consumer<EventData> eventConsumer);
+    
+    /**
+     * 获取时间段调用调度器的统计信息（各优先级的队列深度和等待时间）
+     * 
+     * @return 统计信息
+     */
+    Map<String, Object> getSchedulerStats();
+}
@@ -0,0 +1,41 @@
+package com.hotech.events.service;
+
+import com.hotech.events.dto.EventData;
+import com.hotech.events.dto.TimeSegment;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 时间线分段检查点服务接口
+ * 按时间线ID和时间段ID持久化每个时间段已验证的事件，重试或恢复生成时跳过已完成的时间段
+ */
+public interface TimelineCheckpointService {
+
+    /**
+     * 恢复已有检查点覆盖的时间段事件
+     * 时间段ID一致或时间范围被某个检查点完整覆盖时视为已完成
+     *
+     * @param timelineId 时间线ID
+     * @param segments 时间段列表
+     * @return 时间段ID到事件列表的映射，只包含已完成的时间段
+     */
+    Map<String, List<EventData>> restore(Long timelineId, List<TimeSegment> segments);
+
+    /**
+     * 保存时间段检查点
+     *
+     * @param timelineId 时间线ID
+     * @param segment 时间段
+     * @param events 已验证的事件列表
+     */
+    void save(Long timelineId, TimeSegment segment, List<EventData> events);
+
+    /**
+     * 清除时间线的全部检查点
+     *
+     * @param timelineId 时间线ID
+     * @return 清除的检查点数
+     */
+    int clear(Long timelineId);
+}
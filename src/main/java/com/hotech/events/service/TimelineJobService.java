@@ -0,0 +1,107 @@
+package com.hotech.events.service;
+
+import com.hotech.events.entity.TimelineGenerationJob;
+import com.hotech.events.util.PriorityClass;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 时间线生成任务服务接口
+ * 生成任务持久化到任务表，由有界工作线程池执行，队列已满时拒绝提交
+ */
+public interface TimelineJobService {
+
+    /**
+     * 提交生成任务
+     *
+     * @param timelineId 时间线ID
+     * @param regionIds 地区ID列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 任务ID
+     * @throws com.hotech.events.exception.TimelineQueueFullException 排队任务数已达上限
+     */
+    Long submit(Long timelineId, List<Long> regionIds, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 提交带截止时间的生成任务，截止时间从提交时开始计算，包含排队时间
+     *
+     * @param timelineId 时间线ID
+     * @param regionIds 地区ID列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param deadlineAt 截止时间，为空时不限制
+     * @return 任务ID
+     * @throws com.hotech.events.exception.TimelineQueueFullException 排队任务数已达上限
+     */
+    Long submit(Long timelineId, List<Long> regionIds, LocalDateTime startTime, LocalDateTime endTime,
+                LocalDateTime deadlineAt);
+
+    /**
+     * 提交指定优先级的生成任务
+     *
+     * @param timelineId 时间线ID
+     * @param regionIds 地区ID列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param deadlineAt 截止时间，为空时不限制
+     * @param priority 优先级，为空时按时间跨度判断（超过批量回填阈值的为BULK，否则为INTERACTIVE）
+     * @return 任务ID
+     * @throws com.hotech.events.exception.TimelineQueueFullException 排队任务数已达上限
+     */
+    Long submit(Long timelineId, List<Long> regionIds, LocalDateTime startTime, LocalDateTime endTime,
+                LocalDateTime deadlineAt, PriorityClass priority);
+
+    /**
+     * 提交增量刷新任务，只检索指定时间窗口并追加到时间线，按定时刷新优先级执行
+     *
+     * @param timelineId 时间线ID
+     * @param regionIds 地区ID列表
+     * @param windowStart 刷新窗口开始时间
+     * @param windowEnd 刷新窗口结束时间
+     * @return 任务ID
+     * @throws com.hotech.events.exception.TimelineQueueFullException 排队任务数已达上限
+     */
+    Long submitRefresh(Long timelineId, List<Long> regionIds, LocalDateTime windowStart, LocalDateTime windowEnd);
+
+    /**
+     * 取消时间线未结束的生成任务
+     *
+     * @param timelineId 时间线ID
+     * @return 是否取消了任务
+     */
+    boolean cancel(Long timelineId);
+
+    /**
+     * 时间线的生成任务是否正在本节点执行
+     *
+     * @param timelineId 时间线ID
+     * @return 是否在本节点执行
+     */
+    boolean isRunningLocally(Long timelineId);
+
+    /**
+     * 获取时间线最近的生成任务
+     *
+     * @param timelineId 时间线ID
+     * @return 任务，不存在时返回null
+     */
+    TimelineGenerationJob getLatestJob(Long timelineId);
+
+    /**
+     * 获取任务的排队位置
+     *
+     * @param jobId 任务ID
+     * @return 前方排队的任务数
+     */
+    int getQueuePosition(Long jobId);
+
+    /**
+     * 获取队列统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getQueueStats();
+}
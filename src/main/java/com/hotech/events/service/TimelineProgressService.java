@@ -0,0 +1,79 @@
+package com.hotech.events.service;
+
+import com.hotech.events.dto.EventData;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 时间线生成进度服务接口
+ * 保存生成中时间线的进度（容量有限、按时间过期），并通过SSE向订阅者推送进度变化和新入库的事件
+ */
+public interface TimelineProgressService {
+
+    /**
+     * 获取时间线的生成进度
+     *
+     * @param timelineId 时间线ID
+     * @return 进度信息副本，不存在或已过期时返回null
+     */
+    Map<String, Object> getProgress(Long timelineId);
+
+    /**
+     * 替换时间线的生成进度并推送给订阅者
+     *
+     * @param timelineId 时间线ID
+     * @param progress 进度信息
+     */
+    void putProgress(Long timelineId, Map<String, Object> progress);
+
+    /**
+     * 将变化的字段合并到时间线的生成进度并推送给订阅者
+     *
+     * @param timelineId 时间线ID
+     * @param changes 变化的字段
+     * @return 合并后的进度信息副本
+     */
+    Map<String, Object> mergeProgress(Long timelineId, Map<String, Object> changes);
+
+    /**
+     * 删除时间线的生成进度并关闭其订阅
+     *
+     * @param timelineId 时间线ID
+     */
+    void removeProgress(Long timelineId);
+
+    /**
+     * 推送新入库的事件
+     *
+     * @param timelineId 时间线ID
+     * @param eventId 事件ID
+     * @param event 事件数据
+     */
+    void publishEvent(Long timelineId, Long eventId, EventData event);
+
+    /**
+     * 订阅时间线的进度和事件推送，订阅后立即推送当前进度；生成结束（完成或失败）后关闭连接
+     *
+     * @param timelineId 时间线ID
+     * @param snapshot 当前进度，为null时不推送
+     * @return SSE连接
+     * @throws IllegalStateException 订阅数已达上限
+     */
+    SseEmitter subscribe(Long timelineId, Map<String, Object> snapshot);
+
+    /**
+     * 获取本节点有订阅的时间线ID
+     *
+     * @return 时间线ID集合
+     */
+    Set<Long> getSubscribedTimelineIds();
+
+    /**
+     * 获取进度存储和订阅的统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -3,6 +3,7 @@ package com.hotech.events.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.hotech.events.entity.Timeline;
+import com.hotech.events.util.PriorityClass;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -65,6 +66,35 @@ public interface TimelineService {
     Long generateTimelineAsync(String name, String description, List<Long> regionIds, 
                               LocalDateTime startTime, LocalDateTime endTime);
     
+    /**
+     * 在时间预算内异步生成时间线
+     * 超过预算后停止检索和分析，以已获得的事件完成时间线并在进度中标记为不完整
+     * @param name 时间线名称
+     * @param description 时间线描述
+     * @param regionIds 地区ID列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param timeBudgetSeconds 时间预算（秒），为空时不限制
+     * @return 生成的时间线ID
+     */
+    Long generateTimelineAsync(String name, String description, List<Long> regionIds, 
+                              LocalDateTime startTime, LocalDateTime endTime, Integer timeBudgetSeconds);
+    
+    /**
+     * 按指定优先级在时间预算内异步生成时间线
+     * @param name 时间线名称
+     * @param description 时间线描述
+     * @param regionIds 地区ID列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param timeBudgetSeconds 时间预算（秒），为空时不限制
+     * @param priority 优先级，为空时按时间跨度判断
+     * @return 生成的时间线ID
+     */
+    Long generateTimelineAsync(String name, String description, List<Long> regionIds, 
+                              LocalDateTime startTime, LocalDateTime endTime, Integer timeBudgetSeconds,
+                              PriorityClass priority);
+    
     /**
      * 获取时间线生成进度
      * @param id 时间线ID
@@ -79,6 +109,20 @@ public interface TimelineService {
      */
     boolean cancelGeneration(Long id);
     
+    /**
+     * 重试失败或已取消的时间线生成，已保存检查点的时间段不再重新获取
+     * @param id 时间线ID
+     * @return 是否已重新提交
+     */
+    boolean retryGeneration(Long id);
+    
+    /**
+     * 增量刷新时间线，只检索上次成功生成以来（含重叠时间）的事件并追加到时间线
+     * @param id 时间线ID
+     * @return 是否已提交刷新任务
+     */
+    boolean refreshTimeline(Long id);
+    
     /**
      * 获取时间线包含的地区
      * @param timelineId 时间线ID
@@ -122,11 +166,12 @@ public interface TimelineService {
     void associateRegions(Long timelineId, List<Long> regionIds);
     
     /**
-     * 关联事件到时间线
+     * 批量关联事件到时间线，已存在的关联会被忽略，并按实际关联数量更新时间线的事件数量
      * @param timelineId 时间线ID
      * @param eventIds 事件ID列表
+     * @return 新建立的关联数量
      */
-    void associateEvents(Long timelineId, List<Long> eventIds);
+    int associateEvents(Long timelineId, List<Long> eventIds);
     
     /**
      * 添加单个事件到时间线
@@ -1,6 +1,7 @@
 package com.hotech.events.service.impl;
 
 import com.hotech.events.service.CacheService;
+import com.hotech.events.service.LlmResponseCacheService;
 import com.hotech.events.service.SystemMonitoringService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +11,11 @@ import org.springframework.stereotype.Service;
 
 import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -26,6 +31,9 @@ public class CacheServiceImpl implements CacheService {
     @Autowired
     private SystemMonitoringService monitoringService;
     
+    @Autowired
+    private LlmResponseCacheService llmResponseCacheService;
+    
     @Value("${app.deepseek.enhanced.cache-ttl:300000}")
     private long defaultTtl; // 默认5分钟TTL
     
@@ -40,6 +48,10 @@ public class CacheServiceImpl implements CacheService {
     private final AtomicLong missCount = new AtomicLong(0);
     private final AtomicLong evictionCount = new AtomicLong(0);
     
+    // 按键前缀（如event_query、timeline）分别统计命中情况
+    private final ConcurrentHashMap<String, AtomicLong> namespaceHits = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> namespaceMisses = new ConcurrentHashMap<>();
+    
     @Override
     public void put(String key, Object value, long ttl, TimeUnit timeUnit) {
         if (!cacheEnabled) {
@@ -79,6 +91,7 @@ public class CacheServiceImpl implements CacheService {
             
             if (item == null) {
                 missCount.incrementAndGet();
+                recordNamespaceAccess(key, false);
                 log.debug("缓存未命中: key={}", key);
                 return Optional.empty();
             }
@@ -88,11 +101,13 @@ public class CacheServiceImpl implements CacheService {
                 cache.remove(key);
                 evictionCount.incrementAndGet();
                 missCount.incrementAndGet();
+                recordNamespaceAccess(key, false);
                 log.debug("缓存项已过期: key={}", key);
                 return Optional.empty();
             }
             
             hitCount.incrementAndGet();
+            recordNamespaceAccess(key, true);
             log.debug("缓存命中: key={}", key);
             
             return Optional.of((T) item.getValue());
@@ -197,6 +212,22 @@ public class CacheServiceImpl implements CacheService {
             stats.setMissRate((double) misses / total);
         }
         
+        Map<String, Map<String, Object>> namespaceStats = new HashMap<>();
+        Set<String> namespaces = new HashSet<>(namespaceHits.keySet());
+        namespaces.addAll(namespaceMisses.keySet());
+        for (String namespace : namespaces) {
+            long namespaceHit = namespaceHits.getOrDefault(namespace, new AtomicLong(0)).get();
+            long namespaceMiss = namespaceMisses.getOrDefault(namespace, new AtomicLong(0)).get();
+            Map<String, Object> item = new HashMap<>();
+            item.put("hitCount", namespaceHit);
+            item.put("missCount", namespaceMiss);
+            item.put("hitRate", namespaceHit + namespaceMiss > 0
+                    ? (double) namespaceHit / (namespaceHit + namespaceMiss) : 0.0);
+            namespaceStats.put(namespace, item);
+        }
+        stats.setNamespaceStats(namespaceStats);
+        stats.setLlmResponseCacheStats(llmResponseCacheService.getStats());
+        
         return stats;
     }
     
@@ -215,6 +246,15 @@ public class CacheServiceImpl implements CacheService {
         return "timeline:" + timelineId;
     }
     
+    /**
+     * 按键前缀记录命中情况
+     */
+    private void recordNamespaceAccess(String key, boolean hit) {
+        int index = key.indexOf(':');
+        String namespace = index > 0 ? key.substring(0, index) : "default";
+        (hit ? namespaceHits : namespaceMisses).computeIfAbsent(namespace, k -> new AtomicLong(0)).incrementAndGet();
+    }
+    
     /**
      * 定时清理过期缓存项
      */
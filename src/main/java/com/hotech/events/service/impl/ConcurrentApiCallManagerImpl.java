@@ -6,12 +6,17 @@ import com.hotech.events.model.TimeSegment;
 import com.hotech.events.model.TimelineGenerateRequest;
 import com.hotech.events.service.ConcurrentApiCallManager;
 import com.hotech.events.service.TimelinePerformanceMonitoringService;
+import com.hotech.events.util.AdaptiveConcurrencyLimiter;
+import com.hotech.events.util.CancellationToken;
+import com.hotech.events.util.Deadline;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.net.SocketTimeoutException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
@@ -41,6 +46,12 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
     private int concurrency = 5; // 默认并发度
     private long timeoutMs = 30000; // 默认超时30秒
 
+    // 时间段调用默认使用的服务商（与初始化时优先使用的火山引擎配置一致）
+    private static final String DEFAULT_PROVIDER = "VOLCENGINE_WEB";
+
+    // 按服务商划分的自适应并发限制器
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
     // 统计信息
     private final AtomicLong totalApiCalls = new AtomicLong(0);
     private final AtomicLong successfulApiCalls = new AtomicLong(0);
@@ -132,7 +143,8 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
     @Override
     public CompletableFuture<List<EventData>> executeAsyncApiCall(TimeSegment segment,
             TimelineGenerateRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
+        // 传递调用线程的取消令牌和截止时间，取消后排队中的时间段直接跳过
+        return CompletableFuture.supplyAsync(CancellationToken.wrap(Deadline.wrap(() -> {
             long startTime = System.currentTimeMillis();
             String segmentId = segment.getSegmentId();
             activeApiCalls.incrementAndGet();
@@ -143,7 +155,7 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
                         segmentId, segment.getStartTime(), segment.getEndTime());
 
                 // 模拟API调用（在实际实现中应该调用真实的API服务）
-                List<EventData> events = simulateApiCall(segment, request);
+                List<EventData> events = executeWithLimit(DEFAULT_PROVIDER, () -> simulateApiCall(segment, request));
 
                 long executionTime = System.currentTimeMillis() - startTime;
                 segmentExecutionTimes.put(segmentId, executionTime);
@@ -159,7 +171,7 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
             } finally {
                 activeApiCalls.decrementAndGet();
             }
-        }, executorService)
+        })), executorService)
                 .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
                 .exceptionally(throwable -> {
                     if (throwable instanceof TimeoutException) {
@@ -193,6 +205,50 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
                 });
     }
 
+    @Override
+    public <T> T executeWithLimit(String provider, Callable<T> call) throws Exception {
+        return executeWithLimit(provider, 1, call);
+    }
+
+    @Override
+    public <T> T executeWithLimit(String provider, long cost, Callable<T> call) throws Exception {
+        if (!config.getApi().getAdaptive().isEnabled()) {
+            return call.call();
+        }
+
+        // 已取消的任务不再排队等待许可
+        CancellationToken.checkCurrent();
+
+        AdaptiveConcurrencyLimiter limiter = getLimiter(provider);
+        // 等待许可的时间不超过请求的剩余时间
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(
+                Deadline.capTimeout(config.getApi().getAdaptive().getAcquireTimeout()), cost);
+        if (permit == null) {
+            throw new RejectedExecutionException("等待并发许可超时: provider=" + provider);
+        }
+
+        try {
+            T result = call.call();
+            // 到达截止时间被截断的流式调用延迟等于剩余时间，不反映服务商的负载
+            if (isDeadlineExpired()) {
+                permit.onIgnore();
+            } else {
+                permit.onSuccess();
+            }
+            return result;
+        } catch (Exception e) {
+            if (isOverload(e) && !isDeadlineExpired()) {
+                permit.onOverload();
+            } else {
+                permit.onIgnore();
+            }
+            throw e;
+        } finally {
+            // 兜底释放（如Error），已释放时不会重复计数
+            permit.onIgnore();
+        }
+    }
+
     @Override
     public void setConcurrency(int concurrency) {
         if (concurrency <= 0) {
@@ -201,11 +257,21 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
 
         this.concurrency = concurrency;
 
-        // 重新初始化线程池
-        if (executorService != null) {
-            executorService.shutdown();
+        // 在线调整线程池大小，不中断已提交的任务
+        if (executorService != null && !executorService.isShutdown()) {
+            if (concurrency * 2 >= executorService.getMaximumPoolSize()) {
+                executorService.setMaximumPoolSize(concurrency * 2);
+                executorService.setCorePoolSize(concurrency);
+            } else {
+                executorService.setCorePoolSize(concurrency);
+                executorService.setMaximumPoolSize(concurrency * 2);
+            }
+        } else {
+            initializeThreadPool();
         }
-        initializeThreadPool();
+
+        // 以手动设置的并发度作为自适应限制的新起点
+        limiters.values().forEach(limiter -> limiter.setLimit(concurrency));
 
         log.info("并发度已更新为: {}", concurrency);
     }
@@ -268,6 +334,17 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
             stats.put("completedTasks", executorService.getCompletedTaskCount());
         }
 
+        // 自适应并发限制统计
+        Map<String, Object> limiterStats = new HashMap<>();
+        int totalQueueDepth = 0;
+        for (Map.Entry<String, AdaptiveConcurrencyLimiter> entry : limiters.entrySet()) {
+            Map<String, Object> providerStats = entry.getValue().getStats();
+            totalQueueDepth += (Integer) providerStats.get("queueDepth");
+            limiterStats.put(entry.getKey(), providerStats);
+        }
+        stats.put("adaptiveLimiters", limiterStats);
+        stats.put("limiterQueueDepth", totalQueueDepth);
+
         // 配置信息
         stats.put("concurrency", concurrency);
         stats.put("timeoutMs", timeoutMs);
@@ -313,6 +390,51 @@ public class ConcurrentApiCallManagerImpl implements ConcurrentApiCallManager {
         log.debug("线程池初始化完成，核心线程数: {}, 最大线程数: {}", concurrency, concurrency * 2);
     }
 
+    /**
+     * 获取服务商的自适应并发限制器，初始上限取该服务商配置的并发线程数
+     */
+    private AdaptiveConcurrencyLimiter getLimiter(String provider) {
+        return limiters.computeIfAbsent(provider, key -> {
+            TimelineEnhancementConfig.ApiConfig api = config.getApi();
+            TimelineEnhancementConfig.ApiConfig.AdaptiveConcurrencyConfig adaptive = api.getAdaptive();
+            int initialLimit = key.startsWith("VOLCENGINE")
+                    ? api.getVolcengine().getConcurrentThreads()
+                    : api.getDeepseek().getConcurrentThreads();
+            log.info("创建自适应并发限制器: provider={}, initialLimit={}, range=[{}, {}]",
+                    key, initialLimit, adaptive.getMinLimit(), adaptive.getMaxLimit());
+            return new AdaptiveConcurrencyLimiter(key, initialLimit, adaptive.getMinLimit(), adaptive.getMaxLimit(),
+                    adaptive.getBackoffRatio(), adaptive.getLatencyTolerance());
+        });
+    }
+
+    /**
+     * 当前线程的截止时间是否已过，此时的超时由调用方自身的时间预算导致
+     */
+    private boolean isDeadlineExpired() {
+        Deadline deadline = Deadline.current();
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * 判断异常是否表示服务商过载：限流（429）、服务端错误（5xx）或超时
+     */
+    private boolean isOverload(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause != null) {
+            if (cause instanceof WebClientResponseException) {
+                int status = ((WebClientResponseException) cause).getStatusCode().value();
+                return status == 429 || status >= 500;
+            }
+            if (cause instanceof TimeoutException
+                    || cause instanceof SocketTimeoutException
+                    || cause instanceof io.netty.handler.timeout.TimeoutException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
     /**
      * 模拟API调用（在实际实现中应该调用真实的API服务）
      */
@@ -5,11 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotech.events.dto.event.EventDTO;
 import com.hotech.events.entity.Region;
 import com.hotech.events.service.DeepSeekService;
+import com.hotech.events.service.LlmHttpClient;
+import com.hotech.events.service.LlmResponseCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -78,6 +79,12 @@ public class DeepSeekOnlineSearchServiceImpl implements DeepSeekService {
     @org.springframework.beans.factory.annotation.Autowired
     private com.hotech.events.mapper.EventRelationMapper eventRelationMapper;
 
+    @org.springframework.beans.factory.annotation.Autowired
+    private LlmHttpClient llmHttpClient;
+
+    @org.springframework.beans.factory.annotation.Autowired
+    private LlmResponseCacheService responseCacheService;
+
     @Override
     public Boolean checkConnection() {
         log.info("检查DeepSeek联网搜索API连接状态");
@@ -171,17 +178,6 @@ public class DeepSeekOnlineSearchServiceImpl implements DeepSeekService {
             
             requestBody.put("messages", messages);
 
-            // 创建HTTP请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiConfig.apiKey);
-
-            // 创建HTTP请求实体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            // 创建RestTemplate
-            RestTemplate restTemplate = new RestTemplate();
-
             String apiType = apiConfig.supportsWebSearch ? "火山引擎联网搜索API" : "DeepSeek官方API";
             log.info("调用{}: apiUrl={}, model={}, webSearch={}, promptLength={}", 
                     apiType, apiConfig.apiUrl, apiConfig.model, apiConfig.supportsWebSearch, prompt.length());
@@ -199,10 +195,18 @@ public class DeepSeekOnlineSearchServiceImpl implements DeepSeekService {
                 log.warn("无法序列化请求体: {}", e.getMessage());
             }
 
+            // 优先读取持久化响应缓存
+            String cachedContent = responseCacheService.get(apiConfig.apiUrl, requestBody);
+            if (cachedContent != null) {
+                log.info("使用持久化缓存响应: {}, 响应长度: {}", apiType, cachedContent.length());
+                return cachedContent;
+            }
+
             // 发送请求
-            ResponseEntity<String> response = restTemplate.postForEntity(
+            ResponseEntity<String> response = llmHttpClient.post(
                     apiConfig.apiUrl,
-                    requestEntity,
+                    apiConfig.apiKey,
+                    requestBody,
                     String.class);
 
             // 检查响应状态
@@ -227,6 +231,7 @@ public class DeepSeekOnlineSearchServiceImpl implements DeepSeekService {
                             String content = (String) messageObj.get("content");
                             log.info("DeepSeek API调用成功: 使用{}API, 响应长度: {}", 
                                     apiConfig.supportsWebSearch ? "火山引擎联网搜索" : "官方", content.length());
+                            responseCacheService.put(apiConfig.apiUrl, requestBody, content);
                             return content;
                         }
                     }
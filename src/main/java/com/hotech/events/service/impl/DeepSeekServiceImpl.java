@@ -7,12 +7,13 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.hotech.events.dto.event.EventDTO;
 import com.hotech.events.entity.Region;
 import com.hotech.events.service.DeepSeekService;
+import com.hotech.events.service.LlmHttpClient;
+import com.hotech.events.service.LlmResponseCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
-import org.springframework.http.*;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -65,6 +66,12 @@ public class DeepSeekServiceImpl implements DeepSeekService {
     @org.springframework.beans.factory.annotation.Autowired
     private com.hotech.events.mapper.EventRelationMapper eventRelationMapper;
 
+    @org.springframework.beans.factory.annotation.Autowired
+    private LlmHttpClient llmHttpClient;
+
+    @org.springframework.beans.factory.annotation.Autowired
+    private LlmResponseCacheService responseCacheService;
+
     @Override
     public Boolean checkConnection() {
         log.info("检查DeepSeek API连接状态");
@@ -123,23 +130,20 @@ public class DeepSeekServiceImpl implements DeepSeekService {
             
             requestBody.put("messages", messages);
 
-            // 创建HTTP请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + deepseekApiKey);
-
-            // 创建HTTP请求实体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            // 创建RestTemplate
-            RestTemplate restTemplate = new RestTemplate();
+            // 优先读取持久化响应缓存
+            String cachedContent = responseCacheService.get(deepseekApiUrl, requestBody);
+            if (cachedContent != null) {
+                log.info("使用持久化缓存响应, 响应长度: {}", cachedContent.length());
+                return cachedContent;
+            }
 
             log.info("调用DeepSeek API, 模型: {}, 提示词长度: {}", model, prompt.length());
 
             // 发送请求
-            ResponseEntity<String> response = restTemplate.postForEntity(
+            ResponseEntity<String> response = llmHttpClient.post(
                     deepseekApiUrl,
-                    requestEntity,
+                    deepseekApiKey,
+                    requestBody,
                     String.class);
 
             // 检查响应状态
@@ -155,6 +159,7 @@ public class DeepSeekServiceImpl implements DeepSeekService {
                         if (messageObj.containsKey("content")) {
                             String content = (String) messageObj.get("content");
                             log.info("DeepSeek API调用成功, 响应长度: {}", content.length());
+                            responseCacheService.put(deepseekApiUrl, requestBody, content);
                             return content;
                         }
                     }
@@ -1139,21 +1144,11 @@ public class DeepSeekServiceImpl implements DeepSeekService {
             // 添加消息数组到请求体
             requestBody.set("messages", messages);
 
-            // 创建HTTP请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + deepseekApiKey);
-
-            // 创建HTTP请求实体
-            HttpEntity<String> requestEntity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-
-            // 创建RestTemplate
-            RestTemplate restTemplate = new RestTemplate();
-
             // 调用DeepSeek聊天API
-            ResponseEntity<Map> response = restTemplate.postForEntity(
+            ResponseEntity<Map> response = llmHttpClient.post(
                     deepseekApiUrl,
-                    requestEntity,
+                    deepseekApiKey,
+                    requestBody,
                     Map.class);
 
             // 检查响应状态
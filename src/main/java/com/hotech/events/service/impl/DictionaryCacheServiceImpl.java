@@ -0,0 +1,179 @@
+package com.hotech.events.service.impl;
+
+import com.hotech.events.entity.Dictionary;
+import com.hotech.events.mapper.DictionaryMapper;
+import com.hotech.events.service.DictionaryCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 字典已知值缓存服务实现类
+ * 每个字典类型一个按访问顺序淘汰的有界集合，启动时加载各类型最近添加的字典编码；
+ * 本节点的写入、修改和删除同步更新缓存，其他节点删除的字典项在淘汰或定期重新加载后重新写入
+ */
+@Slf4j
+@Service
+public class DictionaryCacheServiceImpl implements DictionaryCacheService {
+
+    // 启动时预加载的字典类型（事件入库时自动维护的类型）
+    private static final List<String> PRELOAD_TYPES = List.of("subject", "object", "event_type", "location", "keyword");
+
+    @Autowired
+    private DictionaryMapper dictionaryMapper;
+
+    @Value("${timeline.dictionary-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${timeline.dictionary-cache.max-entries-per-type:20000}")
+    private int maxEntriesPerType;
+
+    // 字典类型 -> 已知的字典编码
+    private volatile Map<String, Map<String, Boolean>> knownValues = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong insertedCount = new AtomicLong(0);
+
+    /**
+     * 应用启动后加载已知字典值
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * 定期重新加载，使其他节点删除的字典项能够重新写入
+     */
+    @Scheduled(fixedDelayString = "${timeline.dictionary-cache.reload-interval:3600000}",
+            initialDelayString = "${timeline.dictionary-cache.reload-interval:3600000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    @Override
+    public int upsertAutoValues(Collection<Dictionary> dictionaries) {
+        if (dictionaries == null || dictionaries.isEmpty()) {
+            return 0;
+        }
+
+        List<Dictionary> unknown = new ArrayList<>();
+        for (Dictionary dictionary : dictionaries) {
+            if (enabled && isKnown(dictionary.getDictType(), dictionary.getDictCode())) {
+                hitCount.incrementAndGet();
+            } else {
+                missCount.incrementAndGet();
+                unknown.add(dictionary);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return 0;
+        }
+
+        int inserted = dictionaryMapper.insertIgnoreBatch(unknown);
+        insertedCount.addAndGet(inserted);
+        // 写入成功后所有字典项均已存在（新增或被唯一索引忽略）
+        for (Dictionary dictionary : unknown) {
+            markKnown(dictionary.getDictType(), dictionary.getDictCode());
+        }
+        return inserted;
+    }
+
+    @Override
+    public void markKnown(String dictType, String dictCode) {
+        if (!enabled || !StringUtils.hasText(dictType) || !StringUtils.hasText(dictCode)) {
+            return;
+        }
+        knownValues.computeIfAbsent(dictType, type -> newTypeSet()).put(dictCode, Boolean.TRUE);
+    }
+
+    @Override
+    public void evict(String dictType, String dictCode) {
+        if (dictType == null || dictCode == null) {
+            return;
+        }
+        Map<String, Boolean> values = knownValues.get(dictType);
+        if (values != null) {
+            values.remove(dictCode);
+        }
+    }
+
+    @Override
+    public void clear() {
+        knownValues = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, Map<String, Boolean>> loaded = new ConcurrentHashMap<>();
+            int total = 0;
+            for (String dictType : PRELOAD_TYPES) {
+                Map<String, Boolean> values = newTypeSet();
+                List<String> codes = dictionaryMapper.findRecentCodesByType(dictType, Math.max(1, maxEntriesPerType));
+                // 按从旧到新的顺序放入，使最近添加的字典编码最后被淘汰
+                for (int i = codes.size() - 1; i >= 0; i--) {
+                    values.put(codes.get(i), Boolean.TRUE);
+                }
+                loaded.put(dictType, values);
+                total += values.size();
+            }
+            knownValues = loaded;
+            log.info("加载已知字典值完成: 类型数={}, 字典值数={}", loaded.size(), total);
+        } catch (Exception e) {
+            log.warn("加载已知字典值失败，入库时将按需写入: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxEntriesPerType", maxEntriesPerType);
+        Map<String, Integer> sizes = new HashMap<>();
+        knownValues.forEach((type, values) -> sizes.put(type, values.size()));
+        stats.put("knownValues", sizes);
+        long hits = hitCount.get();
+        long misses = missCount.get();
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        stats.put("insertedCount", insertedCount.get());
+        return stats;
+    }
+
+    private boolean isKnown(String dictType, String dictCode) {
+        Map<String, Boolean> values = knownValues.get(dictType);
+        return values != null && values.get(dictCode) != null;
+    }
+
+    private Map<String, Boolean> newTypeSet() {
+        int maxEntries = Math.max(1, maxEntriesPerType);
+        return Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
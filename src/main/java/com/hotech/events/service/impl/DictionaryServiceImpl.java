@@ -6,6 +6,7 @@ import com.hotech.events.dto.DictionaryDTO;
 import com.hotech.events.dto.DictionaryQueryDTO;
 import com.hotech.events.entity.Dictionary;
 import com.hotech.events.mapper.DictionaryMapper;
+import com.hotech.events.service.DictionaryCacheService;
 import com.hotech.events.service.DictionaryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -36,6 +37,9 @@ public class DictionaryServiceImpl implements DictionaryService {
     @Autowired
     private DictionaryMapper dictionaryMapper;
 
+    @Autowired
+    private DictionaryCacheService dictionaryCacheService;
+
     @Autowired
     private CountryMapper countryMapper;
 
@@ -189,6 +193,7 @@ public class DictionaryServiceImpl implements DictionaryService {
         }
         
         dictionaryMapper.insert(dictionary);
+        dictionaryCacheService.markKnown(dictionary.getDictType(), dictionary.getDictCode());
         
         log.info("创建字典项完成，字典ID：{}", dictionary.getId());
         return convertToDTO(dictionary);
@@ -222,6 +227,8 @@ public class DictionaryServiceImpl implements DictionaryService {
         dictionary.setUpdatedAt(LocalDateTime.now());
         
         dictionaryMapper.updateById(dictionary);
+        dictionaryCacheService.evict(existingDictionary.getDictType(), existingDictionary.getDictCode());
+        dictionaryCacheService.markKnown(dictionary.getDictType(), dictionary.getDictCode());
         
         log.info("更新字典项完成，字典ID：{}", dictionary.getId());
         return convertToDTO(dictionary);
@@ -251,6 +258,7 @@ public class DictionaryServiceImpl implements DictionaryService {
         }
         
         dictionaryMapper.deleteById(id);
+        dictionaryCacheService.evict(dictionary.getDictType(), dictionary.getDictCode());
         
         log.info("删除字典项完成，ID：{}", id);
         return true;
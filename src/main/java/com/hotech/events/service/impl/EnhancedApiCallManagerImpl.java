@@ -3,24 +3,39 @@ package com.hotech.events.service.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotech.events.config.DynamicApiConfigManager;
+import com.hotech.events.config.TimelineEnhancementConfig;
 import com.hotech.events.dto.ApiHealthStatus;
 import com.hotech.events.dto.TimeSegment;
 import com.hotech.events.mapper.ApiCallRecordMapper;
 import com.hotech.events.service.ApiMonitoringService;
+import com.hotech.events.service.ConcurrentApiCallManager;
 import com.hotech.events.service.EnhancedApiCallManager;
+import com.hotech.events.service.LlmHttpClient;
+import com.hotech.events.service.LlmResponseCacheService;
+import com.hotech.events.util.CancellationToken;
+import com.hotech.events.util.Deadline;
+import com.hotech.events.util.SegmentPacker;
+import com.hotech.events.util.StreamingJsonObjectExtractor;
+import com.hotech.events.util.TokenBucketRateLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.DigestUtils;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +55,18 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
     @Autowired
     private ApiCallRecordMapper apiCallRecordMapper;
     
+    @Autowired
+    private LlmHttpClient llmHttpClient;
+    
+    @Autowired
+    private LlmResponseCacheService responseCacheService;
+    
+    @Autowired
+    private ConcurrentApiCallManager concurrentApiCallManager;
+    
+    @Autowired
+    private TimelineEnhancementConfig enhancementConfig;
+    
     @Value("${app.deepseek.max-tokens:2000}")
     private int maxTokens;
     
@@ -55,17 +82,72 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
     @Value("${app.api.health-check.cache-duration:300000}")
     private long healthCacheDuration; // 5分钟
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${app.llm.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+    
+    @Value("${app.llm.hedging.percentile:0.9}")
+    private double hedgingPercentile;
+    
+    @Value("${app.llm.hedging.min-samples:20}")
+    private int hedgingMinSamples;
+    
+    @Value("${app.llm.hedging.extra-token-budget:50000}")
+    private long hedgingExtraTokenBudget; // 每分钟对冲请求可额外消耗的Token数
+    
+    @Value("${timeline.segmentation.packing-enabled:true}")
+    private boolean packingEnabled;
+    
+    @Value("${timeline.segmentation.packing-density-threshold:8}")
+    private int packingDensityThreshold;
+    
+    @Value("${timeline.segmentation.packing-max-events:24}")
+    private int packingMaxEvents;
+    
+    @Value("${timeline.segmentation.packing-max-segments:4}")
+    private int packingMaxSegments;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     // API健康状态缓存
     private final ConcurrentHashMap<String, ApiHealthCacheEntry> healthCache = new ConcurrentHashMap<>();
     
+    // 按服务商划分的令牌桶限流器（RPM + TPM），桶内按API密钥区分
+    private final ConcurrentHashMap<String, TokenBucketRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    
+    // 按API类型记录的成功调用延迟，用于计算对冲触发阈值
+    private final ConcurrentHashMap<String, LatencyWindow> latencyWindows = new ConcurrentHashMap<>();
+    
+    // 对冲请求的额外Token预算与执行线程
+    private TokenBucketRateLimiter hedgeBudget;
+    private ExecutorService hedgeExecutor;
+    
     // API调用统计
     private final AtomicLong totalCalls = new AtomicLong(0);
     private final AtomicLong successfulCalls = new AtomicLong(0);
     private final AtomicLong failedCalls = new AtomicLong(0);
     private final AtomicInteger retryCount = new AtomicInteger(0);
+    private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong hedgedCalls = new AtomicLong(0);
+    private final AtomicLong hedgeWins = new AtomicLong(0);
+    private final AtomicLong hedgeBudgetRejected = new AtomicLong(0);
+    
+    @PostConstruct
+    public void init() {
+        hedgeBudget = new TokenBucketRateLimiter(Integer.MAX_VALUE, hedgingExtraTokenBudget, 60000);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        hedgeExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "llm-hedge-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
     
     @Override
     public DynamicApiConfigManager.ApiConfig selectOptimalApi(LocalDateTime startTime, LocalDateTime endTime) {
@@ -112,12 +194,30 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
     
     @Override
     public String callApiWithRetry(DynamicApiConfigManager.ApiConfig config, String prompt, int maxRetries, String requestId) {
+        // 优先读取持久化响应缓存
+        Map<String, Object> cacheKeyBody = buildRequestBody(config, prompt);
+        String cachedResponse = responseCacheService.get(config.getApiUrl(), cacheKeyBody);
+        if (cachedResponse != null) {
+            cacheHits.incrementAndGet();
+            log.debug("使用持久化缓存响应: requestId={}", requestId);
+            return cachedResponse;
+        }
+        
         totalCalls.incrementAndGet();
+        long callStartTime = System.currentTimeMillis();
         
         Exception lastException = null;
         long delay = baseRetryDelay;
         
         for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (CancellationToken.isCurrentCancelled()) {
+                log.info("任务已取消，停止API调用: requestId={}", requestId);
+                break;
+            }
+            if (!hasTimeForAttempt(attempt, delay)) {
+                log.warn("剩余时间不足，停止API调用: attempt={}, requestId={}", attempt, requestId);
+                break;
+            }
             try {
                 if (attempt > 0) {
                     log.info("API调用重试: attempt={}/{}, delay={}ms, requestId={}", 
@@ -129,9 +229,17 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
                     delay = Math.min(delay * 2, maxRetryDelay);
                 }
                 
-                String response = callApiInternal(config, prompt, requestId, attempt);
+                AtomicReference<String> finishReason = new AtomicReference<>();
+                String response = callApiInternal(config, prompt, requestId, attempt, true, finishReason);
                 if (response != null && !response.trim().isEmpty()) {
                     successfulCalls.incrementAndGet();
+                    recordLatency(getApiTypeName(config), System.currentTimeMillis() - callStartTime);
+                    // 达到max_tokens或不完整的响应仍返回给调用方，但不写入缓存
+                    if (!"length".equals(finishReason.get()) && isResponseComplete(response, 0)) {
+                        responseCacheService.put(config.getApiUrl(), cacheKeyBody, response);
+                    } else {
+                        log.warn("API响应不完整，不写入缓存: finishReason={}, requestId={}", finishReason.get(), requestId);
+                    }
                     log.debug("API调用成功: attempt={}, requestId={}", attempt, requestId);
                     return response;
                 }
@@ -219,21 +327,42 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
         // 选择最优API
         DynamicApiConfigManager.ApiConfig primaryConfig = selectOptimalApi(startTime, endTime);
         
-        // 尝试主要API
-        String response = callApiWithRetry(primaryConfig, prompt, 2, requestId);
-        if (response != null) {
-            return response;
-        }
-        
-        // 主要API失败，尝试备用API
-        log.warn("主要API调用失败，尝试备用API: requestId={}", requestId);
-        
         boolean primaryIsWebSearch = primaryConfig.isSupportsWebSearch();
         DynamicApiConfigManager.ApiConfig fallbackConfig = primaryIsWebSearch 
             ? dynamicApiConfigManager.getOfficialApiConfig() 
             : dynamicApiConfigManager.getVolcengineApiConfig();
         
-        response = callApiWithRetry(fallbackConfig, prompt, 1, requestId);
+        if (hedgingEnabled) {
+            // 对冲模式：主要API超过其历史延迟分位数仍未返回时，向备用API发送相同请求，取先完成者
+            HedgeResult hedgeResult = callWithHedging(primaryConfig, fallbackConfig, prompt, requestId);
+            if (hedgeResult.response != null) {
+                return hedgeResult.response;
+            }
+            if (hedgeResult.fallbackAttempted) {
+                log.error("所有API调用都失败: requestId={}", requestId);
+                return null;
+            }
+        } else {
+            // 尝试主要API
+            String response = callApiWithRetry(primaryConfig, prompt, 2, requestId);
+            if (response != null) {
+                return response;
+            }
+        }
+        
+        if (CancellationToken.isCurrentCancelled()) {
+            log.info("任务已取消，跳过备用API: requestId={}", requestId);
+            return null;
+        }
+        if (Deadline.checkExpired()) {
+            log.warn("已超过截止时间，跳过备用API: requestId={}", requestId);
+            return null;
+        }
+        
+        // 主要API失败，尝试备用API
+        log.warn("主要API调用失败，尝试备用API: requestId={}", requestId);
+        
+        String response = callApiWithRetry(fallbackConfig, prompt, 1, requestId);
         if (response != null) {
             log.info("备用API调用成功: requestId={}", requestId);
             return response;
@@ -250,6 +379,20 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
         stats.put("successfulCalls", successfulCalls.get());
         stats.put("failedCalls", failedCalls.get());
         stats.put("retryCount", retryCount.get());
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("hedgingEnabled", hedgingEnabled);
+        stats.put("hedgedCalls", hedgedCalls.get());
+        stats.put("hedgeWins", hedgeWins.get());
+        stats.put("hedgeBudgetRejected", hedgeBudgetRejected.get());
+        
+        Map<String, Object> hedgeThresholds = new HashMap<>();
+        latencyWindows.forEach((apiType, window) -> hedgeThresholds.put(apiType, window.percentile(hedgingPercentile)));
+        stats.put("hedgeThresholds", hedgeThresholds);
+        stats.put("responseCache", responseCacheService.getStats());
+        
+        Map<String, Object> rateLimitStats = new HashMap<>();
+        rateLimiters.forEach((apiType, limiter) -> rateLimitStats.put(apiType, limiter.getStats()));
+        stats.put("rateLimits", rateLimitStats);
         
         long total = totalCalls.get();
         if (total > 0) {
@@ -288,12 +431,30 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
         log.info("调用大Token API: maxTokens={}, timeSegment={}", maxTokens, timeSegment.getSegmentId());
         
         String requestId = "large_tokens_" + timeSegment.getSegmentId();
+        
+        // 优先读取持久化响应缓存
+        Map<String, Object> cacheKeyBody = buildRequestBodyWithTokens(config, prompt, maxTokens);
+        String cachedResponse = responseCacheService.get(config.getApiUrl(), cacheKeyBody);
+        if (cachedResponse != null) {
+            cacheHits.incrementAndGet();
+            log.info("使用持久化缓存响应: requestId={}", requestId);
+            return cachedResponse;
+        }
+        
         totalCalls.incrementAndGet();
         
         Exception lastException = null;
         long delay = baseRetryDelay;
         
         for (int attempt = 0; attempt <= 2; attempt++) { // 最多重试2次
+            if (CancellationToken.isCurrentCancelled()) {
+                log.info("任务已取消，停止大Token API调用: requestId={}", requestId);
+                break;
+            }
+            if (!hasTimeForAttempt(attempt, delay)) {
+                log.warn("剩余时间不足，停止大Token API调用: attempt={}, requestId={}", attempt, requestId);
+                break;
+            }
             try {
                 if (attempt > 0) {
                     log.info("大Token API调用重试: attempt={}, delay={}ms, requestId={}", 
@@ -303,11 +464,15 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
                     delay = Math.min(delay * 2, maxRetryDelay);
                 }
                 
-                String response = callApiInternalWithLargeTokens(config, prompt, maxTokens, requestId, attempt);
+                AtomicReference<String> finishReason = new AtomicReference<>();
+                String response = callApiInternalWithLargeTokens(config, prompt, maxTokens, requestId, attempt,
+                        finishReason);
                 if (response != null && !response.trim().isEmpty()) {
-                    // 检查响应完整性
-                    if (isResponseComplete(response, timeSegment.getExpectedEventCount())) {
+                    // 检查响应完整性，达到max_tokens的响应视为不完整
+                    if (!"length".equals(finishReason.get())
+                            && isResponseComplete(response, timeSegment.getExpectedEventCount())) {
                         successfulCalls.incrementAndGet();
+                        responseCacheService.put(config.getApiUrl(), cacheKeyBody, response);
                         log.debug("大Token API调用成功: attempt={}, requestId={}", attempt, requestId);
                         return response;
                     } else {
@@ -339,6 +504,126 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
         return null;
     }
     
+    @Override
+    public String callApiStreaming(DynamicApiConfigManager.ApiConfig config, String prompt, int maxTokens,
+                                   TimeSegment timeSegment, Consumer<String> eventJsonConsumer) {
+        String requestId = "stream_" + timeSegment.getSegmentId();
+        String apiType = getApiTypeName(config);
+        log.info("调用流式API: apiType={}, maxTokens={}, timeSegment={}", apiType, maxTokens, timeSegment.getSegmentId());
+        
+        StreamingJsonObjectExtractor extractor = new StreamingJsonObjectExtractor(eventJsonConsumer);
+        
+        // 流式参数不参与缓存键计算，与普通调用共享缓存
+        Map<String, Object> requestBody = buildRequestBodyWithTokens(config, prompt, maxTokens);
+        String cachedResponse = responseCacheService.get(config.getApiUrl(), requestBody);
+        if (cachedResponse != null) {
+            cacheHits.incrementAndGet();
+            extractor.append(cachedResponse);
+            log.info("使用持久化缓存响应: requestId={}, events={}", requestId, extractor.getEmittedCount());
+            return cachedResponse;
+        }
+        
+        totalCalls.incrementAndGet();
+        long startTime = System.currentTimeMillis();
+        String responseStatus = "FAILED";
+        Integer tokenUsage = 0;
+        String errorMessage = null;
+        long reservedTokens = -1;
+        
+        requestBody.put("stream", true);
+        requestBody.put("stream_options", Collections.singletonMap("include_usage", true));
+        
+        StringBuilder content = new StringBuilder();
+        AtomicLong firstEventTime = new AtomicLong(-1);
+        AtomicReference<String> finishReason = new AtomicReference<>();
+        
+        try {
+            // 按RPM/TPM预占额度，需等待过久时直接拒绝
+            reservedTokens = acquireRateLimit(config, apiType, prompt, maxTokens);
+            if (reservedTokens < 0) {
+                errorMessage = "触发限流: apiType=" + apiType;
+                failedCalls.incrementAndGet();
+                return null;
+            }
+            
+            // 在调用线程上逐块消费SSE，回调不会占用网络IO线程；整个流期间占用一个并发许可
+            tokenUsage = concurrentApiCallManager.executeWithLimit(apiType, maxTokens, () -> {
+                Integer streamTokens = 0;
+                for (String data : llmHttpClient.stream(config.getApiUrl(), config.getApiKey(), requestBody).toIterable()) {
+                    // 取消后立即放弃剩余的流，部分内容不写入缓存
+                    CancellationToken.checkCurrent();
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> chunk = objectMapper.readValue(data, Map.class);
+                    
+                    Integer chunkTokens = extractTotalTokens(chunk);
+                    if (chunkTokens != null) {
+                        streamTokens = chunkTokens;
+                    }
+                    
+                    String chunkFinishReason = extractFinishReason(chunk);
+                    if (chunkFinishReason != null) {
+                        finishReason.set(chunkFinishReason);
+                    }
+                    
+                    String delta = extractDeltaFromChunk(chunk);
+                    if (delta != null && !delta.isEmpty()) {
+                        content.append(delta);
+                        extractor.append(delta);
+                        if (firstEventTime.get() < 0 && extractor.getEmittedCount() > 0) {
+                            firstEventTime.set(System.currentTimeMillis() - startTime);
+                        }
+                    }
+                }
+                return streamTokens;
+            });
+            
+            // 到达截止时间时数据流被提前结束，已接收的事件照常返回，但部分内容不写入缓存
+            if (content.length() > 0 && Deadline.checkExpired()) {
+                responseStatus = "PARTIAL";
+                errorMessage = "已超过截止时间，响应不完整";
+                log.warn("流式API调用到达截止时间: requestId={}, events={}, length={}", 
+                        requestId, extractor.getEmittedCount(), content.length());
+                return content.toString();
+            }
+            
+            if (content.length() > 0) {
+                responseStatus = "SUCCESS";
+                successfulCalls.incrementAndGet();
+                // 只缓存完整的响应，达到max_tokens被截断的输出不写入缓存
+                if (!"length".equals(finishReason.get())
+                        && isResponseComplete(content.toString(), timeSegment.getExpectedEventCount())) {
+                    responseCacheService.put(config.getApiUrl(), requestBody, content.toString());
+                } else {
+                    log.warn("流式响应不完整，不写入缓存: requestId={}, finishReason={}", requestId, finishReason.get());
+                }
+                log.info("流式API调用完成: requestId={}, events={}, firstEventTime={}ms, totalTime={}ms, length={}", 
+                        requestId, extractor.getEmittedCount(), firstEventTime, 
+                        System.currentTimeMillis() - startTime, content.length());
+                return content.toString();
+            }
+            
+            errorMessage = "流式响应内容为空";
+            
+        } catch (CancellationException e) {
+            errorMessage = "任务已取消";
+            log.info("流式API调用已取消: requestId={}, receivedEvents={}", requestId, extractor.getEmittedCount());
+        } catch (JsonProcessingException e) {
+            errorMessage = "流式数据块解析错误: " + e.getMessage();
+            log.error("流式数据块解析失败: requestId={}", requestId, e);
+        } catch (Exception e) {
+            errorMessage = e.getMessage();
+            log.error("流式API调用异常: requestId={}, receivedEvents={}", requestId, extractor.getEmittedCount(), e);
+        } finally {
+            releaseRateLimit(config, apiType, reservedTokens, tokenUsage);
+            long responseTime = System.currentTimeMillis() - startTime;
+            recordApiCall(apiType, "SUCCESS".equals(responseStatus) ? requestBody : null, responseStatus, 
+                        tokenUsage, (int) responseTime, errorMessage, requestId, 0);
+        }
+        
+        failedCalls.incrementAndGet();
+        return null;
+    }
+    
     @Override
     public boolean isResponseComplete(String response, int expectedEventCount) {
         if (response == null || response.trim().isEmpty()) {
@@ -391,41 +676,44 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
             return new ArrayList<>();
         }
         
+        // 相邻的低密度时间段合并为一次调用
+        List<List<TimeSegment>> groups = packingEnabled
+                ? SegmentPacker.pack(segments, packingDensityThreshold, packingMaxEvents, packingMaxSegments)
+                : segments.stream().map(Collections::singletonList).collect(Collectors.toList());
+        
         // 创建线程池用于并发调用
         ExecutorService executorService = Executors.newFixedThreadPool(
-                Math.min(segments.size(), 5)); // 最多5个并发线程
+                Math.min(groups.size(), 5)); // 最多5个并发线程
         
         try {
-            List<CompletableFuture<String>> futures = segments.stream()
-                    .map(segment -> CompletableFuture.supplyAsync(() -> {
-                        try {
-                            // 为每个时间段选择最优API
-                            DynamicApiConfigManager.ApiConfig config = selectOptimalApi(
-                                    segment.getStartTime(), segment.getEndTime());
-                            
-                            // 构建针对该时间段的提示词
-                            String segmentPrompt = buildSegmentPrompt(prompt, segment);
-                            
-                            // 调用API（使用大Token支持）
-                            return callApiWithLargeTokens(config, segmentPrompt, 4000, segment);
-                            
-                        } catch (Exception e) {
-                            log.error("批量API调用失败: segmentId={}", segment.getSegmentId(), e);
-                            return null;
-                        }
-                    }, executorService))
+            List<CompletableFuture<Map<String, String>>> futures = groups.stream()
+                    .map(group -> CompletableFuture.supplyAsync(
+                            CancellationToken.wrap(Deadline.wrap(() -> callSegmentGroup(group, prompt))), executorService))
                     .collect(Collectors.toList());
             
             // 等待所有任务完成
             CompletableFuture<Void> allFutures = CompletableFuture.allOf(
                     futures.toArray(new CompletableFuture[0]));
             
-            // 设置超时时间（每个时间段30秒）
-            allFutures.get(segments.size() * 30, TimeUnit.SECONDS);
+            // 设置超时时间（每个时间段30秒），不超过请求的剩余时间
+            long timeoutMs = Deadline.capTimeout(TimeUnit.SECONDS.toMillis(segments.size() * 30L));
+            try {
+                allFutures.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (!Deadline.checkExpired()) {
+                    throw e;
+                }
+                log.warn("批量API调用到达截止时间，返回已完成的时间段: completed={}/{}", 
+                        futures.stream().filter(CompletableFuture::isDone).count(), futures.size());
+            }
             
-            // 收集结果
-            List<String> results = futures.stream()
-                    .map(CompletableFuture::join)
+            // 按原始时间段顺序收集结果，未完成的时间段为null
+            Map<String, String> responses = new HashMap<>();
+            futures.stream()
+                    .filter(future -> future.isDone() && !future.isCompletedExceptionally())
+                    .forEach(future -> responses.putAll(future.join()));
+            List<String> results = segments.stream()
+                    .map(segment -> responses.get(segment.getSegmentId()))
                     .collect(Collectors.toList());
             
             long successCount = results.stream().filter(Objects::nonNull).count();
@@ -454,27 +742,129 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
     
     // 私有辅助方法
     
+    /**
+     * 调用一组时间段，返回时间段ID到响应内容的映射
+     * 多个时间段合并为一个提示词，响应按事件时间拆回各时间段（每段为一个JSON数组）；响应不完整时对半拆分后重新调用
+     */
+    private Map<String, String> callSegmentGroup(List<TimeSegment> group, String prompt) {
+        Map<String, String> results = new HashMap<>();
+        TimeSegment merged = SegmentPacker.merge(group);
+        
+        try {
+            DynamicApiConfigManager.ApiConfig config = selectOptimalApi(merged.getStartTime(), merged.getEndTime());
+            
+            if (group.size() == 1) {
+                // 构建针对该时间段的提示词，调用API（使用大Token支持）
+                String segmentPrompt = buildSegmentPrompt(prompt, merged);
+                results.put(merged.getSegmentId(), callApiWithLargeTokens(config, segmentPrompt, 4000, merged));
+                return results;
+            }
+            
+            // 合并调用不做完整性重试，响应被截断时直接拆分
+            List<String> eventJsons = Collections.synchronizedList(new ArrayList<>());
+            String response = callApiStreaming(config, buildPackedSegmentPrompt(prompt, group), 4000, merged, eventJsons::add);
+            if (isResponseComplete(response, merged.getExpectedEventCount())) {
+                results.putAll(routePackedResponse(eventJsons, group));
+                return results;
+            }
+            log.info("合并时间段响应不完整，拆分后重新调用: segmentId={}, segments={}", merged.getSegmentId(), group.size());
+            
+        } catch (Exception e) {
+            log.error("批量API调用失败: segmentId={}", merged.getSegmentId(), e);
+            if (group.size() == 1) {
+                results.put(merged.getSegmentId(), null);
+                return results;
+            }
+        }
+        
+        int middle = group.size() / 2;
+        results.putAll(callSegmentGroup(group.subList(0, middle), prompt));
+        results.putAll(callSegmentGroup(group.subList(middle, group.size()), prompt));
+        return results;
+    }
+    
+    /**
+     * 将合并响应中的事件按事件时间（或模型标注的时间段ID）分配回各时间段，每段序列化为JSON数组
+     */
+    private Map<String, String> routePackedResponse(List<String> eventJsons, List<TimeSegment> group) throws JsonProcessingException {
+        Map<String, List<Object>> routed = new HashMap<>();
+        group.forEach(segment -> routed.put(segment.getSegmentId(), new ArrayList<>()));
+        
+        for (String eventJson : eventJsons) {
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> event = objectMapper.readValue(eventJson, Map.class);
+                LocalDateTime eventTime = null;
+                if (event.get("eventTime") instanceof String) {
+                    try {
+                        eventTime = LocalDateTime.parse(((String) event.get("eventTime")).replace("Z", ""));
+                    } catch (Exception e) {
+                        // 时间格式无法识别时按时间段ID分配
+                    }
+                }
+                Object segmentId = event.get("segmentId");
+                TimeSegment segment = SegmentPacker.route(group, segmentId != null ? segmentId.toString() : null, eventTime);
+                routed.get(segment.getSegmentId()).add(event);
+            } catch (JsonProcessingException e) {
+                log.debug("合并响应中的事件解析失败，跳过: {}", e.getMessage());
+            }
+        }
+        
+        Map<String, String> results = new HashMap<>();
+        for (Map.Entry<String, List<Object>> entry : routed.entrySet()) {
+            results.put(entry.getKey(), objectMapper.writeValueAsString(entry.getValue()));
+        }
+        return results;
+    }
+    
+    /**
+     * 构建合并多个时间段的提示词，原始请求只出现一次，各时间段分节列出
+     */
+    private String buildPackedSegmentPrompt(String basePrompt, List<TimeSegment> group) {
+        StringBuilder packedPrompt = new StringBuilder();
+        packedPrompt.append("【多时间段合并请求】\n");
+        for (TimeSegment segment : group) {
+            packedPrompt.append("时间段ID: ").append(segment.getSegmentId())
+                    .append("，时间范围: ").append(segment.getStartTime()).append(" 至 ").append(segment.getEndTime())
+                    .append("，预期事件数量: ").append(segment.getExpectedEventCount()).append("\n");
+        }
+        packedPrompt.append("\n原始请求:\n");
+        packedPrompt.append(basePrompt);
+        
+        packedPrompt.append("\n\n请特别关注以下要求：");
+        packedPrompt.append("\n1. 分别返回每个时间段范围内的事件，所有事件放在同一个JSON数组中");
+        packedPrompt.append("\n2. 确保返回完整的JSON格式数据");
+        packedPrompt.append("\n3. 每个事件必须包含：id, title, description, eventTime, location, subject, object等字段");
+        packedPrompt.append("\n4. 每个事件必须包含segmentId字段，值为该事件所属的时间段ID");
+        packedPrompt.append("\n5. 每个时间段尽量返回其预期数量左右的事件");
+        
+        return packedPrompt.toString();
+    }
+    
     /**
      * 内部API调用方法
+     * @param limited 是否受服务商自适应并发限制，健康检查等探测调用不占用许可也不参与延迟统计
+     * @param finishReason 写入响应的结束原因，可为null
      */
-    private String callApiInternal(DynamicApiConfigManager.ApiConfig config, String prompt, String requestId, int attempt) {
+    private String callApiInternal(DynamicApiConfigManager.ApiConfig config, String prompt, String requestId,
+                                   int attempt, boolean limited, AtomicReference<String> finishReason) {
         long startTime = System.currentTimeMillis();
         String apiType = getApiTypeName(config);
         String responseStatus = "FAILED";
         Integer tokenUsage = 0;
         String errorMessage = null;
+        long reservedTokens = -1;
         
         try {
             // 构建请求体
             Map<String, Object> requestBody = buildRequestBody(config, prompt);
             
-            // 创建HTTP请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + config.getApiKey());
-            
-            // 创建HTTP请求实体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
+            // 按RPM/TPM预占额度，需等待过久时直接拒绝
+            reservedTokens = acquireRateLimit(config, apiType, prompt, maxTokens);
+            if (reservedTokens < 0) {
+                errorMessage = "触发限流: apiType=" + apiType;
+                return null;
+            }
             
             log.debug("调用{}API: attempt={}, requestId={}, promptLength={}", 
                     apiType, attempt, requestId, prompt.length());
@@ -495,9 +885,11 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
                 log.info("=== 开始发送请求 ===");
             }
             
-            // 发送请求
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                    config.getApiUrl(), requestEntity, String.class);
+            // 发送请求（受服务商自适应并发限制）
+            ResponseEntity<String> response = limited
+                    ? concurrentApiCallManager.executeWithLimit(apiType, maxTokens,
+                            () -> llmHttpClient.post(config.getApiUrl(), config.getApiKey(), requestBody, String.class))
+                    : llmHttpClient.post(config.getApiUrl(), config.getApiKey(), requestBody, String.class);
             
             long responseTime = System.currentTimeMillis() - startTime;
             
@@ -528,6 +920,9 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
                 String content = extractContentFromResponse(responseMap);
                 if (content != null && !content.trim().isEmpty()) {
                     responseStatus = "SUCCESS";
+                    if (finishReason != null) {
+                        finishReason.set(extractFinishReason(responseMap));
+                    }
                     
                     // 记录成功的API调用
                     recordApiCall(apiType, requestBody, responseStatus, tokenUsage, 
@@ -544,8 +939,15 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
             log.error("JSON解析失败", e);
         } catch (Exception e) {
             errorMessage = e.getMessage();
-            log.error("API调用异常", e);
+            if (e.getCause() instanceof InterruptedException) {
+                // 对冲取消时保留中断标记，使重试循环及时退出
+                Thread.currentThread().interrupt();
+                log.debug("API调用被中断: requestId={}", requestId);
+            } else {
+                log.error("API调用异常", e);
+            }
         } finally {
+            releaseRateLimit(config, apiType, reservedTokens, tokenUsage);
             // 记录API调用
             long responseTime = System.currentTimeMillis() - startTime;
             recordApiCall(apiType, null, responseStatus, tokenUsage, 
@@ -601,6 +1003,51 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
         return null;
     }
     
+    /**
+     * 从流式数据块中提取增量内容
+     */
+    private String extractDeltaFromChunk(Map<String, Object> chunk) {
+        if (chunk.get("choices") instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> choices = (List<Map<String, Object>>) chunk.get("choices");
+            if (!choices.isEmpty() && choices.get(0).get("delta") instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> delta = (Map<String, Object>) choices.get(0).get("delta");
+                Object deltaContent = delta.get("content");
+                return deltaContent instanceof String ? (String) deltaContent : null;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 从响应或流式数据块中提取结束原因（length表示达到max_tokens被截断）
+     */
+    private String extractFinishReason(Map<String, Object> responseMap) {
+        if (responseMap.get("choices") instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> choices = (List<Map<String, Object>>) responseMap.get("choices");
+            if (!choices.isEmpty() && choices.get(0).get("finish_reason") instanceof String) {
+                return (String) choices.get(0).get("finish_reason");
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 从响应中提取总Token数
+     */
+    private Integer extractTotalTokens(Map<String, Object> responseMap) {
+        if (responseMap.get("usage") instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> usage = (Map<String, Object>) responseMap.get("usage");
+            if (usage.get("total_tokens") instanceof Number) {
+                return ((Number) usage.get("total_tokens")).intValue();
+            }
+        }
+        return null;
+    }
+    
     /**
      * 执行健康检查
      */
@@ -614,7 +1061,7 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
             }
             
             String testPrompt = "Hello, this is a health check.";
-            String response = callApiInternal(config, testPrompt, "health-check", 0);
+            String response = callApiInternal(config, testPrompt, "health-check", 0, false, null);
             return response != null && !response.trim().isEmpty();
             
         } catch (Exception e) {
@@ -657,6 +1104,190 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
         }
     }
     
+    /**
+     * 对冲调用
+     * 先调用主要API，超过其延迟分位数仍未返回且额外Token预算充足时调用备用API，
+     * 取先返回非空结果的一方并中断另一方（中断会取消底层HTTP请求）
+     */
+    private HedgeResult callWithHedging(DynamicApiConfigManager.ApiConfig primaryConfig,
+                                        DynamicApiConfigManager.ApiConfig fallbackConfig,
+                                        String prompt, String requestId) {
+        CompletableFuture<String> winner = new CompletableFuture<>();
+        AtomicReference<String> winnerId = new AtomicReference<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        String hedgeRequestId = requestId + "_hedge";
+        
+        Future<?> primaryTask = submitHedgeCall(primaryConfig, prompt, 2, requestId, winner, winnerId, pending);
+        Future<?> hedgeTask = null;
+        
+        long hedgeDelay = getHedgeDelay(getApiTypeName(primaryConfig));
+        try {
+            if (hedgeDelay < 0) {
+                // 延迟样本不足，不对冲
+                return new HedgeResult(winner.get(), false);
+            }
+            
+            try {
+                return new HedgeResult(winner.get(hedgeDelay, TimeUnit.MILLISECONDS), false);
+            } catch (TimeoutException e) {
+                // 主要API超过延迟阈值，继续判断是否对冲
+            }
+            
+            long estimatedTokens = (long) prompt.length() + maxTokens;
+            if (!hedgeBudget.tryAcquire("hedge", estimatedTokens).isAllowed()) {
+                hedgeBudgetRejected.incrementAndGet();
+                log.debug("对冲预算不足，继续等待主要API: requestId={}", requestId);
+                return new HedgeResult(winner.get(), false);
+            }
+            
+            hedgedCalls.incrementAndGet();
+            log.info("主要API超过{}ms未返回，发起对冲请求: primary={}, hedge={}, requestId={}", 
+                    hedgeDelay, getApiTypeName(primaryConfig), getApiTypeName(fallbackConfig), requestId);
+            
+            pending.incrementAndGet();
+            hedgeTask = submitHedgeCall(fallbackConfig, prompt, 1, hedgeRequestId, winner, winnerId, pending);
+            
+            String response = winner.get();
+            if (response != null) {
+                // 按完成winner的一方中断另一方，释放其连接和并发许可
+                if (hedgeRequestId.equals(winnerId.get())) {
+                    hedgeWins.incrementAndGet();
+                    primaryTask.cancel(true);
+                } else {
+                    hedgeTask.cancel(true);
+                }
+            }
+            return new HedgeResult(response, true);
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primaryTask.cancel(true);
+            if (hedgeTask != null) {
+                hedgeTask.cancel(true);
+            }
+            return new HedgeResult(null, true);
+        } catch (ExecutionException e) {
+            log.error("对冲调用异常: requestId={}", requestId, e.getCause());
+            return new HedgeResult(null, false);
+        }
+    }
+    
+    /**
+     * 提交一次对冲参与调用，首个非空结果完成winner并在winnerId中记录自身的请求ID，全部失败时以null完成
+     */
+    private Future<?> submitHedgeCall(DynamicApiConfigManager.ApiConfig config, String prompt, int maxRetries,
+                                      String requestId, CompletableFuture<String> winner,
+                                      AtomicReference<String> winnerId, AtomicInteger pending) {
+        CancellationToken token = CancellationToken.current();
+        Deadline deadline = Deadline.current();
+        return hedgeExecutor.submit(() -> {
+            String response = null;
+            try (CancellationToken.Binding ignored = token != null ? token.bind() : null;
+                 Deadline.Binding deadlineBinding = deadline != null ? deadline.bind() : null) {
+                response = callApiWithRetry(config, prompt, maxRetries, requestId);
+            } finally {
+                if (response != null) {
+                    // 先记录胜出方再完成winner，等待方读取winnerId时已确定
+                    if (winnerId.compareAndSet(null, requestId)) {
+                        winner.complete(response);
+                    }
+                } else if (pending.decrementAndGet() == 0) {
+                    winner.complete(null);
+                }
+            }
+        });
+    }
+    
+    /**
+     * 判断剩余时间是否足够发起本次尝试：已超过截止时间，或重试的退避等待会用完剩余时间时放弃
+     */
+    private boolean hasTimeForAttempt(int attempt, long delay) {
+        if (Deadline.checkExpired()) {
+            return false;
+        }
+        if (attempt > 0 && Deadline.currentRemainingMs() <= delay) {
+            Deadline.current().markIncomplete();
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 获取对冲触发延迟，样本不足时返回-1
+     */
+    private long getHedgeDelay(String apiType) {
+        LatencyWindow window = latencyWindows.get(apiType);
+        if (window == null || window.size() < hedgingMinSamples) {
+            return -1;
+        }
+        return window.percentile(hedgingPercentile);
+    }
+    
+    /**
+     * 记录成功调用的延迟
+     */
+    private void recordLatency(String apiType, long latency) {
+        latencyWindows.computeIfAbsent(apiType, k -> new LatencyWindow(200)).add(latency);
+    }
+    
+    /**
+     * 按请求数和预估Token数获取限流额度
+     * 预估值为提示词长度（按每字符一个Token保守估计）加上最大输出Token数，调用完成后按实际用量校正
+     * 
+     * @return 预占的Token数，被拒绝时返回-1
+     */
+    private long acquireRateLimit(DynamicApiConfigManager.ApiConfig config, String apiType, String prompt, int maxTokens) {
+        long estimatedTokens = (long) prompt.length() + maxTokens;
+        try {
+            boolean acquired = getRateLimiter(apiType).acquire(getRateLimitKey(config), estimatedTokens,
+                    Deadline.capTimeout(enhancementConfig.getApi().getCommon().getRateLimitMaxWait()));
+            return acquired ? estimatedTokens : -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+    
+    /**
+     * 按usage.total_tokens校正预占的限流额度
+     */
+    private void releaseRateLimit(DynamicApiConfigManager.ApiConfig config, String apiType, 
+                                  long reservedTokens, Integer tokenUsage) {
+        if (reservedTokens < 0) {
+            return;
+        }
+        getRateLimiter(apiType).reconcile(getRateLimitKey(config), reservedTokens, 
+                tokenUsage != null ? tokenUsage : 0);
+    }
+    
+    /**
+     * 获取服务商的令牌桶限流器
+     */
+    private TokenBucketRateLimiter getRateLimiter(String apiType) {
+        return rateLimiters.computeIfAbsent(apiType, key -> {
+            TimelineEnhancementConfig.ApiConfig api = enhancementConfig.getApi();
+            int rpm = selectByApiType(key, api.getVolcengine().getRequestsPerMinute(), api.getDeepseek().getRequestsPerMinute());
+            int tpm = selectByApiType(key, api.getVolcengine().getTokensPerMinute(), api.getDeepseek().getTokensPerMinute());
+            log.info("创建令牌桶限流器: apiType={}, rpm={}, tpm={}", key, rpm, tpm);
+            return new TokenBucketRateLimiter(rpm, tpm, 60000);
+        });
+    }
+    
+    /**
+     * 按API类型选择对应服务商的配置值
+     */
+    private int selectByApiType(String apiType, int volcengineValue, int deepseekValue) {
+        return "VOLCENGINE_WEB".equals(apiType) ? volcengineValue : deepseekValue;
+    }
+    
+    /**
+     * 限流键：API密钥摘要，同一服务商的不同密钥分别限流
+     */
+    private String getRateLimitKey(DynamicApiConfigManager.ApiConfig config) {
+        String apiKey = config.getApiKey() != null ? config.getApiKey() : "";
+        return DigestUtils.md5DigestAsHex(apiKey.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+    
     /**
      * 判断是否为不可重试的错误
      */
@@ -688,26 +1319,28 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
     
     /**
      * 内部API调用方法（支持大Token）
+     * @param finishReason 写入响应的结束原因
      */
     private String callApiInternalWithLargeTokens(DynamicApiConfigManager.ApiConfig config, String prompt, 
-                                                 int maxTokens, String requestId, int attempt) {
+                                                 int maxTokens, String requestId, int attempt,
+                                                 AtomicReference<String> finishReason) {
         long startTime = System.currentTimeMillis();
         String apiType = getApiTypeName(config);
         String responseStatus = "FAILED";
         Integer tokenUsage = 0;
         String errorMessage = null;
+        long reservedTokens = -1;
         
         try {
             // 构建请求体（使用指定的maxTokens）
             Map<String, Object> requestBody = buildRequestBodyWithTokens(config, prompt, maxTokens);
             
-            // 创建HTTP请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + config.getApiKey());
-            
-            // 创建HTTP请求实体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
+            // 按RPM/TPM预占额度，需等待过久时直接拒绝
+            reservedTokens = acquireRateLimit(config, apiType, prompt, maxTokens);
+            if (reservedTokens < 0) {
+                errorMessage = "触发限流: apiType=" + apiType;
+                return null;
+            }
             
             log.debug("调用大Token {}API: attempt={}, requestId={}, promptLength={}, maxTokens={}", 
                     apiType, attempt, requestId, prompt.length(), maxTokens);
@@ -730,9 +1363,9 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
                 log.info("=== 开始发送大Token请求 ===");
             }
             
-            // 发送请求
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                    config.getApiUrl(), requestEntity, String.class);
+            // 发送请求（受服务商自适应并发限制）
+            ResponseEntity<String> response = concurrentApiCallManager.executeWithLimit(apiType, maxTokens,
+                    () -> llmHttpClient.post(config.getApiUrl(), config.getApiKey(), requestBody, String.class));
             
             long responseTime = System.currentTimeMillis() - startTime;
             
@@ -764,6 +1397,7 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
                 String content = extractContentFromResponse(responseMap);
                 if (content != null && !content.trim().isEmpty()) {
                     responseStatus = "SUCCESS";
+                    finishReason.set(extractFinishReason(responseMap));
                     
                     // 记录成功的API调用
                     recordApiCall(apiType, requestBody, responseStatus, tokenUsage, 
@@ -782,6 +1416,7 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
             errorMessage = e.getMessage();
             log.error("大Token API调用异常", e);
         } finally {
+            releaseRateLimit(config, apiType, reservedTokens, tokenUsage);
             // 记录API调用
             long responseTime = System.currentTimeMillis() - startTime;
             recordApiCall(apiType, null, responseStatus, tokenUsage, 
@@ -860,6 +1495,52 @@ public class EnhancedApiCallManagerImpl implements EnhancedApiCallManager {
         return count;
     }
     
+    /**
+     * 对冲调用结果
+     */
+    private static class HedgeResult {
+        final String response;
+        final boolean fallbackAttempted;
+        
+        HedgeResult(String response, boolean fallbackAttempted) {
+            this.response = response;
+            this.fallbackAttempted = fallbackAttempted;
+        }
+    }
+    
+    /**
+     * 最近调用延迟的环形窗口
+     */
+    private static class LatencyWindow {
+        private final long[] samples;
+        private int count = 0;
+        private int next = 0;
+        
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+        
+        synchronized void add(long latency) {
+            samples[next] = latency;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+        
+        synchronized int size() {
+            return count;
+        }
+        
+        synchronized long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+    }
+    
     /**
      * API健康状态缓存条目
      */
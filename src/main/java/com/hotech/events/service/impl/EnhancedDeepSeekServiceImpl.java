@@ -6,16 +6,19 @@ import com.hotech.events.dto.*;
 import com.hotech.events.dto.event.EventDTO;
 import com.hotech.events.entity.Region;
 import com.hotech.events.service.EnhancedDeepSeekService;
+import com.hotech.events.service.LlmHttpClient;
 import com.hotech.events.service.PromptTemplateService;
 import com.hotech.events.util.BatchProcessor;
 import com.hotech.events.util.RateLimiter;
 import com.hotech.events.util.RequestCache;
+import com.hotech.events.util.RequestFingerprintGenerator;
+import com.hotech.events.util.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.DisposableBean;
@@ -74,6 +77,9 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
     @Autowired
     private PromptTemplateService promptTemplateService;
 
+    @Autowired
+    private RequestFingerprintGenerator requestFingerprintGenerator;
+
     @Autowired
     private DeepSeekServiceImpl originalDeepSeekService;
 
@@ -86,13 +92,21 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
     @Autowired
     private com.hotech.events.service.EnhancedApiCallManager enhancedApiCallManager;
 
+    @Autowired
+    private LlmHttpClient llmHttpClient;
+
+    @Autowired
+    private com.hotech.events.service.LlmResponseCacheService responseCacheService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final RestTemplate restTemplate = new RestTemplate();
 
     // 缓存和限流
     private RequestCache<String> responseCache;
     private RateLimiter rateLimiter;
 
+    // 进行中的API请求，按缓存键合并
+    private final SingleFlight<String> inFlightRequests = new SingleFlight<>();
+
     // 统计信息
     private final AtomicLong totalRequests = new AtomicLong(0);
     private final AtomicLong successfulRequests = new AtomicLong(0);
@@ -129,12 +143,15 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
                 request.getName(), request.getRegionIds(), request.getStartTime(), request.getEndTime());
 
         try {
+            // 规范化请求，使仅在地区顺序、秒级时间或空白上不同的请求共享缓存
+            TimelineGenerateRequest canonicalRequest = requestFingerprintGenerator.canonicalize(request);
+
             // 生成动态提示词
-            String prompt = promptTemplateService.generateEventFetchPrompt(request);
+            String prompt = promptTemplateService.generateEventFetchPrompt(canonicalRequest);
             log.debug("生成的提示词: {}", prompt);
 
             // 生成缓存键
-            String cacheKey = generateCacheKey("fetchEvents", prompt);
+            String cacheKey = generateCacheKey("fetchEvents", requestFingerprintGenerator.fingerprint(canonicalRequest));
 
             // 检查缓存
             String cachedResponse = responseCache.get(cacheKey);
@@ -146,33 +163,14 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
 
             cacheMisses.incrementAndGet();
 
-            // 检查限流
-            if (!rateLimiter.allowRequest("fetchEvents")) {
-                log.warn("请求被限流，使用数据库备用数据");
-                return fetchEventsFromDatabase(request);
-            }
-
-            // 调用API - 使用增强的API调用管理器
-            long startTime = System.currentTimeMillis();
-            String response = callDeepSeekAPIWithEnhancedManager(prompt, request.getStartTime(), request.getEndTime());
-            long responseTime = System.currentTimeMillis() - startTime;
-
-            // 更新统计
-            totalRequests.incrementAndGet();
-            totalResponseTime.addAndGet(responseTime);
+            // 相同提示词的并发请求合并为一次API调用，共享原始响应
+            String response = inFlightRequests.execute(cacheKey,
+                    () -> requestEventsResponse(cacheKey, prompt, canonicalRequest));
 
             if (response != null && !response.isEmpty()) {
-                successfulRequests.incrementAndGet();
-
-                // 调试响应内容
-                responseDebugger.debugResponse(response, "fetchEventsWithDynamicPrompt");
-
-                // 缓存响应
-                responseCache.put(cacheKey, response);
-
                 // 解析事件数据
                 List<EventData> events = parseEventsFromResponse(response);
-                log.info("API响应解析结果: count={}, responseTime={}ms", events.size(), responseTime);
+                log.info("API响应解析结果: count={}", events.size());
 
                 // 如果解析结果为空，尝试从文本中提取事件信息或使用备用数据
                 if (events.isEmpty()) {
@@ -192,7 +190,6 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
 
                 return events;
             } else {
-                failedRequests.incrementAndGet();
                 log.warn("API调用失败，使用数据库备用数据");
                 return fetchEventsFromDatabase(request);
             }
@@ -204,6 +201,49 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
         }
     }
 
+    /**
+     * 执行事件获取API调用并缓存响应
+     * 由合并后的首个请求执行，返回null表示限流或调用失败
+     */
+    private String requestEventsResponse(String cacheKey, String prompt, TimelineGenerateRequest request) {
+        // 等待期间可能已有相同请求完成
+        String cachedResponse = responseCache.get(cacheKey);
+        if (cachedResponse != null) {
+            cacheHits.incrementAndGet();
+            return cachedResponse;
+        }
+
+        // 检查限流
+        if (!rateLimiter.allowRequest("fetchEvents")) {
+            log.warn("请求被限流，使用数据库备用数据");
+            return null;
+        }
+
+        // 调用API - 使用增强的API调用管理器
+        long startTime = System.currentTimeMillis();
+        String response = callDeepSeekAPIWithEnhancedManager(prompt, request.getStartTime(), request.getEndTime());
+        long responseTime = System.currentTimeMillis() - startTime;
+
+        // 更新统计
+        totalRequests.incrementAndGet();
+        totalResponseTime.addAndGet(responseTime);
+
+        if (response != null && !response.isEmpty()) {
+            successfulRequests.incrementAndGet();
+
+            // 调试响应内容
+            responseDebugger.debugResponse(response, "fetchEventsWithDynamicPrompt");
+
+            // 缓存响应
+            responseCache.put(cacheKey, response);
+            log.info("API调用完成: responseTime={}ms", responseTime);
+        } else {
+            failedRequests.incrementAndGet();
+        }
+
+        return response;
+    }
+
     @Override
     public List<EventValidationResult> validateEvents(List<EventData> events) {
         log.info("验证事件真实性: eventCount={}", events.size());
@@ -346,7 +386,7 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
                 log.warn("API健康检查失败: 返回空响应");
             }
 
-        } catch (org.springframework.web.client.HttpClientErrorException.Unauthorized e) {
+        } catch (WebClientResponseException.Unauthorized e) {
             status.setIsHealthy(false);
             status.setErrorMessage("API密钥认证失败，系统将使用数据库数据作为备份");
             status.setStatusCode(401);
@@ -367,6 +407,7 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
         stats.setCacheSize(responseCache.size());
         stats.setHitCount(cacheHits.get());
         stats.setMissCount(cacheMisses.get());
+        stats.setCoalescedCount(inFlightRequests.getCoalescedCount());
         return stats;
     }
 
@@ -569,14 +610,6 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
             paramMap.put("webSearchEnabled", shouldUseWebSearch);
             requestParams = objectMapper.writeValueAsString(paramMap);
 
-            // 创建HTTP请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiConfig.getApiKey());
-
-            // 创建HTTP请求实体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-
             log.info("调用{}API: model={}, url={}, promptLength={}",
                     selectedApiType, apiConfig.getModel(), apiConfig.getApiUrl(), prompt.length());
 
@@ -589,9 +622,18 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
             // 🔍 详细调试日志：打印请求体
             log.info("🔍 [调试] {}API 请求体: {}", selectedApiType, objectMapper.writeValueAsString(requestBody));
 
+            // 优先读取持久化响应缓存
+            String cachedContent = responseCacheService.get(apiConfig.getApiUrl(), requestBody);
+            if (cachedContent != null) {
+                requestType = "api_call_cached";
+                responseStatus = "SUCCESS";
+                log.info("使用持久化缓存响应: apiType={}, 响应长度: {}", selectedApiType, cachedContent.length());
+                return cachedContent;
+            }
+
             // 发送请求到选定的API端点
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                    apiConfig.getApiUrl(), requestEntity, String.class);
+            ResponseEntity<String> response = llmHttpClient.post(
+                    apiConfig.getApiUrl(), apiConfig.getApiKey(), requestBody, String.class);
 
             long responseTime = System.currentTimeMillis() - requestStartTime;
 
@@ -626,7 +668,9 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
                             monitoringService.recordApiCall(requestType, requestParams, responseStatus,
                                     tokenUsage, (int) responseTime, null);
 
-                            return (String) messageObj.get("content");
+                            String content = (String) messageObj.get("content");
+                            responseCacheService.put(apiConfig.getApiUrl(), requestBody, content);
+                            return content;
                         }
                     }
                 }
@@ -640,6 +684,11 @@ public class EnhancedDeepSeekServiceImpl implements EnhancedDeepSeekService, Ini
                             ? apiConfig.getApiKey().substring(0, Math.min(10, apiConfig.getApiKey().length())) + "..."
                             : "null");
 
+        } catch (WebClientResponseException.Unauthorized e) {
+            // 密钥认证失败交给调用方处理（健康检查据此报告401）
+            errorMessage = e.getMessage();
+            log.warn("调用DeepSeek API认证失败: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             errorMessage = e.getMessage();
             log.error("调用DeepSeek API异常: {}", e.getMessage(), e);
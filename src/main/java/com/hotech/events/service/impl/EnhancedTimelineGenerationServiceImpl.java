@@ -4,6 +4,7 @@ import com.hotech.events.exception.TimelineEnhancementException;
 import com.hotech.events.dto.EventData;
 import com.hotech.events.model.TimelineGenerateRequest;
 import com.hotech.events.service.*;
+import com.hotech.events.util.CancellationToken;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -120,13 +122,19 @@ public class EnhancedTimelineGenerationServiceImpl implements EnhancedTimelineGe
         asyncTasks.put(taskId, task);
         
         CompletableFuture<List<EventData>> future = CompletableFuture.supplyAsync(() -> {
-            try {
+            // 注册取消令牌，取消时中断本线程及其派生的API调用
+            CancellationToken token = CancellationToken.register(getCancellationKey(taskId));
+            try (CancellationToken.Binding ignored = token.bind()) {
                 task.setStartTime(LocalDateTime.now());
                 List<EventData> result = generateTimelineWithErrorHandling(request);
+                token.throwIfCancelled();
                 task.setStatus(AsyncTaskStatus.COMPLETED);
                 task.setEndTime(LocalDateTime.now());
                 task.setResult(result);
                 return result;
+            } catch (CancellationException e) {
+                log.info("异步时间线生成已取消，任务ID: {}", taskId);
+                throw e;
             } catch (Exception e) {
                 task.setStatus(AsyncTaskStatus.FAILED);
                 task.setEndTime(LocalDateTime.now());
@@ -134,6 +142,7 @@ public class EnhancedTimelineGenerationServiceImpl implements EnhancedTimelineGe
                 log.error("异步时间线生成失败，任务ID: {}", taskId, e);
                 throw new RuntimeException(e);
             } finally {
+                CancellationToken.unregister(token);
                 activeAsyncTasks.decrementAndGet();
             }
         });
@@ -205,6 +214,9 @@ public class EnhancedTimelineGenerationServiceImpl implements EnhancedTimelineGe
             return false;
         }
         
+        // CompletableFuture.cancel不会中断执行线程，通过取消令牌停止进行中的API调用和重试
+        CancellationToken.cancel(getCancellationKey(taskId));
+        
         boolean cancelled = future.cancel(true);
         if (cancelled) {
             task.setStatus(AsyncTaskStatus.CANCELLED);
@@ -216,6 +228,10 @@ public class EnhancedTimelineGenerationServiceImpl implements EnhancedTimelineGe
         return cancelled;
     }
     
+    private String getCancellationKey(String taskId) {
+        return "async:" + taskId;
+    }
+    
     @Override
     public Map<String, Object> validateRequest(TimelineGenerateRequest request) {
         Map<String, Object> result = new HashMap<>();
@@ -0,0 +1,317 @@
+package com.hotech.events.service.impl;
+
+import com.hotech.events.entity.Event;
+import com.hotech.events.entity.EventMinHash;
+import com.hotech.events.mapper.EventMapper;
+import com.hotech.events.service.EventCompactionService;
+import com.hotech.events.service.EventStorageService;
+import com.hotech.events.service.GenerationLeaseService;
+import com.hotech.events.service.NearDuplicateIndexService;
+import com.hotech.events.util.EventFingerprintGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 近似重复事件合并服务实现类
+ * 先为尚未建立签名的事件补建索引，再按ID范围分批并行扫描：每个事件合并到与其近似重复、
+ * 且日期相近、地点或主体一致的最小ID事件中。预览模式只报告将被合并的事件组。
+ * 同一批内按保留事件ID从大到小合并，使链式重复（A近似B、B近似C）在一次执行中归并到C；
+ * 跨批次的链式重复在其中一方已被合并时跳过，由下一次执行处理。
+ */
+@Slf4j
+@Service
+public class EventCompactionServiceImpl implements EventCompactionService {
+
+    private static final String LEASE_KEY = "event-compaction";
+
+    // 预览结果中最多列出的事件组数
+    private static final int MAX_REPORTED_GROUPS = 100;
+
+    @Autowired
+    private NearDuplicateIndexService nearDuplicateIndexService;
+
+    @Autowired
+    private EventStorageService eventStorageService;
+
+    @Autowired
+    private EventMapper eventMapper;
+
+    @Autowired
+    private GenerationLeaseService generationLeaseService;
+
+    @Autowired
+    private EventFingerprintGenerator eventFingerprintGenerator;
+
+    @Value("${timeline.near-duplicate.compaction-batch-size:200}")
+    private int batchSize;
+
+    @Value("${timeline.near-duplicate.compaction-parallelism:4}")
+    private int parallelism;
+
+    @Value("${timeline.near-duplicate.compaction-dry-run:true}")
+    private boolean scheduledDryRun;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile Map<String, Object> lastResult;
+
+    // 后台启动合并的线程
+    private ExecutorService launcher;
+
+    @PostConstruct
+    public void init() {
+        launcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "event-compaction-launcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (launcher != null) {
+            launcher.shutdownNow();
+        }
+    }
+
+    /**
+     * 按配置的计划定期执行合并，默认不执行
+     */
+    @Scheduled(cron = "${timeline.near-duplicate.compaction-cron:-}")
+    public void scheduledCompaction() {
+        compact(scheduledDryRun);
+    }
+
+    @Override
+    public boolean startCompaction(boolean dryRun) {
+        if (running.get()) {
+            return false;
+        }
+        launcher.submit(() -> compact(dryRun));
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> compact(boolean dryRun) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dryRun", dryRun);
+        if (!nearDuplicateIndexService.isEnabled()) {
+            result.put("status", "DISABLED");
+            return result;
+        }
+        if (!running.compareAndSet(false, true)) {
+            result.put("status", "RUNNING");
+            return result;
+        }
+
+        GenerationLeaseService.Lease lease = null;
+        ExecutorService workers = null;
+        long startTime = System.currentTimeMillis();
+        result.put("startedAt", LocalDateTime.now());
+        try {
+            lease = generationLeaseService.tryAcquire(LEASE_KEY);
+            if (lease == null) {
+                result.put("status", "SKIPPED");
+                result.put("message", "其他节点正在执行合并");
+                return result;
+            }
+
+            int indexed = nearDuplicateIndexService.backfillAll();
+            result.put("indexedEvents", indexed);
+
+            Long maxId = eventMapper.findMaxId();
+            AtomicInteger mergedEvents = new AtomicInteger(0);
+            AtomicInteger mergeGroups = new AtomicInteger(0);
+            AtomicInteger failedGroups = new AtomicInteger(0);
+            Queue<Map<String, Object>> reportedGroups = new ConcurrentLinkedQueue<>();
+            int failedBatches = 0;
+
+            if (maxId != null) {
+                AtomicInteger threadIndex = new AtomicInteger(0);
+                workers = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+                    Thread thread = new Thread(r, "event-compaction-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+                int step = Math.max(1, batchSize);
+                List<Future<?>> futures = new ArrayList<>();
+                GenerationLeaseService.Lease heldLease = lease;
+                for (long rangeStart = 0; rangeStart <= maxId; rangeStart += step) {
+                    long rangeEnd = rangeStart + step;
+                    long from = rangeStart;
+                    futures.add(workers.submit(() -> {
+                        // 租约丢失后其他节点可能已开始合并，停止处理剩余批次
+                        if (!heldLease.isLost()) {
+                            compactRange(from, rangeEnd, dryRun, mergedEvents, mergeGroups, failedGroups,
+                                    reportedGroups);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        failedBatches++;
+                        log.warn("合并近似重复事件批次失败: {}", e.getCause() != null
+                                ? e.getCause().getMessage() : e.getMessage());
+                    }
+                }
+            }
+
+            result.put("status", lease.isLost() ? "LEASE_LOST" : "COMPLETED");
+            result.put("mergedEvents", mergedEvents.get());
+            result.put("mergeGroups", mergeGroups.get());
+            result.put("failedGroups", failedGroups.get());
+            result.put("failedBatches", failedBatches);
+            if (dryRun) {
+                result.put("groups", new ArrayList<>(reportedGroups));
+            }
+            log.info("近似重复事件合并{}: 补建索引={}, 合并事件={}, 合并组={}, 失败组={}, 耗时={}ms",
+                    dryRun ? "预览完成" : "完成", indexed, mergedEvents.get(), mergeGroups.get(), failedGroups.get(),
+                    System.currentTimeMillis() - startTime);
+            return result;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.put("status", "INTERRUPTED");
+            return result;
+        } catch (Exception e) {
+            log.error("近似重复事件合并失败", e);
+            result.put("status", "FAILED");
+            result.put("message", e.getMessage());
+            return result;
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            if (lease != null) {
+                generationLeaseService.release(lease);
+            }
+            result.put("durationMs", System.currentTimeMillis() - startTime);
+            lastResult = result;
+            running.set(false);
+        }
+    }
+
+    /**
+     * 合并ID范围内的近似重复事件，预览时只记录将被合并的事件组
+     */
+    private void compactRange(long startId, long endId, boolean dryRun, AtomicInteger mergedEvents,
+                              AtomicInteger mergeGroups, AtomicInteger failedGroups,
+                              Queue<Map<String, Object>> reportedGroups) {
+        List<EventMinHash> signatures = nearDuplicateIndexService.getSignaturesInRange(startId, endId);
+        if (signatures.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Map<Long, Double>> similar = nearDuplicateIndexService.findSimilarToIndexed(signatures);
+        if (similar.isEmpty()) {
+            return;
+        }
+        Set<Long> eventIds = new HashSet<>(similar.keySet());
+        similar.values().forEach(matches -> eventIds.addAll(matches.keySet()));
+        Map<Long, Event> events = eventMapper.selectBatchIds(eventIds).stream()
+                .collect(Collectors.toMap(Event::getId, Function.identity()));
+
+        // 每个事件合并到与其近似重复、日期相近且地点或主体一致的最小ID事件（保留事件ID -> 重复事件ID列表）
+        TreeMap<Long, List<Long>> groups = new TreeMap<>();
+        for (Map.Entry<Long, Map<Long, Double>> entry : similar.entrySet()) {
+            Long eventId = entry.getKey();
+            Event event = events.get(eventId);
+            if (event == null) {
+                continue;
+            }
+            Long survivorId = entry.getValue().keySet().stream()
+                    .filter(id -> id < eventId)
+                    .filter(id -> events.containsKey(id)
+                            && eventFingerprintGenerator.isSameOccurrence(events.get(id), event))
+                    .min(Long::compare)
+                    .orElse(null);
+            if (survivorId != null) {
+                groups.computeIfAbsent(survivorId, id -> new ArrayList<>()).add(eventId);
+            }
+        }
+
+        for (Map.Entry<Long, List<Long>> group : groups.descendingMap().entrySet()) {
+            if (dryRun) {
+                mergedEvents.addAndGet(group.getValue().size());
+                if (mergeGroups.incrementAndGet() <= MAX_REPORTED_GROUPS) {
+                    reportedGroups.add(describeGroup(group.getKey(), group.getValue(), events, similar));
+                }
+                continue;
+            }
+            try {
+                int merged = eventStorageService.mergeDuplicateEvents(group.getKey(), group.getValue());
+                if (merged > 0) {
+                    mergedEvents.addAndGet(merged);
+                    mergeGroups.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failedGroups.incrementAndGet();
+                log.warn("合并近似重复事件失败: survivorId={}, duplicates={}, error={}",
+                        group.getKey(), group.getValue(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 描述预览中将被合并的事件组
+     */
+    private Map<String, Object> describeGroup(Long survivorId, List<Long> duplicateIds, Map<Long, Event> events,
+                                              Map<Long, Map<Long, Double>> similar) {
+        Map<String, Object> group = describeEvent(events.get(survivorId));
+        List<Map<String, Object>> duplicates = new ArrayList<>();
+        for (Long duplicateId : duplicateIds) {
+            Map<String, Object> duplicate = describeEvent(events.get(duplicateId));
+            duplicate.put("similarity", similar.get(duplicateId).get(survivorId));
+            duplicates.add(duplicate);
+        }
+        group.put("duplicates", duplicates);
+        return group;
+    }
+
+    private Map<String, Object> describeEvent(Event event) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("id", event.getId());
+        description.put("title", event.getEventTitle());
+        description.put("eventTime", event.getEventTime());
+        description.put("location", event.getEventLocation());
+        description.put("subject", event.getSubject());
+        return description;
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("lastResult", lastResult);
+        status.put("index", nearDuplicateIndexService.getStats());
+        return status;
+    }
+}
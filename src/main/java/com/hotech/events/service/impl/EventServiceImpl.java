@@ -13,6 +13,7 @@ import com.hotech.events.mapper.EventKeywordMapper;
 import com.hotech.events.mapper.EventRelationMapper;
 import com.hotech.events.mapper.TimelineEventMapper;
 import com.hotech.events.service.EventService;
+import com.hotech.events.util.EventFingerprintGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,6 +47,9 @@ public class EventServiceImpl implements EventService {
     @Autowired
     private EventRelationMapper eventRelationMapper;
 
+    @Autowired
+    private EventFingerprintGenerator eventFingerprintGenerator;
+
     @Autowired
     private com.hotech.events.mapper.TimelineEventMapper timelineEventMapper;
 
@@ -129,6 +133,7 @@ public class EventServiceImpl implements EventService {
 
         event.setCreatedAt(LocalDateTime.now());
         event.setUpdatedAt(LocalDateTime.now());
+        eventFingerprintGenerator.fillFingerprints(event);
 
         eventMapper.insert(event);
 
@@ -221,6 +226,11 @@ public class EventServiceImpl implements EventService {
 
         eventMapper.updateById(event);
 
+        // 按更新后的字段重新计算去重指纹
+        Event updatedEvent = eventMapper.selectById(event.getId());
+        eventFingerprintGenerator.fillFingerprints(updatedEvent);
+        eventMapper.batchUpdateFingerprints(Collections.singletonList(updatedEvent));
+
         // 更新关键词
         deleteEventKeywords(event.getId());
         saveEventKeywords(event.getId(), eventDTO.getKeywords());
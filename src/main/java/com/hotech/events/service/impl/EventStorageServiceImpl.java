@@ -4,14 +4,23 @@ import com.hotech.events.dto.EventData;
 import com.hotech.events.dto.StorageStats;
 import com.hotech.events.entity.Dictionary;
 import com.hotech.events.entity.Event;
-import com.hotech.events.mapper.DictionaryMapper;
+import com.hotech.events.mapper.EventKeywordMapper;
 import com.hotech.events.mapper.EventMapper;
+import com.hotech.events.mapper.EventRelationMapper;
+import com.hotech.events.mapper.TimelineEventMapper;
+import com.hotech.events.service.DictionaryCacheService;
 import com.hotech.events.service.EventStorageService;
 import com.hotech.events.service.FallbackDataGenerator;
+import com.hotech.events.service.NearDuplicateIndexService;
+import com.hotech.events.util.Deadline;
 import com.hotech.events.util.EventDeduplicator;
+import com.hotech.events.util.EventFingerprintGenerator;
+import com.hotech.events.util.MinHasher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -31,15 +40,36 @@ public class EventStorageServiceImpl implements EventStorageService {
     
     private static final Logger logger = LoggerFactory.getLogger(EventStorageServiceImpl.class);
     
+    // 批量候选查询中每个事件最多对应的候选数（与单条查找的三种查询各10条一致）
+    private static final int CANDIDATES_PER_EVENT = 30;
+    
     @Autowired
     private EventMapper eventMapper;
     
     @Autowired
-    private DictionaryMapper dictionaryMapper;
+    private DictionaryCacheService dictionaryCacheService;
     
     @Autowired
     private EventDeduplicator eventDeduplicator;
     
+    @Autowired
+    private EventFingerprintGenerator eventFingerprintGenerator;
+    
+    @Autowired
+    private NearDuplicateIndexService nearDuplicateIndexService;
+    
+    @Autowired
+    private MinHasher minHasher;
+    
+    @Autowired
+    private TimelineEventMapper timelineEventMapper;
+    
+    @Autowired
+    private EventRelationMapper eventRelationMapper;
+    
+    @Autowired
+    private EventKeywordMapper eventKeywordMapper;
+    
     @Autowired
     private FallbackDataGenerator fallbackDataGenerator;
     
@@ -49,6 +79,18 @@ public class EventStorageServiceImpl implements EventStorageService {
     @Autowired(required = false)
     private com.hotech.events.service.EventGeographicEnhancementService eventGeographicEnhancementService;
     
+    @Value("${timeline.storage.batch-size:100}")
+    private int storageBatchSize;
+    
+    @Value("${timeline.near-duplicate.threshold:0.6}")
+    private double nearDuplicateThreshold;
+    
+    @Value("${timeline.storage.fingerprint-backfill-batch-size:1000}")
+    private int fingerprintBackfillBatchSize;
+    
+    // 历史事件的指纹是否已回填完成，完成前查找重复事件时同时按标题模糊查询
+    private volatile boolean fingerprintBackfillCompleted = false;
+    
     // 统计信息
     private final AtomicLong totalStoredEvents = new AtomicLong(0);
     private final AtomicLong newEventsCreated = new AtomicLong(0);
@@ -65,21 +107,40 @@ public class EventStorageServiceImpl implements EventStorageService {
             throw new IllegalArgumentException("事件数据不能为空");
         }
         
+        return storeEnrichedEvent(enrichGeographicInfo(eventData));
+    }
+    
+    @Override
+    public EventData enrichGeographicInfo(EventData eventData) {
+        // 超过请求截止时间后跳过地理信息增强，先保存事件
+        if (eventData == null || Deadline.checkExpired()) {
+            return eventData;
+        }
+        
+        // 集成地理信息处理
+        if (eventGeographicIntegrationService != null) {
+            eventData = eventGeographicIntegrationService.integrateGeographicInfoForSingleEvent(eventData);
+        }
+        
+        // 增强地理信息（为缺少经纬度的事件补充坐标）
+        if (eventGeographicEnhancementService != null) {
+            eventData = eventGeographicEnhancementService.enhanceEventDataGeographicInfo(eventData);
+        }
+        return eventData;
+    }
+    
+    @Override
+    @Transactional
+    public Long storeEnrichedEvent(EventData eventData) {
+        if (eventData == null) {
+            throw new IllegalArgumentException("事件数据不能为空");
+        }
+        
         long startTime = System.currentTimeMillis();
         
         try {
             logger.debug("开始存储事件: {}", eventData.getTitle());
             
-            // 集成地理信息处理
-            if (eventGeographicIntegrationService != null) {
-                eventData = eventGeographicIntegrationService.integrateGeographicInfoForSingleEvent(eventData);
-            }
-            
-            // 增强地理信息（为缺少经纬度的事件补充坐标）
-            if (eventGeographicEnhancementService != null) {
-                eventData = eventGeographicEnhancementService.enhanceEventDataGeographicInfo(eventData);
-            }
-            
             // 检查是否已存在相似事件
             Event existingEvent = findExistingEvent(eventData);
             
@@ -94,6 +155,9 @@ public class EventStorageServiceImpl implements EventStorageService {
                 newEventsCreated.incrementAndGet();
             }
             
+            // 更新近似重复索引
+            indexNearDuplicates(Collections.singletonList(savedEvent));
+            
             // 更新字典表
             updateDictionaries(eventData);
             
@@ -145,20 +209,42 @@ public class EventStorageServiceImpl implements EventStorageService {
             List<Long> storedEventIds = new ArrayList<>();
             int successCount = 0;
             int failCount = 0;
+            int batchSize = Math.max(1, storageBatchSize);
             
-            // 批量处理
-            for (int i = 0; i < deduplicatedEvents.size(); i++) {
-                EventData eventData = deduplicatedEvents.get(i);
+            // 分批处理：每批一次候选查询、一次多行插入、一次批量更新和一次字典写入
+            for (int from = 0; from < deduplicatedEvents.size(); from += batchSize) {
+                List<EventData> chunk = deduplicatedEvents.subList(from,
+                        Math.min(from + batchSize, deduplicatedEvents.size()));
+                
+                List<EventData> enrichedEvents = new ArrayList<>(chunk.size());
+                for (EventData eventData : chunk) {
+                    try {
+                        enrichedEvents.add(enrichGeographicInfo(eventData));
+                    } catch (Exception e) {
+                        failCount++;
+                        logger.error("批量存储中单个事件失败: title={}, error={}", eventData.getTitle(), e.getMessage());
+                    }
+                }
+                if (enrichedEvents.isEmpty()) {
+                    continue;
+                }
+                
                 try {
-                    logger.debug("正在存储事件 {}/{}: {}", i + 1, deduplicatedEvents.size(), eventData.getTitle());
-                    Long eventId = storeValidatedEvent(eventData);
-                    storedEventIds.add(eventId);
-                    successCount++;
-                    logger.debug("事件存储成功: eventId={}, title={}", eventId, eventData.getTitle());
+                    List<Long> chunkIds = storeChunk(enrichedEvents);
+                    storedEventIds.addAll(chunkIds);
+                    successCount += chunkIds.size();
                 } catch (Exception e) {
-                    failCount++;
-                    logger.error("批量存储中单个事件失败: title={}, error={}", eventData.getTitle(), e.getMessage());
-                    // 继续处理其他事件
+                    logger.warn("批量写入事件失败，改为逐条存储: size={}, error={}", enrichedEvents.size(), e.getMessage());
+                    for (EventData eventData : enrichedEvents) {
+                        try {
+                            storedEventIds.add(storeEnrichedEvent(eventData));
+                            successCount++;
+                        } catch (Exception ex) {
+                            failCount++;
+                            logger.error("批量存储中单个事件失败: title={}, error={}", eventData.getTitle(), ex.getMessage());
+                            // 继续处理其他事件
+                        }
+                    }
                 }
             }
             
@@ -188,40 +274,7 @@ public class EventStorageServiceImpl implements EventStorageService {
     
     @Override
     public void updateDictionaries(EventData eventData) {
-        try {
-            // 更新主体字典
-            if (StringUtils.hasText(eventData.getSubject())) {
-                updateDictionaryEntry("subject", eventData.getSubject());
-            }
-            
-            // 更新客体字典
-            if (StringUtils.hasText(eventData.getObject())) {
-                updateDictionaryEntry("object", eventData.getObject());
-            }
-            
-            // 更新事件类型字典
-            if (StringUtils.hasText(eventData.getEventType())) {
-                updateDictionaryEntry("event_type", eventData.getEventType());
-            }
-            
-            // 更新地点字典
-            if (StringUtils.hasText(eventData.getLocation())) {
-                updateDictionaryEntry("location", eventData.getLocation());
-            }
-            
-            // 更新关键词字典
-            if (eventData.getKeywords() != null && !eventData.getKeywords().isEmpty()) {
-                for (String keyword : eventData.getKeywords()) {
-                    if (StringUtils.hasText(keyword)) {
-                        updateDictionaryEntry("keyword", keyword);
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.error("更新字典表失败: {}", e.getMessage(), e);
-            // 字典更新失败不应该影响事件存储
-        }
+        updateDictionaries(Collections.singletonList(eventData));
     }
     
     @Override
@@ -367,47 +420,15 @@ public class EventStorageServiceImpl implements EventStorageService {
     @Override
     public Event findExistingEvent(EventData eventData) {
         try {
-            // 基于多个条件查找相似事件
-            List<Event> candidateEvents = new ArrayList<>();
-            
-            // 1. 基于标题查找
-            if (StringUtils.hasText(eventData.getTitle())) {
-                List<Event> titleMatches = eventMapper.findByTitleSimilar(eventData.getTitle());
-                candidateEvents.addAll(titleMatches);
-            }
-            
-            // 2. 基于主体、客体、类型查找
-            if (StringUtils.hasText(eventData.getSubject()) && 
-                StringUtils.hasText(eventData.getObject()) && 
-                StringUtils.hasText(eventData.getEventType())) {
-                
-                List<Event> keyFieldMatches = eventMapper.findByKeyFields(
-                    eventData.getSubject(), 
-                    eventData.getObject(), 
-                    eventData.getEventType()
-                );
-                candidateEvents.addAll(keyFieldMatches);
-            }
-            
-            // 3. 基于时间和地点查找 - 缩小时间范围，避免误判
-            if (eventData.getEventTime() != null && StringUtils.hasText(eventData.getLocation())) {
-                LocalDateTime startTime = eventData.getEventTime().minusHours(1);  // 缩小到1小时
-                LocalDateTime endTime = eventData.getEventTime().plusHours(1);     // 缩小到1小时
-                
-                List<Event> timeLocationMatches = eventMapper.findByTimeAndLocation(
-                    startTime, endTime, eventData.getLocation()
-                );
-                candidateEvents.addAll(timeLocationMatches);
-            }
-            
-            // 去重候选事件
-            Set<Long> seenIds = new HashSet<>();
-            candidateEvents = candidateEvents.stream()
-                    .filter(event -> seenIds.add(event.getId()))
-                    .collect(Collectors.toList());
+            // 按内容指纹、分块键和时间地点查找候选事件，按MinHash索引补充近似重复事件，再在内存中计算相似度
+            List<EventData> lookupEvents = Collections.singletonList(eventData);
+            List<Event> candidateEvents = fetchCandidateEvents(lookupEvents);
+            List<Map<Long, Double>> nearDuplicates = findNearDuplicates(lookupEvents, candidateEvents);
+            Map<Event, Double> nearMatches = toEventMatches(nearDuplicates.get(0), candidateEvents);
             
             // 找到最相似的事件
-            return findMostSimilarEvent(eventData, candidateEvents);
+            return findMostSimilarEvent(eventData, selectCandidates(eventData, candidateEvents, nearMatches),
+                    nearMatches.keySet());
             
         } catch (Exception e) {
             logger.error("查找现有事件失败: {}", e.getMessage(), e);
@@ -419,31 +440,7 @@ public class EventStorageServiceImpl implements EventStorageService {
     @Transactional
     public Event updateExistingEvent(Event existingEvent, EventData newEventData) {
         try {
-            // 更新事件信息，保留更完整的数据
-            if (StringUtils.hasText(newEventData.getTitle()) && 
-                (existingEvent.getEventTitle() == null || 
-                 newEventData.getTitle().length() > existingEvent.getEventTitle().length())) {
-                existingEvent.setEventTitle(newEventData.getTitle());
-            }
-            
-            if (StringUtils.hasText(newEventData.getDescription()) && 
-                (existingEvent.getEventDescription() == null || 
-                 newEventData.getDescription().length() > existingEvent.getEventDescription().length())) {
-                existingEvent.setEventDescription(newEventData.getDescription());
-            }
-            
-            // 更新验证相关字段（已取消可信度判断）
-            existingEvent.setCredibilityScore(1.0); // 固定设置为1.0，不再进行可信度判断
-            
-            existingEvent.setValidationStatus("UPDATED");
-            existingEvent.setLastValidatedAt(LocalDateTime.now());
-            existingEvent.setUpdatedAt(LocalDateTime.now());
-            
-            // 更新来源信息
-            if (newEventData.getSources() != null && !newEventData.getSources().isEmpty()) {
-                // 这里简化处理，实际应该合并来源
-                existingEvent.setSourceUrls(String.join(",", newEventData.getSources()));
-            }
+            applyUpdate(existingEvent, newEventData);
             
             eventMapper.updateById(existingEvent);
             
@@ -457,74 +454,45 @@ public class EventStorageServiceImpl implements EventStorageService {
         }
     }
     
+    /**
+     * 将新事件数据合并到已有事件（只修改对象，不写数据库）
+     */
+    private void applyUpdate(Event existingEvent, EventData newEventData) {
+        // 更新事件信息，保留更完整的数据
+        if (StringUtils.hasText(newEventData.getTitle()) && 
+            (existingEvent.getEventTitle() == null || 
+             newEventData.getTitle().length() > existingEvent.getEventTitle().length())) {
+            existingEvent.setEventTitle(newEventData.getTitle());
+        }
+        
+        if (StringUtils.hasText(newEventData.getDescription()) && 
+            (existingEvent.getEventDescription() == null || 
+             newEventData.getDescription().length() > existingEvent.getEventDescription().length())) {
+            existingEvent.setEventDescription(newEventData.getDescription());
+        }
+        
+        // 更新验证相关字段（已取消可信度判断）
+        existingEvent.setCredibilityScore(1.0); // 固定设置为1.0，不再进行可信度判断
+        
+        existingEvent.setValidationStatus("UPDATED");
+        existingEvent.setLastValidatedAt(LocalDateTime.now());
+        existingEvent.setUpdatedAt(LocalDateTime.now());
+        
+        // 更新来源信息
+        if (newEventData.getSources() != null && !newEventData.getSources().isEmpty()) {
+            // 这里简化处理，实际应该合并来源
+            existingEvent.setSourceUrls(String.join(",", newEventData.getSources()));
+        }
+        
+        // 标题可能已更新，重新计算内容指纹
+        existingEvent.setContentFingerprint(eventFingerprintGenerator.contentFingerprint(existingEvent.getEventTitle()));
+    }
+    
     @Override
     @Transactional
     public Event createNewEvent(EventData eventData) {
         try {
-            Event newEvent = new Event();
-            
-            // 生成唯一的事件编码
-            String eventCode = generateEventCode();
-            newEvent.setEventCode(eventCode);
-            
-            // 设置基本信息
-            newEvent.setEventTitle(eventData.getTitle());
-            newEvent.setEventDescription(eventData.getDescription());
-            
-            // 确保事件时间不为空，如果为空则使用当前时间
-            LocalDateTime eventTime = eventData.getEventTime();
-            if (eventTime == null) {
-                logger.warn("事件时间为空，使用当前时间作为默认值: {}", eventData.getTitle());
-                eventTime = LocalDateTime.now();
-            }
-            newEvent.setEventTime(eventTime);
-            
-            newEvent.setEventLocation(eventData.getLocation());
-            newEvent.setSubject(eventData.getSubject());
-            newEvent.setObject(eventData.getObject());
-            newEvent.setEventType(eventData.getEventType());
-            
-            // 设置基础坐标（向后兼容）
-            if (eventData.getLatitude() != null && eventData.getLongitude() != null) {
-                newEvent.setLatitude(java.math.BigDecimal.valueOf(eventData.getLatitude()));
-                newEvent.setLongitude(java.math.BigDecimal.valueOf(eventData.getLongitude()));
-            }
-            
-            // 处理地理信息存储
-            if (eventGeographicIntegrationService != null) {
-                com.hotech.events.service.EventGeographicIntegrationService.GeographicStorageResult geoResult = 
-                    eventGeographicIntegrationService.prepareGeographicDataForStorage(eventData);
-                
-                if (geoResult.isSuccess()) {
-                    newEvent.setEventCoordinateId(geoResult.getEventCoordinateId());
-                    newEvent.setSubjectCoordinateId(geoResult.getSubjectCoordinateId());
-                    newEvent.setObjectCoordinateId(geoResult.getObjectCoordinateId());
-                    newEvent.setGeographicStatus(com.hotech.events.constant.GeographicStatus.PROCESSED);
-                    newEvent.setGeographicUpdatedAt(LocalDateTime.now());
-                    
-                    logger.debug("事件地理信息存储成功: eventCoordId={}, subjectCoordId={}, objectCoordId={}", 
-                            geoResult.getEventCoordinateId(), geoResult.getSubjectCoordinateId(), geoResult.getObjectCoordinateId());
-                } else {
-                    newEvent.setGeographicStatus(com.hotech.events.constant.GeographicStatus.FAILED);
-                    logger.warn("事件地理信息存储失败: {}", geoResult.getErrorMessage());
-                }
-            }
-            
-            // 设置验证相关信息（已取消可信度判断）
-            newEvent.setCredibilityScore(1.0); // 固定设置为1.0，不再进行可信度判断
-            newEvent.setValidationStatus("PASSED");
-            newEvent.setFetchMethod("DEEPSEEK");
-            newEvent.setLastValidatedAt(LocalDateTime.now());
-            
-            // 设置来源信息
-            if (eventData.getSources() != null && !eventData.getSources().isEmpty()) {
-                newEvent.setSourceUrls(String.join(",", eventData.getSources()));
-            }
-            
-            // 设置时间戳
-            LocalDateTime now = LocalDateTime.now();
-            newEvent.setCreatedAt(now);
-            newEvent.setUpdatedAt(now);
+            Event newEvent = buildNewEvent(eventData);
             
             eventMapper.insert(newEvent);
             
@@ -538,6 +506,147 @@ public class EventStorageServiceImpl implements EventStorageService {
         }
     }
     
+    /**
+     * 根据事件数据构建新事件（包括地理信息存储，不插入事件表）
+     */
+    private Event buildNewEvent(EventData eventData) {
+        Event newEvent = new Event();
+        
+        // 生成唯一的事件编码
+        String eventCode = generateEventCode();
+        newEvent.setEventCode(eventCode);
+        
+        // 设置基本信息
+        newEvent.setEventTitle(eventData.getTitle());
+        newEvent.setEventDescription(eventData.getDescription());
+        
+        // 确保事件时间不为空，如果为空则使用当前时间
+        LocalDateTime eventTime = eventData.getEventTime();
+        if (eventTime == null) {
+            logger.warn("事件时间为空，使用当前时间作为默认值: {}", eventData.getTitle());
+            eventTime = LocalDateTime.now();
+        }
+        newEvent.setEventTime(eventTime);
+        
+        newEvent.setEventLocation(eventData.getLocation());
+        newEvent.setSubject(eventData.getSubject());
+        newEvent.setObject(eventData.getObject());
+        newEvent.setEventType(eventData.getEventType());
+        
+        // 设置基础坐标（向后兼容）
+        if (eventData.getLatitude() != null && eventData.getLongitude() != null) {
+            newEvent.setLatitude(java.math.BigDecimal.valueOf(eventData.getLatitude()));
+            newEvent.setLongitude(java.math.BigDecimal.valueOf(eventData.getLongitude()));
+        }
+        
+        // 处理地理信息存储
+        if (eventGeographicIntegrationService != null) {
+            com.hotech.events.service.EventGeographicIntegrationService.GeographicStorageResult geoResult = 
+                eventGeographicIntegrationService.prepareGeographicDataForStorage(eventData);
+            
+            if (geoResult.isSuccess()) {
+                newEvent.setEventCoordinateId(geoResult.getEventCoordinateId());
+                newEvent.setSubjectCoordinateId(geoResult.getSubjectCoordinateId());
+                newEvent.setObjectCoordinateId(geoResult.getObjectCoordinateId());
+                newEvent.setGeographicStatus(com.hotech.events.constant.GeographicStatus.PROCESSED);
+                newEvent.setGeographicUpdatedAt(LocalDateTime.now());
+                
+                logger.debug("事件地理信息存储成功: eventCoordId={}, subjectCoordId={}, objectCoordId={}", 
+                        geoResult.getEventCoordinateId(), geoResult.getSubjectCoordinateId(), geoResult.getObjectCoordinateId());
+            } else {
+                newEvent.setGeographicStatus(com.hotech.events.constant.GeographicStatus.FAILED);
+                logger.warn("事件地理信息存储失败: {}", geoResult.getErrorMessage());
+            }
+        }
+        
+        // 设置验证相关信息（已取消可信度判断）
+        newEvent.setCredibilityScore(1.0); // 固定设置为1.0，不再进行可信度判断
+        newEvent.setValidationStatus("PASSED");
+        newEvent.setFetchMethod("DEEPSEEK");
+        newEvent.setLastValidatedAt(LocalDateTime.now());
+        
+        // 设置来源信息
+        if (eventData.getSources() != null && !eventData.getSources().isEmpty()) {
+            newEvent.setSourceUrls(String.join(",", eventData.getSources()));
+        }
+        
+        // 设置时间戳
+        LocalDateTime now = LocalDateTime.now();
+        newEvent.setCreatedAt(now);
+        newEvent.setUpdatedAt(now);
+        
+        // 设置去重指纹
+        eventFingerprintGenerator.fillFingerprints(newEvent);
+        
+        return newEvent;
+    }
+    
+    @Override
+    @Transactional
+    public int mergeDuplicateEvents(Long survivorId, List<Long> duplicateIds) {
+        Set<Long> lockIds = new TreeSet<>(duplicateIds);
+        lockIds.remove(survivorId);
+        if (lockIds.isEmpty()) {
+            return 0;
+        }
+        lockIds.add(survivorId);
+        
+        // 按ID顺序锁定保留事件和重复事件，已被合并的事件不再有效
+        Map<Long, Event> activeEvents = new HashMap<>();
+        for (Event event : eventMapper.lockActiveEvents(lockIds)) {
+            activeEvents.put(event.getId(), event);
+        }
+        Event survivor = activeEvents.remove(survivorId);
+        if (survivor == null || activeEvents.isEmpty()) {
+            return 0;
+        }
+        List<Long> mergedIds = new ArrayList<>(activeEvents.keySet());
+        
+        // 关联关系转移到保留的事件
+        timelineEventMapper.reassignEvents(mergedIds, survivorId);
+        timelineEventMapper.deleteByEventIds(mergedIds);
+        eventRelationMapper.reassignSourceEvents(mergedIds, survivorId);
+        eventRelationMapper.reassignTargetEvents(mergedIds, survivorId);
+        eventRelationMapper.deleteSelfRelations(survivorId);
+        eventKeywordMapper.reassignEvents(mergedIds, survivorId);
+        
+        // 合并内容：保留更完整的描述，合并来源
+        Event update = new Event();
+        update.setId(survivorId);
+        boolean changed = false;
+        String description = survivor.getEventDescription();
+        Set<String> sources = new LinkedHashSet<>();
+        if (StringUtils.hasText(survivor.getSourceUrls())) {
+            sources.addAll(Arrays.asList(survivor.getSourceUrls().split(",")));
+        }
+        int sourceCount = sources.size();
+        for (Event duplicate : activeEvents.values()) {
+            if (StringUtils.hasText(duplicate.getEventDescription())
+                    && (description == null || duplicate.getEventDescription().length() > description.length())) {
+                description = duplicate.getEventDescription();
+                update.setEventDescription(description);
+                changed = true;
+            }
+            if (StringUtils.hasText(duplicate.getSourceUrls())) {
+                sources.addAll(Arrays.asList(duplicate.getSourceUrls().split(",")));
+            }
+        }
+        if (sources.size() > sourceCount) {
+            update.setSourceUrls(String.join(",", sources));
+            changed = true;
+        }
+        if (changed) {
+            update.setUpdatedAt(LocalDateTime.now());
+            eventMapper.updateById(update);
+        }
+        
+        eventMapper.markMerged(mergedIds);
+        nearDuplicateIndexService.removeEvents(mergedIds);
+        
+        logger.info("合并近似重复事件: 保留事件={}, 合并事件={}", survivorId, mergedIds);
+        return mergedIds.size();
+    }
+    
     @Override
     public StorageStats getStorageStats() {
         StorageStats stats = new StorageStats();
@@ -573,40 +682,380 @@ public class EventStorageServiceImpl implements EventStorageService {
     }
     
     /**
-     * 更新字典条目
+     * 批量存储一批已增强地理信息的事件
+     * 一次查询按指纹取回所有候选重复事件，在内存中匹配（同一批中先出现的新事件也参与匹配），
+     * 然后用一条多行插入写入新事件、一条批量更新写回合并后的已有事件，最后批量写入字典
+     * 
+     * @param events 事件列表
+     * @return 与输入顺序一致的事件ID列表
      */
-    private void updateDictionaryEntry(String dictType, String dictValue) {
+    private List<Long> storeChunk(List<EventData> events) {
+        List<Event> candidateEvents = fetchCandidateEvents(events);
+        List<Map<Long, Double>> nearDuplicates = findNearDuplicates(events, candidateEvents);
+        
+        Map<Long, Event> updatedEvents = new LinkedHashMap<>();
+        List<Event> newEvents = new ArrayList<>();
+        Map<Event, int[]> newEventSignatures = new IdentityHashMap<>();
+        Set<String> eventCodes = new HashSet<>();
+        List<Event> resolvedEvents = new ArrayList<>(events.size());
+        
+        for (int i = 0; i < events.size(); i++) {
+            EventData eventData = events.get(i);
+            Map<Event, Double> nearMatches = toEventMatches(nearDuplicates.get(i), candidateEvents);
+            Event existingEvent = findMostSimilarEvent(eventData,
+                    selectCandidates(eventData, candidateEvents, nearMatches), nearMatches.keySet());
+            
+            // 同一批中先出现的新事件按签名直接比较
+            int[] signature = nearDuplicateIndexService.isEnabled() ? minHasher.signature(eventData.getTitle()) : null;
+            if (existingEvent == null) {
+                Map<Event, Double> pendingMatches = new IdentityHashMap<>();
+                for (Map.Entry<Event, int[]> entry : newEventSignatures.entrySet()) {
+                    double similarity = minHasher.similarity(signature, entry.getValue());
+                    if (similarity >= nearDuplicateThreshold) {
+                        pendingMatches.put(entry.getKey(), similarity);
+                    }
+                }
+                existingEvent = findMostSimilarEvent(eventData,
+                        selectCandidates(eventData, newEvents, pendingMatches), pendingMatches.keySet());
+            }
+            
+            if (existingEvent != null) {
+                applyUpdate(existingEvent, eventData);
+                if (existingEvent.getId() != null) {
+                    updatedEvents.put(existingEvent.getId(), existingEvent);
+                }
+                resolvedEvents.add(existingEvent);
+            } else {
+                Event newEvent = buildNewEvent(eventData);
+                // 同一批内的事件编码不能重复
+                while (!eventCodes.add(newEvent.getEventCode())) {
+                    newEvent.setEventCode(generateEventCode());
+                }
+                newEvents.add(newEvent);
+                if (signature != null) {
+                    newEventSignatures.put(newEvent, signature);
+                }
+                resolvedEvents.add(newEvent);
+            }
+        }
+        
+        if (!newEvents.isEmpty()) {
+            eventMapper.batchInsert(newEvents);
+            fillMissingIds(newEvents);
+        }
+        if (!updatedEvents.isEmpty()) {
+            eventMapper.batchUpdateMerged(new ArrayList<>(updatedEvents.values()));
+        }
+        
+        // 更新近似重复索引
+        List<Event> writtenEvents = new ArrayList<>(newEvents);
+        writtenEvents.addAll(updatedEvents.values());
+        indexNearDuplicates(writtenEvents);
+        
+        // 更新字典表
+        updateDictionaries(events);
+        
+        newEventsCreated.addAndGet(newEvents.size());
+        eventsUpdated.addAndGet(events.size() - newEvents.size());
+        totalStoredEvents.addAndGet(events.size());
+        
+        logger.debug("批量写入事件完成: 事件数={}, 候选数={}, 新增={}, 更新={}",
+                events.size(), candidateEvents.size(), newEvents.size(), updatedEvents.size());
+        
+        return resolvedEvents.stream()
+                .map(Event::getId)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 事件是否满足任一候选查找条件
+     */
+    private boolean hasLookupCriteria(EventData eventData) {
+        return StringUtils.hasText(eventData.getTitle())
+                || (StringUtils.hasText(eventData.getSubject())
+                    && StringUtils.hasText(eventData.getObject())
+                    && StringUtils.hasText(eventData.getEventType()))
+                || (eventData.getEventTime() != null && StringUtils.hasText(eventData.getLocation()));
+    }
+    
+    /**
+     * 一次查询取回一批事件的候选重复事件
+     * 内容指纹和分块键为索引等值查询；历史事件指纹回填完成前，再按原有的标题模糊条件补充查询
+     */
+    private List<Event> fetchCandidateEvents(List<EventData> events) {
+        Set<String> fingerprints = new LinkedHashSet<>();
+        Set<String> blockingKeys = new LinkedHashSet<>();
+        List<EventData> timeLocationEvents = new ArrayList<>();
+        for (EventData eventData : events) {
+            String fingerprint = eventFingerprintGenerator.contentFingerprint(eventData);
+            if (!fingerprint.isEmpty()) {
+                fingerprints.add(fingerprint);
+            }
+            blockingKeys.addAll(eventFingerprintGenerator.lookupBlockingKeys(eventData));
+            if (eventData.getEventTime() != null && StringUtils.hasText(eventData.getLocation())) {
+                timeLocationEvents.add(eventData);
+            }
+        }
+        
+        int limit = events.size() * CANDIDATES_PER_EVENT;
+        List<Event> candidateEvents = new ArrayList<>();
+        if (!fingerprints.isEmpty() || !blockingKeys.isEmpty() || !timeLocationEvents.isEmpty()) {
+            candidateEvents.addAll(eventMapper.findFingerprintCandidates(
+                    fingerprints, blockingKeys, timeLocationEvents, limit));
+        }
+        
+        if (!fingerprintBackfillCompleted) {
+            List<EventData> lookupEvents = events.stream()
+                    .filter(this::hasLookupCriteria)
+                    .collect(Collectors.toList());
+            if (!lookupEvents.isEmpty()) {
+                candidateEvents.addAll(eventMapper.findDuplicateCandidates(lookupEvents, limit));
+            }
+        }
+        
+        // 去重候选事件
+        Set<Long> seenIds = new HashSet<>();
+        return candidateEvents.stream()
+                .filter(event -> seenIds.add(event.getId()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 从候选事件中选出与待存储事件匹配的事件：先是标题指纹相同或标题包含的，再是近似重复的（按相似度从高到低），
+     * 然后是分块键相同（主体、客体、类型相同且日期相差不超过一天）的，最后是前后1小时内地点包含的
+     */
+    private List<Event> selectCandidates(EventData eventData, List<Event> events, Map<Event, Double> nearMatches) {
+        List<Event> titleMatches = new ArrayList<>();
+        List<Event> similarMatches = new ArrayList<>();
+        List<Event> keyFieldMatches = new ArrayList<>();
+        List<Event> timeLocationMatches = new ArrayList<>();
+        
+        String fingerprint = eventFingerprintGenerator.contentFingerprint(eventData);
+        String title = StringUtils.hasText(eventData.getTitle()) ? eventData.getTitle().toLowerCase() : null;
+        List<String> blockingKeys = eventFingerprintGenerator.lookupBlockingKeys(eventData);
+        String location = eventData.getEventTime() != null && StringUtils.hasText(eventData.getLocation())
+                ? eventData.getLocation().toLowerCase() : null;
+        
+        for (Event event : events) {
+            if ((!fingerprint.isEmpty() && fingerprint.equals(fingerprintOf(event)))
+                    || (title != null && event.getEventTitle() != null
+                        && event.getEventTitle().toLowerCase().contains(title))) {
+                titleMatches.add(event);
+            } else if (nearMatches.containsKey(event)) {
+                similarMatches.add(event);
+            } else if (!blockingKeys.isEmpty() && blockingKeys.contains(blockingKeyOf(event))) {
+                keyFieldMatches.add(event);
+            } else if (location != null && event.getEventTime() != null && event.getEventLocation() != null
+                    && !event.getEventTime().isBefore(eventData.getEventTime().minusHours(1))
+                    && !event.getEventTime().isAfter(eventData.getEventTime().plusHours(1))
+                    && event.getEventLocation().toLowerCase().contains(location)) {
+                timeLocationMatches.add(event);
+            }
+        }
+        
+        similarMatches.sort((a, b) -> Double.compare(nearMatches.get(b), nearMatches.get(a)));
+        
+        List<Event> candidates = new ArrayList<>(titleMatches);
+        candidates.addAll(similarMatches);
+        candidates.addAll(keyFieldMatches);
+        candidates.addAll(timeLocationMatches);
+        return candidates;
+    }
+    
+    /**
+     * 按MinHash索引查找近似重复事件，不在候选事件中的近似重复事件会被加载并加入候选
+     * 
+     * @return 与输入顺序一致的列表，每项为事件ID到相似度的映射；查找失败时为空映射
+     */
+    private List<Map<Long, Double>> findNearDuplicates(List<EventData> events, List<Event> candidateEvents) {
+        List<Map<Long, Double>> emptyResult = events.stream()
+                .map(event -> Collections.<Long, Double>emptyMap())
+                .collect(Collectors.toList());
+        if (!nearDuplicateIndexService.isEnabled()) {
+            return emptyResult;
+        }
+        
         try {
-            // 检查是否已存在
-            Dictionary existing = dictionaryMapper.findByTypeAndValue(dictType, dictValue);
+            List<String> titles = events.stream().map(EventData::getTitle).collect(Collectors.toList());
+            List<Map<Long, Double>> nearDuplicates = nearDuplicateIndexService.findSimilar(titles);
+            
+            Set<Long> knownIds = candidateEvents.stream().map(Event::getId).collect(Collectors.toSet());
+            Set<Long> missingIds = new LinkedHashSet<>();
+            for (Map<Long, Double> similar : nearDuplicates) {
+                for (Long eventId : similar.keySet()) {
+                    if (!knownIds.contains(eventId)) {
+                        missingIds.add(eventId);
+                    }
+                }
+            }
+            if (!missingIds.isEmpty()) {
+                for (Event event : eventMapper.selectBatchIds(missingIds)) {
+                    if (event.getStatus() == null || event.getStatus() == 1) {
+                        candidateEvents.add(event);
+                    }
+                }
+            }
+            return nearDuplicates;
             
-            if (existing == null) {
-                // 创建新的字典条目
-                Dictionary newDict = new Dictionary(dictType, dictValue, dictValue);
-                // 设置其他必要字段...
-                
-                dictionaryMapper.insert(newDict);
-                dictionaryUpdates.incrementAndGet();
+        } catch (Exception e) {
+            logger.warn("查找近似重复事件失败: {}", e.getMessage());
+            return emptyResult;
+        }
+    }
+    
+    /**
+     * 将事件ID到相似度的映射转换为候选事件对象到相似度的映射（按对象标识）
+     */
+    private Map<Event, Double> toEventMatches(Map<Long, Double> similar, List<Event> candidateEvents) {
+        Map<Event, Double> matches = new IdentityHashMap<>();
+        if (similar.isEmpty()) {
+            return matches;
+        }
+        for (Event event : candidateEvents) {
+            Double similarity = similar.get(event.getId());
+            if (similarity != null) {
+                matches.put(event, similarity);
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * 更新事件的近似重复索引，索引失败不影响事件存储
+     */
+    private void indexNearDuplicates(List<Event> events) {
+        try {
+            nearDuplicateIndexService.indexEvents(events);
+        } catch (Exception e) {
+            logger.warn("更新近似重复索引失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取事件的内容指纹，未回填时现场计算
+     */
+    private String fingerprintOf(Event event) {
+        return event.getContentFingerprint() != null ? event.getContentFingerprint()
+                : eventFingerprintGenerator.contentFingerprint(event.getEventTitle());
+    }
+    
+    /**
+     * 获取事件的分块键，未回填时现场计算
+     */
+    private String blockingKeyOf(Event event) {
+        if (event.getBlockingKey() != null) {
+            return event.getBlockingKey();
+        }
+        return eventFingerprintGenerator.blockingKey(
+                event.getEventTime() != null ? event.getEventTime().toLocalDate() : null,
+                event.getSubject(), event.getObject(), event.getEventType());
+    }
+    
+    /**
+     * 定期为历史事件回填内容指纹和分块键
+     * 查询不到未回填的事件后，查找重复事件不再按标题模糊查询；之后通过其他途径写入的事件仍会被补上指纹
+     */
+    @Scheduled(fixedDelayString = "${timeline.storage.fingerprint-backfill-interval:10000}")
+    public void backfillFingerprints() {
+        try {
+            List<Event> events = eventMapper.findWithoutFingerprint(Math.max(1, fingerprintBackfillBatchSize));
+            if (events.isEmpty()) {
+                if (!fingerprintBackfillCompleted) {
+                    fingerprintBackfillCompleted = true;
+                    logger.info("历史事件的去重指纹已全部回填");
+                }
+                return;
+            }
+            
+            for (Event event : events) {
+                eventFingerprintGenerator.fillFingerprints(event);
+            }
+            eventMapper.batchUpdateFingerprints(events);
+            logger.debug("回填事件去重指纹: {} 条", events.size());
+            
+        } catch (Exception e) {
+            logger.warn("回填事件去重指纹失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 驱动未回填自增ID时按事件编码补查
+     */
+    private void fillMissingIds(List<Event> newEvents) {
+        List<String> missingCodes = newEvents.stream()
+                .filter(event -> event.getId() == null)
+                .map(Event::getEventCode)
+                .collect(Collectors.toList());
+        if (missingCodes.isEmpty()) {
+            return;
+        }
+        
+        Map<String, Long> idsByCode = new HashMap<>();
+        for (Event event : eventMapper.findIdsByEventCodes(missingCodes)) {
+            idsByCode.put(event.getEventCode(), event.getId());
+        }
+        for (Event event : newEvents) {
+            if (event.getId() == null) {
+                event.setId(idsByCode.get(event.getEventCode()));
+            }
+        }
+    }
+    
+    /**
+     * 批量更新字典表，只写入已知值缓存中没有的字典项，已存在的字典项由唯一索引忽略
+     */
+    private void updateDictionaries(List<EventData> events) {
+        try {
+            Map<String, Dictionary> entries = new LinkedHashMap<>();
+            for (EventData eventData : events) {
+                // 主体、客体、事件类型、地点字典
+                addDictionaryEntry(entries, "subject", eventData.getSubject());
+                addDictionaryEntry(entries, "object", eventData.getObject());
+                addDictionaryEntry(entries, "event_type", eventData.getEventType());
+                addDictionaryEntry(entries, "location", eventData.getLocation());
                 
-                logger.debug("添加新字典条目: {} = {}", dictType, dictValue);
+                // 关键词字典
+                if (eventData.getKeywords() != null) {
+                    for (String keyword : eventData.getKeywords()) {
+                        addDictionaryEntry(entries, "keyword", keyword);
+                    }
+                }
+            }
+            if (entries.isEmpty()) {
+                return;
             }
             
+            int inserted = dictionaryCacheService.upsertAutoValues(entries.values());
+            dictionaryUpdates.addAndGet(inserted);
+            logger.debug("批量更新字典表: 字典项={}, 新增={}", entries.size(), inserted);
+            
         } catch (Exception e) {
-            logger.error("更新字典条目失败: {} = {}, 错误: {}", dictType, dictValue, e.getMessage());
+            logger.error("更新字典表失败: {}", e.getMessage(), e);
+            // 字典更新失败不应该影响事件存储
+        }
+    }
+    
+    /**
+     * 添加待写入的字典条目
+     */
+    private void addDictionaryEntry(Map<String, Dictionary> entries, String dictType, String dictValue) {
+        if (StringUtils.hasText(dictValue)) {
+            entries.putIfAbsent(dictType + ":" + dictValue, new Dictionary(dictType, dictValue, dictValue));
         }
     }
     
     /**
      * 找到最相似的事件
      */
-    private Event findMostSimilarEvent(EventData eventData, List<Event> candidateEvents) {
+    private Event findMostSimilarEvent(EventData eventData, List<Event> candidateEvents, Set<Event> nearDuplicates) {
         if (candidateEvents == null || candidateEvents.isEmpty()) {
             return null;
         }
         
-        // 简化的相似度计算，实际应该使用更复杂的算法
+        // 近似重复索引命中的事件还需日期相近且地点或主体一致，其余按规则判断
         for (Event candidate : candidateEvents) {
-            if (isEventSimilar(eventData, candidate)) {
+            if ((nearDuplicates.contains(candidate) && eventFingerprintGenerator.isSameOccurrence(eventData, candidate))
+                    || isEventSimilar(eventData, candidate)) {
                 return candidate;
             }
         }
@@ -622,10 +1071,12 @@ public class EventStorageServiceImpl implements EventStorageService {
         if (StringUtils.hasText(eventData.getTitle()) && 
             StringUtils.hasText(existingEvent.getEventTitle())) {
             
-            String title1 = eventData.getTitle().toLowerCase();
-            String title2 = existingEvent.getEventTitle().toLowerCase();
+            // 规范化后比较，忽略大小写、全半角、空白和标点的差异
+            String title1 = eventFingerprintGenerator.normalizeText(eventData.getTitle());
+            String title2 = eventFingerprintGenerator.normalizeText(existingEvent.getEventTitle());
             
-            if (title1.equals(title2) || title1.contains(title2) || title2.contains(title1)) {
+            if (!title1.isEmpty() && !title2.isEmpty()
+                    && (title1.equals(title2) || title1.contains(title2) || title2.contains(title1))) {
                 return true;
             }
         }
@@ -0,0 +1,205 @@
+package com.hotech.events.service.impl;
+
+import com.hotech.events.mapper.GenerationLeaseMapper;
+import com.hotech.events.service.GenerationLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 生成租约服务实现类
+ * 租约的获取和释放在独立事务中提交，调用方处于事务中时其他节点也能立即看到；
+ * 心跳定期续约当前节点持有的所有租约，续约被拒绝或连续失败超过租约有效期时视为租约丢失。
+ */
+@Slf4j
+@Service
+public class GenerationLeaseServiceImpl implements GenerationLeaseService {
+
+    @Autowired
+    private GenerationLeaseMapper leaseMapper;
+
+    @Value("${timeline.lease.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${timeline.lease.ttl:30000}")
+    private long leaseTtl;
+
+    @Value("${timeline.lease.retention-hours:24}")
+    private int retentionHours;
+
+    private String nodeId;
+
+    // 当前节点持有的租约
+    private final Map<String, HeldLease> heldLeases = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong acquiredCount = new AtomicLong(0);
+    private final AtomicLong contendedCount = new AtomicLong(0);
+    private final AtomicLong lostCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId != null && !configuredNodeId.trim().isEmpty()) {
+            nodeId = configuredNodeId.trim();
+        } else {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "unknown";
+            }
+            nodeId = host + ":" + ProcessHandle.current().pid();
+        }
+        log.info("生成租约服务初始化完成: nodeId={}, ttl={}ms", nodeId, leaseTtl);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 正常停机时释放租约，其他节点无需等待过期即可接管
+        for (HeldLease held : heldLeases.values()) {
+            try {
+                leaseMapper.release(held.lease.getKey(), nodeId, held.lease.getFencingToken());
+            } catch (Exception e) {
+                log.debug("停机时释放租约失败: key={}, error={}", held.lease.getKey(), e.getMessage());
+            }
+        }
+        heldLeases.clear();
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Lease tryAcquire(String leaseKey) {
+        leaseMapper.insertIfAbsent(leaseKey);
+        if (leaseMapper.acquire(leaseKey, nodeId, leaseTtl) == 0) {
+            contendedCount.incrementAndGet();
+            return null;
+        }
+        Long token = leaseMapper.findFencingToken(leaseKey, nodeId);
+        if (token == null) {
+            contendedCount.incrementAndGet();
+            return null;
+        }
+        Lease lease = new Lease(leaseKey, token);
+        heldLeases.put(leaseKey, new HeldLease(lease));
+        acquiredCount.incrementAndGet();
+        log.debug("获取生成租约: key={}, nodeId={}, fencingToken={}", leaseKey, nodeId, token);
+        return lease;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(Lease lease) {
+        if (lease == null) {
+            return;
+        }
+        HeldLease held = heldLeases.get(lease.getKey());
+        if (held != null && held.lease == lease) {
+            heldLeases.remove(lease.getKey(), held);
+        }
+        if (!lease.isLost()) {
+            leaseMapper.release(lease.getKey(), nodeId, lease.getFencingToken());
+        }
+    }
+
+    /**
+     * 定期续约当前节点持有的租约
+     */
+    @Scheduled(fixedDelayString = "${timeline.lease.heartbeat-interval:10000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (HeldLease held : heldLeases.values()) {
+            Lease lease = held.lease;
+            try {
+                if (leaseMapper.renew(lease.getKey(), nodeId, lease.getFencingToken(), leaseTtl) > 0) {
+                    held.renewedAt = now;
+                    continue;
+                }
+                log.warn("生成租约已被其他节点接管: key={}, fencingToken={}", lease.getKey(), lease.getFencingToken());
+            } catch (Exception e) {
+                if (now - held.renewedAt <= leaseTtl) {
+                    log.warn("生成租约续约失败，稍后重试: key={}, error={}", lease.getKey(), e.getMessage());
+                    continue;
+                }
+                log.warn("生成租约续约失败已超过有效期，视为丢失: key={}, error={}", lease.getKey(), e.getMessage());
+            }
+            heldLeases.remove(lease.getKey(), held);
+            lostCount.incrementAndGet();
+            try {
+                lease.markLost();
+            } catch (Exception e) {
+                log.error("处理租约丢失失败: key={}", lease.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 定期清理长时间未被持有的租约记录
+     */
+    @Scheduled(fixedDelayString = "${timeline.lease.cleanup-interval:3600000}")
+    public void cleanupStaleLeases() {
+        try {
+            int deleted = leaseMapper.deleteStale(retentionHours);
+            if (deleted > 0) {
+                log.debug("清理过期的生成租约记录: {} 条", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理过期的生成租约记录失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("ttl", leaseTtl);
+        stats.put("heldLeases", heldLeases.size());
+        stats.put("acquiredCount", acquiredCount.get());
+        stats.put("contendedCount", contendedCount.get());
+        stats.put("lostCount", lostCount.get());
+        try {
+            Map<String, Object> nodes = new HashMap<>();
+            List<Map<String, Object>> rows = leaseMapper.countActiveByOwner();
+            for (Map<String, Object> row : rows) {
+                Map<String, Object> nodeStats = new HashMap<>();
+                nodeStats.put("leases", row.get("count"));
+                nodeStats.put("lastHeartbeat", row.get("last_heartbeat"));
+                nodes.put(String.valueOf(row.get("owner_id")), nodeStats);
+            }
+            stats.put("activeNodes", nodes);
+        } catch (Exception e) {
+            log.warn("查询生成租约统计失败: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * 当前节点持有的租约及最近一次成功续约的时间
+     */
+    private static class HeldLease {
+
+        private final Lease lease;
+        private volatile long renewedAt = System.currentTimeMillis();
+
+        HeldLease(Lease lease) {
+            this.lease = lease;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.hotech.events.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hotech.events.entity.LlmResponseCache;
+import com.hotech.events.mapper.LlmResponseCacheMapper;
+import com.hotech.events.service.LlmResponseCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 大模型响应持久化缓存服务实现
+ * 基于MySQL存储，大于阈值的响应使用GZIP压缩，定期清理过期记录并按总容量淘汰最久未使用的记录
+ */
+@Slf4j
+@Service
+public class LlmResponseCacheServiceImpl implements LlmResponseCacheService {
+
+    // 不影响模型输出、不参与缓存键计算的请求参数
+    private static final Set<String> IGNORED_PARAMS = new HashSet<>(Arrays.asList("messages", "stream", "stream_options"));
+
+    private static final int EVICT_BATCH_SIZE = 100;
+
+    @Autowired
+    private LlmResponseCacheMapper cacheMapper;
+
+    @Value("${app.llm.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.llm.cache.ttl:21600000}")
+    private long ttl; // 默认6小时
+
+    @Value("${app.llm.cache.max-size-mb:512}")
+    private long maxSizeMb;
+
+    @Value("${app.llm.cache.compress-threshold:1024}")
+    private int compressThreshold;
+
+    // 参数按键名排序序列化，保证相同参数生成相同缓存键
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    // 统计信息
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong writeCount = new AtomicLong(0);
+    private final AtomicLong errorCount = new AtomicLong(0);
+    private final AtomicLong evictionCount = new AtomicLong(0);
+
+    @Override
+    public String get(String apiUrl, Object requestBody) {
+        if (!cacheEnabled) {
+            return null;
+        }
+
+        try {
+            CacheKey key = buildKey(apiUrl, requestBody);
+            LlmResponseCache cache = cacheMapper.findValidByKey(key.cacheKey);
+            if (cache == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+
+            cacheMapper.touch(cache.getId());
+            hitCount.incrementAndGet();
+            log.debug("命中持久化响应缓存: provider={}, model={}, key={}", key.provider, key.model, key.cacheKey);
+            return decode(cache);
+
+        } catch (Exception e) {
+            // 缓存不可用时直接走API调用
+            errorCount.incrementAndGet();
+            log.warn("读取持久化响应缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String apiUrl, Object requestBody, String content) {
+        if (!cacheEnabled || content == null || content.trim().isEmpty()) {
+            return;
+        }
+
+        try {
+            CacheKey key = buildKey(apiUrl, requestBody);
+            byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+            boolean compress = raw.length >= compressThreshold;
+            byte[] stored = compress ? gzip(raw) : raw;
+
+            LlmResponseCache cache = new LlmResponseCache();
+            cache.setCacheKey(key.cacheKey);
+            cache.setProvider(key.provider);
+            cache.setModel(key.model);
+            cache.setPromptHash(key.promptHash);
+            cache.setContent(stored);
+            cache.setCompressed(compress);
+            cache.setOriginalSize(raw.length);
+            cache.setStoredSize(stored.length);
+            cache.setExpiresAt(LocalDateTime.now().plus(ttl, ChronoUnit.MILLIS));
+
+            cacheMapper.upsert(cache);
+            writeCount.incrementAndGet();
+            log.debug("写入持久化响应缓存: provider={}, model={}, originalSize={}, storedSize={}",
+                    key.provider, key.model, raw.length, stored.length);
+
+        } catch (Exception e) {
+            errorCount.incrementAndGet();
+            log.warn("写入持久化响应缓存失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.llm.cache.cleanup-interval:600000}")
+    public int cleanup() {
+        if (!cacheEnabled) {
+            return 0;
+        }
+
+        int removed = 0;
+        try {
+            removed += cacheMapper.deleteExpired();
+
+            long maxBytes = maxSizeMb * 1024 * 1024;
+            long currentBytes = cacheMapper.sumStoredSize();
+            while (currentBytes > maxBytes) {
+                int evicted = cacheMapper.deleteLeastRecentlyUsed(EVICT_BATCH_SIZE);
+                if (evicted == 0) {
+                    break;
+                }
+                removed += evicted;
+                evictionCount.addAndGet(evicted);
+                currentBytes = cacheMapper.sumStoredSize();
+            }
+
+            if (removed > 0) {
+                log.info("清理持久化响应缓存: removed={}, currentSize={}KB", removed, currentBytes / 1024);
+            }
+        } catch (Exception e) {
+            errorCount.incrementAndGet();
+            log.warn("清理持久化响应缓存失败: {}", e.getMessage());
+        }
+        return removed;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        stats.put("enabled", cacheEnabled);
+        stats.put("hitCount", hits);
+        stats.put("missCount", missCount.get());
+        stats.put("hitRate", total > 0 ? (double) hits / total * 100 : 0.0);
+        stats.put("writeCount", writeCount.get());
+        stats.put("evictionCount", evictionCount.get());
+        stats.put("errorCount", errorCount.get());
+        stats.put("ttl", ttl);
+        stats.put("maxSizeMb", maxSizeMb);
+        return stats;
+    }
+
+    /**
+     * 构建缓存键：服务商 + 模型 + 规范化提示词哈希 + 其余参数
+     */
+    @SuppressWarnings("unchecked")
+    private CacheKey buildKey(String apiUrl, Object requestBody) throws Exception {
+        Map<String, Object> body = objectMapper.convertValue(requestBody, Map.class);
+
+        CacheKey key = new CacheKey();
+        key.provider = resolveProvider(apiUrl);
+        key.model = body.get("model") != null ? body.get("model").toString() : "";
+        key.promptHash = sha256(normalizeMessages(body.get("messages")));
+
+        Map<String, Object> params = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : body.entrySet()) {
+            if (!IGNORED_PARAMS.contains(entry.getKey()) && !"model".equals(entry.getKey())) {
+                params.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        key.cacheKey = sha256(key.provider + "|" + key.model + "|" + key.promptHash + "|"
+                + objectMapper.writeValueAsString(params));
+        return key;
+    }
+
+    /**
+     * 规范化消息内容：合并空白字符并去除首尾空白
+     */
+    @SuppressWarnings("unchecked")
+    private String normalizeMessages(Object messages) {
+        if (!(messages instanceof List)) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Object item : (List<Object>) messages) {
+            if (item instanceof Map) {
+                Map<String, Object> message = (Map<String, Object>) item;
+                sb.append(message.get("role")).append(':');
+                Object content = message.get("content");
+                if (content != null) {
+                    sb.append(content.toString().replaceAll("\\s+", " ").trim());
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private String resolveProvider(String apiUrl) {
+        try {
+            String host = URI.create(apiUrl).getHost();
+            return host != null ? host : apiUrl;
+        } catch (IllegalArgumentException e) {
+            return apiUrl;
+        }
+    }
+
+    private String decode(LlmResponseCache cache) throws IOException {
+        byte[] content = cache.getContent();
+        if (Boolean.TRUE.equals(cache.getCompressed())) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                content = in.readAllBytes();
+            }
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        }
+        return out.toByteArray();
+    }
+
+    private String sha256(String input) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] hash = md.digest(input.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 缓存键组成
+     */
+    private static class CacheKey {
+        String provider;
+        String model;
+        String promptHash;
+        String cacheKey;
+    }
+}
@@ -0,0 +1,297 @@
+package com.hotech.events.service.impl;
+
+import com.hotech.events.entity.Event;
+import com.hotech.events.entity.EventLshBand;
+import com.hotech.events.entity.EventMinHash;
+import com.hotech.events.mapper.EventMinHashMapper;
+import com.hotech.events.service.NearDuplicateIndexService;
+import com.hotech.events.util.MinHasher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 近似重复事件索引服务实现类
+ * 签名和分段索引保存在数据库中，所有节点共享；查找时先按分段键主键点查候选事件，再读取候选签名估计相似度。
+ * 签名版本随分片大小、哈希函数数和分段数变化，旧版本的签名不参与查找，由定期回填按新版本重建。
+ */
+@Slf4j
+@Service
+public class NearDuplicateIndexServiceImpl implements NearDuplicateIndexService {
+
+    @Autowired
+    private EventMinHashMapper eventMinHashMapper;
+
+    @Autowired
+    private MinHasher minHasher;
+
+    @Value("${timeline.near-duplicate.enabled:true}")
+    private boolean enabled;
+
+    @Value("${timeline.near-duplicate.threshold:0.6}")
+    private double threshold;
+
+    @Value("${timeline.near-duplicate.max-candidates:50}")
+    private int maxCandidates;
+
+    @Value("${timeline.near-duplicate.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    // 定期回填的位置，回填到末尾后停止
+    private volatile long backfillCursor = 0;
+    private volatile boolean backfillCompleted = false;
+
+    // 统计信息
+    private final AtomicLong lookupCount = new AtomicLong(0);
+    private final AtomicLong lookupTimeMs = new AtomicLong(0);
+    private final AtomicLong candidateCount = new AtomicLong(0);
+    private final AtomicLong matchCount = new AtomicLong(0);
+    private final AtomicLong indexedCount = new AtomicLong(0);
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public List<Map<Long, Double>> findSimilar(List<String> texts) {
+        List<int[]> signatures = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            signatures.add(enabled ? minHasher.signature(text) : null);
+        }
+        return findSimilarBySignatures(signatures, null);
+    }
+
+    @Override
+    public Map<Long, Map<Long, Double>> findSimilarToIndexed(List<EventMinHash> signatures) {
+        List<int[]> decoded = new ArrayList<>(signatures.size());
+        List<Long> eventIds = new ArrayList<>(signatures.size());
+        for (EventMinHash signature : signatures) {
+            decoded.add(minHasher.fromBytes(signature.getSignature()));
+            eventIds.add(signature.getEventId());
+        }
+
+        List<Map<Long, Double>> similar = findSimilarBySignatures(decoded, eventIds);
+        Map<Long, Map<Long, Double>> result = new LinkedHashMap<>();
+        for (int i = 0; i < eventIds.size(); i++) {
+            if (!similar.get(i).isEmpty()) {
+                result.put(eventIds.get(i), similar.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<EventMinHash> getSignaturesInRange(long startId, long endId) {
+        return eventMinHashMapper.findSignaturesInRange(startId, endId, minHasher.getVersion());
+    }
+
+    @Override
+    public void indexEvents(List<Event> events) {
+        if (!enabled || events == null || events.isEmpty()) {
+            return;
+        }
+
+        Set<Long> eventIds = new LinkedHashSet<>();
+        List<EventMinHash> signatures = new ArrayList<>();
+        List<EventLshBand> bands = new ArrayList<>();
+        for (Event event : events) {
+            if (event.getId() == null || !eventIds.add(event.getId())) {
+                continue;
+            }
+            int[] signature = minHasher.signature(event.getEventTitle());
+            if (signature == null) {
+                continue;
+            }
+            EventMinHash minHash = new EventMinHash();
+            minHash.setEventId(event.getId());
+            minHash.setSignature(minHasher.toBytes(signature));
+            minHash.setSignatureVersion(minHasher.getVersion());
+            signatures.add(minHash);
+            for (Long bandKey : minHasher.bandKeys(signature)) {
+                bands.add(new EventLshBand(bandKey, event.getId()));
+            }
+        }
+        if (eventIds.isEmpty()) {
+            return;
+        }
+
+        // 先删除旧的分段索引，标题变化后旧分段不再对应
+        eventMinHashMapper.deleteBandsByEventIds(eventIds);
+        if (!signatures.isEmpty()) {
+            eventMinHashMapper.upsertSignatures(signatures);
+            eventMinHashMapper.insertBands(bands);
+            indexedCount.addAndGet(signatures.size());
+        }
+    }
+
+    @Override
+    public void removeEvents(Collection<Long> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return;
+        }
+        eventMinHashMapper.deleteBandsByEventIds(eventIds);
+        eventMinHashMapper.deleteSignaturesByEventIds(eventIds);
+    }
+
+    /**
+     * 定期为历史事件建立签名，回填到末尾后停止（之后写入的事件在存储时建立索引）
+     */
+    @Scheduled(fixedDelayString = "${timeline.near-duplicate.backfill-interval:10000}")
+    public void backfillIndex() {
+        if (!enabled || backfillCompleted) {
+            return;
+        }
+        try {
+            long lastId = backfillBatch(backfillCursor);
+            if (lastId < 0) {
+                backfillCompleted = true;
+                log.info("历史事件的MinHash签名已全部建立: version={}", minHasher.getVersion());
+            } else {
+                backfillCursor = lastId;
+            }
+        } catch (Exception e) {
+            log.warn("建立历史事件的MinHash签名失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int backfillAll() {
+        if (!enabled) {
+            return 0;
+        }
+        int total = 0;
+        long cursor = 0;
+        while (true) {
+            long before = indexedCount.get();
+            long lastId = backfillBatch(cursor);
+            if (lastId < 0) {
+                return total;
+            }
+            total += (int) (indexedCount.get() - before);
+            cursor = lastId;
+        }
+    }
+
+    /**
+     * 为指定ID之后的一批事件建立签名
+     *
+     * @return 本批最后一个事件的ID，没有需要建立签名的事件时返回-1
+     */
+    private long backfillBatch(long afterId) {
+        List<Event> events = eventMinHashMapper.findUnindexedEvents(afterId, minHasher.getVersion(),
+                Math.max(1, backfillBatchSize));
+        if (events.isEmpty()) {
+            return -1;
+        }
+        indexEvents(events);
+        return events.get(events.size() - 1).getId();
+    }
+
+    /**
+     * 按签名查找近似重复事件：一次查询取回所有分段键命中的候选，一次查询读取候选签名
+     *
+     * @param signatures 签名列表（可包含null）
+     * @param selfIds 与签名对应的事件ID，结果中排除事件自身；为null时不排除
+     * @return 与输入顺序一致的相似事件列表
+     */
+    private List<Map<Long, Double>> findSimilarBySignatures(List<int[]> signatures, List<Long> selfIds) {
+        List<Map<Long, Double>> results = new ArrayList<>(signatures.size());
+        List<List<Long>> bandKeys = new ArrayList<>(signatures.size());
+        Set<Long> allBandKeys = new LinkedHashSet<>();
+        for (int[] signature : signatures) {
+            results.add(new LinkedHashMap<>());
+            List<Long> keys = minHasher.bandKeys(signature);
+            bandKeys.add(keys);
+            allBandKeys.addAll(keys);
+        }
+        if (!enabled || allBandKeys.isEmpty()) {
+            return results;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int limit = Math.max(1, maxCandidates) * signatures.size();
+        Map<Long, Set<Long>> eventIdsByBand = new HashMap<>();
+        Set<Long> candidateIds = new HashSet<>();
+        for (EventLshBand band : eventMinHashMapper.findByBandKeys(allBandKeys, limit)) {
+            eventIdsByBand.computeIfAbsent(band.getBandKey(), key -> new HashSet<>()).add(band.getEventId());
+            candidateIds.add(band.getEventId());
+        }
+
+        Map<Long, int[]> candidateSignatures = new HashMap<>();
+        if (!candidateIds.isEmpty()) {
+            for (EventMinHash minHash : eventMinHashMapper.findSignatures(candidateIds, minHasher.getVersion())) {
+                int[] signature = minHasher.fromBytes(minHash.getSignature());
+                if (signature != null) {
+                    candidateSignatures.put(minHash.getEventId(), signature);
+                }
+            }
+        }
+
+        int matches = 0;
+        for (int i = 0; i < signatures.size(); i++) {
+            Long selfId = selfIds != null ? selfIds.get(i) : null;
+            Set<Long> eventIds = new HashSet<>();
+            for (Long key : bandKeys.get(i)) {
+                eventIds.addAll(eventIdsByBand.getOrDefault(key, Set.of()));
+            }
+
+            Map<Long, Double> similar = new HashMap<>();
+            for (Long eventId : eventIds) {
+                if (eventId.equals(selfId)) {
+                    continue;
+                }
+                double similarity = minHasher.similarity(signatures.get(i), candidateSignatures.get(eventId));
+                if (similarity >= threshold) {
+                    similar.put(eventId, similarity);
+                }
+            }
+            matches += similar.size();
+            results.set(i, similar.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                            (a, b) -> a, LinkedHashMap::new)));
+        }
+
+        lookupCount.addAndGet(signatures.size());
+        lookupTimeMs.addAndGet(System.currentTimeMillis() - startTime);
+        candidateCount.addAndGet(candidateIds.size());
+        matchCount.addAndGet(matches);
+        return results;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("version", minHasher.getVersion());
+        stats.put("threshold", threshold);
+        stats.put("backfillCompleted", backfillCompleted);
+        stats.put("indexedCount", indexedCount.get());
+        long lookups = lookupCount.get();
+        stats.put("lookupCount", lookups);
+        stats.put("candidateCount", candidateCount.get());
+        stats.put("matchCount", matchCount.get());
+        stats.put("avgLookupTimeMs", lookups > 0 ? (double) lookupTimeMs.get() / lookups : 0.0);
+        try {
+            stats.put("signatureCount", eventMinHashMapper.countByVersion(minHasher.getVersion()));
+        } catch (Exception e) {
+            log.warn("查询MinHash签名数量失败: {}", e.getMessage());
+        }
+        return stats;
+    }
+}
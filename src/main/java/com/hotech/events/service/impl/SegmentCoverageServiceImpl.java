@@ -0,0 +1,227 @@
+package com.hotech.events.service.impl;
+
+import com.hotech.events.dto.EventData;
+import com.hotech.events.dto.TimeSegment;
+import com.hotech.events.entity.Event;
+import com.hotech.events.entity.Region;
+import com.hotech.events.entity.SegmentCoverage;
+import com.hotech.events.mapper.EventMapper;
+import com.hotech.events.mapper.RegionMapper;
+import com.hotech.events.mapper.SegmentCoverageMapper;
+import com.hotech.events.service.SegmentCoverageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 时间段覆盖记录服务实现类
+ * 新鲜度策略：时间窗口结束于最近若干天内的视为近期窗口，事件仍可能增加，覆盖记录有效期较短；
+ * 更早的历史窗口有效期较长。存储中的事件数明显少于获取时数量（如存储失败或事件被删除）时不使用覆盖记录。
+ */
+@Slf4j
+@Service
+public class SegmentCoverageServiceImpl implements SegmentCoverageService {
+
+    @Autowired
+    private SegmentCoverageMapper coverageMapper;
+
+    @Autowired
+    private EventMapper eventMapper;
+
+    @Autowired
+    private RegionMapper regionMapper;
+
+    @Value("${timeline.coverage.enabled:true}")
+    private boolean enabled;
+
+    @Value("${timeline.coverage.prompt-version:v1}")
+    private String promptVersion;
+
+    @Value("${timeline.coverage.recent-window-days:7}")
+    private int recentWindowDays;
+
+    @Value("${timeline.coverage.recent-freshness-hours:6}")
+    private long recentFreshnessHours;
+
+    @Value("${timeline.coverage.historical-freshness-hours:720}")
+    private long historicalFreshnessHours;
+
+    @Value("${timeline.coverage.min-served-ratio:0.5}")
+    private double minServedRatio;
+
+    @Value("${timeline.coverage.max-served-events:200}")
+    private int maxServedEvents;
+
+    // 统计信息
+    private final AtomicLong coveredHits = new AtomicLong(0);
+    private final AtomicLong staleMisses = new AtomicLong(0);
+    private final AtomicLong uncoveredMisses = new AtomicLong(0);
+    private final AtomicLong servedEvents = new AtomicLong(0);
+    private final AtomicLong recordedWindows = new AtomicLong(0);
+
+    @Override
+    public List<EventData> findCoveredEvents(List<Long> regionIds, TimeSegment segment) {
+        if (!enabled || segment == null) {
+            return null;
+        }
+
+        try {
+            SegmentCoverage coverage = coverageMapper.findCovering(generateRegionKey(regionIds), promptVersion,
+                    segment.getStartTime(), segment.getEndTime());
+            if (coverage == null) {
+                uncoveredMisses.incrementAndGet();
+                return null;
+            }
+            if (!isFresh(coverage, segment)) {
+                staleMisses.incrementAndGet();
+                log.debug("时间段覆盖记录已过期: segmentId={}, fetchedAt={}", segment.getSegmentId(), coverage.getFetchedAt());
+                return null;
+            }
+
+            List<Event> events = eventMapper.findFetchedEventsInWindow(resolveRegionNames(regionIds),
+                    segment.getStartTime(), segment.getEndTime(), maxServedEvents);
+            if (events.isEmpty() || events.size() < getMinimumServedCount(coverage, segment)) {
+                staleMisses.incrementAndGet();
+                log.debug("存储中的事件少于获取时数量，重新获取: segmentId={}, stored={}, fetched={}",
+                        segment.getSegmentId(), events.size(), coverage.getEventCount());
+                return null;
+            }
+
+            coveredHits.incrementAndGet();
+            servedEvents.addAndGet(events.size());
+            log.info("时间段已被覆盖，从事件表读取: segmentId={}, events={}, fetchedAt={}",
+                    segment.getSegmentId(), events.size(), coverage.getFetchedAt());
+            return events.stream().map(this::toEventData).collect(Collectors.toList());
+
+        } catch (Exception e) {
+            log.warn("查询时间段覆盖记录失败: segmentId={}, error={}", segment.getSegmentId(), e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void recordFetched(List<Long> regionIds, TimeSegment segment, int eventCount) {
+        if (!enabled || segment == null || eventCount <= 0) {
+            return;
+        }
+
+        try {
+            SegmentCoverage coverage = new SegmentCoverage();
+            coverage.setRegionKey(generateRegionKey(regionIds));
+            coverage.setWindowStart(segment.getStartTime());
+            coverage.setWindowEnd(segment.getEndTime());
+            coverage.setPromptVersion(promptVersion);
+            coverage.setEventCount(eventCount);
+            coverage.setFetchedAt(LocalDateTime.now());
+            coverageMapper.upsert(coverage);
+            recordedWindows.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("记录时间段覆盖失败: segmentId={}, error={}", segment.getSegmentId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 定期清理超过历史窗口有效期的覆盖记录
+     */
+    @Scheduled(fixedDelayString = "${timeline.coverage.cleanup-interval:3600000}")
+    public void cleanupExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = coverageMapper.deleteFetchedBefore(LocalDateTime.now().minusHours(historicalFreshnessHours));
+            if (deleted > 0) {
+                log.info("清理过期的时间段覆盖记录: {} 条", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理时间段覆盖记录失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("promptVersion", promptVersion);
+        stats.put("coveredHits", coveredHits.get());
+        stats.put("staleMisses", staleMisses.get());
+        stats.put("uncoveredMisses", uncoveredMisses.get());
+        stats.put("servedEvents", servedEvents.get());
+        stats.put("recordedWindows", recordedWindows.get());
+        return stats;
+    }
+
+    private boolean isFresh(SegmentCoverage coverage, TimeSegment segment) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean recentWindow = segment.getEndTime().isAfter(now.minusDays(recentWindowDays));
+        long maxAgeHours = recentWindow ? recentFreshnessHours : historicalFreshnessHours;
+        return coverage.getFetchedAt() != null && coverage.getFetchedAt().isAfter(now.minusHours(maxAgeHours));
+    }
+
+    /**
+     * 按时间段占覆盖窗口的比例估算应读取到的最少事件数
+     */
+    private long getMinimumServedCount(SegmentCoverage coverage, TimeSegment segment) {
+        long windowSeconds = Math.max(1, Duration.between(coverage.getWindowStart(), coverage.getWindowEnd()).getSeconds());
+        long segmentSeconds = Duration.between(segment.getStartTime(), segment.getEndTime()).getSeconds();
+        double expected = (coverage.getEventCount() != null ? coverage.getEventCount() : 0)
+                * Math.min(1.0, (double) segmentSeconds / windowSeconds);
+        return (long) Math.floor(expected * minServedRatio);
+    }
+
+    private List<String> resolveRegionNames(List<Long> regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> names = regionMapper.selectBatchIds(regionIds).stream()
+                .map(Region::getName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return names.contains("全球") ? Collections.emptyList() : names;
+    }
+
+    private String generateRegionKey(List<Long> regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return "global";
+        }
+        return regionIds.stream().filter(Objects::nonNull).distinct().sorted()
+                .map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private EventData toEventData(Event event) {
+        EventData eventData = new EventData();
+        eventData.setId(String.valueOf(event.getId()));
+        eventData.setTitle(event.getEventTitle());
+        eventData.setDescription(event.getEventDescription());
+        eventData.setEventTime(event.getEventTime());
+        eventData.setLocation(event.getEventLocation());
+        eventData.setEventType(event.getEventType());
+        eventData.setSubject(event.getSubject());
+        eventData.setObject(event.getObject());
+        eventData.setCredibilityScore(event.getCredibilityScore());
+        eventData.setFetchMethod(event.getFetchMethod());
+        eventData.setValidationStatus(event.getValidationStatus());
+        if (event.getLatitude() != null && event.getLongitude() != null) {
+            eventData.setLatitude(event.getLatitude().doubleValue());
+            eventData.setLongitude(event.getLongitude().doubleValue());
+        }
+        if (event.getSourceUrls() != null && !event.getSourceUrls().isEmpty()) {
+            eventData.setSources(new ArrayList<>(Arrays.asList(event.getSourceUrls().split(","))));
+        }
+        return eventData;
+    }
+}
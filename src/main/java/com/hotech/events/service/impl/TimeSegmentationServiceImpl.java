@@ -1,24 +1,47 @@
 package com.hotech.events.service.impl;
 
 import com.hotech.events.dto.EventData;
+import com.hotech.events.dto.SegmentFetchResult;
 import com.hotech.events.dto.TimeSegment;
 import com.hotech.events.dto.TimelineGenerateRequest;
+import com.hotech.events.entity.Region;
+import com.hotech.events.mapper.EventMapper;
+import com.hotech.events.mapper.RegionMapper;
 import com.hotech.events.service.TimeSegmentationService;
 import com.hotech.events.service.EnhancedApiCallManager;
 import com.hotech.events.service.EventService;
+import com.hotech.events.service.SegmentCoverageService;
+import com.hotech.events.util.CancellationToken;
+import com.hotech.events.util.Deadline;
 import com.hotech.events.util.EventDeduplicator;
+import com.hotech.events.util.PriorityClass;
+import com.hotech.events.util.RequestFingerprintGenerator;
+import com.hotech.events.util.SegmentPacker;
+import com.hotech.events.util.SingleFlight;
+import com.hotech.events.util.WeightedFairScheduler;
 import com.hotech.events.config.DynamicApiConfigManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +58,10 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
     private final EnhancedApiCallManager apiCallManager;
     private final EventService eventService;
     private final EventDeduplicator eventDeduplicator;
+    private final RequestFingerprintGenerator requestFingerprintGenerator;
+    private final EventMapper eventMapper;
+    private final RegionMapper regionMapper;
+    private final SegmentCoverageService segmentCoverageService;
 
     // 配置参数
     @Value("${timeline.segmentation.max-span-days:7}")
@@ -55,8 +82,67 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
     @Value("${timeline.segmentation.max-events-per-segment:50}")
     private int defaultMaxEventsPerSegment;
 
-    // 线程池用于并发处理
-    private final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    @Value("${timeline.segmentation.streaming-enabled:true}")
+    private boolean enableStreaming;
+
+    @Value("${timeline.segmentation.packing-enabled:true}")
+    private boolean enablePacking;
+
+    @Value("${timeline.segmentation.packing-density-threshold:8}")
+    private int packingDensityThreshold;
+
+    @Value("${timeline.segmentation.packing-max-events:24}")
+    private int packingMaxEvents;
+
+    @Value("${timeline.segmentation.packing-max-segments:4}")
+    private int packingMaxSegments;
+
+    @Value("${timeline.segmentation.adaptive-max-span-days:30}")
+    private int adaptiveMaxSpanDays;
+
+    @Value("${timeline.segmentation.max-split-depth:3}")
+    private int maxSplitDepth;
+
+    // 响应截断记录（地区 + 日期 -> 截断次数），用于提高后续分割时的密度估计
+    private final Map<String, Integer> truncationCounts = new ConcurrentHashMap<>();
+    private static final int MAX_TRUNCATION_RECORDS = 10000;
+
+    private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+
+    // 进行中的时间段API请求，按提示词合并
+    private final SingleFlight<SegmentResponse> inFlightRequests = new SingleFlight<>();
+
+    @Value("${timeline.scheduler.threads:5}")
+    private int schedulerThreads;
+
+    @Value("${timeline.scheduler.weights.interactive:8}")
+    private int interactiveWeight;
+
+    @Value("${timeline.scheduler.weights.scheduled:3}")
+    private int scheduledWeight;
+
+    @Value("${timeline.scheduler.weights.bulk:1}")
+    private int bulkWeight;
+
+    // 并发获取时间段事件的调度器，按生成任务的优先级加权公平分配工作线程
+    private WeightedFairScheduler segmentScheduler;
+
+    @PostConstruct
+    public void initScheduler() {
+        Map<PriorityClass, Integer> weights = new EnumMap<>(PriorityClass.class);
+        weights.put(PriorityClass.INTERACTIVE, interactiveWeight);
+        weights.put(PriorityClass.SCHEDULED, scheduledWeight);
+        weights.put(PriorityClass.BULK, bulkWeight);
+        segmentScheduler = new WeightedFairScheduler("segment-fetch", schedulerThreads, weights);
+        log.info("时间段调度器初始化完成: threads={}, weights={}", schedulerThreads, weights);
+    }
+
+    @PreDestroy
+    public void shutdownScheduler() {
+        if (segmentScheduler != null) {
+            segmentScheduler.shutdown();
+        }
+    }
 
     @Override
     public List<TimeSegment> segmentTimeRange(LocalDateTime startTime, LocalDateTime endTime, int maxSpanDays) {
@@ -140,6 +226,67 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
         return segmentTimeRange(startTime, endTime, adjustedMaxSpanDays);
     }
 
+    @Override
+    public List<TimeSegment> adaptiveSegmentTimeRange(LocalDateTime startTime, LocalDateTime endTime, List<Long> regionIds) {
+        log.info("开始按事件密度分割时间范围: {} 到 {}, 地区: {}", startTime, endTime, regionIds);
+
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("开始时间和结束时间不能为空");
+        }
+        if (startTime.isAfter(endTime)) {
+            throw new IllegalArgumentException("开始时间不能晚于结束时间");
+        }
+
+        Map<LocalDate, Double> density = estimateDailyDensity(startTime, endTime, regionIds);
+
+        // 按天累计预期事件数，超过单段上限或最大跨度时切分；空白日期不增加事件数，自然并入相邻时间段
+        List<TimeSegment> segments = new ArrayList<>();
+        LocalDateTime segmentStart = startTime;
+        LocalDate segmentFirstDay = startTime.toLocalDate();
+        double segmentEvents = 0;
+
+        for (LocalDate day = startTime.toLocalDate(); !day.isAfter(endTime.toLocalDate()); day = day.plusDays(1)) {
+            double dayEvents = density.getOrDefault(day, 0.0);
+            boolean overflow = segmentEvents > 0 && segmentEvents + dayEvents > defaultMaxEventsPerSegment;
+            boolean tooLong = ChronoUnit.DAYS.between(segmentFirstDay, day) + 1 > adaptiveMaxSpanDays;
+
+            if ((overflow || tooLong) && day.isAfter(segmentFirstDay)) {
+                segments.add(buildSegment(segmentStart, day.minusDays(1).atTime(23, 59, 59), segmentEvents));
+                segmentStart = day.atStartOfDay();
+                segmentFirstDay = day;
+                segmentEvents = 0;
+            }
+            segmentEvents += dayEvents;
+        }
+        segments.add(buildSegment(segmentStart, endTime, segmentEvents));
+
+        // 超过最大段数时合并预期事件数最少的相邻时间段，保证时间范围完整覆盖
+        while (segments.size() > maxSegments) {
+            int mergeIndex = 0;
+            int minEvents = Integer.MAX_VALUE;
+            for (int i = 0; i < segments.size() - 1; i++) {
+                int combined = segments.get(i).getExpectedEventCount() + segments.get(i + 1).getExpectedEventCount();
+                if (combined < minEvents) {
+                    minEvents = combined;
+                    mergeIndex = i;
+                }
+            }
+            TimeSegment left = segments.get(mergeIndex);
+            TimeSegment right = segments.remove(mergeIndex + 1);
+            segments.set(mergeIndex, buildSegment(left.getStartTime(), right.getEndTime(), minEvents));
+        }
+
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            segment.setSegmentIndex(i);
+            segment.setSegmentId(generateSegmentId(i, segment.getStartTime(), segment.getEndTime()));
+            segment.setLastSegment(i == segments.size() - 1);
+        }
+
+        log.info("按事件密度分割完成，共生成 {} 个时间段: {}", segments.size(), getSegmentationStats(segments));
+        return segments;
+    }
+
     @Override
     public List<EventData> fetchEventsBatch(List<TimeSegment> segments, TimelineGenerateRequest request) {
         log.info("开始批量获取 {} 个时间段的事件", segments.size());
@@ -153,14 +300,22 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
             throw new IllegalArgumentException("时间段列表验证失败");
         }
 
+        // 相邻的低密度时间段合并为一次调用
+        List<List<TimeSegment>> groups = enablePacking
+                ? SegmentPacker.pack(segments, packingDensityThreshold, packingMaxEvents, packingMaxSegments)
+                : segments.stream().map(Collections::singletonList).collect(Collectors.toList());
+        if (groups.size() < segments.size()) {
+            log.info("合并低密度时间段: {} 个时间段合并为 {} 次调用", segments.size(), groups.size());
+        }
+
         List<List<EventData>> eventLists = new ArrayList<>();
 
-        if (enableParallelProcessing && segments.size() > 1) {
+        if (enableParallelProcessing && groups.size() > 1) {
             // 并发处理
-            eventLists = fetchEventsParallel(segments, request);
+            eventLists = fetchEventsParallel(groups, request);
         } else {
             // 串行处理
-            eventLists = fetchEventsSequential(segments, request);
+            eventLists = fetchEventsSequential(groups, request);
         }
 
         // 合并事件列表
@@ -265,6 +420,132 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
                 totalSegments, totalDays, totalExpectedEvents);
     }
 
+    /**
+     * 估计每天的事件密度
+     * 每天至少按默认每天事件数估计，event表中该地区已存储的事件数更多时取已存储的数量，被截断过的日期按截断次数加倍。
+     * 没有已存储事件的日期只是尚未获取过，不代表没有事件
+     */
+    private Map<LocalDate, Double> estimateDailyDensity(LocalDateTime startTime, LocalDateTime endTime, List<Long> regionIds) {
+        Map<LocalDate, Double> density = new HashMap<>();
+        try {
+            List<Map<String, Object>> rows = eventMapper.countEventsByDay(resolveRegionNames(regionIds), startTime, endTime);
+            for (Map<String, Object> row : rows) {
+                LocalDate day = toLocalDate(row.get("event_day"));
+                if (day != null && row.get("event_count") instanceof Number) {
+                    density.put(day, ((Number) row.get("event_count")).doubleValue());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("查询历史事件密度失败，使用默认密度: {}", e.getMessage());
+        }
+
+        boolean hasHistory = !density.isEmpty();
+        String regionKey = generateRegionKey(regionIds);
+        for (LocalDate day = startTime.toLocalDate(); !day.isAfter(endTime.toLocalDate()); day = day.plusDays(1)) {
+            double observed = Math.max(density.getOrDefault(day, 0.0), defaultExpectedEventsPerDay);
+            Integer truncations = truncationCounts.get(regionKey + ":" + day);
+            if (truncations != null) {
+                observed = observed * (1 << Math.min(truncations, 3));
+            }
+            density.put(day, observed);
+        }
+
+        log.debug("事件密度估计完成: hasHistory={}, days={}", hasHistory, density.size());
+        return density;
+    }
+
+    /**
+     * 将地区ID解析为地区名称，包含全球时不按地区过滤
+     */
+    private List<String> resolveRegionNames(List<Long> regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> names = regionMapper.selectBatchIds(regionIds).stream()
+                .map(Region::getName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (names.isEmpty()) {
+            names = convertRegionIdsToNames(regionIds);
+        }
+        return names.contains("全球") ? Collections.emptyList() : names;
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return value != null ? LocalDate.parse(value.toString().substring(0, 10)) : null;
+    }
+
+    private String generateRegionKey(List<Long> regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return "global";
+        }
+        return regionIds.stream().filter(Objects::nonNull).distinct().sorted()
+                .map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /**
+     * 判断响应是否被截断：完整性检查未通过，或返回的事件数已达到单段上限
+     */
+    private boolean isTruncated(String apiResponse, int eventCount) {
+        if (apiResponse == null || apiResponse.trim().isEmpty()) {
+            return false;
+        }
+        return !apiCallManager.isResponseComplete(apiResponse, 0) || eventCount >= defaultMaxEventsPerSegment;
+    }
+
+    /**
+     * 记录时间段内每天的截断信号
+     */
+    private void recordTruncation(List<Long> regionIds, TimeSegment segment) {
+        if (truncationCounts.size() >= MAX_TRUNCATION_RECORDS) {
+            truncationCounts.clear();
+        }
+        String regionKey = generateRegionKey(regionIds);
+        for (LocalDate day = segment.getStartTime().toLocalDate(); !day.isAfter(segment.getEndTime().toLocalDate());
+                day = day.plusDays(1)) {
+            truncationCounts.merge(regionKey + ":" + day, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 将时间段按天对半拆分
+     */
+    private List<TimeSegment> splitSegment(TimeSegment segment) {
+        long spanDays = segment.calculateSpanDays();
+        LocalDate secondStartDay = segment.getStartTime().toLocalDate().plusDays(spanDays / 2);
+        int halfEvents = (int) Math.ceil(segment.getExpectedEventCount() / 2.0);
+
+        TimeSegment first = buildSegment(segment.getStartTime(), secondStartDay.minusDays(1).atTime(23, 59, 59), halfEvents);
+        first.setSegmentIndex(segment.getSegmentIndex());
+        first.setSegmentId(segment.getSegmentId() + "_a");
+
+        TimeSegment second = buildSegment(secondStartDay.atStartOfDay(), segment.getEndTime(), halfEvents);
+        second.setSegmentIndex(segment.getSegmentIndex());
+        second.setSegmentId(segment.getSegmentId() + "_b");
+        second.setLastSegment(segment.isLastSegment());
+
+        return Arrays.asList(first, second);
+    }
+
+    /**
+     * 构建时间段
+     */
+    private TimeSegment buildSegment(LocalDateTime start, LocalDateTime end, double expectedEvents) {
+        TimeSegment segment = TimeSegment.builder()
+                .startTime(start)
+                .endTime(end)
+                .expectedEventCount((int) Math.ceil(expectedEvents))
+                .build();
+        segment.calculateSpanDays();
+        return segment;
+    }
+
     /**
      * 生成时间段ID
      */
@@ -283,15 +564,21 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
         return (int) (days * defaultExpectedEventsPerDay);
     }
 
+    @Override
+    public Map<String, Object> getSchedulerStats() {
+        return segmentScheduler.getStats();
+    }
+
     /**
      * 并发获取事件
      */
-    private List<List<EventData>> fetchEventsParallel(List<TimeSegment> segments, TimelineGenerateRequest request) {
+    private List<List<EventData>> fetchEventsParallel(List<List<TimeSegment>> groups, TimelineGenerateRequest request) {
         log.info("使用并发模式获取事件");
 
-        List<CompletableFuture<List<EventData>>> futures = segments.stream()
-                .map(segment -> CompletableFuture.supplyAsync(() -> fetchEventsForSegment(segment, request),
-                        executorService))
+        // 传递取消令牌和截止时间：取消后未开始的时间段直接跳过，执行中的调用随线程中断退出
+        List<CompletableFuture<List<EventData>>> futures = groups.stream()
+                .map(group -> segmentScheduler.submit(
+                        CancellationToken.wrap(Deadline.wrap(() -> fetchEventsForGroup(group, request)))))
                 .collect(Collectors.toList());
 
         // 等待所有任务完成
@@ -299,12 +586,31 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
                 futures.toArray(new CompletableFuture[0]));
 
         try {
-            allFutures.get(); // 等待完成
+            if (Deadline.current() == null) {
+                allFutures.get(); // 等待完成
+            } else {
+                try {
+                    allFutures.get(Deadline.currentRemainingMs(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // 到达截止时间，返回已完成时间段的事件，未完成的调用各自按截止时间结束
+                    Deadline.checkExpired();
+                    List<List<EventData>> completed = futures.stream()
+                            .filter(future -> future.isDone() && !future.isCompletedExceptionally())
+                            .map(CompletableFuture::join)
+                            .collect(Collectors.toList());
+                    log.warn("并发获取事件到达截止时间: completed={}/{}", completed.size(), futures.size());
+                    return completed;
+                }
+            }
 
             return futures.stream()
                     .map(CompletableFuture::join)
                     .collect(Collectors.toList());
         } catch (Exception e) {
+            if (CancellationToken.isCurrentCancelled()) {
+                futures.forEach(future -> future.cancel(true));
+                CancellationToken.checkCurrent();
+            }
             log.error("并发获取事件失败", e);
             throw new RuntimeException("并发获取事件失败", e);
         }
@@ -313,12 +619,151 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
     /**
      * 串行获取事件
      */
-    private List<List<EventData>> fetchEventsSequential(List<TimeSegment> segments, TimelineGenerateRequest request) {
+    private List<List<EventData>> fetchEventsSequential(List<List<TimeSegment>> groups, TimelineGenerateRequest request) {
         log.info("使用串行模式获取事件");
 
-        return segments.stream()
-                .map(segment -> fetchEventsForSegment(segment, request))
-                .collect(Collectors.toList());
+        List<List<EventData>> eventLists = new ArrayList<>();
+        for (List<TimeSegment> group : groups) {
+            CancellationToken.checkCurrent();
+            if (Deadline.checkExpired()) {
+                log.warn("已超过截止时间，跳过剩余 {} 组时间段", groups.size() - eventLists.size());
+                break;
+            }
+            eventLists.add(fetchEventsForGroup(group, request));
+        }
+        return eventLists;
+    }
+
+    /**
+     * 为一组时间段获取事件，单个时间段走常规调用，多个时间段合并为一个提示词
+     */
+    private List<EventData> fetchEventsForGroup(List<TimeSegment> group, TimelineGenerateRequest request) {
+        return fetchEventsForGroup(group, request, true);
+    }
+
+    private List<EventData> fetchEventsForGroup(List<TimeSegment> group, TimelineGenerateRequest request,
+            boolean checkCoverage) {
+        if (group.size() == 1) {
+            // 已在调度器中执行，直接获取
+            return fetchSegment(group.get(0), request, null, 0).getEvents();
+        }
+
+        if (checkCoverage) {
+            List<EventData> served = serveCoveredSegments(group, request);
+            if (served != null) {
+                return served;
+            }
+        }
+
+        TimeSegment merged = SegmentPacker.merge(group);
+        try {
+            TimelineGenerateRequest segmentRequest = createSegmentRequest(request, merged);
+            DynamicApiConfigManager.ApiConfig apiConfig = apiCallManager.selectOptimalApi(merged.getStartTime(), merged.getEndTime());
+            String prompt = buildPackedEventFetchPrompt(segmentRequest, group);
+
+            // 合并调用不做完整性重试，响应被截断时直接拆分
+            List<String> eventJsons = Collections.synchronizedList(new ArrayList<>());
+            String apiResponse = apiCallManager.callApiStreaming(apiConfig, prompt, 4000, merged, eventJsons::add);
+
+            // 到达截止时间时不再拆分重试，直接使用已接收的部分事件
+            if (apiCallManager.isResponseComplete(apiResponse, merged.getExpectedEventCount())
+                    || (Deadline.checkExpired() && !eventJsons.isEmpty())) {
+                List<EventData> events = routePackedEvents(apiResponse, eventJsons, group, merged);
+                log.debug("合并时间段 {} 获取到 {} 个有效事件", merged.getSegmentId(), events.size());
+                if (!Deadline.checkExpired()) {
+                    for (TimeSegment segment : group) {
+                        segmentCoverageService.recordFetched(request.getRegionIds(), segment, (int) events.stream()
+                                .filter(event -> event.getEventTime() != null && segment.contains(event.getEventTime()))
+                                .count());
+                    }
+                }
+                return events;
+            }
+
+            log.info("合并时间段响应不完整，拆分后重新获取: segmentId={}, segments={}", merged.getSegmentId(), group.size());
+        } catch (Exception e) {
+            log.warn("合并时间段调用失败，拆分后重新获取: segmentId={}, error={}", merged.getSegmentId(), e.getMessage());
+        }
+
+        if (Deadline.checkExpired()) {
+            log.warn("已超过截止时间，不再拆分合并时间段: segmentId={}", merged.getSegmentId());
+            return new ArrayList<>();
+        }
+
+        int middle = group.size() / 2;
+        List<EventData> events = new ArrayList<>(fetchEventsForGroup(group.subList(0, middle), request, false));
+        events.addAll(fetchEventsForGroup(group.subList(middle, group.size()), request, false));
+        return events;
+    }
+
+    /**
+     * 从事件表读取组内已被覆盖的时间段，其余时间段按连续区间合并调用
+     *
+     * @return 组内事件；没有任何时间段被覆盖时返回null
+     */
+    private List<EventData> serveCoveredSegments(List<TimeSegment> group, TimelineGenerateRequest request) {
+        List<List<EventData>> coveredEvents = new ArrayList<>();
+        for (TimeSegment segment : group) {
+            coveredEvents.add(segmentCoverageService.findCoveredEvents(request.getRegionIds(), segment));
+        }
+        if (coveredEvents.stream().allMatch(Objects::isNull)) {
+            return null;
+        }
+
+        // 合并调用要求时间段连续，未覆盖的时间段按连续区间分别获取
+        List<EventData> events = new ArrayList<>();
+        List<TimeSegment> uncoveredRun = new ArrayList<>();
+        for (int i = 0; i < group.size(); i++) {
+            if (coveredEvents.get(i) != null) {
+                events.addAll(coveredEvents.get(i));
+                if (!uncoveredRun.isEmpty()) {
+                    events.addAll(fetchEventsForGroup(uncoveredRun, request, false));
+                    uncoveredRun = new ArrayList<>();
+                }
+            } else {
+                uncoveredRun.add(group.get(i));
+            }
+        }
+        if (!uncoveredRun.isEmpty()) {
+            events.addAll(fetchEventsForGroup(uncoveredRun, request, false));
+        }
+        return events;
+    }
+
+    /**
+     * 将合并调用返回的事件按时间（或模型标注的时间段ID）分配回各自的时间段并校验
+     */
+    private List<EventData> routePackedEvents(String apiResponse, List<String> eventJsons,
+            List<TimeSegment> group, TimeSegment merged) throws Exception {
+        List<com.fasterxml.jackson.databind.JsonNode> nodes = new ArrayList<>();
+        for (String eventJson : eventJsons) {
+            try {
+                nodes.add(objectMapper.readTree(eventJson));
+            } catch (Exception e) {
+                log.debug("合并响应中的事件解析失败，跳过: {}", e.getMessage());
+            }
+        }
+        if (nodes.isEmpty()) {
+            // 输出格式无法增量解析时，对完整内容执行常规解析
+            String jsonContent = extractJsonFromResponse(apiResponse);
+            if (jsonContent != null && jsonContent.trim().startsWith("[")) {
+                objectMapper.readTree(jsonContent).forEach(nodes::add);
+            }
+        }
+
+        Map<TimeSegment, List<EventData>> routed = new LinkedHashMap<>();
+        group.forEach(segment -> routed.put(segment, new ArrayList<>()));
+        for (com.fasterxml.jackson.databind.JsonNode node : nodes) {
+            EventData event = parseEventFromJsonNode(node, merged);
+            if (event != null) {
+                String segmentId = node.hasNonNull("segmentId") ? node.get("segmentId").asText() : null;
+                routed.get(SegmentPacker.route(group, segmentId, event.getEventTime())).add(event);
+            }
+        }
+
+        List<EventData> events = new ArrayList<>();
+        routed.forEach((segment, segmentEvents) -> events.addAll(validateAndFilterEvents(segmentEvents, segment)));
+        return events;
     }
 
     /**
@@ -326,6 +771,105 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
      */
     @Override
     public List<EventData> fetchEventsForSegment(TimeSegment segment, TimelineGenerateRequest request) {
+        return fetchEventsForSegment(segment, request, null).getEvents();
+    }
+
+    /**
+     * 为单个时间段获取事件（增量回调）
+     * 通过调度器按当前线程的优先级和任务轮转执行，与批量获取共享工作线程；响应被截断时拆分出的子时间段在同一轮内获取
+     */
+    @Override
+    public SegmentFetchResult fetchEventsForSegment(TimeSegment segment, TimelineGenerateRequest request,
+            Consumer<EventData> eventConsumer) {
+        CompletableFuture<SegmentFetchResult> future = segmentScheduler.submit(CancellationToken.wrap(
+                Deadline.wrap(() -> fetchSegment(segment, request, eventConsumer, 0))));
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 任务取消时令牌中断执行中的工作线程，排队中的调用出队时跳过
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("等待时间段事件获取时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 为单个时间段获取事件，响应被截断时记录密度信号并将时间段对半拆分后递归获取
+     * 只有响应完整（或拆分后各子时间段均完整）且未超过截止时间时，结果才标记为完整
+     */
+    private SegmentFetchResult fetchSegment(TimeSegment segment, TimelineGenerateRequest request,
+            Consumer<EventData> eventConsumer, int depth) {
+        // 其他时间线已获取过且仍在有效期内的时间窗口直接从事件表读取，拆分出的子时间段不会被覆盖
+        if (depth == 0) {
+            List<EventData> coveredEvents = segmentCoverageService.findCoveredEvents(request.getRegionIds(), segment);
+            if (coveredEvents != null) {
+                if (eventConsumer != null) {
+                    coveredEvents.forEach(eventConsumer);
+                }
+                return new SegmentFetchResult(coveredEvents, true);
+            }
+        }
+
+        List<SegmentResponse> responseHolder = new ArrayList<>(1);
+        List<EventData> events = requestEventsForSegment(segment, request, eventConsumer, responseHolder);
+
+        // 调用失败时没有响应，返回的空列表不代表时间段内没有事件
+        SegmentResponse response = responseHolder.isEmpty() ? null : responseHolder.get(0);
+        if (response == null) {
+            return new SegmentFetchResult(events, false);
+        }
+        boolean interrupted = response.isInterrupted();
+        if (!interrupted && !isTruncated(response.getContent(), events.size())) {
+            boolean complete = !Deadline.checkExpired();
+            if (!events.isEmpty() && complete) {
+                segmentCoverageService.recordFetched(request.getRegionIds(), segment, events.size());
+            }
+            return new SegmentFetchResult(events, complete);
+        }
+
+        // 因截止时间提前结束的响应不代表事件密度，也不再拆分
+        if (Deadline.checkExpired()) {
+            log.warn("时间段 {} 已超过截止时间，返回已获取的 {} 个事件", segment.getSegmentId(), events.size());
+            return new SegmentFetchResult(events, false);
+        }
+
+        // 中途断流与事件密度无关，不记录截断信号，但同样拆分后重新获取，且不记录覆盖
+        if (!interrupted) {
+            recordTruncation(request.getRegionIds(), segment);
+        }
+        CancellationToken.checkCurrent();
+        String reason = interrupted ? "流式响应中途断开" : "响应被截断";
+        if (depth >= maxSplitDepth || segment.calculateSpanDays() <= 1) {
+            log.warn("时间段 {} {}，已达到最小拆分粒度", segment.getSegmentId(), reason);
+            return new SegmentFetchResult(events, false);
+        }
+
+        log.info("时间段 {} {}，拆分后重新获取: depth={}", segment.getSegmentId(), reason, depth + 1);
+        List<List<EventData>> eventLists = new ArrayList<>();
+        eventLists.add(events);
+        boolean complete = true;
+        for (TimeSegment half : splitSegment(segment)) {
+            SegmentFetchResult halfResult = fetchSegment(half, request, eventConsumer, depth + 1);
+            eventLists.add(halfResult.getEvents());
+            complete &= halfResult.isComplete();
+        }
+        return new SegmentFetchResult(mergeEventLists(eventLists), complete);
+    }
+
+    /**
+     * 调用API获取单个时间段的事件，原始响应写入responseHolder
+     */
+    private List<EventData> requestEventsForSegment(TimeSegment segment, TimelineGenerateRequest request,
+            Consumer<EventData> eventConsumer, List<SegmentResponse> responseHolder) {
         log.debug("获取时间段事件: {}", segment.getDescription());
 
         try {
@@ -338,29 +882,34 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
             // 构建事件获取提示词
             String prompt = buildEventFetchPrompt(segmentRequest, segment);
 
-            // 使用大Token API调用获取更完整的事件数据
-            String apiResponse = apiCallManager.callApiWithLargeTokens(
-                    apiConfig,
-                    prompt,
-                    4000, // 使用4000 tokens以获取更多事件
-                    segment);
+            // 相同提示词的并发请求合并为一次API调用
+            List<EventData> ownEvents = new ArrayList<>();
+            AtomicBoolean executed = new AtomicBoolean(false);
+            String flightKey = generateFlightKey(apiConfig, requestFingerprintGenerator.fingerprint(request, segment));
+            SegmentResponse response = inFlightRequests.execute(flightKey, () -> {
+                executed.set(true);
+                return requestSegmentEvents(apiConfig, prompt, segment, event -> {
+                    ownEvents.add(event);
+                    if (eventConsumer != null) {
+                        eventConsumer.accept(event);
+                    }
+                });
+            });
 
-            // 如果大Token调用失败，回退到普通调用
-            if (apiResponse == null || apiResponse.trim().isEmpty()) {
-                log.warn("大Token API调用失败，回退到普通调用: segmentId={}", segment.getSegmentId());
-                apiResponse = apiCallManager.callWithFallback(
-                        prompt,
-                        segment.getStartTime(),
-                        segment.getEndTime());
+            responseHolder.add(response);
+            if (executed.get()) {
+                log.debug("时间段 {} 获取到 {} 个有效事件", segment.getSegmentId(), ownEvents.size());
+                return ownEvents;
             }
 
-            // 解析API响应为事件列表
-            List<EventData> events = parseApiResponseToEvents(apiResponse, segment);
-
-            // 验证事件数据质量
-            events = validateAndFilterEvents(events, segment);
+            // 共享了其他请求的响应，独立解析以免多个时间线修改同一批事件对象
+            String apiResponse = response != null ? response.getContent() : null;
+            List<EventData> events = validateAndFilterEvents(parseApiResponseToEvents(apiResponse, segment), segment);
+            if (eventConsumer != null) {
+                events.forEach(eventConsumer);
+            }
 
-            log.debug("时间段 {} 获取到 {} 个有效事件", segment.getSegmentId(), events.size());
+            log.debug("时间段 {} 复用进行中的相同请求，获取到 {} 个有效事件", segment.getSegmentId(), events.size());
             return events;
 
         } catch (Exception e) {
@@ -369,14 +918,107 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
         }
     }
 
+    /**
+     * 调用API获取时间段事件，优先流式调用，失败时回退普通调用
+     * 有效事件逐个回调，返回模型输出的原始内容
+     */
+    private SegmentResponse requestSegmentEvents(DynamicApiConfigManager.ApiConfig apiConfig, String prompt,
+            TimeSegment segment, Consumer<EventData> eventConsumer) {
+        // 优先使用流式调用，边生成边解析
+        if (enableStreaming) {
+            SegmentResponse streamedResponse = fetchEventsStreaming(apiConfig, prompt, segment, eventConsumer);
+            if (streamedResponse != null) {
+                return streamedResponse;
+            }
+            log.warn("流式调用失败，回退到普通调用: segmentId={}", segment.getSegmentId());
+        }
+
+        // 使用大Token API调用获取更完整的事件数据
+        String apiResponse = apiCallManager.callApiWithLargeTokens(
+                apiConfig,
+                prompt,
+                4000, // 使用4000 tokens以获取更多事件
+                segment);
+
+        // 如果大Token调用失败，回退到普通调用
+        if (apiResponse == null || apiResponse.trim().isEmpty()) {
+            log.warn("大Token API调用失败，回退到普通调用: segmentId={}", segment.getSegmentId());
+            apiResponse = apiCallManager.callWithFallback(
+                    prompt,
+                    segment.getStartTime(),
+                    segment.getEndTime());
+        }
+
+        // 解析API响应为事件列表
+        List<EventData> events = parseApiResponseToEvents(apiResponse, segment);
+
+        // 验证事件数据质量
+        events = validateAndFilterEvents(events, segment);
+        events.forEach(eventConsumer);
+
+        return new SegmentResponse(apiResponse, false);
+    }
+
+    /**
+     * 生成进行中请求的合并键（API配置 + 时间段请求指纹）
+     */
+    private String generateFlightKey(DynamicApiConfigManager.ApiConfig apiConfig, String segmentFingerprint) {
+        return DigestUtils.md5DigestAsHex((apiConfig.getApiUrl() + ":" + apiConfig.getModel() + ":" + segmentFingerprint)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 流式获取时间段事件
+     * 每个事件对象闭合后立即解析、校验并回调；流式调用失败且未收到任何事件时返回null
+     */
+    private SegmentResponse fetchEventsStreaming(DynamicApiConfigManager.ApiConfig apiConfig, String prompt,
+            TimeSegment segment, Consumer<EventData> eventConsumer) {
+        AtomicInteger streamedCount = new AtomicInteger(0);
+        StringBuilder streamedJson = new StringBuilder("[");
+
+        String apiResponse = apiCallManager.callApiStreaming(apiConfig, prompt, 4000, segment, eventJson -> {
+            try {
+                EventData event = parseEventFromJsonNode(objectMapper.readTree(eventJson), segment);
+                if (event == null) {
+                    return;
+                }
+                List<EventData> validEvents = validateAndFilterEvents(Collections.singletonList(event), segment);
+                if (!validEvents.isEmpty()) {
+                    if (streamedCount.getAndIncrement() > 0) {
+                        streamedJson.append(',');
+                    }
+                    streamedJson.append(eventJson);
+                    eventConsumer.accept(validEvents.get(0));
+                }
+            } catch (Exception e) {
+                log.debug("流式事件解析失败，跳过: segmentId={}, error={}", segment.getSegmentId(), e.getMessage());
+            }
+        });
+
+        if (apiResponse == null || apiResponse.trim().isEmpty()) {
+            // 中途断流时保留已增量获得的事件，并标记为断流，不能视为完整响应
+            return streamedCount.get() > 0 ? new SegmentResponse(streamedJson.append(']').toString(), true) : null;
+        }
+
+        if (streamedCount.get() == 0) {
+            // 输出格式无法增量解析时，对完整内容执行常规解析
+            validateAndFilterEvents(parseApiResponseToEvents(apiResponse, segment), segment).forEach(eventConsumer);
+        }
+
+        log.debug("时间段 {} 流式获取到 {} 个有效事件", segment.getSegmentId(), streamedCount.get());
+        return new SegmentResponse(apiResponse, false);
+    }
+
     /**
      * 为时间段创建请求对象
      */
     private TimelineGenerateRequest createSegmentRequest(TimelineGenerateRequest originalRequest, TimeSegment segment) {
+        // 规范化名称和地区，使等价请求生成相同的提示词
+        TimelineGenerateRequest canonicalRequest = requestFingerprintGenerator.canonicalize(originalRequest);
         TimelineGenerateRequest segmentRequest = new TimelineGenerateRequest();
-        segmentRequest.setName(originalRequest.getName() + "_" + segment.getSegmentId());
+        segmentRequest.setName(canonicalRequest.getName() + "_" + segment.getSegmentId());
         segmentRequest.setDescription("时间段分割请求: " + segment.getDescription());
-        segmentRequest.setRegionIds(originalRequest.getRegionIds());
+        segmentRequest.setRegionIds(canonicalRequest.getRegionIds());
         segmentRequest.setStartTime(segment.getStartTime());
         segmentRequest.setEndTime(segment.getEndTime());
         segmentRequest.setEnableDeduplication(originalRequest.getEnableDeduplication());
@@ -393,11 +1035,7 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
         StringBuilder prompt = new StringBuilder();
 
         // 添加时间线基本信息
-        prompt.append("=== 时间线生成任务 ===\n");
-        prompt.append("时间线名称：").append(request.getName() != null ? request.getName() : "未指定时间线名称").append("\n");
-        prompt.append("时间线描述：").append(request.getDescription() != null ? request.getDescription() : "未指定时间线描述")
-                .append("\n");
-        prompt.append("\n");
+        appendTimelineInfo(prompt, request);
 
         // 添加时间段信息
         prompt.append("=== 当前时间段信息 ===\n");
@@ -406,14 +1044,7 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
         prompt.append("具体时间：").append(segment.getStartTime()).append(" 至 ").append(segment.getEndTime()).append("\n");
 
         // 将地区ID转换为中文名称
-        prompt.append("目标地区：");
-        if (request.getRegionIds() != null && !request.getRegionIds().isEmpty()) {
-            List<String> regionNames = convertRegionIdsToNames(request.getRegionIds());
-            prompt.append(String.join("、", regionNames));
-        } else {
-            prompt.append("全球");
-        }
-        prompt.append("\n");
+        appendTargetRegions(prompt, request);
 
         prompt.append("预期事件数量：").append(segment.getExpectedEventCount()).append("个\n");
         prompt.append("\n");
@@ -424,7 +1055,74 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
         prompt.append("重点关注与时间线主题相关的重要事件、新闻、发展动态等。\n");
         prompt.append("\n");
 
-        // 添加功能配置
+        // 添加功能配置和输出格式要求
+        appendFeatureConfig(prompt, request);
+        appendOutputFormat(prompt, false);
+
+        prompt.append("请确保返回的事件信息准确、及时、相关，并且符合指定的时间和地区范围。");
+
+        return prompt.toString();
+    }
+
+    /**
+     * 构建合并多个时间段的事件获取提示词，公共指令只出现一次，各时间段分节列出
+     */
+    private String buildPackedEventFetchPrompt(TimelineGenerateRequest request, List<TimeSegment> group) {
+        StringBuilder prompt = new StringBuilder();
+
+        appendTimelineInfo(prompt, request);
+
+        prompt.append("=== 时间段列表 ===\n");
+        for (TimeSegment segment : group) {
+            prompt.append("[").append(segment.getSegmentId()).append("] ")
+                    .append(segment.getStartTime()).append(" 至 ").append(segment.getEndTime())
+                    .append("，预期事件数量：").append(segment.getExpectedEventCount()).append("个\n");
+        }
+        appendTargetRegions(prompt, request);
+        prompt.append("\n");
+
+        prompt.append("=== 任务要求 ===\n");
+        prompt.append("请为上述时间线主题，分别在列出的每个时间段和地区范围内，搜索和获取相关的热点事件信息。\n");
+        prompt.append("重点关注与时间线主题相关的重要事件、新闻、发展动态等。\n");
+        prompt.append("\n");
+
+        appendFeatureConfig(prompt, request);
+        appendOutputFormat(prompt, true);
+
+        prompt.append("请确保返回的事件信息准确、及时、相关，并且符合对应时间段和地区范围。");
+
+        return prompt.toString();
+    }
+
+    /**
+     * 添加时间线基本信息
+     */
+    private void appendTimelineInfo(StringBuilder prompt, TimelineGenerateRequest request) {
+        prompt.append("=== 时间线生成任务 ===\n");
+        prompt.append("时间线名称：").append(request.getName() != null ? request.getName() : "未指定时间线名称").append("\n");
+        prompt.append("时间线描述：").append(request.getDescription() != null ? request.getDescription() : "未指定时间线描述")
+                .append("\n");
+        prompt.append("\n");
+    }
+
+    /**
+     * 添加目标地区（地区ID转换为中文名称）
+     */
+    private void appendTargetRegions(StringBuilder prompt, TimelineGenerateRequest request) {
+        prompt.append("目标地区：");
+        if (request.getRegionIds() != null && !request.getRegionIds().isEmpty()) {
+            List<String> regionNames = convertRegionIdsToNames(request.getRegionIds());
+            prompt.append(String.join("、", regionNames));
+        } else {
+            prompt.append("全球");
+        }
+        prompt.append("\n");
+    }
+
+    /**
+     * 添加功能配置
+     */
+    private void appendFeatureConfig(StringBuilder prompt, TimelineGenerateRequest request) {
         if (request.getEnableDeduplication() || request.getEnableDictionary() || request.getEnableRelationAnalysis()) {
             prompt.append("=== 功能配置 ===\n");
             if (request.getEnableDeduplication()) {
@@ -438,8 +1136,12 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
             }
             prompt.append("\n");
         }
+    }
 
-        // 添加输出格式要求
+    /**
+     * 添加输出格式要求，合并调用时要求额外标注所属时间段
+     */
+    private void appendOutputFormat(StringBuilder prompt, boolean packed) {
         prompt.append("=== 输出格式要求 ===\n");
         prompt.append("请返回JSON格式的事件列表，每个事件必须包含以下字段：\n");
         prompt.append("- id: 事件唯一标识\n");
@@ -453,11 +1155,11 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
         prompt.append("- keywords: 关键词列表\n");
         prompt.append("- sources: 信息来源列表\n");
         prompt.append("- credibilityScore: 可信度评分（0.0-1.0）\n");
+        if (packed) {
+            prompt.append("- segmentId: 事件所属时间段ID（与时间段列表中方括号内的ID一致）\n");
+            prompt.append("所有时间段的事件放在同一个JSON数组中返回。\n");
+        }
         prompt.append("\n");
-
-        prompt.append("请确保返回的事件信息准确、及时、相关，并且符合指定的时间和地区范围。");
-
-        return prompt.toString();
     }
 
     /**
@@ -996,4 +1698,27 @@ public class TimeSegmentationServiceImpl implements TimeSegmentationService {
             event.setSources(Arrays.asList("API获取"));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 时间段API响应：模型输出的内容，以及流式响应是否中途断开
+     * 断流时内容由已收到的事件重新拼成完整的JSON数组，不能据此判断响应是否完整
+     */
+    private static final class SegmentResponse {
+
+        private final String content;
+        private final boolean interrupted;
+
+        SegmentResponse(String content, boolean interrupted) {
+            this.content = content;
+            this.interrupted = interrupted;
+        }
+
+        String getContent() {
+            return content;
+        }
+
+        boolean isInterrupted() {
+            return interrupted;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.hotech.events.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotech.events.dto.EventData;
+import com.hotech.events.dto.TimeSegment;
+import com.hotech.events.entity.TimelineSegmentCheckpoint;
+import com.hotech.events.mapper.TimelineSegmentCheckpointMapper;
+import com.hotech.events.service.TimelineCheckpointService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 时间线分段检查点服务实现类
+ */
+@Slf4j
+@Service
+public class TimelineCheckpointServiceImpl implements TimelineCheckpointService {
+
+    @Autowired
+    private TimelineSegmentCheckpointMapper checkpointMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public Map<String, List<EventData>> restore(Long timelineId, List<TimeSegment> segments) {
+        Map<String, List<EventData>> restored = new HashMap<>();
+        if (timelineId == null || segments == null || segments.isEmpty()) {
+            return restored;
+        }
+
+        List<TimelineSegmentCheckpoint> checkpoints;
+        try {
+            checkpoints = checkpointMapper.findByTimelineId(timelineId);
+        } catch (Exception e) {
+            log.warn("查询时间线检查点失败: timelineId={}, error={}", timelineId, e.getMessage());
+            return restored;
+        }
+        if (checkpoints.isEmpty()) {
+            return restored;
+        }
+
+        for (TimeSegment segment : segments) {
+            for (TimelineSegmentCheckpoint checkpoint : checkpoints) {
+                boolean sameSegment = checkpoint.getSegmentId().equals(segment.getSegmentId());
+                // 重新分割后时间段边界可能变化，被检查点完整覆盖的时间段同样视为已完成
+                boolean covered = !checkpoint.getSegmentStart().isAfter(segment.getStartTime())
+                        && !checkpoint.getSegmentEnd().isBefore(segment.getEndTime());
+                if (!sameSegment && !covered) {
+                    continue;
+                }
+
+                List<EventData> events = deserialize(checkpoint);
+                if (events == null) {
+                    continue;
+                }
+                if (!sameSegment) {
+                    events = events.stream()
+                            .filter(event -> event.getEventTime() == null || segment.contains(event.getEventTime()))
+                            .collect(Collectors.toList());
+                }
+                restored.put(segment.getSegmentId(), events);
+                break;
+            }
+        }
+
+        log.info("恢复时间线检查点: timelineId={}, 检查点数={}, 已完成时间段={}/{}",
+                timelineId, checkpoints.size(), restored.size(), segments.size());
+        return restored;
+    }
+
+    @Override
+    public void save(Long timelineId, TimeSegment segment, List<EventData> events) {
+        if (timelineId == null || segment == null || segment.getSegmentId() == null) {
+            return;
+        }
+
+        try {
+            TimelineSegmentCheckpoint checkpoint = new TimelineSegmentCheckpoint();
+            checkpoint.setTimelineId(timelineId);
+            checkpoint.setSegmentId(segment.getSegmentId());
+            checkpoint.setSegmentStart(segment.getStartTime());
+            checkpoint.setSegmentEnd(segment.getEndTime());
+            checkpoint.setEventCount(events.size());
+            checkpoint.setEventsJson(objectMapper.writeValueAsString(events));
+            checkpointMapper.upsert(checkpoint);
+
+            log.debug("保存时间段检查点: timelineId={}, segmentId={}, events={}",
+                    timelineId, segment.getSegmentId(), events.size());
+        } catch (Exception e) {
+            // 检查点只用于加速恢复，写入失败不影响本次生成
+            log.warn("保存时间段检查点失败: timelineId={}, segmentId={}, error={}",
+                    timelineId, segment.getSegmentId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public int clear(Long timelineId) {
+        try {
+            return checkpointMapper.deleteByTimelineId(timelineId);
+        } catch (Exception e) {
+            log.warn("清除时间线检查点失败: timelineId={}, error={}", timelineId, e.getMessage());
+            return 0;
+        }
+    }
+
+    private List<EventData> deserialize(TimelineSegmentCheckpoint checkpoint) {
+        try {
+            return objectMapper.readValue(checkpoint.getEventsJson(), new TypeReference<List<EventData>>() {});
+        } catch (Exception e) {
+            log.warn("解析时间段检查点失败: segmentId={}, error={}", checkpoint.getSegmentId(), e.getMessage());
+            return null;
+        }
+    }
+}
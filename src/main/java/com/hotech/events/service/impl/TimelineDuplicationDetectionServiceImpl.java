@@ -8,6 +8,7 @@ import com.hotech.events.entity.TimelineCreationCache;
 import com.hotech.events.mapper.TimelineCreationCacheMapper;
 import com.hotech.events.mapper.TimelineMapper;
 import com.hotech.events.service.TimelineDuplicationDetectionService;
+import com.hotech.events.util.RequestFingerprintGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -41,6 +42,9 @@ public class TimelineDuplicationDetectionServiceImpl implements TimelineDuplicat
     @Autowired
     private DynamicSystemConfig dynamicSystemConfig;
     
+    @Autowired
+    private RequestFingerprintGenerator requestFingerprintGenerator;
+    
     @Override
     public Timeline detectDuplicateByNameAndTimeRange(String name, LocalDateTime startTime, LocalDateTime endTime) {
         log.info("基于名称和时间范围检测重复: name={}, startTime={}, endTime={}", name, startTime, endTime);
@@ -151,26 +155,15 @@ public class TimelineDuplicationDetectionServiceImpl implements TimelineDuplicat
     public String generateRequestFingerprint(String name, String description, List<Long> regionIds,
                                            LocalDateTime startTime, LocalDateTime endTime, String userId) {
         try {
-            // 构建指纹数据
-            StringBuilder fingerprintData = new StringBuilder();
-            fingerprintData.append("name:").append(name != null ? name.trim() : "");
-            fingerprintData.append("|description:").append(description != null ? description.trim() : "");
-            fingerprintData.append("|regionIds:");
-            
-            if (regionIds != null && !regionIds.isEmpty()) {
-                // 对地区ID进行排序以确保一致性
-                List<Long> sortedRegionIds = regionIds.stream().sorted().collect(Collectors.toList());
-                fingerprintData.append(sortedRegionIds.toString());
-            }
-            
-            fingerprintData.append("|startTime:").append(startTime != null ? startTime.toString() : "");
-            fingerprintData.append("|endTime:").append(endTime != null ? endTime.toString() : "");
-            fingerprintData.append("|userId:").append(userId != null ? userId : "");
+            // 规范化请求指纹（地区排序去重、时间对齐到天、文本空白归一），再区分用户
+            String requestFingerprint = requestFingerprintGenerator.fingerprint(name, description, regionIds,
+                    startTime, endTime);
+            String fingerprintData = requestFingerprint + "|userId:" + (userId != null ? userId : "");
             
             // 生成MD5哈希
-            String fingerprint = DigestUtils.md5DigestAsHex(fingerprintData.toString().getBytes());
+            String fingerprint = DigestUtils.md5DigestAsHex(fingerprintData.getBytes());
             
-            log.debug("生成请求指纹: data={}, fingerprint={}", fingerprintData.toString(), fingerprint);
+            log.debug("生成请求指纹: data={}, fingerprint={}", fingerprintData, fingerprint);
             return fingerprint;
             
         } catch (Exception e) {
@@ -56,15 +56,38 @@ public class TimelineEventRepairServiceImpl implements TimelineEventRepairServic
             .build();
         
         try {
-            // 这里实现修复逻辑
-            // 暂时返回成功状态
+            Timeline timeline = timelineMapper.selectById(timelineId);
+            if (timeline == null || timeline.getStartTime() == null || timeline.getEndTime() == null) {
+                return RepairResult.builder()
+                    .timelineId(timelineId)
+                    .repairTime(LocalDateTime.now())
+                    .status(RepairResult.RepairStatus.NO_ISSUES_FOUND)
+                    .actions(actions)
+                    .statistics(stats)
+                    .message("时间线不存在或未设置时间范围")
+                    .build();
+            }
+            
+            // 时间范围内的孤立事件不一定属于该时间线的地区，只报告不自动关联
+            List<Map<String, Object>> candidates = timelineEventMapper.findUnlinkedEventsInTimelineRange(timelineId);
+            for (Map<String, Object> event : candidates) {
+                actions.add(RepairAction.builder()
+                    .type(RepairAction.ActionType.CREATE_ASSOCIATION)
+                    .description("发现时间范围内的孤立事件: " + event.get("event_code"))
+                    .successful(true)
+                    .details(event)
+                    .build());
+            }
+            
+            stats.setTotalIssuesFound(candidates.size());
+            
             return RepairResult.builder()
                 .timelineId(timelineId)
                 .repairTime(LocalDateTime.now())
-                .status(RepairResult.RepairStatus.SUCCESS)
+                .status(candidates.isEmpty() ? RepairResult.RepairStatus.NO_ISSUES_FOUND : RepairResult.RepairStatus.SUCCESS)
                 .actions(actions)
                 .statistics(stats)
-                .message("修复完成")
+                .message(String.format("检查完成，发现 %d 个时间范围内的孤立事件，需人工确认后关联", candidates.size()))
                 .build();
                 
         } catch (Exception e) {
@@ -240,26 +263,27 @@ Override
             int totalCleaned = 0;
             int totalFailed = 0;
             
-            for (Map<String, Object> duplicate : duplicateAssociations) {
+            if (!duplicateAssociations.isEmpty()) {
                 try {
-                    Long timelineId = (Long) duplicate.get("timeline_id");
-                    Long eventId = (Long) duplicate.get("event_id");
-                    Integer count = (Integer) duplicate.get("count");
+                    // 一条语句删除多余的重复记录，每组保留一条
+                    int deleted = timelineEventMapper.deleteDuplicateAssociations();
+                    int updated = timelineMapper.refreshAllEventCounts();
+                    totalCleaned = duplicateAssociations.size();
+                    stats.setAssociationsDeleted(deleted);
+                    stats.setEventCountsUpdated(updated);
                     
-                    // 删除多余的重复记录，保留一个
-                    // 这里需要自定义SQL来删除重复记录
-                    // 暂时记录发现的重复项
-                    actions.add(RepairAction.builder()
-                        .type(RepairAction.ActionType.CLEAN_DUPLICATE)
-                        .description(String.format("发现重复关联: 时间线 %d - 事件 %d (重复 %d 次)", 
-                            timelineId, eventId, count))
-                        .successful(true)
-                        .details(duplicate)
-                        .build());
-                    
-                    totalCleaned++;
+                    for (Map<String, Object> duplicate : duplicateAssociations) {
+                        actions.add(RepairAction.builder()
+                            .type(RepairAction.ActionType.CLEAN_DUPLICATE)
+                            .description(String.format("清理重复关联: 时间线 %s - 事件 %s (重复 %s 次)", 
+                                duplicate.get("timeline_id"), duplicate.get("event_id"), duplicate.get("count")))
+                            .successful(true)
+                            .affectedRecords(((Number) duplicate.get("count")).intValue() - 1)
+                            .details(duplicate)
+                            .build());
+                    }
                 } catch (Exception e) {
-                    totalFailed++;
+                    totalFailed = duplicateAssociations.size();
                     actions.add(RepairAction.builder()
                         .type(RepairAction.ActionType.CLEAN_DUPLICATE)
                         .description("清理重复记录失败")
@@ -275,7 +299,7 @@ Override
             
             RepairResult.RepairStatus status = duplicateAssociations.isEmpty() ? 
                 RepairResult.RepairStatus.NO_ISSUES_FOUND : 
-                (totalFailed == 0 ? RepairResult.RepairStatus.SUCCESS : RepairResult.RepairStatus.PARTIAL_SUCCESS);
+                (totalFailed == 0 ? RepairResult.RepairStatus.SUCCESS : RepairResult.RepairStatus.FAILED);
             
             return RepairResult.builder()
                 .repairTime(LocalDateTime.now())
@@ -619,12 +643,9 @@ Override
             
             for (Map<String, Object> event : orphanedEvents) {
                 try {
-                    Long eventId = (Long) event.get("id");
                     String eventCode = (String) event.get("event_code");
                     
-                    // 这里可以实现智能关联逻辑
-                    // 根据事件的时间、地点等信息找到合适的时间线
-                    // 暂时记录发现的孤立事件
+                    // 仅凭事件时间无法确定所属时间线（地区可能不符），只记录发现的孤立事件
                     actions.add(RepairAction.builder()
                         .type(RepairAction.ActionType.CREATE_ASSOCIATION)
                         .description("发现孤立事件: " + eventCode)
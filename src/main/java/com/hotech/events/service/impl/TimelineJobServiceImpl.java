@@ -0,0 +1,469 @@
+package com.hotech.events.service.impl;
+
+import com.hotech.events.entity.Timeline;
+import com.hotech.events.entity.TimelineGenerationJob;
+import com.hotech.events.exception.TimelineQueueFullException;
+import com.hotech.events.mapper.TimelineGenerationJobMapper;
+import com.hotech.events.mapper.TimelineMapper;
+import com.hotech.events.service.GenerationLeaseService;
+import com.hotech.events.service.TimelineJobService;
+import com.hotech.events.task.TimelineGenerationTask;
+import com.hotech.events.util.CancellationToken;
+import com.hotech.events.util.Deadline;
+import com.hotech.events.util.PriorityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 时间线生成任务服务实现类
+ * 任务表是唯一的队列来源：提交时写入排队记录，调度器按工作线程池的空闲容量取出执行，
+ * 执行前先获取任务租约再通过条件更新领取任务，多个节点之间同一任务只有一个节点执行；
+ * 执行节点宕机或停机后租约过期（或被释放），任务重新放回队列由存活的节点接管。
+ */
+@Slf4j
+@Service
+public class TimelineJobServiceImpl implements TimelineJobService {
+
+    @Autowired
+    private TimelineGenerationJobMapper jobMapper;
+
+    @Autowired
+    private TimelineMapper timelineMapper;
+
+    @Autowired
+    private TimelineGenerationTask timelineGenerationTask;
+
+    @Autowired
+    private GenerationLeaseService leaseService;
+
+    @Value("${timeline.job.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${timeline.job.max-queue-depth:50}")
+    private int maxQueueDepth;
+
+    @Value("${timeline.job.max-bulk-workers:2}")
+    private int maxBulkWorkers;
+
+    @Value("${timeline.job.bulk-span-days:90}")
+    private int bulkSpanDays;
+
+    private ThreadPoolExecutor workerPool;
+
+    // 本节点正在停机，执行中的任务被放弃并由其他节点接管
+    private volatile boolean shuttingDown = false;
+
+    // 已交给工作线程池但尚未结束的任务ID
+    private final Set<Long> dispatchedJobs = ConcurrentHashMap.newKeySet();
+
+    // 已分发的批量回填任务ID，数量受限以保证交互请求始终有空闲的工作线程
+    private final Set<Long> dispatchedBulkJobs = ConcurrentHashMap.newKeySet();
+
+    // 本节点正在执行的任务（任务ID -> 任务）
+    private final Map<Long, TimelineGenerationJob> runningJobs = new ConcurrentHashMap<>();
+
+    // 本节点正在执行的任务的取消令牌（任务ID -> 本次执行的令牌）
+    private final Map<Long, CancellationToken> runningTokens = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong submittedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong completedCount = new AtomicLong(0);
+    private final AtomicLong failedCount = new AtomicLong(0);
+    private final AtomicLong cancelledCount = new AtomicLong(0);
+    private final AtomicLong fencedCount = new AtomicLong(0);
+    private final AtomicLong recoveredCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        workerPool = new ThreadPoolExecutor(workerThreads, workerThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workerThreads),
+                r -> {
+                    Thread thread = new Thread(r, "timeline-job-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("时间线生成任务工作线程池初始化完成: workerThreads={}, maxQueueDepth={}", workerThreads, maxQueueDepth);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 执行中的任务保持RUNNING状态，租约释放或过期后由其他节点（或重启后的本节点）重新放回队列：
+        // 先标记停机并放弃执行中的任务，再中断工作线程，使被中断的生成任务不修改任务和时间线的状态
+        shuttingDown = true;
+        runningTokens.values().forEach(CancellationToken::abandon);
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    /**
+     * 应用启动后恢复中断的任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJobs() {
+        recoverOrphanedJobs();
+    }
+
+    /**
+     * 将执行节点已失去租约的任务重新放回队列并分发
+     * 只处理租约已过期或已释放的任务，其他存活节点正在执行的任务不受影响
+     */
+    @Scheduled(fixedDelayString = "${timeline.lease.recovery-interval:30000}",
+            initialDelayString = "${timeline.lease.recovery-interval:30000}")
+    public void recoverOrphanedJobs() {
+        try {
+            int requeued = jobMapper.requeueOrphaned();
+            if (requeued > 0) {
+                recoveredCount.addAndGet(requeued);
+                log.info("接管执行节点已失去租约的时间线生成任务: {} 个", requeued);
+            }
+            dispatchQueuedJobs();
+        } catch (Exception e) {
+            log.error("恢复时间线生成任务失败", e);
+        }
+    }
+
+    /**
+     * 检查本节点执行中的任务是否已在其他节点被取消，或已被其他节点接管
+     */
+    @Scheduled(fixedDelayString = "${timeline.lease.heartbeat-interval:10000}")
+    public void checkRunningJobs() {
+        for (TimelineGenerationJob job : runningJobs.values()) {
+            try {
+                if (jobMapper.countOwnedRunning(job.getId(), job.getLeaseToken()) == 0) {
+                    log.info("时间线生成任务已取消或已被其他节点接管，停止执行: jobId={}, timelineId={}",
+                            job.getId(), job.getTimelineId());
+                    CancellationToken token = runningTokens.get(job.getId());
+                    if (token != null) {
+                        token.cancel();
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("检查时间线生成任务状态失败: jobId={}, error={}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Long submit(Long timelineId, List<Long> regionIds, LocalDateTime startTime, LocalDateTime endTime) {
+        return submit(timelineId, regionIds, startTime, endTime, null);
+    }
+
+    @Override
+    public Long submit(Long timelineId, List<Long> regionIds, LocalDateTime startTime, LocalDateTime endTime,
+                       LocalDateTime deadlineAt) {
+        return submit(timelineId, regionIds, startTime, endTime, deadlineAt, null);
+    }
+
+    @Override
+    public Long submit(Long timelineId, List<Long> regionIds, LocalDateTime startTime, LocalDateTime endTime,
+                       LocalDateTime deadlineAt, PriorityClass priority) {
+        if (priority == null) {
+            boolean bulk = startTime != null && endTime != null
+                    && ChronoUnit.DAYS.between(startTime, endTime) > bulkSpanDays;
+            priority = bulk ? PriorityClass.BULK : PriorityClass.INTERACTIVE;
+        }
+        return enqueue(TimelineGenerationJob.Type.GENERATE, priority, timelineId, regionIds, startTime, endTime,
+                deadlineAt);
+    }
+
+    @Override
+    public Long submitRefresh(Long timelineId, List<Long> regionIds, LocalDateTime windowStart,
+                              LocalDateTime windowEnd) {
+        return enqueue(TimelineGenerationJob.Type.REFRESH, PriorityClass.SCHEDULED, timelineId, regionIds,
+                windowStart, windowEnd, null);
+    }
+
+    private Long enqueue(String jobType, PriorityClass priority, Long timelineId, List<Long> regionIds,
+                         LocalDateTime startTime, LocalDateTime endTime, LocalDateTime deadlineAt) {
+        int queued = jobMapper.countByStatus(TimelineGenerationJob.Status.QUEUED);
+        if (queued >= maxQueueDepth) {
+            rejectedCount.incrementAndGet();
+            log.warn("时间线生成队列已满，拒绝提交: timelineId={}, queued={}", timelineId, queued);
+            throw new TimelineQueueFullException("时间线生成队列已满，请稍后重试");
+        }
+
+        TimelineGenerationJob job = new TimelineGenerationJob();
+        job.setTimelineId(timelineId);
+        job.setJobType(jobType);
+        job.setPriority(priority.name());
+        job.setRegionIds(regionIds == null ? "" : regionIds.stream()
+                .map(String::valueOf).collect(Collectors.joining(",")));
+        job.setStartTime(startTime);
+        job.setEndTime(endTime);
+        job.setDeadlineAt(deadlineAt);
+        job.setStatus(TimelineGenerationJob.Status.QUEUED);
+        job.setAttempts(0);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(LocalDateTime.now());
+        jobMapper.insert(job);
+        submittedCount.incrementAndGet();
+
+        log.info("时间线生成任务已入队: jobId={}, timelineId={}, jobType={}, priority={}",
+                job.getId(), timelineId, jobType, priority);
+
+        // 事务提交后再分发，避免工作线程读不到尚未提交的时间线
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatchQueuedJobs();
+                }
+            });
+        } else {
+            dispatchQueuedJobs();
+        }
+        return job.getId();
+    }
+
+    /**
+     * 按工作线程池的空闲容量分发排队中的任务
+     */
+    @Scheduled(fixedDelayString = "${timeline.job.dispatch-interval:5000}")
+    public void dispatchQueuedJobs() {
+        int capacity = workerThreads * 2 - dispatchedJobs.size();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<TimelineGenerationJob> jobs;
+        try {
+            jobs = jobMapper.selectQueued(capacity + dispatchedJobs.size());
+        } catch (Exception e) {
+            log.warn("查询排队中的时间线生成任务失败: {}", e.getMessage());
+            return;
+        }
+
+        for (TimelineGenerationJob job : jobs) {
+            boolean bulk = PriorityClass.BULK.name().equals(job.getPriority());
+            if (bulk && dispatchedBulkJobs.size() >= maxBulkWorkers) {
+                continue;
+            }
+            if (!dispatchedJobs.add(job.getId())) {
+                continue;
+            }
+            if (bulk) {
+                dispatchedBulkJobs.add(job.getId());
+            }
+            try {
+                workerPool.execute(() -> runJob(job));
+            } catch (RejectedExecutionException e) {
+                dispatchedJobs.remove(job.getId());
+                dispatchedBulkJobs.remove(job.getId());
+                break;
+            }
+        }
+    }
+
+    private void runJob(TimelineGenerationJob job) {
+        GenerationLeaseService.Lease lease = null;
+        try {
+            lease = leaseService.tryAcquire(getLeaseKey(job.getId()));
+            if (lease == null) {
+                log.debug("时间线生成任务由其他节点执行: jobId={}", job.getId());
+                return;
+            }
+            if (jobMapper.claim(job.getId(), leaseService.getNodeId(), lease.getFencingToken()) == 0) {
+                log.debug("时间线生成任务已被领取或取消: jobId={}", job.getId());
+                return;
+            }
+            job.setOwnerNode(leaseService.getNodeId());
+            job.setLeaseToken(lease.getFencingToken());
+
+            log.info("开始执行时间线生成任务: jobId={}, timelineId={}, nodeId={}",
+                    job.getId(), job.getTimelineId(), job.getOwnerNode());
+            // 每次执行使用新的令牌，避免取消后立即重试的任务复用已取消的令牌
+            CancellationToken token = CancellationToken.register(getCancellationKey(job.getTimelineId()));
+            // 租约丢失时其他节点会接管任务，本节点立即停止执行
+            lease.onLost(() -> {
+                log.warn("时间线生成任务租约丢失，停止执行: jobId={}, timelineId={}", job.getId(), job.getTimelineId());
+                token.abandon();
+            });
+            runningTokens.put(job.getId(), token);
+            if (shuttingDown) {
+                token.abandon();
+            }
+            runningJobs.put(job.getId(), job);
+            Deadline deadline = job.getDeadlineAt() == null ? null
+                    : Deadline.at(job.getDeadlineAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            PriorityClass priority = PriorityClass.parse(job.getPriority(), PriorityClass.INTERACTIVE);
+            try (CancellationToken.Binding ignored = token.bind();
+                 Deadline.Binding deadlineBinding = deadline != null ? deadline.bind() : null;
+                 PriorityClass.Binding priorityBinding = priority.bind()) {
+                boolean refresh = TimelineGenerationJob.Type.REFRESH.equals(job.getJobType());
+                boolean refreshed = false;
+                if (refresh) {
+                    refreshed = timelineGenerationTask.refreshTimeline(job.getTimelineId(),
+                            parseRegionIds(job.getRegionIds()), job.getStartTime(), job.getEndTime());
+                } else {
+                    timelineGenerationTask.generateTimeline(job.getTimelineId(), parseRegionIds(job.getRegionIds()),
+                            job.getStartTime(), job.getEndTime());
+                }
+                if (isAbandoned(token)) {
+                    log.info("时间线生成任务已放弃，由其他节点接管: jobId={}, timelineId={}",
+                            job.getId(), job.getTimelineId());
+                    return;
+                }
+                if (token.isCancelled()) {
+                    log.info("时间线生成任务已取消: jobId={}, timelineId={}", job.getId(), job.getTimelineId());
+                    // 已被接管或已在其他节点取消的任务由防护令牌条件忽略
+                    if (jobMapper.finish(job.getId(), job.getLeaseToken(),
+                            TimelineGenerationJob.Status.CANCELLED, null) > 0) {
+                        cancelledCount.incrementAndGet();
+                    }
+                    return;
+                }
+
+                // 生成任务内部会捕获异常并将时间线标记为失败；刷新失败时时间线恢复为刷新前的状态，由返回值判断
+                boolean failed;
+                if (refresh) {
+                    failed = !refreshed;
+                } else {
+                    Timeline timeline = timelineMapper.selectById(job.getTimelineId());
+                    failed = timeline != null && "FAILED".equals(timeline.getStatus());
+                }
+                if (jobMapper.finish(job.getId(), job.getLeaseToken(), failed ? TimelineGenerationJob.Status.FAILED
+                        : TimelineGenerationJob.Status.COMPLETED, null) == 0) {
+                    fencedCount.incrementAndGet();
+                    log.warn("时间线生成任务已被其他节点接管，丢弃本节点的结束状态: jobId={}", job.getId());
+                    return;
+                }
+                (failed ? failedCount : completedCount).incrementAndGet();
+            } catch (Exception e) {
+                if (isAbandoned(token)) {
+                    log.info("时间线生成任务已放弃，由其他节点接管: jobId={}, timelineId={}, error={}",
+                            job.getId(), job.getTimelineId(), e.getMessage());
+                    return;
+                }
+                log.error("时间线生成任务执行失败: jobId={}, timelineId={}", job.getId(), job.getTimelineId(), e);
+                failedCount.incrementAndGet();
+                timelineMapper.updateStatus(job.getTimelineId(), "FAILED");
+                jobMapper.finish(job.getId(), job.getLeaseToken(), TimelineGenerationJob.Status.FAILED,
+                        truncate(e.getMessage()));
+            } finally {
+                runningJobs.remove(job.getId());
+                runningTokens.remove(job.getId());
+                CancellationToken.unregister(token);
+            }
+        } finally {
+            dispatchedJobs.remove(job.getId());
+            dispatchedBulkJobs.remove(job.getId());
+            leaseService.release(lease);
+        }
+    }
+
+    @Override
+    public boolean cancel(Long timelineId) {
+        boolean cancelled = jobMapper.cancelByTimelineId(timelineId) > 0;
+        // 中断正在执行的生成任务，停止进行中的API调用和重试
+        boolean running = CancellationToken.cancel(getCancellationKey(timelineId));
+        return cancelled || running;
+    }
+
+    @Override
+    public boolean isRunningLocally(Long timelineId) {
+        return runningJobs.values().stream().anyMatch(job -> job.getTimelineId().equals(timelineId));
+    }
+
+    @Override
+    public TimelineGenerationJob getLatestJob(Long timelineId) {
+        return jobMapper.findLatestByTimelineId(timelineId);
+    }
+
+    @Override
+    public int getQueuePosition(Long jobId) {
+        return jobMapper.countQueuedBefore(jobId);
+    }
+
+    @Override
+    public Map<String, Object> getQueueStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nodeId", leaseService.getNodeId());
+        stats.put("workerThreads", workerThreads);
+        stats.put("maxQueueDepth", maxQueueDepth);
+        stats.put("activeWorkers", workerPool.getActiveCount());
+        stats.put("dispatchedJobs", dispatchedJobs.size());
+        stats.put("runningJobs", runningJobs.size());
+        stats.put("queuedJobs", jobMapper.countByStatus(TimelineGenerationJob.Status.QUEUED));
+        stats.put("maxBulkWorkers", maxBulkWorkers);
+        stats.put("dispatchedBulkJobs", dispatchedBulkJobs.size());
+        Map<String, Object> queuedByPriority = new HashMap<>();
+        for (Map<String, Object> row : jobMapper.countQueuedByPriority()) {
+            Map<String, Object> priorityStats = new HashMap<>();
+            priorityStats.put("queued", row.get("count"));
+            priorityStats.put("maxWaitSeconds", row.get("max_wait_seconds"));
+            queuedByPriority.put(String.valueOf(row.get("priority")), priorityStats);
+        }
+        stats.put("queuedByPriority", queuedByPriority);
+        stats.put("submittedCount", submittedCount.get());
+        stats.put("rejectedCount", rejectedCount.get());
+        stats.put("completedCount", completedCount.get());
+        stats.put("failedCount", failedCount.get());
+        stats.put("cancelledCount", cancelledCount.get());
+        stats.put("fencedCount", fencedCount.get());
+        stats.put("recoveredCount", recoveredCount.get());
+        return stats;
+    }
+
+    /**
+     * 任务是否因本节点停机或租约丢失而被放弃，被放弃的任务保持RUNNING状态等待重新放回队列
+     */
+    private boolean isAbandoned(CancellationToken token) {
+        return shuttingDown || token.isAbandoned();
+    }
+
+    private String getCancellationKey(Long timelineId) {
+        return "timeline:" + timelineId;
+    }
+
+    private String getLeaseKey(Long jobId) {
+        return "job:" + jobId;
+    }
+
+    private List<Long> parseRegionIds(String regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(regionIds.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,342 @@
+package com.hotech.events.service.impl;
+
+import com.hotech.events.dto.EventData;
+import com.hotech.events.service.TimelineProgressService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间线生成进度服务实现类
+ * 进度按访问顺序保存在容量有限的存储中，超过容量时淘汰最久未访问的记录；
+ * 已结束的进度在较短时间后过期，生成中的进度在长时间未更新后过期，过期后查询回退到数据库。
+ * 推送由单个发送线程异步完成，避免慢连接阻塞生成线程；发送队列已满时丢弃消息并计数。
+ */
+@Slf4j
+@Service
+public class TimelineProgressServiceImpl implements TimelineProgressService {
+
+    private static final String EVENT_PROGRESS = "progress";
+    private static final String EVENT_NEW_EVENT = "event";
+
+    @Value("${timeline.progress.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${timeline.progress.completed-ttl:600000}")
+    private long completedTtl;
+
+    @Value("${timeline.progress.active-ttl:7200000}")
+    private long activeTtl;
+
+    @Value("${timeline.progress.max-subscribers:500}")
+    private int maxSubscribers;
+
+    @Value("${timeline.progress.emitter-timeout:1800000}")
+    private long emitterTimeout;
+
+    @Value("${timeline.progress.send-queue-capacity:10000}")
+    private int sendQueueCapacity;
+
+    private final LinkedHashMap<Long, ProgressEntry> store = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ProgressEntry> eldest) {
+            if (size() > maxEntries) {
+                evictedCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final ConcurrentHashMap<Long, CopyOnWriteArrayList<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger(0);
+
+    private ThreadPoolExecutor sender;
+
+    // 统计信息
+    private final AtomicLong evictedCount = new AtomicLong(0);
+    private final AtomicLong expiredCount = new AtomicLong(0);
+    private final AtomicLong sentCount = new AtomicLong(0);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong rejectedSubscriptions = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sendQueueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "timeline-progress-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, executor) -> droppedCount.incrementAndGet());
+        log.info("时间线进度服务初始化完成: maxEntries={}, maxSubscribers={}", maxEntries, maxSubscribers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender != null) {
+            sender.shutdownNow();
+        }
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    @Override
+    public Map<String, Object> getProgress(Long timelineId) {
+        synchronized (store) {
+            ProgressEntry entry = store.get(timelineId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(System.currentTimeMillis())) {
+                store.remove(timelineId);
+                expiredCount.incrementAndGet();
+                return null;
+            }
+            return new HashMap<>(entry.progress);
+        }
+    }
+
+    @Override
+    public void putProgress(Long timelineId, Map<String, Object> progress) {
+        Map<String, Object> snapshot;
+        synchronized (store) {
+            ProgressEntry entry = new ProgressEntry(new HashMap<>(progress));
+            store.put(timelineId, entry);
+            snapshot = new HashMap<>(entry.progress);
+        }
+        publishProgress(timelineId, snapshot);
+    }
+
+    @Override
+    public Map<String, Object> mergeProgress(Long timelineId, Map<String, Object> changes) {
+        Map<String, Object> snapshot;
+        synchronized (store) {
+            ProgressEntry entry = store.get(timelineId);
+            if (entry == null) {
+                entry = new ProgressEntry(new HashMap<>());
+                store.put(timelineId, entry);
+            }
+            entry.progress.putAll(changes);
+            entry.updatedAt = System.currentTimeMillis();
+            snapshot = new HashMap<>(entry.progress);
+        }
+        publishProgress(timelineId, snapshot);
+        return new HashMap<>(snapshot);
+    }
+
+    @Override
+    public void removeProgress(Long timelineId) {
+        synchronized (store) {
+            store.remove(timelineId);
+        }
+        List<SseEmitter> emitters = subscribers.remove(timelineId);
+        if (emitters != null) {
+            subscriberCount.addAndGet(-emitters.size());
+            dispatch(() -> emitters.forEach(SseEmitter::complete));
+        }
+    }
+
+    @Override
+    public void publishEvent(Long timelineId, Long eventId, EventData event) {
+        if (eventId == null || event == null || !subscribers.containsKey(timelineId)) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("timelineId", timelineId);
+        data.put("eventId", eventId);
+        data.put("title", event.getTitle());
+        data.put("description", event.getDescription());
+        data.put("eventTime", event.getEventTime() != null ? event.getEventTime().toString() : null);
+        data.put("location", event.getLocation());
+        data.put("eventType", event.getEventType());
+        data.put("subject", event.getSubject());
+        data.put("object", event.getObject());
+        data.put("latitude", event.getLatitude());
+        data.put("longitude", event.getLongitude());
+        dispatch(() -> send(timelineId, EVENT_NEW_EVENT, data, false));
+    }
+
+    @Override
+    public SseEmitter subscribe(Long timelineId, Map<String, Object> snapshot) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            rejectedSubscriptions.incrementAndGet();
+            throw new IllegalStateException("进度订阅数已达上限，请稍后重试或改用轮询");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        subscribers.computeIfAbsent(timelineId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(timelineId, emitter));
+        emitter.onTimeout(() -> unsubscribe(timelineId, emitter));
+        emitter.onError(e -> unsubscribe(timelineId, emitter));
+
+        if (snapshot != null) {
+            Map<String, Object> data = new HashMap<>(snapshot);
+            dispatch(() -> {
+                if (sendTo(timelineId, emitter, EVENT_PROGRESS, data) && isTerminal(data)) {
+                    emitter.complete();
+                }
+            });
+        }
+        log.debug("订阅时间线进度: timelineId={}, subscribers={}", timelineId, subscriberCount.get());
+        return emitter;
+    }
+
+    @Override
+    public Set<Long> getSubscribedTimelineIds() {
+        return new HashSet<>(subscribers.keySet());
+    }
+
+    /**
+     * 定期清理过期的进度记录
+     */
+    @Scheduled(fixedDelayString = "${timeline.progress.cleanup-interval:60000}")
+    public void cleanupExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        synchronized (store) {
+            Iterator<Map.Entry<Long, ProgressEntry>> iterator = store.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getValue().isExpired(now)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            expiredCount.addAndGet(removed);
+            log.debug("清理过期的时间线进度: {} 条", removed);
+        }
+    }
+
+    /**
+     * 定期向订阅者发送心跳，保持连接并清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${timeline.progress.heartbeat-interval:15000}")
+    public void sendHeartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatch(() -> subscribers.forEach((timelineId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (Exception e) {
+                    unsubscribe(timelineId, emitter);
+                }
+            }
+        }));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (store) {
+            stats.put("entries", store.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("subscribedTimelines", subscribers.size());
+        stats.put("subscribers", subscriberCount.get());
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("sendQueueDepth", sender.getQueue().size());
+        stats.put("sentCount", sentCount.get());
+        stats.put("droppedCount", droppedCount.get());
+        stats.put("evictedCount", evictedCount.get());
+        stats.put("expiredCount", expiredCount.get());
+        stats.put("rejectedSubscriptions", rejectedSubscriptions.get());
+        return stats;
+    }
+
+    private void publishProgress(Long timelineId, Map<String, Object> snapshot) {
+        if (!subscribers.containsKey(timelineId)) {
+            return;
+        }
+        dispatch(() -> send(timelineId, EVENT_PROGRESS, snapshot, isTerminal(snapshot)));
+    }
+
+    /**
+     * 向时间线的所有订阅者发送消息，生成结束时发送后关闭连接
+     */
+    private void send(Long timelineId, String eventName, Map<String, Object> data, boolean terminal) {
+        List<SseEmitter> emitters = subscribers.get(timelineId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : new ArrayList<>(emitters)) {
+            if (sendTo(timelineId, emitter, eventName, data) && terminal) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private boolean sendTo(Long timelineId, SseEmitter emitter, String eventName, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+            sentCount.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            log.debug("推送时间线进度失败，移除订阅: timelineId={}, error={}", timelineId, e.getMessage());
+            unsubscribe(timelineId, emitter);
+            return false;
+        }
+    }
+
+    private void unsubscribe(Long timelineId, SseEmitter emitter) {
+        List<SseEmitter> emitters = subscribers.get(timelineId);
+        if (emitters != null && emitters.remove(emitter)) {
+            subscriberCount.decrementAndGet();
+            if (emitters.isEmpty()) {
+                subscribers.remove(timelineId, emitters);
+            }
+        }
+    }
+
+    private void dispatch(Runnable task) {
+        if (sender != null && !sender.isShutdown()) {
+            sender.execute(task);
+        }
+    }
+
+    private boolean isTerminal(Map<String, Object> progress) {
+        Object status = progress.get("status");
+        return "COMPLETED".equals(status) || "FAILED".equals(status);
+    }
+
+    /**
+     * 进度记录
+     */
+    private class ProgressEntry {
+
+        private final Map<String, Object> progress;
+        private long updatedAt = System.currentTimeMillis();
+
+        ProgressEntry(Map<String, Object> progress) {
+            this.progress = progress;
+        }
+
+        boolean isExpired(long now) {
+            return now - updatedAt > (isTerminal(progress) ? completedTtl : activeTtl);
+        }
+    }
+}
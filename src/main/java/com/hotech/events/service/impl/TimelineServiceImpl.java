@@ -3,29 +3,45 @@ package com.hotech.events.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotech.events.entity.Timeline;
 import com.hotech.events.entity.TimelineCreationCache;
+import com.hotech.events.entity.TimelineGenerationJob;
 import com.hotech.events.entity.TimelineEvent;
 import com.hotech.events.entity.TimelineRegion;
 import com.hotech.events.mapper.TimelineEventMapper;
 import com.hotech.events.mapper.TimelineMapper;
 import com.hotech.events.mapper.TimelineRegionMapper;
 import com.hotech.events.service.TimelineService;
+import com.hotech.events.service.TimelineCheckpointService;
 import com.hotech.events.service.TimelineDuplicationDetectionService;
+import com.hotech.events.service.TimelineJobService;
+import com.hotech.events.service.TimelineProgressService;
+import com.hotech.events.service.GenerationLeaseService;
 import com.hotech.events.task.TimelineGenerationTask;
+import com.hotech.events.util.PriorityClass;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * 时间线服务实现类
@@ -43,6 +59,42 @@ public class TimelineServiceImpl implements TimelineService {
     @Autowired(required = false)
     private TimelineDuplicationDetectionService duplicationDetectionService;
     
+    @Autowired
+    private TimelineJobService timelineJobService;
+    
+    @Autowired
+    private TimelineCheckpointService timelineCheckpointService;
+    
+    @Autowired
+    private TimelineProgressService timelineProgressService;
+    
+    @Autowired
+    private GenerationLeaseService leaseService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${timeline.refresh.overlap-hours:6}")
+    private int refreshOverlapHours;
+    
+    @Value("${timeline.lease.create-wait:5000}")
+    private long createLeaseWait;
+    
+    @Value("${timeline.association.batch-size:500}")
+    private int associationBatchSize;
+    
+    @Value("${timeline.progress.persist-interval:2000}")
+    private long progressPersistInterval;
+    
+    // 各时间线最近一次将生成进度保存到数据库的时间
+    private final Map<Long, Long> progressPersistedAt = new ConcurrentHashMap<>();
+    
+    // 已推送给订阅者但尚未保存到数据库的生成进度
+    private final Set<Long> unpersistedProgress = ConcurrentHashMap.newKeySet();
+    
+    // 增量刷新中的时间线刷新前的事件数和关系数，刷新期间上报的计数在此基础上累加
+    private final Map<Long, int[]> refreshBaseCounts = new ConcurrentHashMap<>();
+    
     @Autowired
     public TimelineServiceImpl(
             TimelineMapper timelineMapper,
@@ -58,9 +110,6 @@ public class TimelineServiceImpl implements TimelineService {
         this.neo4jEventRepository = neo4jEventRepository;
     }
     
-    // 存储时间线生成进度的缓存
-    private static final Map<Long, Map<String, Object>> GENERATION_PROGRESS_CACHE = new ConcurrentHashMap<>();
-    
     @Override
     @Transactional
     public Timeline createTimeline(Timeline timeline, List<Long> regionIds) {
@@ -161,8 +210,9 @@ public class TimelineServiceImpl implements TimelineService {
         // 删除时间线
         int result = timelineMapper.deleteById(id);
         
-        // 清除进度缓存
-        GENERATION_PROGRESS_CACHE.remove(id);
+        // 清除进度（同时关闭进度订阅）和分段检查点
+        timelineProgressService.removeProgress(id);
+        timelineCheckpointService.clear(id);
         
         return result > 0;
     }
@@ -230,9 +280,72 @@ public class TimelineServiceImpl implements TimelineService {
     @Transactional
     public Long generateTimelineAsync(String name, String description, List<Long> regionIds, 
                                      LocalDateTime startTime, LocalDateTime endTime) {
-        log.info("异步生成时间线: name={}, regionIds={}, startTime={}, endTime={}", 
-                name, regionIds, startTime, endTime);
-        
+        return generateTimelineAsync(name, description, regionIds, startTime, endTime, null);
+    }
+    
+    @Override
+    @Transactional
+    public Long generateTimelineAsync(String name, String description, List<Long> regionIds, 
+                                     LocalDateTime startTime, LocalDateTime endTime, Integer timeBudgetSeconds) {
+        return generateTimelineAsync(name, description, regionIds, startTime, endTime, timeBudgetSeconds, null);
+    }
+    
+    @Override
+    @Transactional
+    public Long generateTimelineAsync(String name, String description, List<Long> regionIds, 
+                                     LocalDateTime startTime, LocalDateTime endTime, Integer timeBudgetSeconds,
+                                     PriorityClass priority) {
+        log.info("异步生成时间线: name={}, regionIds={}, startTime={}, endTime={}, timeBudgetSeconds={}, priority={}", 
+                name, regionIds, startTime, endTime, timeBudgetSeconds, priority);
+        
+        // 按名称获取创建租约，使防重复检查和创建在多个节点之间串行执行
+        GenerationLeaseService.Lease creationLease = acquireCreationLease(name);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务结束后再释放，其他节点的防重复检查能看到本次创建的时间线
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    leaseService.release(creationLease);
+                }
+            });
+            return createAndSubmitTimeline(name, description, regionIds, startTime, endTime, timeBudgetSeconds,
+                    priority);
+        }
+        try {
+            return createAndSubmitTimeline(name, description, regionIds, startTime, endTime, timeBudgetSeconds,
+                    priority);
+        } finally {
+            leaseService.release(creationLease);
+        }
+    }
+    
+    /**
+     * 获取时间线创建租约，其他节点正在创建同名时间线时等待
+     */
+    private GenerationLeaseService.Lease acquireCreationLease(String name) {
+        String leaseKey = "timeline-create:" + DigestUtils.md5DigestAsHex(
+                String.valueOf(name).getBytes(StandardCharsets.UTF_8));
+        long waitUntil = System.currentTimeMillis() + createLeaseWait;
+        while (true) {
+            GenerationLeaseService.Lease lease = leaseService.tryAcquire(leaseKey);
+            if (lease != null) {
+                return lease;
+            }
+            if (System.currentTimeMillis() >= waitUntil) {
+                throw new IllegalStateException("相同名称的时间线正在创建中，请稍后重试");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待时间线创建租约时被中断", e);
+            }
+        }
+    }
+    
+    private Long createAndSubmitTimeline(String name, String description, List<Long> regionIds,
+                                         LocalDateTime startTime, LocalDateTime endTime, Integer timeBudgetSeconds,
+                                         PriorityClass priority) {
         // 防重复创建检查1：检查是否已存在相同名称且状态为GENERATING的时间线
         LambdaQueryWrapper<Timeline> checkWrapper = new LambdaQueryWrapper<>();
         checkWrapper.eq(Timeline::getName, name)
@@ -293,52 +406,46 @@ public class TimelineServiceImpl implements TimelineService {
         progress.put("percentage", 0);
         progress.put("eventCount", 0);
         progress.put("relationCount", 0);
-        progress.put("currentStep", "准备生成时间线...");
+        progress.put("currentStep", "已加入生成队列，等待执行...");
+        
+        if (timelineGenerationTask == null) {
+            log.warn("TimelineGenerationTask未配置，跳过时间线生成");
+            saveProgress(timeline.getId(), progress);
+            // 直接标记为完成
+            completeGeneration(timeline.getId(), 0, 0);
+            return timeline.getId();
+        }
         
-        // 缓存进度信息
-        GENERATION_PROGRESS_CACHE.put(timeline.getId(), progress);
+        // 提交到持久化任务队列，由工作线程池执行；队列已满时抛出异常并回滚时间线创建
+        LocalDateTime deadlineAt = timeBudgetSeconds != null && timeBudgetSeconds > 0
+                ? LocalDateTime.now().plusSeconds(timeBudgetSeconds) : null;
+        Long jobId = timelineJobService.submit(timeline.getId(), regionIds, startTime, endTime, deadlineAt, priority);
+        progress.put("jobId", jobId);
         
-        // 异步执行时间线生成任务
-        startGenerationTask(timeline.getId(), regionIds, startTime, endTime);
+        // 保存进度信息
+        saveProgress(timeline.getId(), progress);
         
         return timeline.getId();
     }
     
-    @Async
-    protected void startGenerationTask(Long timelineId, List<Long> regionIds, 
-                                     LocalDateTime startTime, LocalDateTime endTime) {
-        try {
-            // 执行时间线生成任务
-            if (timelineGenerationTask != null) {
-                timelineGenerationTask.generateTimeline(timelineId, regionIds, startTime, endTime);
-            } else {
-                log.warn("TimelineGenerationTask未配置，跳过时间线生成");
-                // 直接标记为完成
-                completeGeneration(timelineId, 0, 0);
-            }
-        } catch (Exception e) {
-            log.error("时间线生成任务执行失败", e);
-            
-            // 更新时间线状态为失败
-            timelineMapper.updateStatus(timelineId, "FAILED");
-            
-            // 更新进度信息
-            Map<String, Object> progress = GENERATION_PROGRESS_CACHE.getOrDefault(timelineId, new HashMap<>());
-            progress.put("status", "FAILED");
-            progress.put("errorMessage", e.getMessage());
-            GENERATION_PROGRESS_CACHE.put(timelineId, progress);
-        }
-    }
-    
     @Override
     public Map<String, Object> getGenerationProgress(Long id) {
         log.info("获取时间线生成进度: {}", id);
         
-        // 从缓存中获取进度信息
-        Map<String, Object> progress = GENERATION_PROGRESS_CACHE.get(id);
+        // 生成任务在本节点执行时，进度存储中的进度最新
+        Map<String, Object> progress = timelineJobService.isRunningLocally(id)
+                ? timelineProgressService.getProgress(id) : null;
+        
+        // 否则读取执行节点保存的进度（任务可能在其他节点执行或已结束）
+        if (progress == null) {
+            progress = loadPersistedProgress(id);
+            if (progress != null && "GENERATING".equals(progress.get("status"))) {
+                appendJobInfo(id, progress);
+            }
+        }
         
         if (progress == null) {
-            // 如果缓存中没有进度信息，则查询数据库
+            // 没有保存的进度（如升级前创建的时间线），则根据时间线状态推算
             Timeline timeline = timelineMapper.selectById(id);
             
             if (timeline == null) {
@@ -355,6 +462,7 @@ public class TimelineServiceImpl implements TimelineService {
             
             if ("GENERATING".equals(timeline.getStatus())) {
                 progress.put("currentStep", "正在生成时间线...");
+                appendJobInfo(id, progress);
             } else if ("COMPLETED".equals(timeline.getStatus())) {
                 progress.put("currentStep", "时间线生成完成");
             } else if ("FAILED".equals(timeline.getStatus())) {
@@ -366,22 +474,224 @@ public class TimelineServiceImpl implements TimelineService {
         return progress;
     }
     
+    /**
+     * 根据任务状态补充排队和执行节点信息（任务可能已被放回队列等待其他节点接管）
+     */
+    private void appendJobInfo(Long timelineId, Map<String, Object> progress) {
+        TimelineGenerationJob job = timelineJobService.getLatestJob(timelineId);
+        if (job == null) {
+            return;
+        }
+        progress.put("jobId", job.getId());
+        progress.put("jobStatus", job.getStatus());
+        if (TimelineGenerationJob.Status.QUEUED.equals(job.getStatus())) {
+            int position = timelineJobService.getQueuePosition(job.getId());
+            progress.put("queuePosition", position);
+            progress.put("currentStep", "排队等待生成，前方还有 " + position + " 个任务");
+        } else if (TimelineGenerationJob.Status.RUNNING.equals(job.getStatus())) {
+            progress.put("ownerNode", job.getOwnerNode());
+        }
+    }
+    
+    /**
+     * 替换时间线的生成进度，并保存到数据库供其他节点查询
+     */
+    private void saveProgress(Long timelineId, Map<String, Object> progress) {
+        progress.put("updatedAt", System.currentTimeMillis());
+        timelineProgressService.putProgress(timelineId, progress);
+        persistProgress(timelineId, false);
+    }
+    
+    /**
+     * 合并时间线的生成进度，并立即保存到数据库供其他节点查询
+     */
+    private void mergeProgress(Long timelineId, Map<String, Object> changes) {
+        changes.put("updatedAt", System.currentTimeMillis());
+        timelineProgressService.mergeProgress(timelineId, changes);
+        persistProgress(timelineId, false);
+    }
+    
+    /**
+     * 合并生成中的进度并立即推送给订阅者，数据库中的进度和事件计数每个时间线最多每隔
+     * persist-interval保存一次，期间未保存的进度由定时任务补存
+     */
+    private void mergeProgressThrottled(Long timelineId, Map<String, Object> changes) {
+        long now = System.currentTimeMillis();
+        changes.put("updatedAt", now);
+        timelineProgressService.mergeProgress(timelineId, changes);
+        Long persistedAt = progressPersistedAt.get(timelineId);
+        if (persistedAt != null && now - persistedAt < progressPersistInterval) {
+            unpersistedProgress.add(timelineId);
+            return;
+        }
+        persistProgress(timelineId, true);
+    }
+    
+    /**
+     * 将内存中的最新进度保存到数据库。同一时间线的保存串行执行并在执行时读取进度，
+     * 使定时补存不会用较旧的进度覆盖已保存的完成或失败状态
+     *
+     * @param withCounts 是否同时更新时间线的事件数量和关系数量
+     */
+    private void persistProgress(Long timelineId, boolean withCounts) {
+        unpersistedProgress.remove(timelineId);
+        progressPersistedAt.compute(timelineId, (id, persistedAt) -> {
+            Map<String, Object> progress = timelineProgressService.getProgress(id);
+            if (progress == null) {
+                return persistedAt;
+            }
+            try {
+                timelineMapper.updateGenerationProgress(id, objectMapper.writeValueAsString(progress));
+                // 增量刷新期间时间线的计数保持刷新前的值，接管的节点据此恢复
+                if (withCounts && !refreshBaseCounts.containsKey(id) && progress.get("eventCount") instanceof Number eventCount
+                        && progress.get("relationCount") instanceof Number relationCount) {
+                    timelineMapper.updateProgress(id, eventCount.intValue(), relationCount.intValue());
+                }
+            } catch (Exception e) {
+                log.warn("保存时间线生成进度失败: id={}, error={}", id, e.getMessage());
+            }
+            return System.currentTimeMillis();
+        });
+    }
+    
+    /**
+     * 补存节流期间未保存的生成进度，并清理已超过保存间隔的保存时间记录
+     */
+    @Scheduled(fixedDelayString = "${timeline.progress.persist-interval:2000}")
+    public void flushUnpersistedProgress() {
+        for (Long timelineId : unpersistedProgress) {
+            persistProgress(timelineId, true);
+        }
+        long now = System.currentTimeMillis();
+        progressPersistedAt.entrySet().removeIf(entry -> now - entry.getValue() >= progressPersistInterval
+                && !unpersistedProgress.contains(entry.getKey()));
+    }
+    
+    private Map<String, Object> loadPersistedProgress(Long timelineId) {
+        try {
+            String json = timelineMapper.findGenerationProgress(timelineId);
+            if (!StringUtils.hasText(json)) {
+                return null;
+            }
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            log.warn("读取时间线生成进度失败: id={}, error={}", timelineId, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 为本节点的进度订阅同步在其他节点执行的生成任务的进度
+     */
+    @Scheduled(fixedDelayString = "${timeline.lease.progress-sync-interval:3000}")
+    public void syncSubscribedProgress() {
+        for (Long timelineId : timelineProgressService.getSubscribedTimelineIds()) {
+            if (timelineJobService.isRunningLocally(timelineId)) {
+                continue;
+            }
+            Map<String, Object> persisted = loadPersistedProgress(timelineId);
+            if (persisted == null) {
+                continue;
+            }
+            Map<String, Object> local = timelineProgressService.getProgress(timelineId);
+            if (local == null || !Objects.equals(local.get("updatedAt"), persisted.get("updatedAt"))) {
+                timelineProgressService.putProgress(timelineId, persisted);
+            }
+        }
+    }
+    
     @Override
     public boolean cancelGeneration(Long id) {
         log.info("取消时间线生成: {}", id);
         
+        // 取消排队或执行中的生成任务
+        timelineJobService.cancel(id);
+        
         // 更新时间线状态
         int result = timelineMapper.updateStatus(id, "FAILED");
         
         // 更新进度信息
-        Map<String, Object> progress = GENERATION_PROGRESS_CACHE.getOrDefault(id, new HashMap<>());
+        Map<String, Object> progress = new HashMap<>();
         progress.put("status", "FAILED");
         progress.put("errorMessage", "用户取消生成");
-        GENERATION_PROGRESS_CACHE.put(id, progress);
+        mergeProgress(id, progress);
         
         return result > 0;
     }
     
+    @Override
+    @Transactional
+    public boolean retryGeneration(Long id) {
+        log.info("重试时间线生成: {}", id);
+        
+        Timeline timeline = timelineMapper.selectById(id);
+        if (timeline == null || !"FAILED".equals(timeline.getStatus())) {
+            log.warn("时间线不存在或不处于失败状态，无法重试: id={}", id);
+            return false;
+        }
+        
+        timelineMapper.updateStatus(id, "GENERATING");
+        
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("id", id);
+        progress.put("status", "GENERATING");
+        progress.put("percentage", 0);
+        progress.put("eventCount", 0);
+        progress.put("relationCount", 0);
+        progress.put("currentStep", "已重新加入生成队列，等待执行...");
+        
+        // 生成任务会从分段检查点恢复已完成的时间段
+        List<Long> regionIds = timelineRegionMapper.findRegionIdsByTimelineId(id);
+        Long jobId = timelineJobService.submit(id, regionIds, timeline.getStartTime(), timeline.getEndTime());
+        progress.put("jobId", jobId);
+        saveProgress(id, progress);
+        
+        return true;
+    }
+    
+    @Override
+    @Transactional
+    public boolean refreshTimeline(Long id) {
+        log.info("增量刷新时间线: {}", id);
+        
+        Timeline timeline = timelineMapper.selectById(id);
+        if (timeline == null || !"COMPLETED".equals(timeline.getStatus())) {
+            log.warn("时间线不存在或不处于完成状态，无法刷新: id={}", id);
+            return false;
+        }
+        
+        // 从上次成功生成的时间往前重叠一段，覆盖上次生成期间才发布的事件；早期数据没有该字段时以更新时间代替
+        LocalDateTime lastGeneratedAt = timeline.getLastGeneratedAt() != null ? timeline.getLastGeneratedAt()
+                : timeline.getUpdatedAt() != null ? timeline.getUpdatedAt() : timeline.getCreatedAt();
+        LocalDateTime windowEnd = LocalDateTime.now();
+        LocalDateTime windowStart = lastGeneratedAt.minusHours(refreshOverlapHours);
+        if (timeline.getStartTime() != null && windowStart.isBefore(timeline.getStartTime())) {
+            windowStart = timeline.getStartTime();
+        }
+        if (!windowStart.isBefore(windowEnd)) {
+            log.warn("刷新时间窗口为空，无需刷新: id={}, windowStart={}", id, windowStart);
+            return false;
+        }
+        
+        timelineMapper.updateStatus(id, "GENERATING");
+        
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("id", id);
+        progress.put("status", "GENERATING");
+        progress.put("percentage", 0);
+        progress.put("eventCount", timeline.getEventCount());
+        progress.put("relationCount", timeline.getRelationCount());
+        progress.put("currentStep", "已加入刷新队列，等待执行...");
+        
+        List<Long> regionIds = timelineRegionMapper.findRegionIdsByTimelineId(id);
+        Long jobId = timelineJobService.submitRefresh(id, regionIds, windowStart, windowEnd);
+        progress.put("jobId", jobId);
+        saveProgress(id, progress);
+        
+        log.info("增量刷新任务已提交: id={}, jobId={}, window={} ~ {}", id, jobId, windowStart, windowEnd);
+        return true;
+    }
+    
     @Override
     public List<Map<String, Object>> getTimelineRegions(Long timelineId) {
         log.info("获取时间线包含的地区: {}", timelineId);
@@ -456,8 +766,15 @@ public class TimelineServiceImpl implements TimelineService {
         log.info("更新时间线生成进度: id={}, percentage={}, eventCount={}, relationCount={}, currentStep={}",
                 timelineId, percentage, eventCount, relationCount, currentStep);
         
+        // 增量刷新时上报的是本次新获取的数量，进度显示刷新前的数量加上新增数量
+        int[] baseCounts = refreshBaseCounts.get(timelineId);
+        if (baseCounts != null) {
+            eventCount += baseCounts[0];
+            relationCount += baseCounts[1];
+        }
+        
         // 更新进度信息
-        Map<String, Object> progress = GENERATION_PROGRESS_CACHE.getOrDefault(timelineId, new HashMap<>());
+        Map<String, Object> progress = new HashMap<>();
         progress.put("id", timelineId);
         progress.put("status", "GENERATING");
         progress.put("percentage", percentage);
@@ -465,10 +782,27 @@ public class TimelineServiceImpl implements TimelineService {
         progress.put("relationCount", relationCount);
         progress.put("currentStep", currentStep);
         
-        GENERATION_PROGRESS_CACHE.put(timelineId, progress);
-        
-        // 更新数据库中的事件数量和关系数量
-        timelineMapper.updateProgress(timelineId, eventCount, relationCount);
+        // 每个事件到达时都会更新进度，订阅者立即收到推送，数据库中的进度和计数按间隔保存
+        mergeProgressThrottled(timelineId, progress);
+    }
+    
+    /**
+     * 开始增量刷新的进度上报，刷新期间的进度计数在刷新前的数量上累加，
+     * 且不写入时间线的事件数和关系数，直到刷新完成或失败
+     * @param timelineId 时间线ID
+     * @param baseEventCount 刷新前的事件数量
+     * @param baseRelationCount 刷新前的关系数量
+     */
+    public void beginRefreshProgress(Long timelineId, int baseEventCount, int baseRelationCount) {
+        refreshBaseCounts.put(timelineId, new int[] {baseEventCount, baseRelationCount});
+    }
+    
+    /**
+     * 结束增量刷新的进度上报
+     * @param timelineId 时间线ID
+     */
+    public void endRefreshProgress(Long timelineId) {
+        refreshBaseCounts.remove(timelineId);
     }
     
     /**
@@ -478,8 +812,28 @@ public class TimelineServiceImpl implements TimelineService {
      * @param relationCount 关系数量
      */
     public void completeGeneration(Long timelineId, int eventCount, int relationCount) {
-        log.info("完成时间线生成: id={}, eventCount={}, relationCount={}",
-                timelineId, eventCount, relationCount);
+        completeGeneration(timelineId, eventCount, relationCount, false);
+    }
+    
+    /**
+     * 完成时间线生成
+     * @param timelineId 时间线ID
+     * @param eventCount 事件数量
+     * @param relationCount 关系数量
+     * @param incomplete 是否因超过时间预算只包含部分结果
+     */
+    public void completeGeneration(Long timelineId, int eventCount, int relationCount, boolean incomplete) {
+        completeGeneration(timelineId, eventCount, relationCount, incomplete, null);
+    }
+    
+    /**
+     * 完成时间线生成
+     * @param extraProgress 附加的进度字段，与完成状态一起推送给订阅者
+     */
+    private void completeGeneration(Long timelineId, int eventCount, int relationCount, boolean incomplete,
+                                    Map<String, Object> extraProgress) {
+        log.info("完成时间线生成: id={}, eventCount={}, relationCount={}, incomplete={}",
+                timelineId, eventCount, relationCount, incomplete);
         
         // 更新时间线状态
         timelineMapper.updateStatus(timelineId, "COMPLETED");
@@ -487,6 +841,14 @@ public class TimelineServiceImpl implements TimelineService {
         // 更新事件数量和关系数量
         timelineMapper.updateProgress(timelineId, eventCount, relationCount);
         
+        // 只包含部分结果时不推进生成时间，下次刷新会重新检索被跳过的时间段
+        if (!incomplete) {
+            timelineMapper.updateLastGeneratedAt(timelineId, LocalDateTime.now());
+        }
+        
+        // 生成完成后检查点不再需要
+        timelineCheckpointService.clear(timelineId);
+        
         // 更新缓存记录状态
         try {
             if (duplicationDetectionService != null) {
@@ -501,15 +863,64 @@ public class TimelineServiceImpl implements TimelineService {
         }
         
         // 更新进度信息
-        Map<String, Object> progress = GENERATION_PROGRESS_CACHE.getOrDefault(timelineId, new HashMap<>());
+        Map<String, Object> progress = new HashMap<>();
         progress.put("id", timelineId);
         progress.put("status", "COMPLETED");
         progress.put("percentage", 100);
         progress.put("eventCount", eventCount);
         progress.put("relationCount", relationCount);
-        progress.put("currentStep", "时间线生成完成");
+        progress.put("incomplete", incomplete);
+        progress.put("currentStep", incomplete ? "已达时间预算，时间线以部分结果完成" : "时间线生成完成");
+        if (extraProgress != null) {
+            progress.putAll(extraProgress);
+        }
         
-        GENERATION_PROGRESS_CACHE.put(timelineId, progress);
+        mergeProgress(timelineId, progress);
+    }
+    
+    /**
+     * 完成时间线增量刷新
+     * @param timelineId 时间线ID
+     * @param eventCount 刷新后的事件数量
+     * @param relationCount 刷新后的关系数量
+     * @param appendedCount 本次追加的事件数量
+     * @param windowEnd 刷新窗口结束时间，时间线结束时间延长到该时间
+     * @param incomplete 是否因超过时间预算只包含部分结果
+     */
+    public void completeRefresh(Long timelineId, int eventCount, int relationCount, int appendedCount,
+                                LocalDateTime windowEnd, boolean incomplete) {
+        timelineMapper.extendEndTime(timelineId, windowEnd);
+        
+        Map<String, Object> extraProgress = new HashMap<>();
+        extraProgress.put("appendedCount", appendedCount);
+        extraProgress.put("currentStep", String.format("增量刷新完成，新增 %d 个事件", appendedCount));
+        completeGeneration(timelineId, eventCount, relationCount, incomplete, extraProgress);
+    }
+    
+    /**
+     * 增量刷新失败，时间线恢复为刷新前的状态和计数
+     * @param timelineId 时间线ID
+     * @param eventCount 刷新前的事件数量
+     * @param relationCount 刷新前的关系数量
+     * @param errorMessage 错误信息
+     */
+    public void failRefresh(Long timelineId, int eventCount, int relationCount, String errorMessage) {
+        log.info("时间线增量刷新失败: id={}, errorMessage={}", timelineId, errorMessage);
+        
+        timelineMapper.updateStatus(timelineId, "COMPLETED");
+        timelineMapper.updateProgress(timelineId, eventCount, relationCount);
+        timelineCheckpointService.clear(timelineId);
+        
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("id", timelineId);
+        progress.put("status", "COMPLETED");
+        progress.put("percentage", 100);
+        progress.put("eventCount", eventCount);
+        progress.put("relationCount", relationCount);
+        progress.put("errorMessage", errorMessage);
+        progress.put("currentStep", "增量刷新失败，时间线保持刷新前的内容");
+        
+        mergeProgress(timelineId, progress);
     }
     
     /**
@@ -537,12 +948,12 @@ public class TimelineServiceImpl implements TimelineService {
         }
         
         // 更新进度信息
-        Map<String, Object> progress = GENERATION_PROGRESS_CACHE.getOrDefault(timelineId, new HashMap<>());
+        Map<String, Object> progress = new HashMap<>();
         progress.put("id", timelineId);
         progress.put("status", "FAILED");
         progress.put("errorMessage", errorMessage);
         
-        GENERATION_PROGRESS_CACHE.put(timelineId, progress);
+        mergeProgress(timelineId, progress);
     }
     
     @Override
@@ -574,29 +985,29 @@ public class TimelineServiceImpl implements TimelineService {
     
     @Override
     @Transactional
-    public void associateEvents(Long timelineId, List<Long> eventIds) {
-        log.info("关联事件到时间线: timelineId={}, eventIds={}", timelineId, eventIds);
-        
+    public int associateEvents(Long timelineId, List<Long> eventIds) {
         if (eventIds == null || eventIds.isEmpty()) {
-            return;
+            return 0;
         }
         
-        LocalDateTime now = LocalDateTime.now();
-        for (Long eventId : eventIds) {
-            // 检查是否已经存在关联
-            LambdaQueryWrapper<TimelineEvent> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(TimelineEvent::getTimelineId, timelineId)
-                    .eq(TimelineEvent::getEventId, eventId);
-            
-            TimelineEvent existing = timelineEventMapper.selectOne(wrapper);
-            if (existing == null) {
-                TimelineEvent item = new TimelineEvent();
-                item.setTimelineId(timelineId);
-                item.setEventId(eventId);
-                item.setCreatedAt(now);
-                timelineEventMapper.insert(item);
-            }
+        // 去重后按批多行插入，已存在的关联由唯一键忽略，避免逐条检查和并发重复插入
+        List<Long> distinctIds = eventIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        int batchSize = Math.max(1, associationBatchSize);
+        int inserted = 0;
+        for (int start = 0; start < distinctIds.size(); start += batchSize) {
+            List<Long> batch = distinctIds.subList(start, Math.min(start + batchSize, distinctIds.size()));
+            inserted += timelineEventMapper.batchInsert(timelineId, batch);
         }
+        if (inserted > 0) {
+            timelineMapper.refreshEventCount(timelineId);
+        }
+        
+        log.info("关联事件到时间线: timelineId={}, eventCount={}, inserted={}",
+                timelineId, distinctIds.size(), inserted);
+        return inserted;
     }
     
     @Override
@@ -612,37 +1023,17 @@ public class TimelineServiceImpl implements TimelineService {
                 return false;
             }
             
-            // 检查是否已经存在关联
-            LambdaQueryWrapper<TimelineEvent> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(TimelineEvent::getTimelineId, timelineId)
-                    .eq(TimelineEvent::getEventId, eventId);
-            
-            TimelineEvent existing = timelineEventMapper.selectOne(wrapper);
-            if (existing != null) {
+            // 创建新的关联，已存在的关联由唯一键忽略
+            int result = timelineEventMapper.batchInsert(timelineId, List.of(eventId));
+            if (result == 0) {
                 log.info("事件已经关联到时间线: timelineId={}, eventId={}", timelineId, eventId);
                 return true;
             }
             
-            // 创建新的关联
-            TimelineEvent item = new TimelineEvent();
-            item.setTimelineId(timelineId);
-            item.setEventId(eventId);
-            item.setCreatedAt(LocalDateTime.now());
-            
-            int result = timelineEventMapper.insert(item);
-            
-            if (result > 0) {
-                // 更新时间线的事件数量
-                timeline.setEventCount((timeline.getEventCount() != null ? timeline.getEventCount() : 0) + 1);
-                timeline.setUpdatedAt(LocalDateTime.now());
-                timelineMapper.updateById(timeline);
-                
-                log.info("成功添加事件到时间线: timelineId={}, eventId={}", timelineId, eventId);
-                return true;
-            } else {
-                log.warn("添加事件到时间线失败: timelineId={}, eventId={}", timelineId, eventId);
-                return false;
-            }
+            // 更新时间线的事件数量
+            timelineMapper.refreshEventCount(timelineId);
+            log.info("成功添加事件到时间线: timelineId={}, eventId={}", timelineId, eventId);
+            return true;
         } catch (Exception e) {
             log.error("添加事件到时间线异常: timelineId={}, eventId={}", timelineId, eventId, e);
             return false;
@@ -1,13 +1,15 @@
 package com.hotech.events.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotech.events.service.LlmHttpClient;
+import com.hotech.events.service.LlmResponseCacheService;
 import com.hotech.events.service.WebSearchService;
+import com.hotech.events.util.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -63,8 +65,13 @@ public class WebSearchServiceImpl implements WebSearchService {
     @Autowired
     private com.hotech.events.config.DynamicApiConfigManager dynamicApiConfigManager;
 
+    @Autowired
+    private LlmHttpClient llmHttpClient;
+
+    @Autowired
+    private LlmResponseCacheService responseCacheService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final RestTemplate restTemplate = new RestTemplate();
 
     // 统计信息
     private final AtomicLong totalSearchRequests = new AtomicLong(0);
@@ -77,6 +84,9 @@ public class WebSearchServiceImpl implements WebSearchService {
     private final Map<String, Long> cacheTimestamps = new ConcurrentHashMap<>();
     private final long cacheExpirationTime = 300000; // 5分钟缓存
 
+    // 进行中的搜索请求
+    private final SingleFlight<String> inFlightSearches = new SingleFlight<>();
+
     @Override
     public boolean isWebSearchAvailable() {
         return webSearchEnabled && deepseekApiKey != null && !deepseekApiKey.isEmpty();
@@ -183,6 +193,8 @@ public class WebSearchServiceImpl implements WebSearchService {
         }
         
         stats.put("cacheSize", searchCache.size());
+        stats.put("inFlightRequests", inFlightSearches.inFlightSize());
+        stats.put("coalescedRequests", inFlightSearches.getCoalescedCount());
         stats.put("isEnabled", webSearchEnabled);
         stats.put("isAvailable", isWebSearchAvailable());
         
@@ -228,8 +240,16 @@ public class WebSearchServiceImpl implements WebSearchService {
 
     /**
      * 调用DeepSeek API并根据配置启用联网搜索
+     * 相同提示词的并发请求按缓存键合并为一次调用
      */
     private String callDeepSeekAPIWithWebSearch(String prompt) {
+        return inFlightSearches.execute(generateCacheKey(prompt), () -> doCallDeepSeekAPIWithWebSearch(prompt));
+    }
+
+    /**
+     * 实际执行联网搜索API调用
+     */
+    private String doCallDeepSeekAPIWithWebSearch(String prompt) {
         long startTime = System.currentTimeMillis();
         totalSearchRequests.incrementAndGet();
 
@@ -266,20 +286,19 @@ public class WebSearchServiceImpl implements WebSearchService {
             messages.add(message);
             requestBody.put("messages", messages);
 
-            // 创建HTTP请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + apiConfig.apiKey);
-
-            // 创建HTTP请求实体
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
-
             log.debug("调用DeepSeek API: apiUrl={}, model={}, webSearch={}, promptLength={}", 
                     apiConfig.apiUrl, apiConfig.model, apiConfig.supportsWebSearch && webSearchEnabled, prompt.length());
 
+            // 内存缓存未命中时读取持久化响应缓存
+            String persistedContent = responseCacheService.get(apiConfig.apiUrl, requestBody);
+            if (persistedContent != null) {
+                cacheResult(cacheKey, persistedContent);
+                return persistedContent;
+            }
+
             // 发送请求
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                    apiConfig.apiUrl, requestEntity, String.class);
+            ResponseEntity<String> response = llmHttpClient.post(
+                    apiConfig.apiUrl, apiConfig.apiKey, requestBody, String.class);
 
             long responseTime = System.currentTimeMillis() - startTime;
             totalSearchTime.addAndGet(responseTime);
@@ -299,6 +318,7 @@ public class WebSearchServiceImpl implements WebSearchService {
                             
                             // 缓存结果
                             cacheResult(cacheKey, content);
+                            responseCacheService.put(apiConfig.apiUrl, requestBody, content);
                             
                             successfulSearchRequests.incrementAndGet();
                             log.info("联网搜索API调用成功: responseTime={}ms, responseLength={}", 
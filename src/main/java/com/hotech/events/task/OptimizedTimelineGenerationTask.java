@@ -4,6 +4,7 @@ import com.hotech.events.dto.EventData;
 import com.hotech.events.dto.EventValidationResult;
 import com.hotech.events.dto.TimelineGenerateRequest;
 import com.hotech.events.service.*;
+import com.hotech.events.util.RequestFingerprintGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -44,6 +45,9 @@ public class OptimizedTimelineGenerationTask {
     @Autowired
     private TimelineService timelineService;
 
+    @Autowired
+    private RequestFingerprintGenerator requestFingerprintGenerator;
+
     @Value("${app.deepseek.enhanced.batch-size:10}")
     private int batchSize;
 
@@ -339,26 +343,9 @@ public class OptimizedTimelineGenerationTask {
     }
 
     /**
-     * 生成请求缓存键
+     * 生成请求缓存键（规范化请求指纹）
      */
     private String generateRequestKey(TimelineGenerateRequest request) {
-        StringBuilder keyBuilder = new StringBuilder();
-        keyBuilder.append(request.getName()).append("_");
-        keyBuilder.append(request.getDescription()).append("_");
-
-        if (request.getRegionIds() != null) {
-            keyBuilder.append(String.join(",", request.getRegionIds().stream()
-                    .map(String::valueOf).toArray(String[]::new))).append("_");
-        }
-
-        if (request.getStartTime() != null) {
-            keyBuilder.append(request.getStartTime().toString()).append("_");
-        }
-
-        if (request.getEndTime() != null) {
-            keyBuilder.append(request.getEndTime().toString());
-        }
-
-        return keyBuilder.toString();
+        return requestFingerprintGenerator.fingerprint(request);
     }
-}
\ No newline at end of file
+}
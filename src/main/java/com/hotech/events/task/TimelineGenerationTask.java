@@ -2,8 +2,10 @@ package com.hotech.events.task;
 
 import com.hotech.events.dto.EventData;
 import com.hotech.events.dto.EventValidationResult;
+import com.hotech.events.dto.SegmentFetchResult;
 import com.hotech.events.dto.TimelineGenerateRequest;
 import com.hotech.events.entity.Region;
+import com.hotech.events.entity.Timeline;
 import com.hotech.events.mapper.RegionMapper;
 import com.hotech.events.mapper.TimelineEventMapper;
 import com.hotech.events.service.EnhancedDeepSeekService;
@@ -15,21 +17,34 @@ import com.hotech.events.service.EventParsingEnhancer;
 import com.hotech.events.service.FallbackDataGenerator;
 import com.hotech.events.service.RealTimeMonitoringService;
 import com.hotech.events.service.TimeSegmentationService;
+import com.hotech.events.service.TimelineCheckpointService;
+import com.hotech.events.service.TimelineProgressService;
 import com.hotech.events.dto.TimeSegment;
 import com.hotech.events.config.DynamicApiConfigManager;
 import com.hotech.events.config.DynamicSystemConfig;
+import com.hotech.events.util.BoundedPipeline;
+import com.hotech.events.util.CancellationToken;
+import com.hotech.events.util.Deadline;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -52,6 +67,20 @@ public class TimelineGenerationTask {
     private final FallbackDataGenerator fallbackDataGenerator;
     private final TimeSegmentationService timeSegmentationService;
     private final DynamicSystemConfig dynamicSystemConfig;
+    private final TimelineCheckpointService timelineCheckpointService;
+    private final TimelineProgressService timelineProgressService;
+
+    @Value("${timeline.pipeline.queue-capacity:64}")
+    private int pipelineQueueCapacity;
+
+    @Value("${timeline.pipeline.geo-workers:2}")
+    private int pipelineGeoWorkers;
+
+    @Value("${timeline.pipeline.storage-workers:2}")
+    private int pipelineStorageWorkers;
+
+    @Value("${timeline.pipeline.drain-timeout:300000}")
+    private long pipelineDrainTimeout;
 
     @Autowired
     public TimelineGenerationTask(
@@ -66,7 +95,9 @@ public class TimelineGenerationTask {
             EventParsingEnhancer eventParsingEnhancer,
             FallbackDataGenerator fallbackDataGenerator,
             TimeSegmentationService timeSegmentationService,
-            DynamicSystemConfig dynamicSystemConfig) {
+            DynamicSystemConfig dynamicSystemConfig,
+            @Autowired(required = false) TimelineCheckpointService timelineCheckpointService,
+            TimelineProgressService timelineProgressService) {
         this.timelineService = timelineService;
         this.regionMapper = regionMapper;
         this.timelineEventMapper = timelineEventMapper;
@@ -79,6 +110,8 @@ public class TimelineGenerationTask {
         this.fallbackDataGenerator = fallbackDataGenerator;
         this.timeSegmentationService = timeSegmentationService;
         this.dynamicSystemConfig = dynamicSystemConfig;
+        this.timelineCheckpointService = timelineCheckpointService;
+        this.timelineProgressService = timelineProgressService;
     }
 
     /**
@@ -102,6 +135,7 @@ public class TimelineGenerationTask {
                         : "未知");
 
         long startTimestamp = System.currentTimeMillis();
+        EventStoragePipeline storagePipeline = null;
 
         try {
             // 阶段1：准备工作 (0-15%)
@@ -132,8 +166,18 @@ public class TimelineGenerationTask {
             // 阶段2：智能事件检索并直接入库 (15-60%)
             log.info("🔍 [{}] ========== 阶段2: 智能事件检索并直接入库 (15-60%) ==========", taskId);
             long retrievalStartTime = System.currentTimeMillis();
-            List<EventData> retrievedEvents = performIntelligentEventRetrieval(timelineId, request);
+            // 检索到的事件边到达边进入入库流水线，存储与后续时间段的检索重叠执行
+            storagePipeline = new EventStoragePipeline(timelineId);
+            List<EventData> retrievedEvents = performIntelligentEventRetrieval(timelineId, request,
+                    storagePipeline::submit);
             long retrievalEndTime = System.currentTimeMillis();
+            CancellationToken.checkCurrent();
+
+            if (CollectionUtils.isEmpty(retrievedEvents) && Deadline.checkExpired()) {
+                log.warn("⏱️ [{}] 时间预算内未检索到事件，以空结果完成时间线", taskId);
+                finalizeTimelineGeneration(timelineId, 0, 0);
+                return;
+            }
 
             if (CollectionUtils.isEmpty(retrievedEvents)) {
                 log.error("🔍 [{}] 事件检索失败: 未检索到相关事件数据", taskId);
@@ -159,7 +203,7 @@ public class TimelineGenerationTask {
             timelineService.updateGenerationProgress(timelineId, 45, retrievedEvents.size(), 0, "正在存储检索到的事件...");
 
             long storageStartTime = System.currentTimeMillis();
-            List<Long> storedEventIds = performEventStorage(timelineId, retrievedEvents);
+            List<Long> storedEventIds = performEventStorage(timelineId, retrievedEvents, storagePipeline);
             long storageEndTime = System.currentTimeMillis();
 
             log.info("💾 [{}] 事件存储完成: 检索{}个事件，成功存储{}个事件，耗时: {}ms",
@@ -195,6 +239,9 @@ public class TimelineGenerationTask {
             log.info("🔗 [{}] 时间线编制完成: 处理{}个事件，耗时: {}ms",
                     taskId, storedEventIds.size(), compilationEndTime - compilationStartTime);
 
+            // 取消或放弃时不以部分数据完成时间线
+            CancellationToken.checkCurrent();
+
             // 阶段6：完成处理 (90-100%)
             log.info("🎯 [{}] ========== 阶段6: 完成处理 (90-100%) ==========", taskId);
             long finalizationStartTime = System.currentTimeMillis();
@@ -216,7 +263,18 @@ public class TimelineGenerationTask {
                     storedEventIds.size() > 0 ? totalTime / storedEventIds.size() : 0);
             log.info("🎉 [{}] ========== 重构版时间线生成完成 ==========", taskId);
 
+        } catch (CancellationException e) {
+            // 取消时时间线状态已由cancelGeneration更新；放弃时（停机或租约丢失）保持原状态，由接管的节点继续生成
+            log.info("⛔ [{}] 时间线生成已{}: timelineId={}, 耗时: {}ms", taskId,
+                    CancellationToken.isCurrentAbandoned() ? "放弃" : "取消",
+                    timelineId, System.currentTimeMillis() - startTimestamp);
         } catch (Exception e) {
+            if (CancellationToken.isCurrentCancelled()) {
+                // 取消或放弃时被中断的阶段可能以其他异常退出，不将时间线标记为失败
+                log.info("⛔ [{}] 时间线生成已{}: timelineId={}, error={}", taskId,
+                        CancellationToken.isCurrentAbandoned() ? "放弃" : "取消", timelineId, e.getMessage());
+                return;
+            }
             long errorTime = System.currentTimeMillis() - startTimestamp;
             log.error("❌ [{}] ========== 时间线生成失败 ==========", taskId);
             log.error("❌ [{}] 时间线ID: {}", taskId, timelineId);
@@ -226,9 +284,119 @@ public class TimelineGenerationTask {
             log.error("❌ [{}] ========== 时间线生成失败结束 ==========", taskId);
 
             timelineService.failGeneration(timelineId, e.getMessage());
+        } finally {
+            // 异常退出时丢弃流水线中未处理的事件
+            if (storagePipeline != null) {
+                storagePipeline.abort();
+            }
+        }
+    }
+
+    /**
+     * 增量刷新时间线
+     * 只检索刷新窗口内的事件，按标题和日期与时间线已有事件去重后入库并追加关联，事件数和关系数在原有基础上累加；
+     * 刷新失败时时间线保持刷新前的内容
+     *
+     * @param timelineId  时间线ID
+     * @param regionIds   地区ID列表
+     * @param windowStart 刷新窗口开始时间
+     * @param windowEnd   刷新窗口结束时间
+     * @return 是否刷新成功
+     */
+    public boolean refreshTimeline(Long timelineId, List<Long> regionIds,
+            LocalDateTime windowStart, LocalDateTime windowEnd) {
+        String taskId = UUID.randomUUID().toString().substring(0, 8);
+        log.info("🔄 [{}] 开始增量刷新时间线: timelineId={}, window={} ~ {}", taskId, timelineId, windowStart, windowEnd);
+
+        Timeline timeline = timelineService.getById(timelineId);
+        if (timeline == null) {
+            log.warn("🔄 [{}] 时间线不存在，跳过增量刷新: timelineId={}", taskId, timelineId);
+            return false;
+        }
+        // 事件数按关联表统计，不读取刷新期间可能被写入的计数列
+        int baseEventCount = timelineEventMapper.countEventsByTimelineId(timelineId);
+        int baseRelationCount = timeline.getRelationCount() != null ? timeline.getRelationCount() : 0;
+
+        long startTimestamp = System.currentTimeMillis();
+        EventStoragePipeline storagePipeline = null;
+        timelineService.beginRefreshProgress(timelineId, baseEventCount, baseRelationCount);
+
+        try {
+            timelineService.updateGenerationProgress(timelineId, 5, 0, 0, "正在准备增量刷新...");
+
+            TimelineGenerateRequest request = buildTimelineRequest(timelineId, regionIds, windowStart, windowEnd);
+            request.setIncremental(true);
+
+            // 已有事件的标题和日期预先放入流水线的去重集合，重叠窗口内的旧事件不再入库
+            Set<String> existingKeys = new HashSet<>();
+            for (Map<String, Object> row : timelineEventMapper.findEventTitleDatesByTimelineId(timelineId)) {
+                Object title = row.get("event_title");
+                Object date = row.get("event_date");
+                existingKeys.add((title != null ? title.toString().trim().toLowerCase() : "") + "|"
+                        + (date != null ? date : ""));
+            }
+            Set<Long> existingEventIds = new HashSet<>(timelineEventMapper.findEventIdsByTimelineId(timelineId));
+            log.info("🔄 [{}] 时间线已有 {} 个事件", taskId, existingEventIds.size());
+
+            storagePipeline = new EventStoragePipeline(timelineId, existingKeys);
+            List<EventData> retrievedEvents = performIntelligentEventRetrieval(timelineId, request,
+                    storagePipeline::submit);
+            CancellationToken.checkCurrent();
+
+            List<EventData> newEvents = retrievedEvents.stream()
+                    .filter(event -> !existingKeys.contains(getEventKey(event)))
+                    .collect(Collectors.toList());
+
+            // 存储去重可能返回已有事件的ID，只追加尚未关联的事件
+            List<Long> appendedEventIds = performEventStorage(timelineId, newEvents, storagePipeline).stream()
+                    .filter(id -> id != null && !existingEventIds.contains(id))
+                    .collect(Collectors.toList());
+
+            if (!appendedEventIds.isEmpty()) {
+                performTimelineCompilation(timelineId, appendedEventIds, newEvents);
+            }
+
+            CancellationToken.checkCurrent();
+            Deadline deadline = Deadline.current();
+            timelineService.completeRefresh(timelineId, baseEventCount + appendedEventIds.size(),
+                    baseRelationCount + newEvents.size(), appendedEventIds.size(), windowEnd,
+                    deadline != null && deadline.isIncomplete());
+
+            log.info("🔄 [{}] 增量刷新完成: timelineId={}, 检索{}个事件, 新增{}个事件, 耗时: {}ms",
+                    taskId, timelineId, retrievedEvents.size(), appendedEventIds.size(),
+                    System.currentTimeMillis() - startTimestamp);
+            return true;
+
+        } catch (CancellationException e) {
+            return handleRefreshCancelled(taskId, timelineId, baseEventCount, baseRelationCount);
+        } catch (Exception e) {
+            if (CancellationToken.isCurrentCancelled()) {
+                return handleRefreshCancelled(taskId, timelineId, baseEventCount, baseRelationCount);
+            }
+            log.error("❌ [{}] 增量刷新失败: timelineId={}, error={}", taskId, timelineId, e.getMessage(), e);
+            timelineService.failRefresh(timelineId, baseEventCount, baseRelationCount, e.getMessage());
+            return false;
+        } finally {
+            timelineService.endRefreshProgress(timelineId);
+            if (storagePipeline != null) {
+                storagePipeline.abort();
+            }
         }
     }
 
+    /**
+     * 刷新被取消时恢复刷新前的状态；被放弃时（停机或租约丢失）保持原状态，由接管的节点继续刷新
+     */
+    private boolean handleRefreshCancelled(String taskId, Long timelineId, int baseEventCount, int baseRelationCount) {
+        if (CancellationToken.isCurrentAbandoned()) {
+            log.info("⛔ [{}] 增量刷新已放弃，由其他节点接管: timelineId={}", taskId, timelineId);
+            return false;
+        }
+        log.info("⛔ [{}] 增量刷新已取消: timelineId={}", taskId, timelineId);
+        timelineService.failRefresh(timelineId, baseEventCount, baseRelationCount, "用户取消刷新");
+        return false;
+    }
+
     /**
      * 使用动态提示词的时间线生成（新增方法）
      * 
@@ -380,7 +548,8 @@ public class TimelineGenerationTask {
     /**
      * 执行智能事件检索（集成时间段分割和批量API调用）
      */
-    private List<EventData> performIntelligentEventRetrieval(Long timelineId, TimelineGenerateRequest request) {
+    private List<EventData> performIntelligentEventRetrieval(Long timelineId, TimelineGenerateRequest request,
+            Consumer<EventData> eventSink) {
         String requestId = UUID.randomUUID().toString();
         log.info("🔍 [{}] 开始智能事件检索: timelineId={}, startTime={}, endTime={}",
                 requestId, timelineId, request.getStartTime(), request.getEndTime());
@@ -394,15 +563,22 @@ public class TimelineGenerationTask {
 
             if (needsSegmentation) {
                 log.info("🔍 [{}] 时间跨度较大，启用时间段分割处理", requestId);
-                return performSegmentedEventRetrieval(timelineId, request, requestId);
+                return performSegmentedEventRetrieval(timelineId, request, requestId, eventSink);
             } else {
                 log.info("🔍 [{}] 时间跨度适中，使用单次API调用", requestId);
                 return performSingleEventRetrieval(timelineId, request, requestId);
             }
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("🔍 [{}] 智能事件检索失败: {}", requestId, e.getMessage(), e);
 
+            // 增量刷新不以备用数据追加到已有时间线
+            if (request.isIncremental()) {
+                throw new RuntimeException("增量刷新事件检索失败: " + e.getMessage(), e);
+            }
+
             // 异常情况下的备用数据机制
             try {
                 log.info("🔍 [{}] 启用异常情况备用数据机制", requestId);
@@ -418,15 +594,16 @@ public class TimelineGenerationTask {
      * 执行分段事件检索（大时间跨度）
      */
     private List<EventData> performSegmentedEventRetrieval(Long timelineId, TimelineGenerateRequest request,
-            String requestId) {
+            String requestId, Consumer<EventData> eventSink) {
         log.info("🔍 [{}] 开始分段事件检索", requestId);
 
         try {
             // 阶段1: 时间段分割
             timelineService.updateGenerationProgress(timelineId, 18, 0, 0, "正在分割时间段...");
 
-            List<TimeSegment> timeSegments = timeSegmentationService.segmentTimeRange(
-                    request.getStartTime(), request.getEndTime(), 30); // 默认30天为一个时间段
+            // 按地区历史事件密度分割，密集时期切分更细，空白时期合并
+            List<TimeSegment> timeSegments = timeSegmentationService.adaptiveSegmentTimeRange(
+                    request.getStartTime(), request.getEndTime(), request.getRegionIds());
 
             log.info("🔍 [{}] 时间段分割完成，共分割为 {} 个时间段", requestId, timeSegments.size());
 
@@ -434,7 +611,8 @@ public class TimelineGenerationTask {
             timelineService.updateGenerationProgress(timelineId, 20, 0, 0,
                     String.format("正在批量处理 %d 个时间段...", timeSegments.size()));
 
-            List<EventData> allEvents = fetchEventsBatchWithProgress(timelineId, timeSegments, request, requestId);
+            List<EventData> allEvents = fetchEventsBatchWithProgress(timelineId, timeSegments, request, requestId,
+                    eventSink);
 
             timelineService.updateGenerationProgress(timelineId, 30, allEvents.size(), 0,
                     String.format("批量检索完成，共获得 %d 个事件", allEvents.size()));
@@ -461,7 +639,13 @@ public class TimelineGenerationTask {
 
             return finalEvents;
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
+            if (Deadline.checkExpired()) {
+                log.warn("⏱️ [{}] 分段事件检索失败且已超过截止时间，不再回退到单次调用: {}", requestId, e.getMessage());
+                return new ArrayList<>();
+            }
             log.error("🔍 [{}] 分段事件检索失败，回退到单次调用: {}", requestId, e.getMessage());
             // 分段失败时回退到单次API调用
             return performSingleEventRetrieval(timelineId, request, requestId);
@@ -470,9 +654,10 @@ public class TimelineGenerationTask {
 
     /**
      * 批量获取事件并更新进度（增强版本，支持分段处理进度报告）
+     * 每个事件到达时即交给eventSink，不等待全部时间段完成
      */
     private List<EventData> fetchEventsBatchWithProgress(Long timelineId, List<TimeSegment> timeSegments,
-            TimelineGenerateRequest request, String requestId) {
+            TimelineGenerateRequest request, String requestId, Consumer<EventData> eventSink) {
         log.info("🔍 [{}] 开始批量获取事件，时间段数: {}", requestId, timeSegments.size());
 
         try {
@@ -480,8 +665,16 @@ public class TimelineGenerationTask {
             int totalSegments = timeSegments.size();
             int processedSegments = 0;
 
+            // 恢复已完成时间段的检查点，重试或重启后只获取缺失的时间段
+            Map<String, List<EventData>> checkpoints = timelineCheckpointService != null
+                    ? timelineCheckpointService.restore(timelineId, timeSegments)
+                    : Collections.emptyMap();
+
             // 为每个时间段更新进度
             for (int i = 0; i < timeSegments.size(); i++) {
+                // 已取消时跳过剩余时间段
+                CancellationToken.checkCurrent();
+
                 TimeSegment segment = timeSegments.get(i);
                 processedSegments++;
 
@@ -498,19 +691,56 @@ public class TimelineGenerationTask {
                         requestId, processedSegments, totalSegments,
                         segment.getStartTime(), segment.getEndTime());
 
-                try {
-                    // 调用TimeSegmentationService获取单个时间段的事件
-                    List<EventData> segmentEvents = timeSegmentationService.fetchEventsForSegment(segment, request);
+                List<EventData> checkpointEvents = checkpoints.get(segment.getSegmentId());
+                if (checkpointEvents != null) {
+                    allEvents.addAll(checkpointEvents);
+                    checkpointEvents.forEach(eventSink);
+                    log.info("🔍 [{}] 时间段 {}/{} 从检查点恢复 {} 个事件",
+                            requestId, processedSegments, totalSegments, checkpointEvents.size());
+                    continue;
+                }
+
+                // 超过截止时间后不再请求剩余时间段，仍继续恢复已有检查点
+                if (Deadline.checkExpired()) {
+                    log.warn("⏱️ [{}] 已超过截止时间，跳过时间段 {}/{}",
+                            requestId, processedSegments, totalSegments);
+                    continue;
+                }
 
-                    if (segmentEvents != null && !segmentEvents.isEmpty()) {
-                        allEvents.addAll(segmentEvents);
+                try {
+                    // 调用TimeSegmentationService获取单个时间段的事件，事件逐个到达时即计入进度
+                    final int progress = currentProgress;
+                    final int segmentIndex = processedSegments;
+                    List<EventData> segmentEvents = new ArrayList<>();
+                    Consumer<EventData> segmentConsumer = event -> {
+                        segmentEvents.add(event);
+                        allEvents.add(event);
+                        eventSink.accept(event);
+                        timelineService.updateGenerationProgress(timelineId, progress, allEvents.size(), 0,
+                                String.format("正在处理第 %d/%d 个时间段，已接收 %d 个事件...",
+                                        segmentIndex, totalSegments, allEvents.size()));
+                    };
+                    SegmentFetchResult segmentResult =
+                            timeSegmentationService.fetchEventsForSegment(segment, request, segmentConsumer);
+
+                    if (!segmentEvents.isEmpty()) {
                         log.info("🔍 [{}] 时间段 {}/{} 获得 {} 个事件",
                                 requestId, processedSegments, totalSegments, segmentEvents.size());
+                        // 只为完整获取的时间段保存检查点：被截断、中途断流或超过截止时间的时间段重试时需要重新获取
+                        if (timelineCheckpointService != null && segmentResult.isComplete()
+                                && !Deadline.checkExpired()) {
+                            timelineCheckpointService.save(timelineId, segment, segmentEvents);
+                        } else if (!segmentResult.isComplete()) {
+                            log.warn("🔍 [{}] 时间段 {}/{} 未完整获取，不保存检查点",
+                                    requestId, processedSegments, totalSegments);
+                        }
                     } else {
                         log.warn("🔍 [{}] 时间段 {}/{} 未获得任何事件",
                                 requestId, processedSegments, totalSegments);
                     }
 
+                } catch (CancellationException e) {
+                    throw e;
                 } catch (Exception segmentException) {
                     log.error("🔍 [{}] 时间段 {}/{} 处理失败: {}",
                             requestId, processedSegments, totalSegments, segmentException.getMessage());
@@ -526,11 +756,16 @@ public class TimelineGenerationTask {
                 }
             }
 
+            // 等待期间被取消中断时不返回部分结果
+            CancellationToken.checkCurrent();
+
             log.info("🔍 [{}] 批量获取事件完成: 处理时间段数={}, 总事件数={}",
                     requestId, processedSegments, allEvents.size());
 
             return allEvents;
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("🔍 [{}] 批量获取事件失败: {}", requestId, e.getMessage(), e);
             // 如果批量处理失败，回退到TimeSegmentationService的原始方法
@@ -676,6 +911,36 @@ public class TimelineGenerationTask {
         }
     }
 
+    /**
+     * 通过入库流水线完成事件存储
+     * 检索阶段已提交的事件不会重复提交，这里补充提交检索后新增的事件（如备用数据），并等待流水线处理完成
+     */
+    private List<Long> performEventStorage(Long timelineId, List<EventData> validatedEvents,
+            EventStoragePipeline storagePipeline) {
+        log.info("开始事件存储: eventCount={}", validatedEvents.size());
+
+        try {
+            timelineService.updateGenerationProgress(timelineId, 65, validatedEvents.size(), 0, "正在存储验证事件...");
+
+            validatedEvents.forEach(storagePipeline::submit);
+            List<Long> storedEventIds = storagePipeline.finish();
+
+            timelineService.updateGenerationProgress(timelineId, 75, storedEventIds.size(), 0,
+                    String.format("成功存储 %d 个事件", storedEventIds.size()));
+
+            log.info("事件存储完成: 验证事件数={}, 存储成功事件数={}, 流水线统计={}",
+                    validatedEvents.size(), storedEventIds.size(), storagePipeline.getStats());
+
+            return storedEventIds;
+
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("事件存储失败: {}", e.getMessage(), e);
+            throw new RuntimeException("事件存储失败: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 执行事件存储
      */
@@ -708,6 +973,15 @@ public class TimelineGenerationTask {
     private void performTimelineCompilation(Long timelineId, List<Long> eventIds, List<EventData> events) {
         log.info("开始时间线编制: timelineId={}, eventCount={}", timelineId, eventIds.size());
 
+        // 超过截止时间时跳过关系分析，只建立基础事件关联
+        if (Deadline.checkExpired()) {
+            log.warn("⏱️ 已超过截止时间，跳过事件关系分析: timelineId={}", timelineId);
+            if (!CollectionUtils.isEmpty(eventIds)) {
+                timelineEventMapper.batchInsert(timelineId, eventIds);
+            }
+            return;
+        }
+
         try {
             // 获取时间范围信息用于API选择
             LocalDateTime startTime = getEarliestEventTime(events);
@@ -772,13 +1046,16 @@ public class TimelineGenerationTask {
         try {
             timelineService.updateGenerationProgress(timelineId, 95, eventCount, 0, "正在完成时间线生成...");
 
-            // 模拟短暂延迟以显示进度
-            simulateDelay(1);
+            Deadline deadline = Deadline.current();
+            boolean incomplete = deadline != null && deadline.isIncomplete();
 
-            // 完成时间线生成
-            timelineService.completeGeneration(timelineId, eventCount, validatedCount);
+            // 模拟短暂延迟以显示进度（有时间预算时跳过）
+            if (deadline == null) {
+                simulateDelay(1);
+            }
 
-            timelineService.updateGenerationProgress(timelineId, 100, eventCount, 0, "时间线生成完成");
+            // 完成时间线生成，超过时间预算时标记为不完整
+            timelineService.completeGeneration(timelineId, eventCount, validatedCount, incomplete);
 
             log.info("时间线生成最终完成: timelineId={}, eventCount={}, validatedCount={}",
                     timelineId, eventCount, validatedCount);
@@ -965,6 +1242,11 @@ public class TimelineGenerationTask {
     private List<EventData> handleEmptyApiResponse(Long timelineId, TimelineGenerateRequest request, String requestId) {
         log.warn("🔍 [{}] 处理空API响应，启用备用数据机制", requestId);
 
+        if (request.isIncremental()) {
+            log.info("🔍 [{}] 增量刷新时间窗口内没有新事件", requestId);
+            return new ArrayList<>();
+        }
+
         timelineService.updateGenerationProgress(timelineId, 22, 0, 0, "API响应为空，启用备用数据机制...");
 
         try {
@@ -1018,6 +1300,17 @@ public class TimelineGenerationTask {
             return parsedEvents;
         }
 
+        // 增量刷新的时间窗口较短，事件少属于正常情况，不以备用数据补充
+        if (request.isIncremental()) {
+            return parsedEvents;
+        }
+
+        // 超过截止时间时返回已检索到的部分结果，不以备用数据补充
+        if (Deadline.checkExpired()) {
+            log.warn("⏱️ [{}] 已超过截止时间，跳过事件补充，当前事件数: {}", requestId, parsedEvents.size());
+            return parsedEvents;
+        }
+
         // 只有在事件数量严重不足时才进行补充
         List<EventData> enhancedEvents = new ArrayList<>(parsedEvents);
 
@@ -1124,6 +1417,76 @@ public class TimelineGenerationTask {
         }
     }
 
+    /**
+     * 事件入库流水线
+     * 事件经地理信息增强、存储两个阶段入库，阶段之间为有界队列，队列满时检索线程阻塞等待；
+     * 按标题和日期过滤同一次生成中重复提交的事件，入库后立即推送给进度订阅者
+     */
+    private class EventStoragePipeline {
+
+        private final BoundedPipeline<EventData> pipeline;
+        private final Set<String> submittedKeys = ConcurrentHashMap.newKeySet();
+        private final Set<Long> storedEventIds = Collections.synchronizedSet(new LinkedHashSet<>());
+
+        EventStoragePipeline(Long timelineId) {
+            this(timelineId, Collections.emptySet());
+        }
+
+        /**
+         * @param excludedKeys 不再入库的事件键（如时间线已有的事件）
+         */
+        EventStoragePipeline(Long timelineId, Set<String> excludedKeys) {
+            submittedKeys.addAll(excludedKeys);
+            this.pipeline = new BoundedPipeline<EventData>("timeline-" + timelineId, pipelineQueueCapacity)
+                    .stage("geo", pipelineGeoWorkers, eventStorageService::enrichGeographicInfo)
+                    .stage("store", pipelineStorageWorkers, event -> {
+                        Long eventId = eventStorageService.storeEnrichedEvent(event);
+                        storedEventIds.add(eventId);
+                        timelineProgressService.publishEvent(timelineId, eventId, event);
+                        return event;
+                    })
+                    .start();
+        }
+
+        void submit(EventData event) {
+            if (event == null || !submittedKeys.add(getEventKey(event))) {
+                return;
+            }
+            try {
+                pipeline.submit(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CancellationToken.checkCurrent();
+                throw new RuntimeException("事件入库流水线已中止", e);
+            }
+        }
+
+        List<Long> finish() throws InterruptedException {
+            if (!pipeline.finish(pipelineDrainTimeout)) {
+                log.warn("事件入库流水线超时，已存储 {} 个事件", storedEventIds.size());
+            }
+            synchronized (storedEventIds) {
+                return new ArrayList<>(storedEventIds);
+            }
+        }
+
+        void abort() {
+            pipeline.abort();
+        }
+
+        Map<String, Object> getStats() {
+            return pipeline.getStats();
+        }
+    }
+
+    /**
+     * 事件去重键：小写标题和事件日期
+     */
+    private String getEventKey(EventData event) {
+        String title = event.getTitle() != null ? event.getTitle().trim().toLowerCase() : "";
+        return title + "|" + (event.getEventTime() != null ? event.getEventTime().toLocalDate() : "");
+    }
+
     /**
      * 模拟延迟
      * 
@@ -0,0 +1,228 @@
+package com.hotech.events.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发限制器（AIMD）
+ * 调用成功且延迟正常时按 1/limit 加性增长并发上限；遇到限流、服务端错误、超时或延迟显著升高时按比例乘性回退。
+ * 回退在一个平均延迟周期内最多触发一次，避免同一批失败把上限连续压到最低。
+ * 调用的开销（如请求的最大Token数）不同时，按单位开销的延迟判断是否显著升高，避免短调用拉低基线后长调用被误判为过慢。
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    // 以下字段由lock保护
+    private double limit;
+    private int inFlight = 0;
+    private int waiting = 0;
+    private double averageLatency = 0;
+    private double averageUnitLatency = 0;
+    private long lastBackoffTime = 0;
+
+    // 统计信息
+    private final AtomicLong successCount = new AtomicLong(0);
+    private final AtomicLong overloadCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * 获取调用许可，超过等待时间返回null
+     *
+     * @param timeoutMs 最长等待时间（毫秒）
+     * @return 调用许可
+     */
+    public Permit acquire(long timeoutMs) throws InterruptedException {
+        return acquire(timeoutMs, 1);
+    }
+
+    /**
+     * 获取调用许可，超过等待时间返回null
+     *
+     * @param timeoutMs 最长等待时间（毫秒）
+     * @param cost 调用的开销（如请求的最大Token数），延迟按单位开销比较
+     * @return 调用许可
+     */
+    public Permit acquire(long timeoutMs, long cost) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejectedCount.incrementAndGet();
+                        return null;
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return new Permit(System.currentTimeMillis(), Math.max(1, cost));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 手动设置并发上限（如管理接口调整）
+     *
+     * @param newLimit 新的并发上限
+     */
+    public void setLimit(int newLimit) {
+        lock.lock();
+        try {
+            limit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        lock.lock();
+        try {
+            stats.put("limit", (int) limit);
+            stats.put("inFlight", inFlight);
+            stats.put("queueDepth", waiting);
+            stats.put("averageLatency", Math.round(averageLatency));
+            stats.put("averageUnitLatency", Math.round(averageUnitLatency * 1000) / 1000.0);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("minLimit", minLimit);
+        stats.put("maxLimit", maxLimit);
+        stats.put("successCount", successCount.get());
+        stats.put("overloadCount", overloadCount.get());
+        stats.put("rejectedCount", rejectedCount.get());
+        return stats;
+    }
+
+    private void onComplete(long latency, long cost, Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight--;
+
+            double unitLatency = (double) latency / cost;
+            boolean slow = outcome == Outcome.SUCCESS && averageUnitLatency > 0
+                    && unitLatency > averageUnitLatency * latencyTolerance;
+
+            if (outcome == Outcome.OVERLOAD || slow) {
+                overloadCount.incrementAndGet();
+                long now = System.currentTimeMillis();
+                if (now - lastBackoffTime >= averageLatency) {
+                    double previous = limit;
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastBackoffTime = now;
+                    log.info("并发上限回退: limiter={}, {} -> {}, latency={}ms, slow={}",
+                            name, (int) previous, (int) limit, latency, slow);
+                }
+            } else if (outcome == Outcome.SUCCESS) {
+                successCount.incrementAndGet();
+                // 仅在上限被充分使用时增长，避免空闲期无限抬高
+                if (inFlight + 1 >= (int) limit / 2 && limit < maxLimit) {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+
+            if (outcome == Outcome.SUCCESS) {
+                averageLatency = averageLatency == 0 ? latency : averageLatency * 0.9 + latency * 0.1;
+                averageUnitLatency = averageUnitLatency == 0
+                        ? unitLatency : averageUnitLatency * 0.9 + unitLatency * 0.1;
+            }
+
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, OVERLOAD, IGNORE
+    }
+
+    /**
+     * 调用许可，必须且只能释放一次
+     */
+    public class Permit {
+
+        private final long startTime;
+        private final long cost;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(long startTime, long cost) {
+            this.startTime = startTime;
+            this.cost = cost;
+        }
+
+        /**
+         * 调用成功
+         */
+        public void onSuccess() {
+            release(Outcome.SUCCESS);
+        }
+
+        /**
+         * 调用过载（限流、服务端错误、超时）
+         */
+        public void onOverload() {
+            release(Outcome.OVERLOAD);
+        }
+
+        /**
+         * 与容量无关的失败或被调用方自身截止时间截断的调用，仅释放许可
+         */
+        public void onIgnore() {
+            release(Outcome.IGNORE);
+        }
+
+        private void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                onComplete(System.currentTimeMillis() - startTime, cost, outcome);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.hotech.events.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 有界流水线
+ * 由若干阶段串联而成，阶段之间通过有界队列传递数据，每个阶段有独立的工作线程数。
+ * 上游提交在下游队列已满时阻塞，形成背压，内存中同时存在的数据量不超过各队列容量之和；
+ * 阶段函数返回null时丢弃该数据，单条数据处理失败只记录日志，不影响其他数据。
+ * 工作线程继承启动线程的取消令牌和截止时间。
+ */
+@Slf4j
+public class BoundedPipeline<T> {
+
+    private static final Object END = new Object();
+
+    private final String name;
+    private final int queueCapacity;
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean started = false;
+    private volatile boolean aborted = false;
+
+    /**
+     * @param name 流水线名称（用于线程名和日志）
+     * @param queueCapacity 每个阶段输入队列的容量
+     */
+    public BoundedPipeline(String name, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * 追加处理阶段
+     *
+     * @param stageName 阶段名称
+     * @param workerCount 工作线程数
+     * @param function 处理函数，返回null时丢弃该数据
+     * @return 流水线
+     */
+    public BoundedPipeline<T> stage(String stageName, int workerCount, Function<T, T> function) {
+        if (started) {
+            throw new IllegalStateException("流水线已启动，不能追加阶段: " + name);
+        }
+        stages.add(new Stage(stageName, Math.max(1, workerCount), function));
+        return this;
+    }
+
+    /**
+     * 启动所有阶段的工作线程
+     *
+     * @return 流水线
+     */
+    public BoundedPipeline<T> start() {
+        if (stages.isEmpty()) {
+            throw new IllegalStateException("流水线没有处理阶段: " + name);
+        }
+        CancellationToken token = CancellationToken.current();
+        Deadline deadline = Deadline.current();
+
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            Stage next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            for (int w = 0; w < stage.workerCount; w++) {
+                Thread thread = new Thread(() -> {
+                    try (CancellationToken.Binding ignored = token != null ? token.bind() : null;
+                         Deadline.Binding deadlineBinding = deadline != null ? deadline.bind() : null) {
+                        stage.run(next);
+                    }
+                }, name + "-" + stage.name + "-" + (w + 1));
+                thread.setDaemon(true);
+                workers.add(thread);
+            }
+        }
+        started = true;
+        workers.forEach(Thread::start);
+        return this;
+    }
+
+    /**
+     * 提交数据到第一个阶段，队列已满时阻塞等待
+     *
+     * @param item 数据
+     */
+    public void submit(T item) throws InterruptedException {
+        if (!started) {
+            throw new IllegalStateException("流水线未启动: " + name);
+        }
+        if (item == null) {
+            return;
+        }
+        enqueue(stages.get(0).input, item);
+    }
+
+    /**
+     * 结束提交并等待所有已提交的数据处理完成
+     *
+     * @param timeoutMs 最长等待时间（毫秒）
+     * @return 是否在等待时间内全部完成
+     */
+    public boolean finish(long timeoutMs) throws InterruptedException {
+        if (!started) {
+            return true;
+        }
+        Stage first = stages.get(0);
+        for (int i = 0; i < first.workerCount; i++) {
+            enqueue(first.input, END);
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (Thread worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            worker.join(remaining);
+        }
+
+        boolean completed = workers.stream().noneMatch(Thread::isAlive);
+        if (!completed) {
+            log.warn("流水线未在{}ms内完成，中止剩余处理: {}", timeoutMs, name);
+            abort();
+        }
+        return completed;
+    }
+
+    /**
+     * 中止流水线，丢弃未处理的数据
+     */
+    public void abort() {
+        aborted = true;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * 获取各阶段的统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Stage stage : stages) {
+            Map<String, Object> stageStats = new HashMap<>();
+            stageStats.put("workers", stage.workerCount);
+            stageStats.put("queued", stage.input.size());
+            stageStats.put("processed", stage.processed.get());
+            stageStats.put("dropped", stage.dropped.get());
+            stageStats.put("failed", stage.failed.get());
+            stats.put(stage.name, stageStats);
+        }
+        return stats;
+    }
+
+    private void enqueue(BlockingQueue<Object> queue, Object item) throws InterruptedException {
+        // 下游中止后不再阻塞等待队列空位
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            if (aborted) {
+                throw new InterruptedException("流水线已中止: " + name);
+            }
+        }
+    }
+
+    /**
+     * 流水线阶段
+     */
+    private class Stage {
+
+        private final String name;
+        private final int workerCount;
+        private final Function<T, T> function;
+        private final BlockingQueue<Object> input;
+        private final AtomicInteger activeWorkers;
+
+        private final AtomicLong processed = new AtomicLong(0);
+        private final AtomicLong dropped = new AtomicLong(0);
+        private final AtomicLong failed = new AtomicLong(0);
+
+        Stage(String name, int workerCount, Function<T, T> function) {
+            this.name = name;
+            this.workerCount = workerCount;
+            this.function = function;
+            this.input = new ArrayBlockingQueue<>(queueCapacity);
+            this.activeWorkers = new AtomicInteger(workerCount);
+        }
+
+        @SuppressWarnings("unchecked")
+        void run(Stage next) {
+            try {
+                while (!aborted) {
+                    Object item = input.take();
+                    if (item == END) {
+                        break;
+                    }
+                    T result;
+                    try {
+                        result = function.apply((T) item);
+                        processed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        log.warn("流水线阶段处理失败: pipeline={}, stage={}, error={}",
+                                BoundedPipeline.this.name, name, e.getMessage());
+                        continue;
+                    }
+                    if (result == null) {
+                        dropped.incrementAndGet();
+                    } else if (next != null) {
+                        enqueue(next.input, result);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 任一工作线程被中断（如任务取消）时中止整个流水线，避免其他线程永久等待
+                abort();
+            } finally {
+                // 本阶段最后一个退出的线程通知下游阶段结束
+                if (activeWorkers.decrementAndGet() == 0 && next != null && !aborted) {
+                    try {
+                        for (int i = 0; i < next.workerCount; i++) {
+                            enqueue(next.input, END);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.hotech.events.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 取消令牌
+ * 每次执行生成任务时按任务键注册新的令牌，并绑定到执行线程；提交到线程池的子任务通过wrap传递令牌。
+ * 取消时中断所有绑定的线程，使阻塞中的HTTP请求（Reactor block/toIterable会在中断时取消订阅并关闭连接）、
+ * 重试等待和限流等待立即退出；未开始的子任务在启动时检查令牌后直接跳过。
+ */
+@Slf4j
+public class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+    private static final ConcurrentHashMap<String, CancellationToken> ACTIVE = new ConcurrentHashMap<>();
+
+    private final String key;
+    private final Set<Thread> boundThreads = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+    private volatile boolean abandoned = false;
+
+    private CancellationToken(String key) {
+        this.key = key;
+    }
+
+    /**
+     * 为本次执行创建并注册新的取消令牌，替换同一任务键上的旧令牌（如取消后立即重试时仍在结束中的上一次执行）
+     *
+     * @param key 任务键
+     * @return 取消令牌
+     */
+    public static CancellationToken register(String key) {
+        CancellationToken token = new CancellationToken(key);
+        ACTIVE.put(key, token);
+        return token;
+    }
+
+    /**
+     * 注销取消令牌，任务键已被新的执行重新注册时不影响新令牌
+     *
+     * @param token 取消令牌
+     */
+    public static void unregister(CancellationToken token) {
+        ACTIVE.remove(token.key, token);
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param key 任务键
+     * @return 任务是否正在执行
+     */
+    public static boolean cancel(String key) {
+        CancellationToken token = ACTIVE.get(key);
+        if (token == null) {
+            return false;
+        }
+        token.cancel();
+        return true;
+    }
+
+    /**
+     * 获取当前线程绑定的令牌
+     *
+     * @return 取消令牌，未绑定时返回null
+     */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程绑定的任务是否已取消
+     */
+    public static boolean isCurrentCancelled() {
+        CancellationToken token = CURRENT.get();
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * 当前线程绑定的任务是否已被放弃（本节点停机或租约丢失，由其他节点接管）
+     */
+    public static boolean isCurrentAbandoned() {
+        CancellationToken token = CURRENT.get();
+        return token != null && token.isAbandoned();
+    }
+
+    /**
+     * 当前线程绑定的任务已取消时抛出CancellationException
+     */
+    public static void checkCurrent() {
+        CancellationToken token = CURRENT.get();
+        if (token != null) {
+            token.throwIfCancelled();
+        }
+    }
+
+    /**
+     * 将当前线程的令牌传递给线程池中执行的任务
+     *
+     * @param supplier 任务
+     * @return 包装后的任务
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        CancellationToken token = CURRENT.get();
+        if (token == null) {
+            return supplier;
+        }
+        return () -> {
+            try (Binding ignored = token.bind()) {
+                token.throwIfCancelled();
+                return supplier.get();
+            }
+        };
+    }
+
+    /**
+     * 将当前线程的令牌传递给线程池中执行的任务
+     *
+     * @param runnable 任务
+     * @return 包装后的任务
+     */
+    public static Runnable wrap(Runnable runnable) {
+        CancellationToken token = CURRENT.get();
+        if (token == null) {
+            return runnable;
+        }
+        return () -> {
+            try (Binding ignored = token.bind()) {
+                if (!token.isCancelled()) {
+                    runnable.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * 将令牌绑定到当前线程，关闭绑定时恢复之前的令牌
+     *
+     * @return 绑定
+     */
+    public Binding bind() {
+        CancellationToken previous = CURRENT.get();
+        Thread thread = Thread.currentThread();
+        CURRENT.set(this);
+        boundThreads.add(thread);
+        return new Binding(previous, thread);
+    }
+
+    /**
+     * 取消任务并中断所有绑定的线程
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        log.info("取消任务: key={}, 中断线程数={}", key, boundThreads.size());
+        for (Thread thread : boundThreads) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 放弃任务：先标记为放弃再取消，执行方据此停止执行且不修改任务和时间线的状态
+     */
+    public void abandon() {
+        abandoned = true;
+        cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("任务已取消: " + key);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 令牌与线程的绑定
+     */
+    public class Binding implements AutoCloseable {
+
+        private final CancellationToken previous;
+        private final Thread thread;
+
+        private Binding(CancellationToken previous, Thread thread) {
+            this.previous = previous;
+            this.thread = thread;
+        }
+
+        @Override
+        public void close() {
+            // 同一令牌在同一线程上嵌套绑定时（如调用线程直接执行子任务），由外层绑定负责解除
+            if (previous != CancellationToken.this) {
+                boundThreads.remove(thread);
+            }
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            // 线程池线程会被复用，清除取消时留下的中断标记
+            if (cancelled && previous == null) {
+                Thread.interrupted();
+            }
+        }
+    }
+}
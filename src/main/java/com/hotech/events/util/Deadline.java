@@ -0,0 +1,159 @@
+package com.hotech.events.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 请求截止时间
+ * 在API入口按时间预算创建并绑定到执行线程，分段检索、大模型调用、地理信息增强和存储等阶段按剩余时间裁剪等待，
+ * 超时后停止后续工作并返回已获得的部分结果；任何阶段因截止时间裁剪结果时标记为不完整。
+ * 未绑定截止时间的线程不受限制。
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineMillis;
+    private final AtomicBoolean incomplete = new AtomicBoolean(false);
+
+    private Deadline(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * 创建从现在起指定时间预算的截止时间
+     *
+     * @param budgetMs 时间预算（毫秒）
+     * @return 截止时间
+     */
+    public static Deadline after(long budgetMs) {
+        return new Deadline(System.currentTimeMillis() + budgetMs);
+    }
+
+    /**
+     * 创建指定时刻的截止时间
+     *
+     * @param epochMillis 截止时刻（毫秒时间戳）
+     * @return 截止时间
+     */
+    public static Deadline at(long epochMillis) {
+        return new Deadline(epochMillis);
+    }
+
+    /**
+     * 获取当前线程绑定的截止时间
+     *
+     * @return 截止时间，未绑定时返回null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程的剩余时间，未绑定时返回Long.MAX_VALUE
+     */
+    public static long currentRemainingMs() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? deadline.remainingMs() : Long.MAX_VALUE;
+    }
+
+    /**
+     * 按当前线程的剩余时间裁剪超时时间
+     *
+     * @param timeoutMs 原超时时间（毫秒）
+     * @return 不超过剩余时间的超时时间
+     */
+    public static long capTimeout(long timeoutMs) {
+        return Math.max(0, Math.min(timeoutMs, currentRemainingMs()));
+    }
+
+    /**
+     * 当前线程的截止时间是否已过；已过时将结果标记为不完整
+     *
+     * @return 是否已超过截止时间
+     */
+    public static boolean checkExpired() {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null || !deadline.isExpired()) {
+            return false;
+        }
+        deadline.incomplete.set(true);
+        return true;
+    }
+
+    /**
+     * 将当前线程的截止时间传递给线程池中执行的任务
+     *
+     * @param supplier 任务
+     * @return 包装后的任务
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return supplier;
+        }
+        return () -> {
+            try (Binding ignored = deadline.bind()) {
+                return supplier.get();
+            }
+        };
+    }
+
+    /**
+     * 将截止时间绑定到当前线程，关闭绑定时恢复之前的截止时间
+     *
+     * @return 绑定
+     */
+    public Binding bind() {
+        Binding binding = new Binding(CURRENT.get());
+        CURRENT.set(this);
+        return binding;
+    }
+
+    public long remainingMs() {
+        return Math.max(0, deadlineMillis - System.currentTimeMillis());
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= deadlineMillis;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * 标记结果因截止时间被裁剪（如剩余时间不足以重试而提前放弃）
+     */
+    public void markIncomplete() {
+        incomplete.set(true);
+    }
+
+    /**
+     * 是否有阶段因截止时间裁剪了结果
+     */
+    public boolean isIncomplete() {
+        return incomplete.get();
+    }
+
+    /**
+     * 截止时间与线程的绑定
+     */
+    public static class Binding implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Binding(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.hotech.events.util;
+
+import com.hotech.events.dto.EventData;
+import com.hotech.events.entity.Event;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 事件指纹生成工具类
+ * 写入事件时计算内容指纹和分块键并存入带索引的列，查找重复事件时用等值查询代替LIKE全表扫描：
+ * 内容指纹是规范化标题（全角转半角、小写、去除空白和标点）的MD5；
+ * 分块键是事件日期、主体、客体、事件类型规范化后的MD5，查找时取前后各一天的分块键覆盖24小时内的事件
+ */
+@Component
+public class EventFingerprintGenerator {
+
+    // 规范化时去除的空白和标点符号（包括中文标点）
+    private static final Pattern NOISE_PATTERN = Pattern.compile("[\\s\\p{Punct}\\p{IsPunctuation}]+");
+
+    /**
+     * 规范化文本
+     *
+     * @param text 原始文本
+     * @return 规范化后的文本，为空时返回空字符串
+     */
+    public String normalizeText(String text) {
+        if (!StringUtils.hasText(text)) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return NOISE_PATTERN.matcher(normalized).replaceAll("");
+    }
+
+    /**
+     * 生成内容指纹
+     *
+     * @param title 事件标题
+     * @return 内容指纹，标题规范化后为空时返回空字符串
+     */
+    public String contentFingerprint(String title) {
+        String normalized = normalizeText(title);
+        return normalized.isEmpty() ? "" : md5(normalized);
+    }
+
+    /**
+     * 生成事件数据的内容指纹
+     *
+     * @param eventData 事件数据
+     * @return 内容指纹，标题为空时返回空字符串
+     */
+    public String contentFingerprint(EventData eventData) {
+        return contentFingerprint(eventData.getTitle());
+    }
+
+    /**
+     * 生成分块键
+     *
+     * @param eventDate 事件日期
+     * @param subject 主体
+     * @param object 客体
+     * @param eventType 事件类型
+     * @return 分块键，任一字段为空时返回空字符串
+     */
+    public String blockingKey(LocalDate eventDate, String subject, String object, String eventType) {
+        String normalizedSubject = normalizeText(subject);
+        String normalizedObject = normalizeText(object);
+        String normalizedType = normalizeText(eventType);
+        if (eventDate == null || normalizedSubject.isEmpty() || normalizedObject.isEmpty()
+                || normalizedType.isEmpty()) {
+            return "";
+        }
+        return md5(eventDate + "|" + normalizedSubject + "|" + normalizedObject + "|" + normalizedType);
+    }
+
+    /**
+     * 生成事件数据的分块键
+     *
+     * @param eventData 事件数据
+     * @return 分块键，字段不全时返回空字符串
+     */
+    public String blockingKey(EventData eventData) {
+        LocalDateTime eventTime = eventData.getEventTime();
+        return blockingKey(eventTime != null ? eventTime.toLocalDate() : null,
+                eventData.getSubject(), eventData.getObject(), eventData.getEventType());
+    }
+
+    /**
+     * 根据事件的标题、时间、主体、客体和事件类型设置内容指纹和分块键
+     *
+     * @param event 事件
+     */
+    public void fillFingerprints(Event event) {
+        event.setContentFingerprint(contentFingerprint(event.getEventTitle()));
+        LocalDateTime eventTime = event.getEventTime();
+        event.setBlockingKey(blockingKey(eventTime != null ? eventTime.toLocalDate() : null,
+                event.getSubject(), event.getObject(), event.getEventType()));
+    }
+
+    /**
+     * 生成查找重复事件用的分块键（事件日期及前后各一天）
+     *
+     * @param eventData 事件数据
+     * @return 分块键列表，字段不全时返回空列表
+     */
+    public List<String> lookupBlockingKeys(EventData eventData) {
+        List<String> keys = new ArrayList<>(3);
+        if (eventData.getEventTime() == null) {
+            return keys;
+        }
+        LocalDate eventDate = eventData.getEventTime().toLocalDate();
+        for (int offset = -1; offset <= 1; offset++) {
+            String key = blockingKey(eventDate.plusDays(offset),
+                    eventData.getSubject(), eventData.getObject(), eventData.getEventType());
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 仅标题近似的两个事件是否可能是同一事件：日期相差不超过一天，且地点相互包含或主体相同
+     * 短标题的周期性事件（如例行会议、每日通报）标题几乎相同，只凭标题相似度会把不同日期的事件合并
+     *
+     * @return 是否可能是同一事件，任一方缺少事件时间时返回false
+     */
+    public boolean isSameOccurrence(LocalDateTime eventTime1, String location1, String subject1,
+                                    LocalDateTime eventTime2, String location2, String subject2) {
+        if (eventTime1 == null || eventTime2 == null) {
+            return false;
+        }
+        long daysBetween = Math.abs(eventTime1.toLocalDate().toEpochDay() - eventTime2.toLocalDate().toEpochDay());
+        if (daysBetween > 1) {
+            return false;
+        }
+        String normalizedLocation1 = normalizeText(location1);
+        String normalizedLocation2 = normalizeText(location2);
+        if (!normalizedLocation1.isEmpty() && !normalizedLocation2.isEmpty()
+                && (normalizedLocation1.contains(normalizedLocation2)
+                    || normalizedLocation2.contains(normalizedLocation1))) {
+            return true;
+        }
+        String normalizedSubject1 = normalizeText(subject1);
+        return !normalizedSubject1.isEmpty() && normalizedSubject1.equals(normalizeText(subject2));
+    }
+
+    /**
+     * 待存储的事件数据与已有事件是否可能是同一事件
+     *
+     * @see #isSameOccurrence(LocalDateTime, String, String, LocalDateTime, String, String)
+     */
+    public boolean isSameOccurrence(EventData eventData, Event event) {
+        return isSameOccurrence(eventData.getEventTime(), eventData.getLocation(), eventData.getSubject(),
+                event.getEventTime(), event.getEventLocation(), event.getSubject());
+    }
+
+    /**
+     * 两个已有事件是否可能是同一事件
+     *
+     * @see #isSameOccurrence(LocalDateTime, String, String, LocalDateTime, String, String)
+     */
+    public boolean isSameOccurrence(Event event1, Event event2) {
+        return isSameOccurrence(event1.getEventTime(), event1.getEventLocation(), event1.getSubject(),
+                event2.getEventTime(), event2.getEventLocation(), event2.getSubject());
+    }
+
+    private String md5(String text) {
+        return DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
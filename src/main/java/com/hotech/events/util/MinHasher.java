@@ -0,0 +1,179 @@
+package com.hotech.events.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash签名工具类
+ * 对规范化后的文本按字符n-gram切分（适合不分词的中文），用一组固定种子的哈希函数取最小值作为签名，
+ * 两个签名中相同位置取值相等的比例即为文本Jaccard相似度的估计值；
+ * 签名按行数相等的若干段计算分段键，任一分段键相同的事件为LSH候选
+ */
+@Component
+public class MinHasher {
+
+    // 哈希函数种子，各节点和重启前后必须一致
+    private static final long SEED = 0x5DEECE66DL;
+
+    @Autowired
+    private EventFingerprintGenerator eventFingerprintGenerator;
+
+    @Value("${timeline.near-duplicate.shingle-size:2}")
+    private int shingleSize;
+
+    @Value("${timeline.near-duplicate.num-hashes:64}")
+    private int numHashes;
+
+    @Value("${timeline.near-duplicate.bands:16}")
+    private int bands;
+
+    private long[] hashSeeds;
+
+    private int rowsPerBand;
+
+    private String version;
+
+    @PostConstruct
+    public void init() {
+        shingleSize = Math.max(1, shingleSize);
+        bands = Math.max(1, Math.min(bands, numHashes));
+        rowsPerBand = Math.max(1, numHashes / bands);
+        numHashes = rowsPerBand * bands;
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        hashSeeds = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            hashSeeds[i] = random.nextLong();
+        }
+        version = "s" + shingleSize + "-h" + numHashes + "-b" + bands;
+    }
+
+    /**
+     * 签名版本，分片大小、哈希函数数或分段数变化后旧签名不再可比
+     *
+     * @return 签名版本
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * 计算文本的MinHash签名
+     *
+     * @param text 原始文本
+     * @return 签名，文本规范化后为空时返回null
+     */
+    public int[] signature(String text) {
+        String normalized = eventFingerprintGenerator.normalizeText(text);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+
+        int[] signature = new int[numHashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingleCount = Math.max(1, normalized.length() - shingleSize + 1);
+        for (int start = 0; start < shingleCount; start++) {
+            String shingle = normalized.substring(start, Math.min(normalized.length(), start + shingleSize));
+            long shingleHash = hash64(shingle);
+            for (int i = 0; i < numHashes; i++) {
+                int value = (int) (mix64(shingleHash ^ hashSeeds[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 估计两个签名对应文本的Jaccard相似度
+     *
+     * @param signature1 签名1
+     * @param signature2 签名2
+     * @return 相似度（0-1），签名为空或长度不一致时返回0
+     */
+    public double similarity(int[] signature1, int[] signature2) {
+        if (signature1 == null || signature2 == null || signature1.length != signature2.length) {
+            return 0.0;
+        }
+        int equal = 0;
+        for (int i = 0; i < signature1.length; i++) {
+            if (signature1[i] == signature2[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / signature1.length;
+    }
+
+    /**
+     * 计算签名的LSH分段键
+     *
+     * @param signature 签名
+     * @return 每段一个分段键
+     */
+    public List<Long> bandKeys(int[] signature) {
+        List<Long> keys = new ArrayList<>(bands);
+        if (signature == null || signature.length != numHashes) {
+            return keys;
+        }
+        long versionHash = hash64(version);
+        for (int band = 0; band < bands; band++) {
+            long key = mix64(versionHash + band);
+            for (int row = 0; row < rowsPerBand; row++) {
+                key = mix64(key ^ (signature[band * rowsPerBand + row] & 0xFFFFFFFFL));
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * 签名转为字节数组以便存储
+     */
+    public byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        for (int value : signature) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组还原签名
+     */
+    public int[] fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != numHashes * Integer.BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+
+    private long hash64(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xFF);
+            hash *= 0x100000001b3L;
+        }
+        return mix64(hash);
+    }
+
+    private long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,86 @@
+package com.hotech.events.util;
+
+/**
+ * 生成任务优先级
+ * 生成任务开始时绑定到执行线程，时间段调用按所属优先级的权重在公平调度器中分配执行机会；
+ * 未绑定优先级的线程按用户交互请求处理。
+ */
+public enum PriorityClass {
+
+    /**
+     * 用户交互请求
+     */
+    INTERACTIVE,
+
+    /**
+     * 定时刷新
+     */
+    SCHEDULED,
+
+    /**
+     * 批量回填
+     */
+    BULK;
+
+    private static final ThreadLocal<PriorityClass> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 获取当前线程绑定的优先级
+     *
+     * @return 优先级，未绑定时返回INTERACTIVE
+     */
+    public static PriorityClass current() {
+        PriorityClass priority = CURRENT.get();
+        return priority != null ? priority : INTERACTIVE;
+    }
+
+    /**
+     * 按名称解析优先级
+     *
+     * @param name 优先级名称（不区分大小写）
+     * @param defaultValue 名称为空或无法识别时的默认值
+     * @return 优先级
+     */
+    public static PriorityClass parse(String name, PriorityClass defaultValue) {
+        if (name == null || name.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 将优先级绑定到当前线程，关闭绑定时恢复之前的优先级
+     *
+     * @return 绑定
+     */
+    public Binding bind() {
+        Binding binding = new Binding(CURRENT.get());
+        CURRENT.set(this);
+        return binding;
+    }
+
+    /**
+     * 优先级与线程的绑定
+     */
+    public static class Binding implements AutoCloseable {
+
+        private final PriorityClass previous;
+
+        private Binding(PriorityClass previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
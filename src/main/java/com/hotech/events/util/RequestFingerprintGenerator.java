@@ -0,0 +1,151 @@
+package com.hotech.events.util;
+
+import com.hotech.events.dto.TimeSegment;
+import com.hotech.events.dto.TimelineGenerateRequest;
+import com.hotech.events.entity.PromptTemplate;
+import com.hotech.events.service.PromptTemplateService;
+import com.hotech.events.service.impl.PromptTemplateServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 请求指纹生成工具类
+ * 对时间线请求做规范化（地区ID排序去重、时间对齐到天、文本空白归一、附带模板版本），
+ * 使仅在参数顺序、秒级时间或空白字符上不同的请求共享同一缓存项
+ */
+@Slf4j
+@Component
+public class RequestFingerprintGenerator {
+
+    private static final String DEFAULT_TEMPLATE_VERSION = "1.0";
+
+    @Autowired
+    @Lazy
+    private PromptTemplateService promptTemplateService;
+
+    /**
+     * 生成规范化的请求副本
+     *
+     * @param request 原始请求
+     * @return 规范化后的请求
+     */
+    public TimelineGenerateRequest canonicalize(TimelineGenerateRequest request) {
+        TimelineGenerateRequest canonical = new TimelineGenerateRequest();
+        canonical.setName(normalizeText(request.getName()));
+        canonical.setDescription(normalizeText(request.getDescription()));
+        canonical.setRegionIds(normalizeRegionIds(request.getRegionIds()));
+        canonical.setStartTime(snapStart(request.getStartTime()));
+        canonical.setEndTime(snapEnd(request.getEndTime()));
+        canonical.setEnableDeduplication(request.getEnableDeduplication());
+        canonical.setEnableDictionary(request.getEnableDictionary());
+        canonical.setEnableRelationAnalysis(request.getEnableRelationAnalysis());
+        return canonical;
+    }
+
+    /**
+     * 生成时间线请求指纹
+     *
+     * @param request 时间线请求
+     * @return 指纹
+     */
+    public String fingerprint(TimelineGenerateRequest request) {
+        return fingerprint(request.getName(), request.getDescription(), request.getRegionIds(),
+                request.getStartTime(), request.getEndTime());
+    }
+
+    /**
+     * 生成请求指纹
+     *
+     * @param name 名称
+     * @param description 描述
+     * @param regionIds 地区ID列表
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 指纹
+     */
+    public String fingerprint(String name, String description, List<Long> regionIds,
+                              LocalDateTime startTime, LocalDateTime endTime) {
+        StringBuilder data = new StringBuilder();
+        data.append("template:").append(getTemplateVersion());
+        data.append("|name:").append(normalizeText(name));
+        data.append("|description:").append(normalizeText(description));
+        data.append("|regionIds:").append(normalizeRegionIds(regionIds));
+        data.append("|startTime:").append(Objects.toString(snapStart(startTime), ""));
+        data.append("|endTime:").append(Objects.toString(snapEnd(endTime), ""));
+        return DigestUtils.md5DigestAsHex(data.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 生成时间段请求指纹，同一请求下相同边界的时间段指纹相同
+     *
+     * @param request 时间线请求
+     * @param segment 时间段
+     * @return 指纹
+     */
+    public String fingerprint(TimelineGenerateRequest request, TimeSegment segment) {
+        return fingerprint(request.getName(), request.getDescription(), request.getRegionIds(),
+                segment.getStartTime(), segment.getEndTime());
+    }
+
+    /**
+     * 文本规范化：去除首尾空白并合并连续空白
+     * 不改变大小写：规范化请求会直接用于构造提示词，指纹必须与其文本一致
+     */
+    public String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replaceAll("\\s+", " ").trim();
+    }
+
+    private List<Long> normalizeRegionIds(List<Long> regionIds) {
+        if (regionIds == null || regionIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return regionIds.stream().filter(Objects::nonNull).distinct().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * 开始时间对齐到当天零点
+     */
+    private LocalDateTime snapStart(LocalDateTime time) {
+        return time != null ? time.toLocalDate().atStartOfDay() : null;
+    }
+
+    /**
+     * 结束时间对齐到当天结束（恰为零点时保持不变）
+     */
+    private LocalDateTime snapEnd(LocalDateTime time) {
+        if (time == null) {
+            return null;
+        }
+        if (time.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+            return time;
+        }
+        return time.toLocalDate().atTime(23, 59, 59);
+    }
+
+    private String getTemplateVersion() {
+        try {
+            PromptTemplate template = promptTemplateService.getActiveTemplate(
+                    PromptTemplateServiceImpl.TEMPLATE_TYPE_EVENT_FETCH);
+            if (template != null && template.getVersion() != null) {
+                return template.getVersion();
+            }
+        } catch (Exception e) {
+            log.debug("获取提示词模板版本失败: {}", e.getMessage());
+        }
+        return DEFAULT_TEMPLATE_VERSION;
+    }
+}
@@ -0,0 +1,114 @@
+package com.hotech.events.util;
+
+import com.hotech.events.dto.TimeSegment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 时间段合并工具类
+ * 将相邻的低密度时间段合并为一组，在同一提示词中按时间段分节请求，减少重复的指令文本和调用次数
+ */
+public final class SegmentPacker {
+
+    private SegmentPacker() {
+    }
+
+    /**
+     * 按时间顺序将相邻的低密度时间段分组，高密度时间段单独成组
+     *
+     * @param segments 时间段列表
+     * @param densityThreshold 预期事件数不超过该值的时间段参与合并
+     * @param maxPackedEvents 每组预期事件总数上限
+     * @param maxPackedSegments 每组最大时间段数
+     * @return 时间段分组
+     */
+    public static List<List<TimeSegment>> pack(List<TimeSegment> segments, int densityThreshold,
+                                               int maxPackedEvents, int maxPackedSegments) {
+        List<TimeSegment> sorted = new ArrayList<>(segments);
+        sorted.sort(Comparator.comparing(TimeSegment::getStartTime));
+
+        List<List<TimeSegment>> groups = new ArrayList<>();
+        List<TimeSegment> current = new ArrayList<>();
+        int currentEvents = 0;
+
+        for (TimeSegment segment : sorted) {
+            boolean sparse = segment.getExpectedEventCount() <= densityThreshold;
+            boolean fits = current.size() < maxPackedSegments
+                    && currentEvents + segment.getExpectedEventCount() <= maxPackedEvents;
+
+            if (!sparse || !fits) {
+                if (!current.isEmpty()) {
+                    groups.add(current);
+                    current = new ArrayList<>();
+                    currentEvents = 0;
+                }
+                if (!sparse) {
+                    List<TimeSegment> single = new ArrayList<>();
+                    single.add(segment);
+                    groups.add(single);
+                    continue;
+                }
+            }
+
+            current.add(segment);
+            currentEvents += segment.getExpectedEventCount();
+        }
+
+        if (!current.isEmpty()) {
+            groups.add(current);
+        }
+        return groups;
+    }
+
+    /**
+     * 生成覆盖整组时间范围的合并时间段
+     *
+     * @param group 时间段分组（按时间排序）
+     * @return 合并时间段
+     */
+    public static TimeSegment merge(List<TimeSegment> group) {
+        TimeSegment first = group.get(0);
+        TimeSegment last = group.get(group.size() - 1);
+
+        TimeSegment merged = TimeSegment.builder()
+                .startTime(first.getStartTime())
+                .endTime(last.getEndTime())
+                .segmentIndex(first.getSegmentIndex())
+                .segmentId(group.size() == 1 ? first.getSegmentId()
+                        : "packed_" + first.getSegmentId() + "_x" + group.size())
+                .expectedEventCount(group.stream().mapToInt(TimeSegment::getExpectedEventCount).sum())
+                .isLastSegment(last.isLastSegment())
+                .build();
+        merged.calculateSpanDays();
+        return merged;
+    }
+
+    /**
+     * 确定事件所属的时间段：优先按事件时间，其次按模型标注的时间段ID，都无法确定时归入第一个时间段
+     *
+     * @param group 时间段分组
+     * @param segmentId 模型标注的时间段ID
+     * @param eventTime 事件时间
+     * @return 所属时间段
+     */
+    public static TimeSegment route(List<TimeSegment> group, String segmentId, LocalDateTime eventTime) {
+        if (eventTime != null) {
+            for (TimeSegment segment : group) {
+                if (segment.contains(eventTime)) {
+                    return segment;
+                }
+            }
+        }
+        if (segmentId != null) {
+            for (TimeSegment segment : group) {
+                if (segmentId.equals(segment.getSegmentId())) {
+                    return segment;
+                }
+            }
+        }
+        return group.get(0);
+    }
+}
@@ -0,0 +1,159 @@
+package com.hotech.events.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 进行中请求合并工具类
+ * 相同键的并发请求只执行一次，其余调用方等待并共享同一结果。
+ * 执行方的任务被取消、线程被中断或截止时间已过时，其结果可能为空或被截断，不共享给等待方：
+ * 等待方重新发起请求，由其中一个成为新的执行方。等待方按自身的取消令牌和截止时间停止等待。
+ */
+@Slf4j
+public class SingleFlight<T> {
+
+    // 等待期间检查自身取消令牌和截止时间的间隔（毫秒）
+    private static final long WAIT_CHECK_INTERVAL_MS = 200;
+
+    private final ConcurrentHashMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executedCount = new AtomicLong(0);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+    private final AtomicLong retriedCount = new AtomicLong(0);
+
+    /**
+     * 执行请求，若相同键的请求正在进行则等待其结果
+     *
+     * @param key 请求键
+     * @param loader 实际执行的请求
+     * @return 请求结果；等待期间自身截止时间已过时返回null
+     * @throws CancellationException 等待期间自身任务被取消或线程被中断
+     */
+    public T execute(String key, Supplier<T> loader) {
+        while (true) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            CompletableFuture<T> existing = inFlight.putIfAbsent(key, future);
+
+            if (existing == null) {
+                return lead(key, future, loader);
+            }
+
+            coalescedCount.incrementAndGet();
+            log.debug("合并进行中的相同请求: key={}", key);
+            try {
+                return await(existing);
+            } catch (LeaderAbortedException e) {
+                retriedCount.incrementAndGet();
+                log.debug("执行方已取消或超时，重新发起请求: key={}", key);
+            }
+        }
+    }
+
+    /**
+     * 当前进行中的请求数
+     */
+    public int inFlightSize() {
+        return inFlight.size();
+    }
+
+    /**
+     * 实际执行的请求数
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * 被合并的请求数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * 因执行方取消或超时而重新发起的请求数
+     */
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    /**
+     * 作为执行方执行请求，先移除键再发布结果，使重新发起的等待方不会再取到同一个结果
+     */
+    private T lead(String key, CompletableFuture<T> future, Supplier<T> loader) {
+        executedCount.incrementAndGet();
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = loader.get();
+            return result;
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+            if (isLeaderAborted()) {
+                future.completeExceptionally(new LeaderAbortedException());
+            } else if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    /**
+     * 执行方的结果是否因取消、中断或截止时间而不完整
+     */
+    private boolean isLeaderAborted() {
+        if (CancellationToken.isCurrentCancelled() || Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        Deadline deadline = Deadline.current();
+        return deadline != null && deadline.isExpired();
+    }
+
+    private T await(CompletableFuture<T> future) {
+        while (true) {
+            CancellationToken.checkCurrent();
+            if (Deadline.checkExpired()) {
+                return null;
+            }
+            long waitMs = Math.max(1, Math.min(WAIT_CHECK_INTERVAL_MS, Deadline.currentRemainingMs()));
+            try {
+                return future.get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // 继续等待
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("等待进行中的相同请求时被中断");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * 执行方已取消或超时，等待方需要重新发起请求
+     */
+    private static class LeaderAbortedException extends RuntimeException {
+
+        LeaderAbortedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.hotech.events.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * 流式JSON对象提取器
+ * 逐段接收模型输出文本，每当数组中的一个顶层对象闭合时立即回调该对象的JSON文本。
+ * 适用于 [{...},{...}] 或 {"events":[{...}]} 两种格式，对象内部的嵌套对象不会被单独回调。
+ */
+@Slf4j
+public class StreamingJsonObjectExtractor {
+
+    private final Consumer<String> objectConsumer;
+    private final StringBuilder buffer = new StringBuilder();
+    private final Deque<Character> containers = new ArrayDeque<>();
+
+    // 当前候选对象在缓冲区中的起始位置及其所在层级
+    private int candidateStart = -1;
+    private int candidateDepth = -1;
+
+    private boolean inString = false;
+    private boolean escaping = false;
+    private int scanPosition = 0;
+    private int emittedCount = 0;
+
+    public StreamingJsonObjectExtractor(Consumer<String> objectConsumer) {
+        this.objectConsumer = objectConsumer;
+    }
+
+    /**
+     * 追加一段文本并提取其中已闭合的对象
+     *
+     * @param chunk 文本片段
+     */
+    public void append(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+
+        buffer.append(chunk);
+
+        for (; scanPosition < buffer.length(); scanPosition++) {
+            char c = buffer.charAt(scanPosition);
+
+            if (inString) {
+                if (escaping) {
+                    escaping = false;
+                } else if (c == '\\') {
+                    escaping = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"':
+                    // 只在JSON容器内部跟踪字符串，避免正文中的引号干扰
+                    if (!containers.isEmpty()) {
+                        inString = true;
+                    }
+                    break;
+                case '[':
+                    containers.push('[');
+                    break;
+                case '{':
+                    if (candidateStart < 0 && !containers.isEmpty() && containers.peek() == '[') {
+                        candidateStart = scanPosition;
+                        candidateDepth = containers.size();
+                    }
+                    containers.push('{');
+                    break;
+                case ']':
+                case '}':
+                    closeContainer(c == '}' ? '{' : '[');
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        compactBuffer();
+    }
+
+    /**
+     * 已回调的对象数量
+     */
+    public int getEmittedCount() {
+        return emittedCount;
+    }
+
+    /**
+     * 处理容器闭合
+     */
+    private void closeContainer(char expectedOpen) {
+        if (containers.isEmpty() || containers.peek() != expectedOpen) {
+            // 括号不匹配（通常是正文中的符号），重置状态
+            resetState();
+            return;
+        }
+
+        containers.pop();
+
+        if (expectedOpen == '{' && candidateStart >= 0 && containers.size() == candidateDepth) {
+            String objectJson = buffer.substring(candidateStart, scanPosition + 1);
+            candidateStart = -1;
+            candidateDepth = -1;
+            emittedCount++;
+            try {
+                objectConsumer.accept(objectJson);
+            } catch (Exception e) {
+                log.warn("流式对象回调处理失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 丢弃已扫描且不再需要的缓冲内容，控制内存占用
+     */
+    private void compactBuffer() {
+        int keepFrom = candidateStart >= 0 ? candidateStart : scanPosition;
+        if (keepFrom > 0) {
+            buffer.delete(0, keepFrom);
+            scanPosition -= keepFrom;
+            if (candidateStart >= 0) {
+                candidateStart = 0;
+            }
+        }
+    }
+
+    private void resetState() {
+        containers.clear();
+        candidateStart = -1;
+        candidateDepth = -1;
+        inString = false;
+        escaping = false;
+    }
+}
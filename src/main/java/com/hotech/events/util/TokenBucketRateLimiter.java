@@ -0,0 +1,251 @@
+package com.hotech.events.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 令牌桶限流器
+ * 每个限流键同时维护请求数桶和Token数桶，两个桶按窗口速率连续回填；状态为不可变对象，通过CAS无锁更新。
+ * 调用前按预估Token数预占，调用完成后按实际用量（usage.total_tokens）校正，超用部分记为欠额由后续请求等待偿还。
+ */
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    private final double requestCapacity;
+    private final double tokenCapacity;
+    private final double requestRefillPerMs;
+    private final double tokenRefillPerMs;
+
+    private final ConcurrentHashMap<String, AtomicReference<BucketState>> buckets = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong acquiredCount = new AtomicLong(0);
+    private final AtomicLong waitedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong consumedTokens = new AtomicLong(0);
+
+    /**
+     * @param maxRequests 窗口内最大请求数
+     * @param maxTokens 窗口内最大Token数，小于等于0表示不限制
+     * @param windowMs 窗口长度（毫秒）
+     */
+    public TokenBucketRateLimiter(long maxRequests, long maxTokens, long windowMs) {
+        this.requestCapacity = Math.max(1, maxRequests);
+        this.tokenCapacity = maxTokens > 0 ? maxTokens : Double.POSITIVE_INFINITY;
+        this.requestRefillPerMs = requestCapacity / windowMs;
+        this.tokenRefillPerMs = maxTokens > 0 ? tokenCapacity / windowMs : 0;
+    }
+
+    /**
+     * 尝试立即获取一次请求和指定Token数的额度
+     *
+     * @param key 限流键
+     * @param tokens 预估Token数
+     * @return 获取结果，未获取时包含建议等待时间
+     */
+    public Decision tryAcquire(String key, long tokens) {
+        AtomicReference<BucketState> ref = buckets.computeIfAbsent(key,
+                k -> new AtomicReference<>(new BucketState(requestCapacity, tokenCapacity, System.currentTimeMillis())));
+        // 超过桶容量的请求按满桶计算，避免永远无法通过
+        double required = Math.min(tokens, tokenCapacity);
+
+        while (true) {
+            BucketState current = ref.get();
+            BucketState refilled = current.refill(System.currentTimeMillis());
+
+            if (refilled.requests >= 1 && refilled.tokens >= required) {
+                BucketState next = new BucketState(refilled.requests - 1, refilled.tokens - required, refilled.timestamp);
+                if (ref.compareAndSet(current, next)) {
+                    acquiredCount.incrementAndGet();
+                    return Decision.ALLOWED;
+                }
+                continue;
+            }
+
+            long requestWait = refilled.requests >= 1 ? 0
+                    : (long) Math.ceil((1 - refilled.requests) / requestRefillPerMs);
+            long tokenWait = refilled.tokens >= required ? 0
+                    : (long) Math.ceil((required - refilled.tokens) / tokenRefillPerMs);
+            return new Decision(false, Math.max(1, Math.max(requestWait, tokenWait)));
+        }
+    }
+
+    /**
+     * 获取额度，需要等待的时间不超过最长等待时间时等待，否则立即拒绝
+     *
+     * @param key 限流键
+     * @param tokens 预估Token数
+     * @param maxWaitMs 最长等待时间（毫秒）
+     * @return 是否获取成功
+     */
+    public boolean acquire(String key, long tokens, long maxWaitMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        boolean waited = false;
+
+        while (true) {
+            Decision decision = tryAcquire(key, tokens);
+            if (decision.isAllowed()) {
+                if (waited) {
+                    waitedCount.incrementAndGet();
+                }
+                return true;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (decision.getWaitMs() > remaining) {
+                rejectedCount.incrementAndGet();
+                log.warn("请求被限流: key={}, tokens={}, waitMs={}, maxWaitMs={}",
+                        key, tokens, decision.getWaitMs(), maxWaitMs);
+                return false;
+            }
+
+            waited = true;
+            Thread.sleep(decision.getWaitMs());
+        }
+    }
+
+    /**
+     * 按实际Token用量校正预占额度
+     *
+     * @param key 限流键
+     * @param reservedTokens 预占的Token数
+     * @param actualTokens 实际消耗的Token数
+     */
+    public void reconcile(String key, long reservedTokens, long actualTokens) {
+        consumedTokens.addAndGet(actualTokens);
+        AtomicReference<BucketState> ref = buckets.get(key);
+        if (ref == null || tokenRefillPerMs == 0) {
+            return;
+        }
+
+        double refund = Math.min(reservedTokens, tokenCapacity) - actualTokens;
+        if (refund == 0) {
+            return;
+        }
+
+        while (true) {
+            BucketState current = ref.get();
+            BucketState refilled = current.refill(System.currentTimeMillis());
+            BucketState next = new BucketState(refilled.requests,
+                    Math.min(tokenCapacity, refilled.tokens + refund), refilled.timestamp);
+            if (ref.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 获取剩余请求数
+     *
+     * @param key 限流键
+     * @return 剩余请求数
+     */
+    public int getRemainingRequests(String key) {
+        AtomicReference<BucketState> ref = buckets.get(key);
+        if (ref == null) {
+            return (int) requestCapacity;
+        }
+        return (int) ref.get().refill(System.currentTimeMillis()).requests;
+    }
+
+    /**
+     * 获取剩余Token数
+     *
+     * @param key 限流键
+     * @return 剩余Token数，不限制时返回Long.MAX_VALUE
+     */
+    public long getRemainingTokens(String key) {
+        if (tokenRefillPerMs == 0) {
+            return Long.MAX_VALUE;
+        }
+        AtomicReference<BucketState> ref = buckets.get(key);
+        if (ref == null) {
+            return (long) tokenCapacity;
+        }
+        return (long) ref.get().refill(System.currentTimeMillis()).tokens;
+    }
+
+    /**
+     * 清理已回填满的桶（等同于新建）
+     */
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        buckets.entrySet().removeIf(entry -> {
+            BucketState state = entry.getValue().get().refill(now);
+            return state.requests >= requestCapacity && state.tokens >= tokenCapacity;
+        });
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requestsPerWindow", (long) requestCapacity);
+        stats.put("tokensPerWindow", tokenRefillPerMs == 0 ? -1 : (long) tokenCapacity);
+        stats.put("acquiredCount", acquiredCount.get());
+        stats.put("waitedCount", waitedCount.get());
+        stats.put("rejectedCount", rejectedCount.get());
+        stats.put("consumedTokens", consumedTokens.get());
+        stats.put("activeKeys", buckets.size());
+        return stats;
+    }
+
+    /**
+     * 桶状态（不可变）
+     */
+    private class BucketState {
+        final double requests;
+        final double tokens;
+        final long timestamp;
+
+        BucketState(double requests, double tokens, long timestamp) {
+            this.requests = requests;
+            this.tokens = tokens;
+            this.timestamp = timestamp;
+        }
+
+        BucketState refill(long now) {
+            long elapsed = now - timestamp;
+            if (elapsed <= 0) {
+                return this;
+            }
+            return new BucketState(
+                    Math.min(requestCapacity, requests + elapsed * requestRefillPerMs),
+                    Math.min(tokenCapacity, tokens + elapsed * tokenRefillPerMs),
+                    now);
+        }
+    }
+
+    /**
+     * 限流判定结果
+     */
+    public static class Decision {
+
+        static final Decision ALLOWED = new Decision(true, 0);
+
+        private final boolean allowed;
+        private final long waitMs;
+
+        Decision(boolean allowed, long waitMs) {
+            this.allowed = allowed;
+            this.waitMs = waitMs;
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        /**
+         * 获取建议等待时间（毫秒），允许时为0
+         */
+        public long getWaitMs() {
+            return waitMs;
+        }
+    }
+}
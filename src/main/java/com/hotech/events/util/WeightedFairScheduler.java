@@ -0,0 +1,290 @@
+package com.hotech.events.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 加权公平调度器
+ * 固定数量的工作线程从各优先级队列中取任务执行：优先级之间按权重做步长调度（权重越大被选中越频繁，
+ * 低权重队列不会被饿死），同一优先级内按任务键（生成任务）轮转，每个生成任务每轮只取一个调用，
+ * 长时间跨度的任务不会占满线程而阻塞其他任务。
+ * 已取消的任务在出队时跳过。
+ */
+@Slf4j
+public class WeightedFairScheduler {
+
+    private static final String DEFAULT_JOB_KEY = "default";
+
+    private final String name;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<PriorityClass, ClassQueue> queues = new EnumMap<>(PriorityClass.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    // 最近一次出队时的虚拟时间，空闲后重新入队的优先级从该时间开始计算，不累积空闲期间的额度
+    private double virtualTime = 0;
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param name 调度器名称（用于线程名和日志）
+     * @param threads 工作线程数
+     * @param weights 各优先级的权重，未配置的优先级权重为1
+     */
+    public WeightedFairScheduler(String name, int threads, Map<PriorityClass, Integer> weights) {
+        this.name = name;
+        for (PriorityClass priority : PriorityClass.values()) {
+            Integer weight = weights.get(priority);
+            queues.put(priority, new ClassQueue(weight != null ? Math.max(1, weight) : 1));
+        }
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread thread = new Thread(this::runWorker, name + "-" + (i + 1));
+            thread.setDaemon(true);
+            workers.add(thread);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * 按当前线程的优先级和取消令牌（作为任务键）提交任务
+     *
+     * @param supplier 任务
+     * @return 任务结果
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> supplier) {
+        CancellationToken token = CancellationToken.current();
+        return submit(PriorityClass.current(), token != null ? token.getKey() : DEFAULT_JOB_KEY, supplier);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param priority 优先级
+     * @param jobKey 任务键，同一优先级内按任务键轮转
+     * @param supplier 任务
+     * @return 任务结果
+     */
+    public <T> CompletableFuture<T> submit(PriorityClass priority, String jobKey, Supplier<T> supplier) {
+        if (shutdown) {
+            throw new RejectedExecutionException("调度器已关闭: " + name);
+        }
+        Task<T> task = new Task<>(priority, supplier);
+        lock.lock();
+        try {
+            ClassQueue queue = queues.get(priority);
+            if (queue.size == 0) {
+                queue.pass = Math.max(queue.pass, virtualTime);
+            }
+            queue.add(jobKey != null ? jobKey : DEFAULT_JOB_KEY, task);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return task.future;
+    }
+
+    /**
+     * 关闭调度器，未执行的任务以异常结束
+     */
+    public void shutdown() {
+        shutdown = true;
+        lock.lock();
+        try {
+            for (ClassQueue queue : queues.values()) {
+                Task<?> task;
+                while ((task = queue.poll()) != null) {
+                    task.future.completeExceptionally(new RejectedExecutionException("调度器已关闭: " + name));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * 获取各优先级的队列深度、等待时间等统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers.size());
+        lock.lock();
+        try {
+            for (Map.Entry<PriorityClass, ClassQueue> entry : queues.entrySet()) {
+                ClassQueue queue = entry.getValue();
+                long started = queue.started.get();
+                Map<String, Object> classStats = new HashMap<>();
+                classStats.put("weight", queue.weight);
+                classStats.put("queueDepth", queue.size);
+                classStats.put("queuedJobs", queue.jobs.size());
+                classStats.put("running", queue.running.get());
+                classStats.put("submitted", queue.submitted.get());
+                classStats.put("completed", queue.completed.get());
+                classStats.put("failed", queue.failed.get());
+                classStats.put("avgWaitMs", started > 0 ? queue.totalWaitMs.get() / started : 0);
+                classStats.put("maxWaitMs", queue.maxWaitMs.get());
+                classStats.put("oldestWaitMs", queue.getOldestWaitMs());
+                stats.put(entry.getKey().name(), classStats);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    private void runWorker() {
+        while (!shutdown) {
+            Task<?> task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                // 任务取消时中断的是执行中的线程，等待中的线程收到中断时继续等待，直到调度器关闭
+                continue;
+            }
+            if (task.future.isDone()) {
+                continue;
+            }
+            run(task);
+        }
+    }
+
+    private <T> void run(Task<T> task) {
+        ClassQueue queue = queues.get(task.priority);
+        long waitMs = System.currentTimeMillis() - task.enqueuedAt;
+        queue.started.incrementAndGet();
+        queue.totalWaitMs.addAndGet(waitMs);
+        queue.maxWaitMs.accumulateAndGet(waitMs, Math::max);
+        queue.running.incrementAndGet();
+
+        try (PriorityClass.Binding ignored = task.priority.bind()) {
+            task.future.complete(task.supplier.get());
+            queue.completed.incrementAndGet();
+        } catch (Throwable e) {
+            queue.failed.incrementAndGet();
+            task.future.completeExceptionally(e);
+        } finally {
+            queue.running.decrementAndGet();
+            // 清除任务取消时留下的中断标记，避免影响下一个任务
+            Thread.interrupted();
+        }
+    }
+
+    private Task<?> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (shutdown) {
+                    throw new InterruptedException("调度器已关闭: " + name);
+                }
+                ClassQueue next = null;
+                for (ClassQueue queue : queues.values()) {
+                    if (queue.size > 0 && (next == null || queue.pass < next.pass)) {
+                        next = queue;
+                    }
+                }
+                if (next != null) {
+                    virtualTime = next.pass;
+                    next.pass += 1.0 / next.weight;
+                    return next.poll();
+                }
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调度任务
+     */
+    private static class Task<T> {
+
+        private final PriorityClass priority;
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.currentTimeMillis();
+
+        Task(PriorityClass priority, Supplier<T> supplier) {
+            this.priority = priority;
+            this.supplier = supplier;
+        }
+    }
+
+    /**
+     * 单个优先级的队列，按任务键分组并轮转出队（需在调度器锁内访问）
+     */
+    private static class ClassQueue {
+
+        private final int weight;
+        private final Map<String, ArrayDeque<Task<?>>> jobs = new HashMap<>();
+        private final ArrayDeque<String> rotation = new ArrayDeque<>();
+        private int size = 0;
+        private double pass = 0;
+
+        private final AtomicLong submitted = new AtomicLong(0);
+        private final AtomicLong started = new AtomicLong(0);
+        private final AtomicLong completed = new AtomicLong(0);
+        private final AtomicLong failed = new AtomicLong(0);
+        private final AtomicLong totalWaitMs = new AtomicLong(0);
+        private final AtomicLong maxWaitMs = new AtomicLong(0);
+        private final AtomicInteger running = new AtomicInteger(0);
+
+        ClassQueue(int weight) {
+            this.weight = weight;
+        }
+
+        void add(String jobKey, Task<?> task) {
+            ArrayDeque<Task<?>> jobQueue = jobs.get(jobKey);
+            if (jobQueue == null) {
+                jobQueue = new ArrayDeque<>();
+                jobs.put(jobKey, jobQueue);
+                rotation.addLast(jobKey);
+            }
+            jobQueue.addLast(task);
+            size++;
+            submitted.incrementAndGet();
+        }
+
+        Task<?> poll() {
+            String jobKey = rotation.pollFirst();
+            if (jobKey == null) {
+                return null;
+            }
+            ArrayDeque<Task<?>> jobQueue = jobs.get(jobKey);
+            Task<?> task = jobQueue.pollFirst();
+            if (jobQueue.isEmpty()) {
+                jobs.remove(jobKey);
+            } else {
+                rotation.addLast(jobKey);
+            }
+            size--;
+            return task;
+        }
+
+        long getOldestWaitMs() {
+            long now = System.currentTimeMillis();
+            long oldest = 0;
+            for (ArrayDeque<Task<?>> jobQueue : jobs.values()) {
+                Task<?> head = jobQueue.peekFirst();
+                if (head != null) {
+                    oldest = Math.max(oldest, now - head.enqueuedAt);
+                }
+            }
+            return oldest;
+        }
+    }
+}
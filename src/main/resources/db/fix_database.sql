@@ -98,8 +98,129 @@ ALTER TABLE `event` ADD COLUMN `validation_status` varchar(20) DEFAULT 'PENDING'
 ALTER TABLE `event` ADD COLUMN `source_urls` text COMMENT '来源URL列表';
 ALTER TABLE `event` ADD COLUMN `fetch_method` varchar(50) COMMENT '获取方法';
 ALTER TABLE `event` ADD COLUMN `last_validated_at` datetime COMMENT '最后验证时间';
+-- 添加去重指纹字段和索引（忽略错误，如果字段或索引已存在），历史事件的指纹由应用定期回填
+ALTER TABLE `event` ADD COLUMN `content_fingerprint` char(32) COMMENT '内容指纹（规范化标题的MD5）';
+ALTER TABLE `event` ADD COLUMN `blocking_key` char(32) COMMENT '分块键（事件日期+主体+客体+事件类型的MD5）';
+ALTER TABLE `event` ADD INDEX `idx_content_fingerprint` (`content_fingerprint`);
+ALTER TABLE `event` ADD INDEX `idx_blocking_key` (`blocking_key`);
 
--- 6. 检查并创建其他可能需要的表
+-- 6. 创建大模型响应缓存表
+CREATE TABLE IF NOT EXISTS `llm_response_cache` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `cache_key` char(64) NOT NULL COMMENT '缓存键（服务商+模型+规范化提示词哈希+参数的SHA-256）',
+  `provider` varchar(100) NOT NULL COMMENT '服务商主机名',
+  `model` varchar(100) COMMENT '模型名称',
+  `prompt_hash` char(64) NOT NULL COMMENT '规范化提示词哈希',
+  `content` mediumblob NOT NULL COMMENT '响应内容（可能经过GZIP压缩）',
+  `compressed` tinyint(1) DEFAULT '0' COMMENT '是否压缩',
+  `original_size` int DEFAULT '0' COMMENT '原始字节数',
+  `stored_size` int DEFAULT '0' COMMENT '存储字节数',
+  `hit_count` int DEFAULT '0' COMMENT '命中次数',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `last_access_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '最后访问时间',
+  `expires_at` datetime NOT NULL COMMENT '过期时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_cache_key` (`cache_key`),
+  KEY `idx_expires_at` (`expires_at`),
+  KEY `idx_last_access_at` (`last_access_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='大模型响应缓存表';
+
+-- 7. 创建时间线生成任务表
+CREATE TABLE IF NOT EXISTS `timeline_generation_job` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `timeline_id` bigint NOT NULL COMMENT '时间线ID',
+  `region_ids` varchar(1000) DEFAULT '' COMMENT '地区ID列表（逗号分隔）',
+  `start_time` datetime COMMENT '开始时间',
+  `end_time` datetime COMMENT '结束时间',
+  `job_type` varchar(20) NOT NULL DEFAULT 'GENERATE' COMMENT '任务类型：GENERATE(完整生成)/REFRESH(增量刷新)',
+  `priority` varchar(20) NOT NULL DEFAULT 'INTERACTIVE' COMMENT '优先级：INTERACTIVE/SCHEDULED/BULK',
+  `deadline_at` datetime COMMENT '截止时间，为空时不限制',
+  `status` varchar(20) NOT NULL DEFAULT 'QUEUED' COMMENT '状态：QUEUED/RUNNING/COMPLETED/FAILED/CANCELLED',
+  `owner_node` varchar(128) COMMENT '执行节点ID',
+  `lease_token` bigint COMMENT '执行时持有的租约防护令牌',
+  `attempts` int DEFAULT '0' COMMENT '执行次数',
+  `error_message` varchar(1000) COMMENT '错误信息',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `started_at` datetime COMMENT '开始执行时间',
+  `finished_at` datetime COMMENT '结束时间',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_timeline_id` (`timeline_id`),
+  KEY `idx_status_id` (`status`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='时间线生成任务表';
+
+-- 8. 创建时间线分段检查点表
+CREATE TABLE IF NOT EXISTS `timeline_segment_checkpoint` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `timeline_id` bigint NOT NULL COMMENT '时间线ID',
+  `segment_id` varchar(100) NOT NULL COMMENT '时间段ID',
+  `segment_start` datetime NOT NULL COMMENT '时间段开始时间',
+  `segment_end` datetime NOT NULL COMMENT '时间段结束时间',
+  `event_count` int DEFAULT '0' COMMENT '事件数量',
+  `events_json` mediumtext NOT NULL COMMENT '已验证的事件列表（JSON）',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_timeline_segment` (`timeline_id`, `segment_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='时间线分段检查点表';
+
+-- 9. 创建时间段覆盖记录表
+CREATE TABLE IF NOT EXISTS `segment_coverage` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `region_key` varchar(255) NOT NULL COMMENT '地区集合键（排序后的地区ID）',
+  `window_start` datetime NOT NULL COMMENT '时间窗口开始时间',
+  `window_end` datetime NOT NULL COMMENT '时间窗口结束时间',
+  `prompt_version` varchar(32) NOT NULL COMMENT '提示词模板版本',
+  `event_count` int DEFAULT '0' COMMENT '获取到的事件数量',
+  `fetched_at` datetime NOT NULL COMMENT '获取时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_region_window_version` (`region_key`, `window_start`, `window_end`, `prompt_version`),
+  KEY `idx_region_version_start` (`region_key`, `prompt_version`, `window_start`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='时间段覆盖记录表';
+
+-- 10. 修复 timeline 表结构
+-- 添加增量刷新所需的字段（忽略错误，如果字段已存在）
+ALTER TABLE `timeline` ADD COLUMN `last_generated_at` datetime COMMENT '最后一次生成或刷新成功的时间';
+ALTER TABLE `timeline_generation_job` ADD COLUMN `job_type` varchar(20) NOT NULL DEFAULT 'GENERATE' COMMENT '任务类型：GENERATE(完整生成)/REFRESH(增量刷新)';
+ALTER TABLE `timeline_generation_job` ADD COLUMN `priority` varchar(20) NOT NULL DEFAULT 'INTERACTIVE' COMMENT '优先级：INTERACTIVE/SCHEDULED/BULK';
+-- 添加多节点协调所需的字段（忽略错误，如果字段已存在）
+ALTER TABLE `timeline` ADD COLUMN `generation_progress` text COMMENT '生成进度（JSON），供所有节点查询';
+ALTER TABLE `timeline_generation_job` ADD COLUMN `owner_node` varchar(128) COMMENT '执行节点ID';
+ALTER TABLE `timeline_generation_job` ADD COLUMN `lease_token` bigint COMMENT '执行时持有的租约防护令牌';
+
+-- 11. 创建生成租约表
+CREATE TABLE IF NOT EXISTS `generation_lease` (
+  `lease_key` varchar(128) NOT NULL COMMENT '租约键',
+  `owner_id` varchar(128) COMMENT '持有节点ID，为空表示未被持有',
+  `fencing_token` bigint NOT NULL DEFAULT '0' COMMENT '防护令牌，每次获取租约时递增',
+  `expires_at` datetime(3) NOT NULL COMMENT '过期时间',
+  `heartbeat_at` datetime(3) COMMENT '最近一次心跳时间',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`lease_key`),
+  KEY `idx_owner_expires` (`owner_id`, `expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='生成租约表';
+
+-- 12. 创建事件MinHash签名表和LSH分段索引表
+CREATE TABLE IF NOT EXISTS `event_minhash` (
+  `event_id` bigint NOT NULL COMMENT '事件ID',
+  `signature` varbinary(1024) NOT NULL COMMENT 'MinHash签名（每个哈希值4字节）',
+  `signature_version` varchar(32) NOT NULL COMMENT '签名版本（分片大小、哈希函数数、分段数）',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`event_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='事件MinHash签名表';
+
+CREATE TABLE IF NOT EXISTS `event_lsh_band` (
+  `band_key` bigint NOT NULL COMMENT '分段键',
+  `event_id` bigint NOT NULL COMMENT '事件ID',
+  PRIMARY KEY (`band_key`, `event_id`),
+  KEY `idx_event_id` (`event_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='事件LSH分段索引表';
+
+-- 13. 修复 timeline_event 表唯一键
+-- 批量关联依赖 (timeline_id, event_id) 唯一键忽略已存在的关联。
+-- 删除重复记录需要全表自连接，由 DatabaseInitializer 在唯一键不存在时与添加唯一键一起执行
+
+-- 14. 检查并创建其他可能需要的表
 -- 如果有其他表缺失，可以在这里添加
 
 SHOW TABLES;
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.hotech.events.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 进行中请求合并测试：结果共享、异常传递、执行方取消或超时后等待方重试
+ */
+class SingleFlightTest {
+
+    private static final String KEY = "segment";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareLeaderResult() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(KEY, () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            awaitQuietly(release);
+            return "result";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<String> waiter = executor.submit(() -> singleFlight.execute(KEY, () -> {
+            loads.incrementAndGet();
+            return "duplicate";
+        }));
+        awaitCoalesced(singleFlight, 1);
+        release.countDown();
+
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("result", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.getExecutedCount());
+        assertEquals(0, singleFlight.getRetriedCount());
+        assertEquals(0, singleFlight.inFlightSize());
+    }
+
+    @Test
+    void leaderFailureIsSharedWithWaiters() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(KEY, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            throw new IllegalStateException("调用失败");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<String> waiter = executor.submit(() -> singleFlight.execute(KEY, () -> "duplicate"));
+        awaitCoalesced(singleFlight, 1);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterError = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+        assertInstanceOf(IllegalStateException.class, waiterError.getCause());
+        assertEquals(1, singleFlight.getExecutedCount());
+    }
+
+    @Test
+    void waiterRetriesWhenLeaderIsCancelled() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CancellationToken token = CancellationToken.register("single-flight-test");
+        CountDownLatch started = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> {
+            try (CancellationToken.Binding ignored = token.bind()) {
+                return singleFlight.execute(KEY, () -> {
+                    started.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    // 被取消的执行方返回的不完整结果
+                    return "partial";
+                });
+            } finally {
+                CancellationToken.unregister(token);
+                Thread.interrupted();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<String> waiter = executor.submit(() -> singleFlight.execute(KEY, () -> "fresh"));
+        awaitCoalesced(singleFlight, 1);
+        token.cancel();
+
+        assertEquals("partial", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(2, singleFlight.getExecutedCount());
+        assertEquals(1, singleFlight.getRetriedCount());
+        assertEquals(0, singleFlight.inFlightSize());
+    }
+
+    @Test
+    void waiterRetriesWhenLeaderDeadlineExpires() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> {
+            try (Deadline.Binding ignored = Deadline.after(50).bind()) {
+                return singleFlight.execute(KEY, () -> {
+                    started.countDown();
+                    awaitQuietly(release);
+                    return "late";
+                });
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<String> waiter = executor.submit(() -> singleFlight.execute(KEY, () -> "fresh"));
+        awaitCoalesced(singleFlight, 1);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals("late", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(2, singleFlight.getExecutedCount());
+        assertEquals(1, singleFlight.getRetriedCount());
+    }
+
+    @Test
+    void waiterStopsWaitingAtItsOwnDeadline() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(KEY, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "result";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<String> waiter = executor.submit(() -> {
+            try (Deadline.Binding ignored = Deadline.after(100).bind()) {
+                return singleFlight.execute(KEY, () -> "duplicate");
+            }
+        });
+
+        assertNull(waiter.get(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, singleFlight.getExecutedCount());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitCoalesced(SingleFlight<?> singleFlight, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.getCoalescedCount() < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待方未加入进行中的请求");
+            Thread.sleep(5);
+        }
+    }
+}
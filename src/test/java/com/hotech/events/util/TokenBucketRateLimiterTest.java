@@ -0,0 +1,131 @@
+package com.hotech.events.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 令牌桶限流器测试：回填、预占校正与欠额偿还
+ */
+class TokenBucketRateLimiterTest {
+
+    private static final String KEY = "test";
+
+    // 一小时窗口，测试期间的回填量可以忽略
+    private static final long LONG_WINDOW_MS = 3_600_000L;
+
+    @Test
+    void requestBucketRefillsAfterSuggestedWait() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 0, 200);
+
+        assertTrue(limiter.tryAcquire(KEY, 0).isAllowed());
+        assertTrue(limiter.tryAcquire(KEY, 0).isAllowed());
+
+        TokenBucketRateLimiter.Decision denied = limiter.tryAcquire(KEY, 0);
+        assertFalse(denied.isAllowed());
+        assertTrue(denied.getWaitMs() > 0 && denied.getWaitMs() <= 100,
+                "每个请求的回填间隔为100ms，实际建议等待: " + denied.getWaitMs());
+
+        Thread.sleep(denied.getWaitMs() + 20);
+        assertTrue(limiter.tryAcquire(KEY, 0).isAllowed());
+    }
+
+    @Test
+    void tokenBucketRefillsContinuously() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 1000, 200);
+
+        assertTrue(limiter.tryAcquire(KEY, 1000).isAllowed());
+        assertFalse(limiter.tryAcquire(KEY, 500).isAllowed());
+
+        Thread.sleep(120);
+        assertTrue(limiter.tryAcquire(KEY, 500).isAllowed());
+    }
+
+    @Test
+    void acquireRejectsWhenWaitExceedsMaxWait() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 0, LONG_WINDOW_MS);
+
+        assertTrue(limiter.acquire(KEY, 0, 0));
+        assertFalse(limiter.acquire(KEY, 0, 50));
+        assertEquals(1L, limiter.getStats().get("rejectedCount"));
+    }
+
+    @Test
+    void requestLargerThanCapacityIsCappedToFullBucket() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1000, LONG_WINDOW_MS);
+
+        assertTrue(limiter.tryAcquire(KEY, 5000).isAllowed());
+        assertEquals(0, limiter.getRemainingTokens(KEY));
+    }
+
+    @Test
+    void reconcileRefundsUnusedReservation() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1000, LONG_WINDOW_MS);
+
+        assertTrue(limiter.tryAcquire(KEY, 800).isAllowed());
+        assertEquals(200, limiter.getRemainingTokens(KEY));
+
+        limiter.reconcile(KEY, 800, 300);
+        assertEquals(700, limiter.getRemainingTokens(KEY));
+        assertEquals(300L, limiter.getStats().get("consumedTokens"));
+    }
+
+    @Test
+    void refundNeverExceedsCapacity() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1000, LONG_WINDOW_MS);
+
+        assertTrue(limiter.tryAcquire(KEY, 5000).isAllowed());
+        limiter.reconcile(KEY, 5000, 0);
+        assertEquals(1000, limiter.getRemainingTokens(KEY));
+    }
+
+    @Test
+    void overuseBecomesDebtThatBlocksLaterRequests() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1000, LONG_WINDOW_MS);
+
+        assertTrue(limiter.tryAcquire(KEY, 100).isAllowed());
+        // 实际用量超出预占1000，负退款使桶进入欠额
+        limiter.reconcile(KEY, 100, 1100);
+        long remaining = limiter.getRemainingTokens(KEY);
+        assertTrue(remaining <= -99 && remaining >= -100, "欠额应约为100，实际剩余: " + remaining);
+
+        TokenBucketRateLimiter.Decision decision = limiter.tryAcquire(KEY, 1);
+        assertFalse(decision.isAllowed());
+        // 需先偿还100个欠额再获得1个Token，按每3600ms回填1个计算约需363600ms
+        assertTrue(decision.getWaitMs() > 350_000 && decision.getWaitMs() <= 363_600,
+                "建议等待应覆盖欠额偿还时间，实际: " + decision.getWaitMs());
+    }
+
+    @Test
+    void debtIsRepaidByRefillBeforeNewRequestsPass() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 1000, 200);
+
+        assertTrue(limiter.tryAcquire(KEY, 1000).isAllowed());
+        limiter.reconcile(KEY, 1000, 1500);
+
+        // 欠额500加需求500，共需200ms回填
+        TokenBucketRateLimiter.Decision decision = limiter.tryAcquire(KEY, 500);
+        assertFalse(decision.isAllowed());
+        assertTrue(decision.getWaitMs() > 100, "建议等待应包含欠额偿还时间，实际: " + decision.getWaitMs());
+
+        Thread.sleep(120);
+        assertFalse(limiter.tryAcquire(KEY, 500).isAllowed());
+
+        Thread.sleep(120);
+        assertTrue(limiter.tryAcquire(KEY, 500).isAllowed());
+    }
+
+    @Test
+    void reconcileWithoutTokenLimitOnlyCountsUsage() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 0, LONG_WINDOW_MS);
+
+        assertTrue(limiter.tryAcquire(KEY, 100).isAllowed());
+        limiter.reconcile(KEY, 100, 5000);
+
+        assertEquals(Long.MAX_VALUE, limiter.getRemainingTokens(KEY));
+        assertTrue(limiter.tryAcquire(KEY, 100).isAllowed());
+        assertEquals(5000L, limiter.getStats().get("consumedTokens"));
+    }
+}
@@ -0,0 +1,164 @@
+package com.hotech.events.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 加权公平调度器测试：优先级按权重分配执行机会、低权重不被饿死、同一优先级内按任务键轮转
+ * 使用单个工作线程，先由闸门任务占住线程再批量入队，使出队顺序确定
+ */
+class WeightedFairSchedulerTest {
+
+    private WeightedFairScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void priorityClassesShareWorkerByWeight() throws Exception {
+        scheduler = new WeightedFairScheduler("test", 1, weights(4, 2, 1));
+        List<PriorityClass> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = holdWorker();
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            for (PriorityClass priority : PriorityClass.values()) {
+                futures.add(scheduler.submit(priority, "job-" + priority, () -> order.add(PriorityClass.current())));
+            }
+        }
+        gate.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // 三个队列都非空时，每7次出队按4:2:1分配
+        List<PriorityClass> firstRounds = order.subList(0, 21);
+        assertEquals(12, Collections.frequency(firstRounds, PriorityClass.INTERACTIVE), "执行顺序: " + order);
+        assertEquals(6, Collections.frequency(firstRounds, PriorityClass.SCHEDULED), "执行顺序: " + order);
+        assertEquals(3, Collections.frequency(firstRounds, PriorityClass.BULK), "执行顺序: " + order);
+        assertEquals(90, order.size());
+    }
+
+    @Test
+    void lowWeightClassIsNotStarved() throws Exception {
+        scheduler = new WeightedFairScheduler("test", 1, weights(100, 1, 1));
+        List<PriorityClass> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = holdWorker();
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(scheduler.submit(PriorityClass.INTERACTIVE, "interactive", () -> order.add(PriorityClass.INTERACTIVE)));
+        }
+        CompletableFuture<Boolean> bulk = scheduler.submit(PriorityClass.BULK, "bulk", () -> order.add(PriorityClass.BULK));
+        gate.countDown();
+
+        assertTrue(bulk.get(10, TimeUnit.SECONDS));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        int bulkPosition = order.indexOf(PriorityClass.BULK);
+        assertTrue(bulkPosition >= 0 && bulkPosition <= 101,
+                "权重1的任务应在约100次高优先级出队内执行，实际位置: " + bulkPosition);
+    }
+
+    @Test
+    void idleClassDoesNotAccumulateCredit() throws Exception {
+        scheduler = new WeightedFairScheduler("test", 1, weights(1, 1, 1));
+        List<PriorityClass> order = Collections.synchronizedList(new ArrayList<>());
+
+        // BULK长时间空闲期间INTERACTIVE持续执行
+        List<CompletableFuture<?>> warmup = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            warmup.add(scheduler.submit(PriorityClass.INTERACTIVE, "interactive", () -> true));
+        }
+        CompletableFuture.allOf(warmup.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        CountDownLatch gate = holdWorker();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.submit(PriorityClass.BULK, "bulk", () -> order.add(PriorityClass.BULK)));
+            futures.add(scheduler.submit(PriorityClass.INTERACTIVE, "interactive", () -> order.add(PriorityClass.INTERACTIVE)));
+        }
+        gate.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // 重新入队的BULK从当前虚拟时间开始计算，不会连续执行来补偿空闲期
+        List<PriorityClass> firstRounds = order.subList(0, 10);
+        assertTrue(Collections.frequency(firstRounds, PriorityClass.INTERACTIVE) >= 4, "执行顺序: " + order);
+    }
+
+    @Test
+    void jobsWithinClassAreRotated() throws Exception {
+        scheduler = new WeightedFairScheduler("test", 1, weights(1, 1, 1));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = holdWorker();
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(scheduler.submit(PriorityClass.SCHEDULED, "long-job", () -> order.add("long-job")));
+        }
+        for (int i = 0; i < 2; i++) {
+            futures.add(scheduler.submit(PriorityClass.SCHEDULED, "short-job", () -> order.add("short-job")));
+        }
+        gate.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("long-job", "short-job", "long-job", "short-job", "long-job", "long-job", "long-job"), order);
+    }
+
+    @Test
+    void cancelledTaskIsSkipped() throws Exception {
+        scheduler = new WeightedFairScheduler("test", 1, weights(1, 1, 1));
+        AtomicBoolean ran = new AtomicBoolean(false);
+        CountDownLatch gate = holdWorker();
+
+        CompletableFuture<Boolean> cancelled = scheduler.submit(PriorityClass.BULK, "job", () -> ran.getAndSet(true));
+        CompletableFuture<Boolean> next = scheduler.submit(PriorityClass.BULK, "job", () -> true);
+        cancelled.cancel(true);
+        gate.countDown();
+
+        assertTrue(next.get(10, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    /**
+     * 提交一个闸门任务占住唯一的工作线程，返回释放闸门的锁存器
+     */
+    private CountDownLatch holdWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit(PriorityClass.INTERACTIVE, "gate", () -> {
+            started.countDown();
+            try {
+                return gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    private static Map<PriorityClass, Integer> weights(int interactive, int scheduled, int bulk) {
+        Map<PriorityClass, Integer> weights = new EnumMap<>(PriorityClass.class);
+        weights.put(PriorityClass.INTERACTIVE, interactive);
+        weights.put(PriorityClass.SCHEDULED, scheduled);
+        weights.put(PriorityClass.BULK, bulk);
+        return weights;
+    }
+}